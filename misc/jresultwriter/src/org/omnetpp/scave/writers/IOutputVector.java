@@ -39,4 +39,13 @@ public interface IOutputVector {
      * Values MUST be recorded increasing timestamp order.
      */
     boolean record(Number time, double value);
+
+    /**
+     * Same as record(Number, double), but avoids boxing the time stamp.
+     * Implementations are encouraged to override it with an allocation-free
+     * implementation.
+     */
+    default boolean record(double time, double value) {
+        return record(Double.valueOf(time), value);
+    }
 }
@@ -0,0 +1,133 @@
+package org.omnetpp.scave.writers.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.omnetpp.scave.writers.ResultRecordingException;
+
+/**
+ * Executes file writing tasks of a result manager on a single background
+ * thread, in the order they were submitted. The queue is bounded: when it
+ * is full, submit() blocks until the writer thread catches up, so a fast
+ * simulation cannot use up the memory with pending results.
+ *
+ * If a task fails, the remaining tasks are skipped, and the error is
+ * rethrown as a ResultRecordingException from the next submit(), drain()
+ * or shutdown() call on the simulation thread.
+ */
+public class AsyncResultWriter {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    protected BlockingQueue<Runnable> queue;
+    protected Thread thread;
+    protected volatile RuntimeException error;
+
+    protected static final Runnable STOP = new Runnable() {
+        public void run() {
+        }
+    };
+
+    public AsyncResultWriter(String name) {
+        this(name, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public AsyncResultWriter(String name, int queueCapacity) {
+        queue = new ArrayBlockingQueue<Runnable>(queueCapacity);
+        thread = new Thread(name) {
+            public void run() {
+                processTasks();
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    protected void processTasks() {
+        while (true) {
+            Runnable task;
+            try {
+                task = queue.take();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            if (task == STOP)
+                return;
+            if (error == null) {
+                try {
+                    task.run();
+                }
+                catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues the task for execution on the writer thread; blocks while the queue is full.
+     */
+    public void submit(Runnable task) {
+        checkError();
+        try {
+            queue.put(task);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResultRecordingException("Interrupted while waiting for result writer thread", e);
+        }
+    }
+
+    /**
+     * Waits until all tasks submitted so far have been executed.
+     */
+    public void drain() {
+        final CountDownLatch latch = new CountDownLatch(1);
+        submit(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        });
+        try {
+            while (latch.getCount() > 0 && error == null && thread.isAlive())
+                latch.await(100, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResultRecordingException("Interrupted while waiting for result writer thread", e);
+        }
+        checkError();
+    }
+
+    /**
+     * Executes the pending tasks, and stops the writer thread. The thread is
+     * stopped even if a task failed and the error is rethrown.
+     */
+    public void shutdown() {
+        try {
+            drain();
+        }
+        finally {
+            try {
+                queue.put(STOP); // not submit(), so that it is queued after an error as well
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                thread.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    protected void checkError() {
+        RuntimeException e = error;
+        if (e != null) {
+            if (e instanceof ResultRecordingException)
+                throw new ResultRecordingException(e.getMessage(), e);
+            else
+                throw new ResultRecordingException("Error in result writer thread: " + e, e);
+        }
+    }
+}
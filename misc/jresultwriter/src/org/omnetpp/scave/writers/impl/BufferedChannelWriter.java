@@ -0,0 +1,152 @@
+package org.omnetpp.scave.writers.impl;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes text files through a FileChannel, using a reusable direct ByteBuffer.
+ * Numbers are formatted directly into the buffer, so writing a line does not
+ * allocate objects. Only ASCII text may be written via the methods that take
+ * characters; other text should be encoded by the caller and written as bytes.
+ */
+public class BufferedChannelWriter {
+    public static final int DEFAULT_BUFFER_SIZE = 64*1024;
+
+    /**
+     * Room that writeLong() or writeDouble() needs in the buffer to write
+     * any number without flushing it (e.g. "-2.2250738585072014E-308").
+     */
+    public static final int MAX_NUMBER_LENGTH = 25;
+
+    protected File file;
+    protected FileOutputStream stream;
+    protected FileChannel channel;
+    protected ByteBuffer buffer;
+    protected long flushedSize = 0; // number of bytes already written to the channel
+    protected byte[] digits = new byte[20];
+    protected StringBuilder doubleBuffer = new StringBuilder(32);
+
+    public BufferedChannelWriter(File file) throws FileNotFoundException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedChannelWriter(File file, int bufferSize) throws FileNotFoundException {
+        this.file = file;
+        this.stream = new FileOutputStream(file);
+        this.channel = stream.getChannel();
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the position in the file where the next byte will be written.
+     */
+    public long getPosition() {
+        return flushedSize + buffer.position();
+    }
+
+    /**
+     * Returns the number of bytes that may be written without the buffer being flushed.
+     */
+    public int getRemaining() {
+        return buffer.remaining();
+    }
+
+    public void write(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining())
+                flush();
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    public void write(char ch) throws IOException {
+        if (!buffer.hasRemaining())
+            flush();
+        buffer.put((byte)ch);
+    }
+
+    public void write(CharSequence text) throws IOException {
+        for (int i = 0; i < text.length(); i++)
+            write(text.charAt(i));
+    }
+
+    public void writeLong(long value) throws IOException {
+        if (buffer.remaining() < digits.length + 1)
+            flush();
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte)'-');
+            value = -value;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (byte)('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, i, digits.length - i);
+    }
+
+    /**
+     * Writes the value the same way as Double.toString() does, except that
+     * integral values are written without the trailing ".0".
+     */
+    public void writeDouble(double value) throws IOException {
+        if (value == (long)value && Math.abs(value) < 1e15 && (value != 0 || 1/value > 0))
+            writeLong((long)value);
+        else {
+            doubleBuffer.setLength(0);
+            doubleBuffer.append(value); // appends in place, without creating a String
+            write(doubleBuffer);
+        }
+    }
+
+    /**
+     * Writes the buffered data to the file.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            flushedSize += channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Forces the data written so far to the storage device, see FileChannel.force().
+     */
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Flushes the buffer and overwrites the file contents at the given position.
+     */
+    public void writeAt(long position, byte[] bytes) throws IOException {
+        flush();
+        ByteBuffer tmp = ByteBuffer.wrap(bytes);
+        while (tmp.hasRemaining())
+            position += channel.write(tmp, position);
+    }
+
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            stream.close();
+        }
+    }
+}
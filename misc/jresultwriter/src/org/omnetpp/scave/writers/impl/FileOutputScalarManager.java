@@ -1,5 +1,6 @@
 package org.omnetpp.scave.writers.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
@@ -17,6 +18,9 @@ import org.omnetpp.scave.writers.ResultRecordingException;
  * This class does not support filtering (of scalars or recorded data),
  * this functionality may be added via subclasses.
  *
+ * In async mode (see setAsyncMode()), the recorded lines are collected in
+ * memory, and they are written to the file in chunks on a background thread.
+ *
  * @author Andras
  */
 public class FileOutputScalarManager extends OutputFileManager implements IOutputScalarManager {
@@ -25,7 +29,15 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
     protected String runID;
     protected Map<String, String> runAttributes;
     protected File file;
-    protected PrintStream out;
+    protected PrintStream out; // in async mode, writes into asyncBuffer
+    protected PrintStream fileOut;
+
+    public static final int ASYNC_CHUNK_SIZE = 64*1024;
+
+    protected boolean asyncMode = false;
+    protected int asyncQueueCapacity = AsyncResultWriter.DEFAULT_QUEUE_CAPACITY;
+    protected AsyncResultWriter asyncWriter;
+    protected ByteArrayOutputStream asyncBuffer;
 
     public FileOutputScalarManager(String fileName) {
         file = new File(fileName);
@@ -33,6 +45,31 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
             throw new ResultRecordingException("Cannot delete old output scalar file " + file.getPath());
     }
 
+    public boolean isAsyncMode() {
+        return asyncMode;
+    }
+
+    /**
+     * Turns on/off writing the file on a background thread. This must be set
+     * before recording the first result.
+     */
+    public void setAsyncMode(boolean async) {
+        if (out != null)
+            throw new IllegalStateException("Async mode cannot be changed after the output scalar file has been opened");
+        this.asyncMode = async;
+    }
+
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    /**
+     * Sets the maximum number of chunks waiting for the writer thread in async mode.
+     */
+    public void setAsyncQueueCapacity(int count) {
+        this.asyncQueueCapacity = count;
+    }
+
     public void open(String runID, Map<String, String> runAttributes) {
         this.runID = runID;
         this.runAttributes = runAttributes;
@@ -40,12 +77,21 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
 
     protected void open() {
         try {
-            out = new PrintStream(file);
+            fileOut = new PrintStream(file);
         }
         catch (FileNotFoundException e) {
             throw new ResultRecordingException("Cannot open output scalar file " + file.getPath() + e.getMessage(), e);
         }
 
+        if (asyncMode) {
+            asyncWriter = new AsyncResultWriter("Scalar writer for " + file.getName(), asyncQueueCapacity);
+            asyncBuffer = new ByteArrayOutputStream(ASYNC_CHUNK_SIZE);
+            out = new PrintStream(asyncBuffer);
+        }
+        else {
+            out = fileOut;
+        }
+
         out.println("version " + FILE_VERSION);
         out.println();
         writeRunHeader(out, runID, runAttributes);
@@ -54,8 +100,19 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
 
     public void close() {
         if (out != null) {
-            flushAndCheck();
-            out.close();
+            try {
+                flushAndCheck();
+            }
+            finally {
+                try {
+                    if (asyncWriter != null)
+                        asyncWriter.shutdown();
+                }
+                finally {
+                    asyncWriter = null;
+                    fileOut.close();
+                }
+            }
         }
     }
 
@@ -65,10 +122,46 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
     }
 
     protected void flushAndCheck() {
-        if (out.checkError()) // implies flush()
+        if (asyncWriter != null) {
+            submitBuffered();
+            asyncWriter.submit(new Runnable() {
+                public void run() {
+                    checkFileError();
+                }
+            });
+            asyncWriter.drain(); // rethrows the error
+        }
+        else {
+            checkFileError();
+        }
+    }
+
+    protected void checkFileError() {
+        if (fileOut.checkError()) // implies flush()
             throw new ResultRecordingException("Cannot write output scalar file " + file.getPath());
     }
 
+    /**
+     * In async mode, hands over the buffered lines to the writer thread once
+     * there is enough of them.
+     */
+    protected void recorded() {
+        if (asyncWriter != null && asyncBuffer.size() >= ASYNC_CHUNK_SIZE)
+            submitBuffered();
+    }
+
+    protected void submitBuffered() {
+        if (asyncBuffer.size() == 0)
+            return;
+        final byte[] bytes = asyncBuffer.toByteArray();
+        asyncBuffer.reset();
+        asyncWriter.submit(new Runnable() {
+            public void run() {
+                fileOut.write(bytes, 0, bytes.length);
+            }
+        });
+    }
+
     public String getFileName() {
         return file.getPath();
     }
@@ -78,6 +171,7 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
             open();
         out.println("scalar " + q(componentPath) + " " + q(name) + " " + value);
         writeAttributes(out, attributes);
+        recorded();
     }
 
     public void recordScalar(String componentPath, String name, Number value, Map<String, String> attributes) {
@@ -85,6 +179,7 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
             open();
         out.println("scalar " + q(componentPath) + " " + q(name) + " " + value.toString());
         writeAttributes(out, attributes);
+        recorded();
     }
 
     public void recordStatistic(String componentPath, String name, IStatisticalSummary statistic, Map<String, String> attributes) {
@@ -122,6 +217,7 @@ public class FileOutputScalarManager extends OutputFileManager implements IOutpu
                 out.println("bin " + histogram.getCellBoundary(n) + histogram.getOverflowCell());
             }
         }
+        recorded();
     }
 
     protected void writeField(String name, double value) {
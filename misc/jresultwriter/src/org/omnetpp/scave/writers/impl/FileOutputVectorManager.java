@@ -2,13 +2,14 @@ package org.omnetpp.scave.writers.impl;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.omnetpp.scave.writers.IOutputVector;
 import org.omnetpp.scave.writers.IOutputVectorManager;
@@ -20,6 +21,15 @@ import org.omnetpp.scave.writers.ResultRecordingException;
  * Recording event numbers ("ETV" vectors) is not supported, because it is
  * practically only useful for sequence charts.
  *
+ * Recorded values are buffered in primitive arrays that are reused across
+ * blocks, and they are formatted directly into the buffer of the file writer,
+ * so recording does not allocate objects (except for timestamps that are
+ * neither Double, Float, Long nor Integer, e.g. BigDecimal, which are kept
+ * as they are to preserve their exact value).
+ *
+ * In async mode (see setAsyncMode()), the files are written on a background
+ * thread, so the simulation does not have to wait for the disk.
+ *
  * This class does not support filtering (of vectors or recorded data)
  * at all -- this functionality may be added via subclasses.
  *
@@ -31,11 +41,9 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
     protected String runID;
     protected Map<String, String> runAttributes;
     protected File file;
-    protected FileOutputStream stream;
-    protected PrintStream out;
+    protected BufferedChannelWriter out;
     protected File indexFile;
-    protected FileOutputStream indexStream;
-    protected PrintStream indexOut;
+    protected BufferedChannelWriter indexOut;
 
     protected ISimulationTimeProvider simtimeProvider;
 
@@ -47,21 +55,172 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
 
     protected Set<OutputVector> vectors = new HashSet<OutputVector>();
 
-    class OutputVector implements IOutputVector {
+    protected boolean asyncMode = false;
+    protected int asyncQueueCapacity = AsyncResultWriter.DEFAULT_QUEUE_CAPACITY;
+    protected AsyncResultWriter asyncWriter; // created on demand in async mode
+    protected Queue<Block> freeBlocks = new ConcurrentLinkedQueue<Block>(); // blocks written out by the writer thread, for reuse
+
+    /**
+     * Buffered data of an output vector, written out as one block. In async mode,
+     * full blocks are handed over to the writer thread, and the vector continues
+     * recording into a new (recycled) block.
+     */
+    class Block implements Runnable {
         int id;
-        byte[] header;
+        byte[] header; // vector declaration, if not yet written
 
         int n = 0;
-        Number[] times = new Number[10];
+        double[] times = new double[10]; // reused across blocks
         double[] values = new double[10];
+        Number[] exactTimes = null; // only allocated for timestamps that double cannot represent, e.g. BigDecimal
 
-        Number blockStartTime = 0;
-        Number blockEndTime = 0;
         double min = Double.NaN;
         double max = Double.NaN;
         double sum = 0;
         double sqrSum = 0;
 
+        void add(double time, Number exactTime, double value) {
+            if (n == times.length) {
+                int newSize = (n * 3) / 2;
+                double[] newTimes = new double[newSize];
+                double[] newValues = new double[newSize];
+                System.arraycopy(times, 0, newTimes, 0, n);
+                System.arraycopy(values, 0, newValues, 0, n);
+                times = newTimes;
+                values = newValues;
+                if (exactTimes != null) {
+                    Number[] newExactTimes = new Number[newSize];
+                    System.arraycopy(exactTimes, 0, newExactTimes, 0, n);
+                    exactTimes = newExactTimes;
+                }
+            }
+
+            // store
+            times[n] = time;
+            values[n] = value;
+            if (exactTime != null) {
+                if (exactTimes == null)
+                    exactTimes = new Number[times.length];
+                exactTimes[n] = exactTime;
+            }
+            else if (exactTimes != null)
+                exactTimes[n] = null;
+            n++;
+
+            // update statistics
+            if (min > value || Double.isNaN(min))
+                min = value;
+            if (max < value || Double.isNaN(max))
+                max = value;
+            sum += value;
+            sqrSum += value*value;
+        }
+
+        void reset() {
+            n = 0;
+            min = Double.NaN;
+            max = Double.NaN;
+            sum = 0;
+            sqrSum = 0;
+            header = null;
+            if (exactTimes != null)
+                Arrays.fill(exactTimes, null);
+        }
+
+        protected void writeTime(BufferedChannelWriter writer, int i) throws IOException {
+            if (exactTimes != null && exactTimes[i] != null)
+                writer.write(exactTimes[i].toString());
+            else
+                writer.writeDouble(times[i]);
+        }
+
+        /**
+         * Returns an upper bound of the length of the index line of the block, see write().
+         */
+        protected int getMaxIndexLineLength() {
+            // 8 numbers, 2 times, 9 separators and the newline
+            return 8 * BufferedChannelWriter.MAX_NUMBER_LENGTH + getMaxTimeLength(0) + getMaxTimeLength(n-1) + 10;
+        }
+
+        protected int getMaxTimeLength(int i) {
+            if (exactTimes != null && exactTimes[i] != null)
+                return exactTimes[i].toString().length();
+            else
+                return BufferedChannelWriter.MAX_NUMBER_LENGTH;
+        }
+
+        protected void writeVectorHeader() throws IOException {
+            if (out == null)
+                open();
+            if (indexOut.getRemaining() < header.length)
+                flushFiles(); // see flushFiles()
+            out.write(header);
+            indexOut.write(header);
+        }
+
+        void write() {
+            try {
+                // write out vector declaration if not yet done
+                if (header != null)
+                    writeVectorHeader();
+
+                // write data
+                long blockOffset = out.getPosition();
+                for (int i=0; i<n; i++) {
+                    out.writeLong(id);
+                    out.write(' ');
+                    writeTime(out, i);
+                    out.write(' ');
+                    out.writeDouble(values[i]);
+                    out.write('\n');
+                }
+                long blockSize = out.getPosition() - blockOffset;
+
+                // write index
+                if (indexOut.getRemaining() < getMaxIndexLineLength())
+                    flushFiles(); // see flushFiles()
+                indexOut.writeLong(id);
+                indexOut.write(' ');
+                indexOut.writeLong(blockOffset);
+                indexOut.write(' ');
+                indexOut.writeLong(blockSize);
+                indexOut.write(' ');
+                writeTime(indexOut, 0);
+                indexOut.write(' ');
+                writeTime(indexOut, n-1);
+                indexOut.write(' ');
+                indexOut.writeLong(n);
+                indexOut.write(' ');
+                indexOut.writeDouble(min);
+                indexOut.write(' ');
+                indexOut.writeDouble(max);
+                indexOut.write(' ');
+                indexOut.writeDouble(sum);
+                indexOut.write(' ');
+                indexOut.writeDouble(sqrSum);
+                indexOut.write('\n');
+            }
+            catch (IOException e) {
+                throw new ResultRecordingException("Error recording vector results:" + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Called on the writer thread in async mode.
+         */
+        public void run() {
+            write();
+            reset();
+            freeBlocks.add(this);
+        }
+    }
+
+    class OutputVector implements IOutputVector {
+        int id;
+        byte[] header;
+        Block block = obtainBlock();
+        double lastTime = 0;
+
         public OutputVector(int id, String componentPath, String vectorName, Map<String, String> attributes) {
             this.id = id;
 
@@ -74,14 +233,6 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
             header = bos.toByteArray();
         }
 
-        protected void writeVectorHeader() throws IOException {
-            if (out == null)
-                open();
-            out.write(header);
-            indexOut.write(header);
-            header = null;
-        }
-
         public void close() {
             flush();
             vectors.remove(this);
@@ -92,7 +243,8 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
             if (id == -1)
                 throw new IllegalStateException("Output vector already closed");
 
-            writeBlock();  // implies file flushing as well
+            writeBlock();
+            flushFiles();
         }
 
         public boolean record(double value) {
@@ -103,38 +255,25 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
         }
 
         public boolean record(Number time, double value) {
-            if (id == -1)
-                throw new IllegalStateException("Attempt to write to an output vector that's already closed");
-
-            if (time.doubleValue() < blockEndTime.doubleValue())
-                throw new IllegalStateException("Vector data must be recorded in increasing timestamp order (t="+time+ "tprev="+blockEndTime+")");
+            if (time instanceof Double || time instanceof Float || time instanceof Long || time instanceof Integer)
+                return record(time.doubleValue(), null, value);
+            else
+                return record(time.doubleValue(), time, value);
+        }
 
-            if (n == times.length) {
-                int newSize = (n * 3) / 2;
-                Number[] newTimes = new Number[newSize];
-                double[] newValues = new double[newSize];
-                System.arraycopy(times, 0, newTimes, 0, n);
-                System.arraycopy(values, 0, newValues, 0, n);
-                times = newTimes;
-                values = newValues;
-            }
+        public boolean record(double time, double value) {
+            return record(time, null, value);
+        }
 
-            // store
-            times[n] = time;
-            values[n] = value;
-            if (n == 0)
-                blockStartTime = time;
-            blockEndTime = time;
-            n++;
+        protected boolean record(double time, Number exactTime, double value) {
+            if (id == -1)
+                throw new IllegalStateException("Attempt to write to an output vector that's already closed");
 
-            // update statistics
-            if (min > value || Double.isNaN(min))
-                min = value;
-            if (max < value || Double.isNaN(max))
-                max = value;
-            sum += value;
-            sqrSum += value*value;
+            if (time < lastTime)
+                throw new IllegalStateException("Vector data must be recorded in increasing timestamp order (t="+(exactTime != null ? exactTime : time)+ "tprev="+lastTime+")");
 
+            block.add(time, exactTime, value);
+            lastTime = time;
             ++nbuffered;
 
             // flush if needed
@@ -144,41 +283,21 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
         }
 
         protected void writeBlock() {
-            try {
-                // write out vector declaration if not yet done
-                if (header != null)
-                    writeVectorHeader();
+            if (block.n == 0)
+                return;
 
-                // write data
-                long blockOffset = stream.getChannel().position();
-                for (int i=0; i<n; i++)
-                    out.println(id + " " + times[i] + " " + values[i]);
-                long blockSize = stream.getChannel().position() - blockOffset;
-
-                // make sure that the offsets referred to by the index file are exists in the vector file
-                // so the index can be used to access the vector file while it is being written
-                out.flush();
-                if (out.checkError())
-                    throw new ResultRecordingException("Cannot write output vector file " + file.getPath());
-
-                // write index
-                indexOut.println(id + " " + blockOffset + " " + blockSize + " " +
-                        blockStartTime + " " + blockEndTime + " " +
-                        n + " " + min + " " + max + " " + sum + " " + sqrSum);
-
-
-                // reset block
-                nbuffered -= n;
-                n = 0;
-                min = Double.NaN;
-                max = Double.NaN;
-                sum = 0;
-                sqrSum = 0;
-                times = new Number[10];
-                values = new double[10];
+            Block fullBlock = block;
+            fullBlock.id = id;
+            fullBlock.header = header;
+            header = null;
+            nbuffered -= fullBlock.n;
+            if (asyncMode) {
+                block = obtainBlock();
+                getAsyncWriter().submit(fullBlock);
             }
-            catch (IOException e) {
-                throw new ResultRecordingException("Error recording vector results:" + e.getMessage(), e);
+            else {
+                fullBlock.write();
+                fullBlock.reset();
             }
         }
     }
@@ -218,6 +337,48 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
         this.totalLimit = count;
     }
 
+    public boolean isAsyncMode() {
+        return asyncMode;
+    }
+
+    /**
+     * Turns on/off writing the files on a background thread. In async mode,
+     * full blocks are handed over to the writer thread through a bounded queue,
+     * so the simulation only waits for disk I/O when the queue is full.
+     * Index lines are only written after the vector data they refer to has been
+     * forced to the disk. This should be set before recording the first value.
+     */
+    public void setAsyncMode(boolean async) {
+        if (!async && asyncWriter != null) {
+            flush();
+            asyncWriter.shutdown();
+            asyncWriter = null;
+        }
+        this.asyncMode = async;
+    }
+
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    /**
+     * Sets the maximum number of blocks waiting for the writer thread in async mode.
+     */
+    public void setAsyncQueueCapacity(int count) {
+        this.asyncQueueCapacity = count;
+    }
+
+    protected AsyncResultWriter getAsyncWriter() {
+        if (asyncWriter == null)
+            asyncWriter = new AsyncResultWriter("Vector writer for " + file.getName(), asyncQueueCapacity);
+        return asyncWriter;
+    }
+
+    protected Block obtainBlock() {
+        Block block = freeBlocks.poll();
+        return block != null ? block : new Block();
+    }
+
     public void open(String runID, Map<String, String> runAttributes) {
         this.runID = runID;
         this.runAttributes = runAttributes;
@@ -225,65 +386,132 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
 
     protected void open() {
         try {
-            stream = new FileOutputStream(file);
+            out = new BufferedChannelWriter(file);
         }
-        catch (FileNotFoundException e) {
+        catch (IOException e) {
             throw new ResultRecordingException("Cannot open output vector file " + file.getPath(), e);
         }
         try {
-            indexStream = new FileOutputStream(indexFile);
+            indexOut = new BufferedChannelWriter(indexFile);
         }
-        catch (FileNotFoundException e) {
+        catch (IOException e) {
             throw new ResultRecordingException("Cannot open output vector index file " + indexFile.getPath(), e);
         }
 
-        out = new PrintStream(stream);
-        out.println("version " + FILE_VERSION);
-        out.println();
-        writeRunHeader(out, runID, runAttributes);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PrintStream tmp = new PrintStream(bos);
+        tmp.println("version " + FILE_VERSION);
+        tmp.println();
+        writeRunHeader(tmp, runID, runAttributes);
+        tmp.close();
+        byte[] fileHeader = bos.toByteArray();
 
-        indexOut = new PrintStream(indexStream);
-        indexOut.format("%64s\n", " "); // room for "file ...." line
-        indexOut.println("version " + FILE_VERSION);
-        indexOut.println();
-        writeRunHeader(indexOut, runID, runAttributes);
+        try {
+            out.write(fileHeader);
+        }
+        catch (IOException e) {
+            throw new ResultRecordingException("Cannot write output vector file " + file.getPath(), e);
+        }
+        try {
+            indexOut.write(String.format("%64s\n", " ")); // room for "file ...." line
+            indexOut.write(fileHeader);
+        }
+        catch (IOException e) {
+            throw new ResultRecordingException("Cannot write output vector index file " + indexFile.getPath(), e);
+        }
 
-        flushAndCheck();
+        flushFiles();
     }
 
     public void close() {
-        if (out != null) {
+        try {
             flush();
-            out.close();
+        }
+        finally {
+            try {
+                if (asyncWriter != null)
+                    asyncWriter.shutdown();
+            }
+            finally {
+                asyncWriter = null;
+                vectors.clear();
+                closeFiles();
+            }
+        }
+    }
+
+    /**
+     * Closes both files, even if writing one of them fails.
+     */
+    protected void closeFiles() {
+        if (out == null)
+            return;
+        try {
+            try {
+                out.close();
+            }
+            catch (IOException e) {
+                throw new ResultRecordingException("Cannot close output vector file " + file.getPath(), e);
+            }
 
             // record size and timestamp of the vector file, for up-to-date checks
             try {
-                indexStream.getChannel().position(0);
+                indexOut.writeAt(0, ("file " + file.length() + " " + file.lastModified()/1000).getBytes());
             }
             catch (IOException e) {
-                throw new ResultRecordingException("Cannot rewind output vector index file " + indexFile.getPath(), e);
+                throw new ResultRecordingException("Cannot write output vector index file " + indexFile.getPath(), e);
+            }
+        }
+        finally {
+            try {
+                indexOut.close();
+            }
+            catch (IOException e) {
+                throw new ResultRecordingException("Cannot write output vector index file " + indexFile.getPath(), e);
             }
-            indexOut.print("file " + file.length() + " " + file.lastModified()/1000);
-            if (indexOut.checkError())
-                throw new ResultRecordingException("Cannot write output vector index file " + indexFile.getPath());
-            indexOut.close();
         }
-        vectors.clear();
     }
 
     public void flush() {
         for (OutputVector v : vectors)
             v.writeBlock();
 
-        if (out != null)
-            flushAndCheck();
+        flushFiles();
     }
 
-    protected void flushAndCheck() {
-        if (out.checkError()) // implies flush()
-            throw new ResultRecordingException("Cannot write output vector file " + file.getPath());
-        if (indexOut.checkError())
-            throw new ResultRecordingException("Cannot write output vector index file " + indexFile.getPath());
+    /**
+     * Writes the buffered data of both files. The vector file is always written
+     * before the index file, so that the offsets referred to by the index file exist
+     * in the vector file, and the index can be used to access the vector file
+     * while it is being written. In async mode, this is done on the writer thread,
+     * and the vector data is also forced to the disk before the index is written.
+     */
+    protected void flushFiles() {
+        if (asyncMode && asyncWriter != null && Thread.currentThread() != asyncWriter.thread) {
+            asyncWriter.submit(new Runnable() {
+                public void run() {
+                    flushFiles();
+                }
+            });
+            asyncWriter.drain();
+            return;
+        }
+        if (out == null)
+            return;
+        try {
+            out.flush();
+            if (asyncMode)
+                out.force();
+        }
+        catch (IOException e) {
+            throw new ResultRecordingException("Cannot write output vector file " + file.getPath(), e);
+        }
+        try {
+            indexOut.flush();
+        }
+        catch (IOException e) {
+            throw new ResultRecordingException("Cannot write output vector index file " + indexFile.getPath(), e);
+        }
     }
 
     public String getFileName() {
@@ -298,7 +526,7 @@ public class FileOutputVectorManager extends OutputFileManager implements IOutpu
     }
 
     protected void changed(OutputVector vector) {
-        if (vector.n > perVectorLimit)
+        if (vector.block.n > perVectorLimit)
             vector.writeBlock();
         else if (nbuffered > totalLimit) {
             for (OutputVector v : vectors)
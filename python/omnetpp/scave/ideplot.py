@@ -60,6 +60,24 @@ def plot(xs, ys, key=None, label=None, drawstyle=None, linestyle=None, linewidth
     """
     return impl.plot(**locals())
 
+def plot_decimated_vectors(filter_expression, start_time=-math.inf, end_time=math.inf, drawstyle=None, linestyle=None, linewidth=None, color=None, marker=None, markersize=None):
+    """
+    Plots the vectors matching the filter expression, one line each, labeled
+    with the module and vector name. In the native plot widget, the vector
+    data is not loaded as a whole: the plot reads only as much of it as needed
+    for the current zoom level, so it is suitable for very long vectors.
+    With Matplotlib, the vectors are read and plotted as with `plot()`.
+    Returns the number of vectors plotted.
+
+    Parameters:
+
+    - `filter_expression` (string): The filter expression to select the vectors.
+    - `start_time`, `end_time` (double): Only the data in this simulation time interval is plotted.
+    - `drawstyle`, `linestyle`, `linewidth`, `color`, `marker`, `markersize`: Same as for `plot()`,
+      applied to all lines.
+    """
+    return impl.plot_decimated_vectors(**locals())
+
 # note: the default of histtype is not bar, because we don't support that
 # also, minvalue, maxvalue, underflows and overflows are NOT accepted by mpl.pyplot.hist
 def hist(x, bins, key=None, density=False, weights=None, cumulative=False, bottom=None, histtype='stepfilled', color=None, label=None, linewidth=None,
@@ -24,6 +24,16 @@ def plot(xs, ys, key, label, drawstyle, linestyle, linewidth, color, marker, mar
     return plt.plot(xs, ys, **params)
 
 
+def plot_decimated_vectors(filter_expression, start_time, end_time, drawstyle, linestyle, linewidth, color, marker, markersize):
+    # Matplotlib needs all data points, so the vectors are read as a whole
+    from omnetpp.scave import results
+    params = {k:v for k, v in locals().items() if v is not None and k not in ["filter_expression", "start_time", "end_time", "results"]}
+    df = results.get_vectors(filter_expression, start_time=start_time, end_time=end_time)
+    for t in df.itertuples(index=False):
+        plt.plot(t.vectime, t.vecvalue, label=t.module + " " + t.name, **params)
+    return len(df)
+
+
 def bar(x, height, width, key, label, color, edgecolor):
     params = {k:v for k, v in locals().items() if k is not None and k not in ["key"]}
     return plt.bar(**params)
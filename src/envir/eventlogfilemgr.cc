@@ -295,7 +295,7 @@ void EventlogFileManager::truncate()
         opp_fseek(feventlog, 0, SEEK_SET);
         if (ferror(feventlog))
             throw opp_runtime_error("Cannot seek in file '%s', error code %d", filename.c_str(), ferror(feventlog));
-        EventLogWriter::recordSimulationBeginEntry_ov_ev_rid(feventlog, OMNETPP_VERSION, EVENTLOG_VERSION, runId);
+        EventLogWriter::recordSimulationBeginEntry_ov_ev_rid_prec(feventlog, OMNETPP_VERSION, EVENTLOG_VERSION, runId, SimTime::getScaleExp());
         file_offset_t copyToOffset = opp_ftell(feventlog);
         beginningFileOffset -= copyToOffset;
         // copy the trailing content of the eventlog file backwards
@@ -877,7 +877,7 @@ void EventlogFileManager::recordSimulationBegin()
     FileLockAcquirer fileLockAcquirer(fileLock, FILE_LOCK_EXCLUSIVE);
     beginningFileOffset = 0;
     const char *runId = cfg->getVariable(CFGVAR_RUNID);
-    EventLogWriter::recordSimulationBeginEntry_ov_ev_rid(feventlog, OMNETPP_VERSION, EVENTLOG_VERSION, runId);
+    EventLogWriter::recordSimulationBeginEntry_ov_ev_rid_prec(feventlog, OMNETPP_VERSION, EVENTLOG_VERSION, runId, SimTime::getScaleExp());
     eventNumber = -1;
     entryIndex = 0;
     lastChunk = BEGIN;
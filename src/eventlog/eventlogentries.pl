@@ -630,6 +630,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 ";
    if ($class->{SUPER} eq "EventLogTokenBasedEntry")
    {
@@ -705,13 +706,13 @@ import org.omnetpp.eventlog.IChunk;
 
    print ENTRY_JAVA_FILE "
 
-    public void parse(String[] tokens, int numTokens) {
+    public void parse(LineTokenizer tokenizer) {
 ";
 
    # parse
    if ($class->{SUPER} ne "EventLogTokenBasedEntry")
    {
-      print ENTRY_JAVA_FILE "        super.parse(tokens, numTokens);\n";
+      print ENTRY_JAVA_FILE "        super.parse(tokenizer);\n";
    }
    foreach $field (@{ $class->{FIELDS} })
    {
@@ -767,7 +768,7 @@ import org.omnetpp.eventlog.IChunk;
       {
          $mandatory = "false";
       }
-      print ENTRY_JAVA_FILE "        $field->{NAME} = $parserFunction(tokens, numTokens, \"$field->{CODE}\", $mandatory, $field->{NAME});\n";
+      print ENTRY_JAVA_FILE "        $field->{NAME} = $parserFunction(tokenizer, \"$field->{CODE}\", $mandatory, $field->{NAME});\n";
    }
 
    print ENTRY_JAVA_FILE "    }
@@ -911,43 +912,63 @@ open(FACTORY_JAVA_FILE, ">EventLogEntryFactory.java");
 print FACTORY_JAVA_FILE
 "package org.omnetpp.eventlog;
 
+";
+
+foreach $class (sort { $a->{NAME} cmp $b->{NAME} } @classes)
+{
+   if ($class->{CODE} ne "abstract")
+   {
+      print FACTORY_JAVA_FILE "import org.omnetpp.eventlog.entry.$class->{NAME};\n";
+   }
+}
+
+print FACTORY_JAVA_FILE "
 public class EventLogEntryFactory
 {
-    \@SuppressWarnings(\"unused\")
-    public static EventLogTokenBasedEntry parseEntry(IChunk chunk, int entryIndex, String[] tokens, int numTokens) {
-        if (numTokens < 1)
+    /**
+     * Creates and parses the entry from the already tokenized line. Dispatches
+     * on the bytes of the first token that are packed into a single int.
+     */
+    public static EventLogTokenBasedEntry parseEntry(IChunk chunk, int entryIndex, LineTokenizer tokenizer) {
+        if (tokenizer.getNumTokens() < 1)
             return null;
 
-        String code = tokens[0];
         EventLogTokenBasedEntry entry = null;
 
-        if (false)
-            ;
+        switch (tokenizer.getTokenCode(0)) {
 ";
 
 foreach $class (@classes)
 {
    if ($class->{CODE} ne "abstract")
    {
-      print FACTORY_JAVA_FILE "        else if (";
+      die "Class code $class->{CODE} is too long" if (length($class->{CODE}) > 3);
+      print FACTORY_JAVA_FILE "            case ";
       $i=0;
       $l=length($class->{CODE});
-      print FACTORY_JAVA_FILE "code.length\(\) == $l";
       foreach $c (split(//, $class->{CODE})) {
-          print FACTORY_JAVA_FILE " && code.charAt\($i\) == '$c'";
+          print FACTORY_JAVA_FILE " | " if ($i > 0);
+          $shift = 8 * ($l - $i - 1);
+          if ($shift > 0) {
+              print FACTORY_JAVA_FILE "('$c' << $shift)";
+          }
+          else {
+              print FACTORY_JAVA_FILE "'$c'";
+          }
           $i++;
       }
-      print FACTORY_JAVA_FILE ") // $class->{CODE}\n";
+      print FACTORY_JAVA_FILE ": // $class->{CODE}\n";
 
-      print FACTORY_JAVA_FILE "            entry = new $class->{NAME}(chunk, entryIndex);\n";
+      print FACTORY_JAVA_FILE "                entry = new $class->{NAME}(chunk, entryIndex);\n";
+      print FACTORY_JAVA_FILE "                break;\n";
    }
 }
 
-print FACTORY_JAVA_FILE "        else\n";
-print FACTORY_JAVA_FILE "            return null;\n\n";
-print FACTORY_JAVA_FILE "        entry.parse(tokens, numTokens);\n";
+print FACTORY_JAVA_FILE "            default:\n";
+print FACTORY_JAVA_FILE "                return null;\n";
+print FACTORY_JAVA_FILE "        }\n\n";
+print FACTORY_JAVA_FILE "        entry.parse(tokenizer);\n";
 print FACTORY_JAVA_FILE "        return entry;\n";
-print FACTORY_JAVA_FILE "    }\n}\n\n";
+print FACTORY_JAVA_FILE "    }\n}\n";
 
 close(FACTORY_JAVA_FILE);
-
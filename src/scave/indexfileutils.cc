@@ -108,6 +108,36 @@ bool IndexFileUtils::isIndexFileUpToDate(const char *filename)
     return fingerprint == readFileFingerprint(vectorFileName.c_str());
 }
 
+std::string IndexFileUtils::getPyramidFileName(const char *filename)
+{
+    std::string pyramidFileName(filename);
+    std::string::size_type pos = pyramidFileName.rfind('.');
+    if (pos != std::string::npos)
+        pyramidFileName.replace(pyramidFileName.begin()+pos, pyramidFileName.end(), ".vcp");
+    else
+        pyramidFileName.append(".vcp");
+    return pyramidFileName;
+}
+
+bool IndexFileUtils::isPyramidFileUpToDate(const char *filename)
+{
+    std::string pyramidFileName = getPyramidFileName(filename);
+    std::string vectorFileName = isIndexFile(filename) ? getVectorFileName(filename) : std::string(filename);
+
+    if (!isFileReadable(pyramidFileName.c_str()))
+        return false;
+
+    // the pyramid file has the same header as the index file, so its reader can be used for the fingerprint
+    IndexFileReader reader(pyramidFileName.c_str());
+    FileFingerprint fingerprint = reader.readRecordedFingerprint();
+
+    // unlike index files, pyramid files are written in one go, so a missing fingerprint means a broken file
+    if (fingerprint.isEmpty())
+        return false;
+
+    return fingerprint == readFileFingerprint(vectorFileName.c_str());
+}
+
 }  // namespace scave
 }  // namespace omnetpp
 
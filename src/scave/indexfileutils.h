@@ -44,6 +44,15 @@ class SCAVE_API IndexFileUtils
          * is equal to the size and date of the vector file.
          */
         static bool isIndexFileUpToDate(const char *fileName);
+        /**
+         * Returns the name of the pyramid file (.vcp) belonging to the given vector or index file.
+         */
+        static std::string getPyramidFileName(const char *fileName);
+        /**
+         * Checks if the pyramid file of the given vector or index file exists and is up-to-date.
+         * This is decided in the same way as for the index file.
+         */
+        static bool isPyramidFileUpToDate(const char *fileName);
 };
 
 
@@ -161,6 +161,7 @@ void ScaveTool::printHelpPage(const std::string& page)
                   "create indices for loaded vector files if they are missing or out of date, "
                   "unless indexing is explicitly disabled.");
         help.line("Options:");
+        help.option("-p, --pyramids", "Also generate pyramid files (.vcp) with multi-resolution summaries of the vectors, for fast overview queries");
         help.option("-v, --verbose", "Print info about progress (verbose)");
         help.para("The <files> argument accepts directories and glob/globstar patterns as well, in addition to file names. See main help page for details.");
         help.line();
@@ -793,11 +794,14 @@ void ScaveTool::indexCommand(int argc, char **argv)
 {
     // process args
     bool opt_verbose = false;
+    bool opt_pyramids = false;
     vector<string> opt_fileNames;
     for (int i = 0; i < argc; i++) {
         string opt = argv[i];
         if (opt == "-v" || opt == "--verbose")
             opt_verbose = true;
+        else if (opt == "-p" || opt == "--pyramids")
+            opt_pyramids = true;
         else if (opt[0] != '-')
             opt_fileNames.push_back(argv[i]);
         else
@@ -805,6 +809,7 @@ void ScaveTool::indexCommand(int argc, char **argv)
     }
 
     VectorFileIndexer indexer;
+    indexer.setGeneratePyramids(opt_pyramids);
     int count = 0;
     for (int i = 0; i < (int)opt_fileNames.size(); i++) {
         const char *fileName = opt_fileNames[i].c_str();
@@ -83,6 +83,7 @@ void ResultFileManager::clear()
     WRITER_MUTEX
 
     serial++;
+    unloadSerial++;
 
     for (FileRun *fileRun : fileRunList)
         delete fileRun;
@@ -1342,6 +1343,7 @@ void ResultFileManager::unloadFile(ResultFile *file)
     WRITER_MUTEX
 
     serial++;
+    unloadSerial++;
 
     // delete FileRuns
     set<Run *> affectedRuns;
@@ -1371,6 +1373,83 @@ void ResultFileManager::unloadFile(ResultFile *file)
     delete file;
 }
 
+template <class T>
+void ResultFileManager::adoptItems(std::vector<T>& items)
+{
+    // re-pool strings and attributes, as they point into the staging manager
+    for (T& item : items) {
+        item.moduleNameRef = moduleNames.insert(*item.moduleNameRef);
+        item.nameRef = names.insert(*item.nameRef);
+        item.setAttributes(*item.attributes);
+    }
+}
+
+ResultFile *ResultFileManager::adoptFile(ResultFileManager *stagingManager, ResultFile *file)
+{
+    WRITER_MUTEX
+#ifdef THREADED
+    Mutex __staging_writer_mutex_(stagingManager->getWriteLock());
+#endif
+
+    assert(stagingManager != this && file->resultFileManager == stagingManager);
+
+    ResultFile *oldFile = getFile(file->getFilePath().c_str());
+    if (oldFile)
+        unloadFile(oldFile);
+
+    serial++;
+    stagingManager->serial++;
+    stagingManager->unloadSerial++;
+
+    // move the file over
+    stagingManager->filesByDisplayName.erase(file->getFilePath());
+    stagingManager->fileList.erase(file);
+    file->resultFileManager = this;
+    fileList.insert(file);
+    filesByDisplayName[file->getFilePath()] = file;
+
+    // move its file runs, and merge their runs with ours
+    for (FileRun *fileRun : file->fileRuns) {
+        Run *stagingRun = fileRun->runRef;
+        Run *run = getRunByName(stagingRun->getRunName().c_str());
+        if (!run) {
+            run = addRun(stagingRun->getRunName());
+            run->attributes = stagingRun->attributes;
+            run->itervars = stagingRun->itervars;
+            run->configEntries = stagingRun->configEntries;
+        }
+
+        stagingManager->fileRunList[fileRun->id] = nullptr;
+        FileRunList& stagingRunFileRuns = stagingRun->fileRuns;
+        stagingRunFileRuns.erase(find(stagingRunFileRuns, fileRun));
+        if (stagingRunFileRuns.empty()) {
+            stagingManager->runsByName.erase(stagingRun->getRunName());
+            stagingManager->runList.erase(stagingRun);
+            delete stagingRun;
+        }
+
+        fileRun->id = fileRunList.size();
+        fileRunList.push_back(fileRun);
+        fileRun->runRef = run;
+        run->fileRuns.push_back(fileRun);
+
+        adoptItems(fileRun->scalarResults);
+        adoptItems(fileRun->parameterResults);
+        adoptItems(fileRun->vectorResults);
+        adoptItems(fileRun->statisticsResults);
+        adoptItems(fileRun->histogramResults);
+    }
+    return file;
+}
+
+bool ResultFileManager::isFileUpToDate(const char *displayName, const char *fileSystemFileName) const
+{
+    READER_MUTEX
+
+    ResultFile *file = getFile(displayName);
+    return file != nullptr && readFileFingerprint(fileSystemFileName) == file->fingerprint;
+}
+
 /*--------------------------------------------------------------------------
  *                        compute filter hints
  *--------------------------------------------------------------------------*/
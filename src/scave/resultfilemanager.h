@@ -135,6 +135,7 @@ class SCAVE_API ResultFileManager
     friend class SqliteResultFileLoader;
   private:
     int serial = 0; // incremented at each results change
+    int unloadSerial = 0; // incremented when results are removed, i.e. when the change is not just an addition
 
     std::unordered_set<ResultFile*> fileList;
     std::unordered_set<Run*> runList;
@@ -199,6 +200,8 @@ class SCAVE_API ResultFileManager
 
     inline FileRun *getFileRunForID(ID id) const; // checks for nullptr
 
+    template <class T> void adoptItems(std::vector<T>& items);
+
     void makeIDs(std::vector<ID>& out, FileRun *fileRun, int numItems, int type) const;
     void makeFieldScalarIDs(std::vector<ID>& out, FileRun *fileRun, int numItems, HostType hosttype, FieldNum *fieldIds) const;
 
@@ -228,6 +231,7 @@ class SCAVE_API ResultFileManager
 #endif
 
     int getSerial() const {return serial;}
+    int getUnloadSerial() const {return unloadSerial;}
 
     // navigation
     ResultFileList getFiles() const;
@@ -360,6 +364,22 @@ class SCAVE_API ResultFileManager
     void unloadFile(ResultFile *file);
     void unloadFile(const char *displayName);
 
+    /**
+     * Loading files in parallel: a file can be loaded into a private staging
+     * ResultFileManager (on any thread), then moved into this one. Moving only
+     * relinks the already parsed objects, so it is much faster than loading.
+     * An older version of the same file in this manager is unloaded first.
+     * Runs are merged with existing ones of the same name. Returns the file,
+     * which then belongs to this manager.
+     */
+    ResultFile *adoptFile(ResultFileManager *stagingManager, ResultFile *file);
+
+    /**
+     * Returns true if the file is loaded and it hasn't changed on the disk
+     * since then, i.e. loadFile() with RELOAD_IF_CHANGED would not reload it.
+     */
+    bool isFileUpToDate(const char *displayName, const char *fileSystemFileName) const;
+
     bool isFileLoaded(const char *displayName) const;
     ResultFile *getFile(const char *displayName) const;
     Run *getRunByName(const char *runName) const;
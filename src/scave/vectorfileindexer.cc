@@ -29,6 +29,7 @@
 #include "vectorfileindexer.h"
 #include "indexedvectorfilereader.h"
 #include "vectorfileindex.h"
+#include "vectorpyramid.h"
 
 using namespace std;
 using namespace omnetpp::common;
@@ -69,6 +70,8 @@ void VectorFileIndexer::generateIndex(const char *vectorFileName, IProgressMonit
     VectorInfo *currentVectorRef = nullptr;
     VectorInfo *lastVectorDecl = nullptr;
     Block *currentBlock = new Block();
+    VectorPyramidFile::PyramidMap pyramids;
+    VectorPyramid *currentPyramid = nullptr;
 
     int64_t onePercentFileSize = reader.getFileSize() / 100;
     int readPercentage = 0;
@@ -175,6 +178,12 @@ void VectorFileIndexer::generateIndex(const char *vectorFileName, IProgressMonit
                     currentVectorRef = index.getVectorById(vectorId);
                     if (currentVectorRef == nullptr)
                         throw ResultFileFormatException("Vector file indexer: Missing vector declaration", vectorFileName, lineNo);
+                    if (generatePyramids && currentVectorRef->hasColumn('T') && currentVectorRef->hasColumn('V')) {
+                        currentPyramid = &pyramids[vectorId];
+                        currentPyramid->vectorId = vectorId;
+                    }
+                    else
+                        currentPyramid = nullptr;
                 }
 
                 for (int i = 0; i < (int)currentVectorRef->columns.size(); ++i) {
@@ -202,6 +211,8 @@ void VectorFileIndexer::generateIndex(const char *vectorFileName, IProgressMonit
                 }
 
                 currentBlock->collect(eventNum, simTime, value);
+                if (currentPyramid != nullptr)
+                    currentPyramid->collect(simTime.dbl(), value);
             }
         }
 
@@ -244,8 +255,26 @@ void VectorFileIndexer::generateIndex(const char *vectorFileName, IProgressMonit
     // reading an incomplete .vci file
     string indexFileName = IndexFileUtils::getIndexFileName(vectorFileName);
     string tempIndexFileName = createTempFileName(indexFileName);
+    string pyramidFileName = IndexFileUtils::getPyramidFileName(vectorFileName);
+    string tempPyramidFileName;
 
     try {
+        // the pyramid file is written first, so it is in place when the index file appears
+        if (unlink(pyramidFileName.c_str()) != 0 && errno != ENOENT)
+            throw opp_runtime_error("Cannot remove original pyramid file '%s': %s", pyramidFileName.c_str(), strerror(errno));
+        if (generatePyramids) {
+            // short vectors are read from the vector file anyway
+            for (auto it = pyramids.begin(); it != pyramids.end(); )
+                if (it->second.cellSize < VectorPyramid::MIN_STORED_CELL_SIZE)
+                    it = pyramids.erase(it);
+                else
+                    ++it;
+            tempPyramidFileName = createTempFileName(pyramidFileName);
+            VectorPyramidFile::write(tempPyramidFileName.c_str(), vectorFileName, pyramids);
+            if (rename(tempPyramidFileName.c_str(), pyramidFileName.c_str()) != 0)
+                throw opp_runtime_error("Cannot rename pyramid file from '%s' to '%s': %s", tempPyramidFileName.c_str(), pyramidFileName.c_str(), strerror(errno));
+        }
+
         IndexFileWriter writer(tempIndexFileName.c_str());
         writer.writeAll(index);
 
@@ -265,6 +294,9 @@ void VectorFileIndexer::generateIndex(const char *vectorFileName, IProgressMonit
         // if something wrong happened, we remove the temp files
         unlink(indexFileName.c_str());
         unlink(tempIndexFileName.c_str());
+        unlink(pyramidFileName.c_str());
+        if (!tempPyramidFileName.empty())
+            unlink(tempPyramidFileName.c_str());
         throw;
     }
     if (monitor)
@@ -24,16 +24,30 @@ namespace omnetpp {
 namespace scave {
 
 /**
- * Generate an index file (.vci) for an output vector file (.vec)
+ * Generate an index file (.vci) for an output vector file (.vec),
+ * and optionally a pyramid file (.vcp) as well.
  */
 class SCAVE_API VectorFileIndexer
 {
     using VectorInfo = VectorFileIndex::VectorInfo;
     using Block = VectorFileIndex::Block;
 
+    private:
+        bool generatePyramids = false;
+
     public:
         typedef omnetpp::common::IProgressMonitor IProgressMonitor;
 
+        /**
+         * When enabled, a pyramid file (.vcp, see VectorPyramid) is also generated
+         * in the same pass as the index file. When disabled, an existing pyramid
+         * file of the vector file is removed, as it would be out of date.
+         * Only vectors long enough for a pyramid to pay off are stored in it
+         * (see VectorPyramid::MIN_STORED_CELL_SIZE).
+         */
+        void setGeneratePyramids(bool enabled) {generatePyramids = enabled;}
+        bool getGeneratePyramids() const {return generatePyramids;}
+
         void generateIndex(const char *filename, IProgressMonitor *monitor = nullptr);
 };
 
@@ -0,0 +1,179 @@
+//=========================================================================
+//  VECTORPYRAMID.CC - part of
+//                  OMNeT++/OMNEST
+//           Discrete System Simulation in C++
+//
+//=========================================================================
+
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  `license' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+#include <clocale>
+#include <cstring>
+#include "common/exception.h"
+#include "common/filereader.h"
+#include "common/linetokenizer.h"
+#include "scaveutils.h"
+#include "scaveexception.h"
+#include "filefingerprint.h"
+#include "vectorpyramid.h"
+
+using namespace omnetpp::common;
+
+namespace omnetpp {
+namespace scave {
+
+#define PYRAMID_FILE_VERSION 2
+
+void VectorPyramid::collect(double time, double value)
+{
+    if (cells.empty() || cells.back().getNumValues() == cellSize) {
+        if ((int)cells.size() == 2 * MAX_CELLS) {
+            // all cells are full, merge them pairwise
+            for (int i = 0; i < MAX_CELLS; i++) {
+                cells[i] = cells[2*i];
+                cells[i].merge(cells[2*i+1]);
+            }
+            cells.resize(MAX_CELLS);
+            cellSize *= 2;
+        }
+        cells.push_back(Cell());
+    }
+    cells.back().collect(time, value);
+}
+
+int VectorPyramid::getNumLevels() const
+{
+    int numLevels = 1;
+    for (size_t n = cells.size(); n > 1; n = (n + 1) / 2)
+        numLevels++;
+    return numLevels;
+}
+
+std::vector<VectorPyramid::Cell> VectorPyramid::getLevel(int level) const
+{
+    std::vector<Cell> result = cells;
+    for (int i = 0; i < level && result.size() > 1; i++)
+        result = getCoarserLevel(result);
+    return result;
+}
+
+std::vector<VectorPyramid::Cell> VectorPyramid::getCoarserLevel(const std::vector<Cell>& cells)
+{
+    std::vector<Cell> result((cells.size() + 1) / 2);
+    for (size_t j = 0; j < result.size(); j++) {
+        result[j] = cells[2*j];
+        if (2*j+1 < cells.size())
+            result[j].merge(cells[2*j+1]);
+    }
+    return result;
+}
+
+double VectorPyramid::getMaxCellDuration(const std::vector<Cell>& cells, double simTimeStart, double simTimeEnd)
+{
+    double maxDuration = 0;
+    for (const Cell& cell : cells)
+        if (cell.endTime >= simTimeStart && cell.startTime <= simTimeEnd && cell.endTime - cell.startTime > maxDuration)
+            maxDuration = cell.endTime - cell.startTime;
+    return maxDuration;
+}
+
+#ifdef CHECK
+#undef CHECK
+#endif
+#define CHECK(fprintf)    if ((fprintf)<0) throw opp_runtime_error("Cannot write pyramid file '%s'", fileName)
+
+void VectorPyramidFile::write(const char *fileName, const char *vectorFileName, const PyramidMap& pyramids)
+{
+    FileFingerprint fingerprint = readFileFingerprint(vectorFileName);
+
+    FILE *file = fopen(fileName, "w");
+    if (file == nullptr)
+        throw opp_runtime_error("Cannot open pyramid file: %s", fileName);
+
+    setlocale(LC_NUMERIC, "C");
+
+    try {
+        CHECK(fprintf(file, "file %" PRId64 " %" PRId64 "\n", fingerprint.fileSize, fingerprint.lastModified));
+        CHECK(fprintf(file, "version %d\n", PYRAMID_FILE_VERSION));
+        for (const auto& entry : pyramids) {
+            const VectorPyramid& pyramid = entry.second;
+            if (pyramid.cells.empty())
+                continue;
+            CHECK(fprintf(file, "pyramid %d %" PRId64 " %d\n", pyramid.vectorId, pyramid.cellSize, (int)pyramid.cells.size()));
+            for (const VectorPyramid::Cell& cell : pyramid.cells)
+                CHECK(fprintf(file, "%" PRId64 " %" PRId64 " %.17g %.17g %.17g %.17g %.17g %.17g %.17g %.17g %.17g\n",
+                        cell.count, cell.nanCount, cell.startTime, cell.endTime, cell.nanTime,
+                        cell.first, cell.last, cell.min, cell.max, cell.sum, cell.sumSqr));
+        }
+    }
+    catch (std::exception&) {
+        fclose(file);
+        throw;
+    }
+    if (fclose(file) != 0)
+        throw opp_runtime_error("Cannot write pyramid file '%s'", fileName);
+}
+
+#undef CHECK
+#define CHECK(cond,msg,line) if (!(cond)) throw ResultFileFormatException(msg, fileName, line);
+
+VectorPyramidFile::PyramidMap VectorPyramidFile::read(const char *fileName)
+{
+    FileReader reader(fileName);
+    LineTokenizer tokenizer(1024);
+    reader.setCheckFileForChanges(false);
+
+    PyramidMap pyramids;
+    VectorPyramid *pyramid = nullptr;
+    int remainingCells = 0;
+    char *line;
+    while ((line = reader.getNextLineBufferPointer()) != nullptr) {
+        int64_t lineNum = reader.getNumReadLines();
+        int numTokens = tokenizer.tokenize(line, reader.getCurrentLineLength());
+        char **tokens = tokenizer.tokens();
+
+        if (numTokens == 0 || tokens[0][0] == '#')
+            continue;
+        else if (remainingCells > 0) {
+            CHECK(numTokens == 11, "malformed pyramid cell", lineNum);
+            VectorPyramid::Cell cell;
+            CHECK(parseInt64(tokens[0], cell.count) && parseInt64(tokens[1], cell.nanCount) &&
+                    parseDouble(tokens[2], cell.startTime) && parseDouble(tokens[3], cell.endTime) && parseDouble(tokens[4], cell.nanTime) &&
+                    parseDouble(tokens[5], cell.first) && parseDouble(tokens[6], cell.last) && parseDouble(tokens[7], cell.min) &&
+                    parseDouble(tokens[8], cell.max) && parseDouble(tokens[9], cell.sum) && parseDouble(tokens[10], cell.sumSqr),
+                    "invalid pyramid cell data", lineNum);
+            CHECK(cell.count >= 0 && cell.nanCount >= 0 && cell.getNumValues() > 0, "invalid pyramid cell data", lineNum);
+            pyramid->cells.push_back(cell);
+            remainingCells--;
+        }
+        else if (strcmp(tokens[0], "pyramid") == 0) {
+            CHECK(numTokens == 4, "malformed pyramid declaration", lineNum);
+            int vectorId;
+            CHECK(parseInt(tokens[1], vectorId), "invalid vector id", lineNum);
+            pyramid = &pyramids[vectorId];
+            pyramid->vectorId = vectorId;
+            CHECK(parseInt64(tokens[2], pyramid->cellSize) && pyramid->cellSize > 0, "invalid cell size", lineNum);
+            CHECK(parseInt(tokens[3], remainingCells) && remainingCells >= 0, "invalid number of cells", lineNum);
+            pyramid->cells.reserve(remainingCells);
+        }
+        else if (strcmp(tokens[0], "version") == 0) {
+            int version;
+            CHECK(numTokens >= 2 && parseInt(tokens[1], version), "missing or invalid version number", lineNum);
+            CHECK(version == PYRAMID_FILE_VERSION, "unsupported pyramid file version", lineNum);
+        }
+        else if (strcmp(tokens[0], "file") == 0)
+            continue; // fingerprint, checked by IndexFileUtils::isPyramidFileUpToDate()
+        else
+            CHECK(false, "unrecognized line", lineNum);
+    }
+    CHECK(remainingCells == 0, "truncated pyramid file", reader.getNumReadLines());
+    return pyramids;
+}
+
+}  // namespace scave
+}  // namespace omnetpp
@@ -0,0 +1,173 @@
+//=========================================================================
+//  VECTORPYRAMID.H - part of
+//                  OMNeT++/OMNEST
+//           Discrete System Simulation in C++
+//
+//=========================================================================
+
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  `license' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+#ifndef __OMNETPP_SCAVE_VECTORPYRAMID_H
+#define __OMNETPP_SCAVE_VECTORPYRAMID_H
+
+#include <cfloat>
+#include <cmath>
+#include <map>
+#include <string>
+#include <vector>
+#include "scavedefs.h"
+
+namespace omnetpp {
+namespace scave {
+
+/**
+ * Multi-resolution summary of the values of an output vector, for answering
+ * overview queries without reading the vector file. The values are grouped
+ * into cells of consecutive values. On level 0, each cell (except the last one)
+ * contains cellSize values, where cellSize is a power of two; on each further
+ * level, pairs of adjacent cells of the previous level are merged.
+ *
+ * The pyramid is built in a single pass over the data with bounded memory:
+ * when the number of cells on level 0 would exceed 2*MAX_CELLS, the cells are
+ * merged pairwise and cellSize is doubled. This way level 0 of a long vector
+ * has between MAX_CELLS and 2*MAX_CELLS cells, so its cells are narrower than
+ * the buckets of an overview of the whole vector. Only level 0 is stored; the
+ * other levels are computed on demand.
+ *
+ * NaN values count towards the cell size, but they are not included in the
+ * statistics; instead, a cell records the number of NaNs and the time of the
+ * first one, so gaps in the data can be reproduced from the pyramid.
+ */
+struct SCAVE_API VectorPyramid
+{
+    static const int MAX_CELLS = 4096;
+
+    /**
+     * Pyramids with smaller cells than this are not worth storing, because
+     * reading the vector data is not much more expensive than reading them.
+     */
+    static const int MIN_STORED_CELL_SIZE = 64;
+
+    struct Cell {
+        int64_t count = 0; // number of non-NaN values
+        int64_t nanCount = 0;
+        double startTime = 0, endTime = 0; // times of the first and last value, including NaNs
+        double nanTime = NAN; // time of the first NaN
+        double first = NAN, last = NAN; // first and last non-NaN values
+        double min = DBL_MAX, max = -DBL_MAX;
+        double sum = 0, sumSqr = 0;
+
+        int64_t getNumValues() const {return count + nanCount;}
+
+        void collect(double time, double value) {
+            if (getNumValues() == 0)
+                startTime = time;
+            endTime = time;
+            if (std::isnan(value)) {
+                if (nanCount == 0)
+                    nanTime = time;
+                nanCount++;
+                return;
+            }
+            if (count == 0)
+                first = value;
+            last = value;
+            if (value < min)
+                min = value;
+            if (value > max)
+                max = value;
+            sum += value;
+            sumSqr += value * value;
+            count++;
+        }
+
+        void merge(const Cell& next) {
+            if (next.getNumValues() == 0)
+                return;
+            if (getNumValues() == 0) {
+                *this = next;
+                return;
+            }
+            endTime = next.endTime;
+            if (next.nanCount > 0) {
+                if (nanCount == 0)
+                    nanTime = next.nanTime;
+                nanCount += next.nanCount;
+            }
+            if (next.count == 0)
+                return;
+            if (count == 0)
+                first = next.first;
+            last = next.last;
+            if (next.min < min)
+                min = next.min;
+            if (next.max > max)
+                max = next.max;
+            sum += next.sum;
+            sumSqr += next.sumSqr;
+            count += next.count;
+        }
+    };
+
+    int vectorId = -1;
+    int64_t cellSize = 1;
+    std::vector<Cell> cells; // level 0
+
+    VectorPyramid() {}
+    explicit VectorPyramid(int vectorId) : vectorId(vectorId) {}
+
+    void collect(double time, double value);
+
+    /**
+     * Returns the number of levels, the last one consists of a single cell.
+     */
+    int getNumLevels() const;
+
+    /**
+     * Returns the cells of the given level.
+     */
+    std::vector<Cell> getLevel(int level) const;
+
+    /**
+     * Returns the next level after the given one, by merging its cells pairwise.
+     */
+    static std::vector<Cell> getCoarserLevel(const std::vector<Cell>& cells);
+
+    /**
+     * Returns the largest endTime-startTime of the given cells that overlap
+     * with the given interval.
+     */
+    static double getMaxCellDuration(const std::vector<Cell>& cells, double simTimeStart=-INFINITY, double simTimeEnd=INFINITY);
+};
+
+/**
+ * Reads and writes pyramid files (.vcp). A pyramid file belongs to a vector
+ * file the same way as the index file does, and it records the fingerprint of
+ * the vector file in the same way, so it can be checked if it is up to date.
+ */
+class SCAVE_API VectorPyramidFile
+{
+    public:
+        typedef std::map<int,VectorPyramid> PyramidMap; // key: vectorId
+
+        /**
+         * Writes the pyramids of the given vector file into the given file.
+         */
+        static void write(const char *fileName, const char *vectorFileName, const PyramidMap& pyramids);
+
+        /**
+         * Reads all pyramids from the given pyramid file.
+         */
+        static PyramidMap read(const char *fileName);
+};
+
+}  // namespace scave
+}  // namespace omnetpp
+
+
+#endif
@@ -15,6 +15,10 @@
 
 #include "vectorutils.h"
 
+#include <algorithm>
+#include <cmath>
+#include <functional>
+#include <memory>
 #include <set>
 #include "common/opp_ctype.h"
 #include "common/commonutil.h"
@@ -25,6 +29,8 @@
 #include "xyarray.h"
 #include "resultfilemanager.h"
 #include "indexedvectorfilereader.h"
+#include "indexfileutils.h"
+#include "vectorpyramid.h"
 #include "sqliteresultfileutils.h"
 #include "sqlitevectordatareader.h"
 #include "interruptedflag.h"
@@ -35,23 +41,16 @@ namespace omnetpp {
 using namespace common;
 namespace scave {
 
-vector<XYArray *> readVectorsIntoArrays(ResultFileManager *manager, const IDList& idlist, bool includePreciseX, bool includeEventNumbers, size_t memoryLimitBytes, double simTimeStart, double simTimeEnd, InterruptedFlag *interrupted)
+/**
+ * Reads the data of the given vectors file by file, and passes them to the consumer
+ * in chunks, together with the index of the vector in idlist.
+ */
+static void collectVectorData(ResultFileManager *manager, const IDList& idlist, bool includeEventNumbers, double simTimeStart, double simTimeEnd, InterruptedFlag *interrupted,
+        const std::function<void(int index, const std::vector<VectorDatum>& data)>& consumer)
 {
-    std::vector<XYArray *> result;
-    result.resize(idlist.size());
-
-    for (int i = 0; i < result.size(); ++i) {
-        result[i] = new XYArray();
-        // TODO: reserve vectors, only those that are needed, taking time limit into account
-    }
-
-    size_t memoryUsedBytes = 0;
-
     ResultFileList filteredVectorFileList = manager->getUniqueFiles(idlist);
 
-    StringMap attrs;
     for (ResultFile *resultFile : filteredVectorFileList) {
-        std::vector<int> vectorIds; // local to each file
         RunList runs = manager->getRunsInFile(resultFile);
 
         if (runs.size() > 1)
@@ -70,51 +69,272 @@ vector<XYArray *> readVectorsIntoArrays(ResultFileManager *manager, const IDList
             vectorIdToIndex[vectorID] = idlist.indexOf(id);
         }
 
-        const int elementSize = sizeof(double) + sizeof(double) + (includePreciseX ? sizeof(BigDecimal) : 0) + (includeEventNumbers ? sizeof(eventnumber_t) : 0);
-
         auto adapter = [&](int vectorId, const std::vector<VectorDatum>& data) {
-            memoryUsedBytes += data.size() * elementSize;
-            if (memoryUsedBytes > memoryLimitBytes)
-                throw opp_runtime_error("Memory limit exceeded during vector data loading");
-
-            XYArray *array = result[vectorIdToIndex.at(vectorId)];
-            for (const VectorDatum &vd : data) {
-                array->xs.push_back(vd.simtime.dbl());
-                array->ys.push_back(vd.value);
-                if (includePreciseX)
-                    array->xps.push_back(vd.simtime);
-                if (includeEventNumbers)
-                    array->ens.push_back(vd.eventNumber);
-            }
+            consumer(vectorIdToIndex.at(vectorId), data);
 
             if (interrupted != nullptr && interrupted->flag)
                 throw InterruptedException("Vector loading interrupted");
         };
 
-        IVectorDataReader *reader;
+        std::unique_ptr<IVectorDataReader> reader;
         if (SqliteResultFileUtils::isSqliteFile(resultFile->getFileSystemFilePath().c_str()))
-            reader = new SqliteVectorDataReader(resultFile->getFileSystemFilePath().c_str(), includeEventNumbers, adapter, resultFile->getFingerprint());
+            reader.reset(new SqliteVectorDataReader(resultFile->getFileSystemFilePath().c_str(), includeEventNumbers, adapter, resultFile->getFingerprint()));
+        else
+            reader.reset(new IndexedVectorFileReader(resultFile->getFileSystemFilePath().c_str(), includeEventNumbers, adapter, resultFile->getFingerprint()));
+
+        if (simTimeStart == -INFINITY && simTimeEnd == INFINITY)
+            reader->collectEntries(vectorIdsInFile);
         else
-            reader = new IndexedVectorFileReader(resultFile->getFileSystemFilePath().c_str(), includeEventNumbers, adapter, resultFile->getFingerprint());
-
-        try {
-            if (simTimeStart == -INFINITY && simTimeEnd == INFINITY)
-                reader->collectEntries(vectorIdsInFile);
-            else
-                reader->collectEntriesInSimtimeInterval(vectorIdsInFile, simTimeStart, simTimeEnd);
-            delete reader;
+            reader->collectEntriesInSimtimeInterval(vectorIdsInFile, simTimeStart, simTimeEnd);
+    }
+}
+
+static void discardArrays(std::vector<XYArray *>& result)
+{
+    for (XYArray *a : result)
+        delete a;
+    result.clear();
+    result.shrink_to_fit();
+    malloc_trim(); // TODO needed? effective?
+}
+
+vector<XYArray *> readVectorsIntoArrays(ResultFileManager *manager, const IDList& idlist, bool includePreciseX, bool includeEventNumbers, size_t memoryLimitBytes, double simTimeStart, double simTimeEnd, InterruptedFlag *interrupted)
+{
+    std::vector<XYArray *> result;
+    result.resize(idlist.size());
+
+    for (int i = 0; i < result.size(); ++i) {
+        result[i] = new XYArray();
+        // TODO: reserve vectors, only those that are needed, taking time limit into account
+    }
+
+    size_t memoryUsedBytes = 0;
+    const int elementSize = sizeof(double) + sizeof(double) + (includePreciseX ? sizeof(BigDecimal) : 0) + (includeEventNumbers ? sizeof(eventnumber_t) : 0);
+
+    auto consumer = [&](int index, const std::vector<VectorDatum>& data) {
+        memoryUsedBytes += data.size() * elementSize;
+        if (memoryUsedBytes > memoryLimitBytes)
+            throw opp_runtime_error("Memory limit exceeded during vector data loading");
+
+        XYArray *array = result[index];
+        for (const VectorDatum &vd : data) {
+            array->xs.push_back(vd.simtime.dbl());
+            array->ys.push_back(vd.value);
+            if (includePreciseX)
+                array->xps.push_back(vd.simtime);
+            if (includeEventNumbers)
+                array->ens.push_back(vd.eventNumber);
+        }
+    };
+
+    try {
+        collectVectorData(manager, idlist, includeEventNumbers, simTimeStart, simTimeEnd, interrupted, consumer);
+    }
+    catch (std::exception &e) {
+        discardArrays(result);
+        throw;
+    }
+
+    return result;
+}
+
+namespace {
+
+/**
+ * Reduces the data of a vector to at most four points per bucket: the first,
+ * the minimum, the maximum and the last one, in the original order. Drawn as
+ * a polyline, the result covers the same pixels as the full data, as long as
+ * buckets are not wider than a pixel column. The first NaN of the bucket is
+ * also kept, so gaps in the line are preserved.
+ */
+class MinMaxDecimator
+{
+  private:
+    struct Point {
+        double x, y;
+        int64_t seq = -1; // position in the input, -1 if unset
+    };
+
+    XYArray *array;
+    double start, bucketWidth;
+    int numBuckets;
+    int64_t bucket = -1;
+    int64_t seq = 0;
+    Point first, min, max, last, nan;
+
+  public:
+    MinMaxDecimator(XYArray *array, double start, double end, int numBuckets) :
+        array(array), start(start), bucketWidth((end - start) / numBuckets), numBuckets(numBuckets) {}
+
+    double getBucketWidth() const {return bucketWidth;}
+
+    void add(double x, double y) {
+        int64_t b = bucketWidth > 0 ? (int64_t)std::floor((x - start) / bucketWidth) : 0;
+        b = std::max((int64_t)0, std::min((int64_t)numBuckets - 1, b));
+        if (b != bucket) {
+            flush();
+            bucket = b;
+        }
+        Point p {x, y, seq++};
+        if (std::isnan(y)) {
+            if (nan.seq == -1)
+                nan = p;
+            return;
         }
-        catch (std::exception &e) {
-            delete reader;
+        if (first.seq == -1)
+            first = p;
+        if (min.seq == -1 || y < min.y)
+            min = p;
+        if (max.seq == -1 || y > max.y)
+            max = p;
+        last = p;
+    }
+
+    void flush() {
+        Point *points[] = { &first, &min, &max, &last, &nan };
+        std::sort(std::begin(points), std::end(points), [](Point *a, Point *b) { return a->seq < b->seq; });
+        int64_t prevSeq = -1;
+        for (Point *p : points) {
+            if (p->seq != -1 && p->seq != prevSeq) {
+                array->xs.push_back(p->x);
+                array->ys.push_back(p->y);
+                prevSeq = p->seq;
+            }
+        }
+        first.seq = min.seq = max.seq = last.seq = nan.seq = -1;
+    }
+};
 
-            for (XYArray *a : result)
-                delete a;
-            result.clear();
-            result.shrink_to_fit();
-            malloc_trim(); // TODO needed? effective?
+/**
+ * Returns the pyramids of the vectors in the given file, or an empty map
+ * if the file has no up-to-date pyramid file.
+ */
+VectorPyramidFile::PyramidMap loadPyramids(ResultFile *resultFile)
+{
+    const char *fileName = resultFile->getFileSystemFilePath().c_str();
+    if (SqliteResultFileUtils::isSqliteFile(fileName) || !IndexFileUtils::isPyramidFileUpToDate(fileName))
+        return VectorPyramidFile::PyramidMap();
+    try {
+        return VectorPyramidFile::read(IndexFileUtils::getPyramidFileName(fileName).c_str());
+    }
+    catch (std::exception& e) {
+        return VectorPyramidFile::PyramidMap(); // the vector file will be read instead
+    }
+}
 
-            throw;
+/**
+ * Feeds the coarsest level of the pyramid whose cells in the interval are not
+ * wider than the buckets into the decimator, and returns true. If even the cells
+ * of level 0 are wider than the buckets, returns false without doing anything.
+ *
+ * Each cell is represented by its first and last values at its start and end
+ * time, and its minimum and maximum in the middle. If the cell contains NaNs,
+ * a NaN is also added at the time of the first one, so the line has a gap there.
+ * Cells that are only partly inside the interval are included as a whole, and
+ * their points are clamped into the interval; as cells are not wider than the
+ * buckets, this only affects the first and last bucket.
+ */
+bool decimateFromPyramid(const VectorPyramid& pyramid, MinMaxDecimator& decimator, double simTimeStart, double simTimeEnd)
+{
+    double bucketWidth = decimator.getBucketWidth();
+    std::vector<VectorPyramid::Cell> cells = pyramid.cells;
+    if (VectorPyramid::getMaxCellDuration(cells, simTimeStart, simTimeEnd) > bucketWidth)
+        return false;
+    while (cells.size() > 1) {
+        std::vector<VectorPyramid::Cell> coarserCells = VectorPyramid::getCoarserLevel(cells);
+        if (VectorPyramid::getMaxCellDuration(coarserCells, simTimeStart, simTimeEnd) > bucketWidth)
+            break;
+        cells = std::move(coarserCells);
+    }
+
+    auto clamp = [=](double t) { return std::max(simTimeStart, std::min(simTimeEnd, t)); };
+    for (const VectorPyramid::Cell& cell : cells) {
+        if (cell.endTime < simTimeStart || cell.startTime > simTimeEnd)
+            continue;
+        bool nanPending = cell.nanCount > 0;
+        auto addNanUntil = [&](double t) {
+            if (nanPending && cell.nanTime <= t) {
+                decimator.add(clamp(cell.nanTime), NAN);
+                nanPending = false;
+            }
+        };
+        if (cell.count > 0) {
+            addNanUntil(cell.startTime);
+            decimator.add(clamp(cell.startTime), cell.first);
         }
+        if (cell.count > 1) {
+            double middle = (cell.startTime + cell.endTime) / 2;
+            addNanUntil(middle);
+            decimator.add(clamp(middle), cell.min);
+            decimator.add(clamp(middle), cell.max);
+            addNanUntil(cell.endTime);
+            decimator.add(clamp(cell.endTime), cell.last);
+        }
+        addNanUntil(INFINITY);
+    }
+    return true;
+}
+
+}  // namespace
+
+vector<XYArray *> readVectorsIntoArraysDecimated(ResultFileManager *manager, const IDList& idlist, double simTimeStart, double simTimeEnd, int numBuckets, InterruptedFlag *interrupted)
+{
+    if (numBuckets <= 0)
+        throw opp_runtime_error("Number of buckets must be positive");
+
+    std::vector<XYArray *> result;
+    std::vector<MinMaxDecimator> decimators;
+    result.resize(idlist.size());
+    decimators.reserve(idlist.size());
+
+    for (int i = 0; i < result.size(); ++i) {
+        result[i] = new XYArray();
+
+        // an infinite interval end is replaced with the end of the vector, so buckets have a finite width
+        double start = simTimeStart, end = simTimeEnd;
+        if (!std::isfinite(start) || !std::isfinite(end)) {
+            const VectorResult *vector = manager->getVector(idlist.get(i));
+            if (!std::isfinite(start))
+                start = vector->getStartTime().dbl();
+            if (!std::isfinite(end))
+                end = vector->getEndTime().dbl();
+        }
+        decimators.emplace_back(result[i], start, end, numBuckets);
+    }
+
+    // vectors with up-to-date pyramids that are fine enough for the buckets are served from them,
+    // only the rest need to be read from the vector files
+    std::vector<ID> remainingIDs;
+    std::vector<int> remainingIndices;
+    std::map<ResultFile *, VectorPyramidFile::PyramidMap> pyramidsByFile;
+    for (int i = 0; i < idlist.size(); ++i) {
+        const VectorResult *vector = manager->getVector(idlist.get(i));
+        auto it = pyramidsByFile.find(vector->getFile());
+        if (it == pyramidsByFile.end())
+            it = pyramidsByFile.emplace(vector->getFile(), loadPyramids(vector->getFile())).first;
+        auto pyramidIt = it->second.find(vector->getVectorId());
+        if (pyramidIt == it->second.end() || !decimateFromPyramid(pyramidIt->second, decimators[i], simTimeStart, simTimeEnd)) {
+            remainingIDs.push_back(idlist.get(i));
+            remainingIndices.push_back(i);
+        }
+    }
+    pyramidsByFile.clear();
+
+    auto consumer = [&](int index, const std::vector<VectorDatum>& data) {
+        MinMaxDecimator& decimator = decimators[remainingIndices[index]];
+        for (const VectorDatum &vd : data)
+            decimator.add(vd.simtime.dbl(), vd.value);
+    };
+
+    try {
+        if (!remainingIDs.empty())
+            collectVectorData(manager, IDList(std::move(remainingIDs)), false, simTimeStart, simTimeEnd, interrupted, consumer);
+        for (MinMaxDecimator& decimator : decimators)
+            decimator.flush();
+    }
+    catch (std::exception &e) {
+        discardArrays(result);
+        throw;
     }
 
     return result;
@@ -124,5 +344,9 @@ XYArrayVector *readVectorsIntoArrays2(ResultFileManager *manager, const IDList&
     return new XYArrayVector(readVectorsIntoArrays(manager, idlist, includePreciseX, includeEventNumbers, memoryLimitBytes, simTimeStart, simTimeEnd, interrupted));
 }
 
+XYArrayVector *readVectorsIntoArraysDecimated2(ResultFileManager *manager, const IDList& idlist, double simTimeStart, double simTimeEnd, int numBuckets, InterruptedFlag *interrupted) {
+    return new XYArrayVector(readVectorsIntoArraysDecimated(manager, idlist, simTimeStart, simTimeEnd, numBuckets, interrupted));
+}
+
 }  // namespace scave
 }  // namespace omnetpp
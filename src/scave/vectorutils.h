@@ -31,6 +31,16 @@ namespace scave {
  */
 SCAVE_API std::vector<XYArray *> readVectorsIntoArrays(ResultFileManager *manager, const IDList& idlist, bool includePreciseX, bool includeEventNumbers, size_t memoryLimitBytes = std::numeric_limits<size_t>::max(), double simTimeStart = -INFINITY, double simTimeEnd = INFINITY, InterruptedFlag *interrupted=nullptr);
 
+/**
+ * Reads the given vectors reduced to the level of detail needed for plotting:
+ * the [simTimeStart, simTimeEnd] interval is divided into numBuckets equal
+ * buckets, and only the first, minimum, maximum and last values (and the first
+ * NaN) of each bucket are kept, in their original order. Infinite interval ends
+ * are replaced with the start/end time of the vector when computing the buckets.
+ * Memory use is proportional to numBuckets instead of the length of the vectors.
+ */
+SCAVE_API std::vector<XYArray *> readVectorsIntoArraysDecimated(ResultFileManager *manager, const IDList& idlist, double simTimeStart, double simTimeEnd, int numBuckets, InterruptedFlag *interrupted=nullptr);
+
 /**
   * This class simply wraps the std::vector<XYArray *> to make it usable from Java.
  */
@@ -57,6 +67,7 @@ class SCAVE_API XYArrayVector {
  * This is just to make the data usable from Java.
  */
 SCAVE_API XYArrayVector *readVectorsIntoArrays2(ResultFileManager *manager, const IDList& idlist, bool includePreciseX, bool includeEventNumbers, size_t memoryLimitBytes = std::numeric_limits<size_t>::max(), double simTimeStart = -INFINITY, double simTimeEnd = INFINITY, InterruptedFlag *interrupted=nullptr);
+SCAVE_API XYArrayVector *readVectorsIntoArraysDecimated2(ResultFileManager *manager, const IDList& idlist, double simTimeStart, double simTimeEnd, int numBuckets, InterruptedFlag *interrupted=nullptr);
 
 }  // namespace scave
 }  // namespace omnetpp
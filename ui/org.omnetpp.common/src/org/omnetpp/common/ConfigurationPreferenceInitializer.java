@@ -17,6 +17,7 @@ import org.eclipse.jface.preference.IPreferenceStore;
 import org.omnetpp.common.util.LicenseUtils;
 import org.omnetpp.common.util.ProcessUtils;
 import org.omnetpp.common.util.StringUtils;
+import org.omnetpp.eventlog.EventLog;
 
 /**
  * Class used to initialize default preference values.
@@ -35,6 +36,8 @@ public class ConfigurationPreferenceInitializer extends AbstractPreferenceInitia
         String license = IConstants.IS_COMMERCIAL ? LicenseUtils.CUSTOM : LicenseUtils.LGPL;
         store.setDefault(IConstants.PREF_DEFAULT_LICENSE, license);
         store.setDefault(IConstants.PREF_CUSTOM_LICENSE_HEADER, LicenseUtils.DEFAULT_CUSTOM_LICENSE_HEADER);
+        store.setDefault(IConstants.PREF_EVENTLOG_CACHE_SIZE, (int)(EventLog.DEFAULT_EVENT_CACHE_MEMORY_LIMIT / 1024 / 1024));
+        store.setDefault(IConstants.PREF_EVENTLOG_PARALLEL_FILTERING, true);
     }
 
     private IPath getOmnetppRootDefault() {
@@ -72,6 +72,8 @@ public interface IConstants extends ICoreConstants {
     public static final String PREF_OMNETPP_IMAGE_PATH = "omnetppImagePath";
     public static final String PREF_DOXYGEN_EXECUTABLE = "doxygenExecutable";
     public static final String PREF_GRAPHVIZ_DOT_EXECUTABLE = "graphvizDotExecutable";
+    public static final String PREF_EVENTLOG_CACHE_SIZE = "eventlogCacheSize"; // in megabytes
+    public static final String PREF_EVENTLOG_PARALLEL_FILTERING = "eventlogParallelFiltering";
 
     // variable names
     public static final String VAR_NED_PATH = "opp_ned_path";
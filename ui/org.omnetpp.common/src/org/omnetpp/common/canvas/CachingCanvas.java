@@ -35,6 +35,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
 import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.SWTGraphics;
 import org.eclipse.draw2d.geometry.Rectangle;
@@ -48,6 +49,7 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.ImageLoader;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.omnetpp.common.Debug;
 import org.omnetpp.common.canvas.ITileCache.Tile;
 import org.omnetpp.common.color.ColorFactory;
@@ -62,66 +64,208 @@ import org.omnetpp.common.util.GraphicsUtils;
  */
 @SuppressWarnings("restriction")
 public abstract class CachingCanvas extends LargeScrollableCanvas {
+    /**
+     * Paints missing areas of the canvas in the background, so that the UI thread
+     * only has to composite the finished images. Each area is split into vertical
+     * strips which are painted in parallel, by the jobs of a job group, into the
+     * same off-screen image; the image is published when all strips are done.
+     *
+     * If there is more than one pass (see getNumPasses()), all areas are painted
+     * in each pass, e.g. a coarse pass first, then the final one. Images of the
+     * earlier passes are displayed as previews in the missing areas, and only
+     * the images of the last pass are added to the tile cache.
+     *
+     * Painting happens outside the UI thread, so paintCachableLayer() must not
+     * access widget state; everything it needs should be captured when the job
+     * is created (which happens in the UI thread).
+     */
     protected abstract class PaintInBackgroundJob extends Job {
         private final ArrayList<LargeRect> missingAreas;
-        private final ArrayList<ImageData> imageDatas;
+        private final ArrayList<Rectangle> rects; // missingAreas in canvas coordinates, at the time of creation
+        private final int generation;
+        private final Display display;
         protected long viewX;
         protected long viewY;
 
-        protected PaintInBackgroundJob(String name, ArrayList<LargeRect> missingAreas, ArrayList<ImageData> imageDatas) {
+        /**
+         * Paints one vertical strip of an area.
+         */
+        private class PaintStripJob extends Job {
+            private final BufferedImage bufferedImage;
+            private final Rectangle areaRect;
+            private final Rectangle stripRect;
+            private final int pass;
+
+            public PaintStripJob(BufferedImage bufferedImage, Rectangle areaRect, Rectangle stripRect, int pass) {
+                super(PaintInBackgroundJob.this.getName());
+                this.bufferedImage = bufferedImage;
+                this.areaRect = areaRect;
+                this.stripRect = stripRect;
+                this.pass = pass;
+                setSystem(true);
+            }
+
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                return paintStrip(bufferedImage, areaRect, stripRect, pass, monitor) ? Status.OK_STATUS : Status.CANCEL_STATUS;
+            }
+        }
+
+        protected PaintInBackgroundJob(String name, ArrayList<LargeRect> missingAreas) {
             super(name);
-            this.missingAreas = missingAreas;
-            this.imageDatas = imageDatas;
+            this.missingAreas = new ArrayList<LargeRect>(missingAreas);
+            this.rects = new ArrayList<Rectangle>();
+            for (LargeRect largeRect : missingAreas)
+                rects.add(virtualToCanvasRect(largeRect));
+            this.generation = paintGeneration;
+            this.display = getDisplay();
             this.viewX = getViewportLeft();
             this.viewY = getViewportTop();
         }
 
+        /**
+         * Returns the number of painting passes. The last pass paints the final image.
+         */
+        protected int getNumPasses() {
+            return 1;
+        }
+
+        /**
+         * Returns true if the canvas cache has been cleared since this job was
+         * created, i.e. the result of this job would be out of date.
+         */
+        protected boolean isStale() {
+            return generation != paintGeneration;
+        }
+
         @Override
         protected IStatus run(IProgressMonitor monitor) {
             try {
-                for (LargeRect largeRect : missingAreas) {
-                    SWTAWTGraphics swtAwtGraphics = null;
-                    try {
-                        // TODO: this call accesses widget state (e.g. viewX, etc.)
-                        Rectangle rect = virtualToCanvasRect(largeRect);
-                        Assert.isTrue(!rect.isEmpty());
-                        BufferedImage bufferedImage = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_BGR);
-                        swtAwtGraphics = new SWTAWTGraphics(bufferedImage.createGraphics());
-                        swtAwtGraphics.translate(-rect.x, -rect.y);
-                        swtAwtGraphics.setClip(new Rectangle(rect.x, rect.y, rect.width, rect.height));
-                        paintCachableLayer(swtAwtGraphics, monitor);
-                        imageDatas.add(ImageUtils.convertToSWT(bufferedImage));
-                        if (monitor.isCanceled())
-                            break;
-                    }
-                    finally {
-                        swtAwtGraphics.dispose();
+                int numPasses = getNumPasses();
+                for (int pass = 0; pass < numPasses; pass++) {
+                    for (int i = 0; i < missingAreas.size(); i++) {
+                        ImageData imageData = isStale() ? null : paintArea(rects.get(i), pass, monitor);
+                        if (imageData == null || isStale() || monitor.isCanceled()) {
+                            if (monitor.isCanceled() && !isStale())
+                                paintInBackgroundCanceled = true;
+                            return Status.CANCEL_STATUS;
+                        }
+                        synchronized (paintedAreas) {
+                            paintedAreas.add(new PaintedArea(generation, missingAreas.get(i), imageData, pass == numPasses - 1));
+                        }
+                        display.asyncExec(() -> {
+                            if (!isDisposed())
+                                redraw();
+                        });
                     }
                 }
-                getDisplay().asyncExec(() -> {
-                    for (int i = 0; i < imageDatas.size(); i++)
-                        tileCache.add(missingAreas.get(i), new Image(getDisplay(), imageDatas.get(i)));
-                    imageDatas.clear();
-                    redraw();
-                });
-                if (monitor.isCanceled())
-                    paintInBackgroundCanceled = true;
                 return Status.OK_STATUS;
             }
             finally {
-                paintInBackgroundJob = null;
+                synchronized (paintedAreas) {
+                    if (paintInBackgroundJob == this)
+                        paintInBackgroundJob = null;
+                }
             }
         }
 
-        protected abstract void paintCachableLayer(Graphics graphics, IProgressMonitor monitor);
+        /**
+         * Paints the given area in parallel vertical strips, and returns the
+         * resulting image, or null if painting was canceled.
+         */
+        private ImageData paintArea(Rectangle rect, int pass, IProgressMonitor monitor) {
+            Assert.isTrue(!rect.isEmpty());
+            BufferedImage bufferedImage = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_BGR);
+            int numStrips = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), rect.width / MIN_STRIP_WIDTH));
+            if (numStrips == 1)
+                return paintStrip(bufferedImage, rect, rect, pass, monitor) ? ImageUtils.convertToSWT(bufferedImage) : null;
+
+            JobGroup jobGroup = new JobGroup(getName(), numStrips, numStrips) {
+                @Override
+                protected boolean shouldCancel(IStatus lastCompletedJobResult, int numberOfFailedJobs, int numberOfCanceledJobs) {
+                    return numberOfFailedJobs > 0 || numberOfCanceledJobs > 0;
+                }
+            };
+            for (int i = 0; i < numStrips; i++) {
+                int left = rect.x + rect.width * i / numStrips;
+                int right = rect.x + rect.width * (i + 1) / numStrips;
+                Job job = new PaintStripJob(bufferedImage, rect, new Rectangle(left, rect.y, right - left, rect.height), pass);
+                job.setJobGroup(jobGroup);
+                job.setPriority(getPriority());
+                job.schedule();
+            }
+            try {
+                jobGroup.join(0, monitor);
+            }
+            catch (OperationCanceledException | InterruptedException e) {
+                jobGroup.cancel();
+                joinUninterruptibly(jobGroup); // the running strips are still reading the data
+                return null;
+            }
+            return jobGroup.getResult().isOK() ? ImageUtils.convertToSWT(bufferedImage) : null;
+        }
+
+        /**
+         * Paints a strip of an area into the area's image. Returns false if
+         * painting was canceled or the job became stale.
+         */
+        private boolean paintStrip(BufferedImage bufferedImage, Rectangle areaRect, Rectangle stripRect, int pass, IProgressMonitor monitor) {
+            // each strip has its own Graphics2D; they draw into disjoint parts of the image
+            SWTAWTGraphics swtAwtGraphics = new SWTAWTGraphics(bufferedImage.createGraphics());
+            try {
+                swtAwtGraphics.translate(-areaRect.x, -areaRect.y);
+                swtAwtGraphics.setClip(stripRect);
+                paintCachableLayer(swtAwtGraphics, pass, monitor);
+                return !monitor.isCanceled() && !isStale();
+            }
+            catch (RuntimeException e) {
+                // the data may change while we are painting, but then the result is thrown away anyway
+                if (isStale())
+                    return false;
+                throw e;
+            }
+            finally {
+                swtAwtGraphics.dispose();
+            }
+        }
+
+        /**
+         * Paints the cachable layer in the given pass. Called from background threads,
+         * possibly concurrently for different strips of the canvas.
+         */
+        protected abstract void paintCachableLayer(Graphics graphics, int pass, IProgressMonitor monitor);
+    }
+
+    /**
+     * An area painted by a PaintInBackgroundJob, waiting to be added to the
+     * tile cache (or to the preview tiles) in the UI thread.
+     */
+    private static class PaintedArea {
+        final int generation;
+        final LargeRect rect;
+        final ImageData imageData;
+        final boolean isFinal;
+
+        PaintedArea(int generation, LargeRect rect, ImageData imageData, boolean isFinal) {
+            this.generation = generation;
+            this.rect = rect;
+            this.imageData = imageData;
+            this.isFinal = isFinal;
+        }
     }
 
+    private static final int MIN_STRIP_WIDTH = 64; // narrower strips are not worth a separate thread
+
     private boolean doCaching = true;
     private ITileCache tileCache = new XYTileCache();
     private boolean paintInBackground = false;
-    private Job paintInBackgroundJob;
+    private volatile PaintInBackgroundJob paintInBackgroundJob; // guarded by paintedAreas
     private long paintInBackgroundWaitTime = 100;
-    private boolean paintInBackgroundCanceled = false;
+    private volatile boolean paintInBackgroundCanceled = false;
+    private volatile int paintGeneration = 0; // incremented when the cache is cleared
+    private final ArrayList<PaintedArea> paintedAreas = new ArrayList<PaintedArea>(); // filled by the background job
+    private final ArrayList<Tile> previewTiles = new ArrayList<Tile>(); // results of non-final passes
+    private boolean paintingImage = false; // in getImage(), which must paint everything synchronously
     private boolean debug = Debug.isChannelEnabled("cachingcanvas");
 
     /**
@@ -295,8 +439,14 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
     public Image getImage(int width, int height) {
         Image image = new Image(getDisplay(), width, height);
         GC gc = new GC(image);
-        paint(gc);
-        gc.dispose();
+        paintingImage = true;
+        try {
+            paint(gc);
+        }
+        finally {
+            paintingImage = false;
+            gc.dispose();
+        }
         return image;
     }
 
@@ -318,7 +468,7 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
      * Paints the canvas, making use of the cache.
      */
     protected void paint(Graphics graphics) {
-        if (!doCaching)
+        if (!doCaching || paintingImage)
             paintWithoutCaching(graphics);
         else {
             Rectangle viewportRect = new Rectangle(getViewportRectangle());
@@ -342,18 +492,19 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
             // draw missing tiles
             if (!missingAreas.isEmpty()) {
                 if (paintInBackground) {
-                    ArrayList<ImageData> imageDatas = new ArrayList<ImageData>();
-                    if (paintInBackgroundJob == null && !paintInBackgroundCanceled) {
-                        paintInBackgroundJob = createPaintInBackgroundJob(missingAreas, imageDatas);
-                        paintInBackgroundJob.schedule();
+                    Job newJob = null;
+                    synchronized (paintedAreas) {
+                        if (paintInBackgroundJob == null && !paintInBackgroundCanceled) {
+                            paintInBackgroundJob = newJob = createPaintInBackgroundJob(missingAreas);
+                            if (newJob != null)
+                                newJob.schedule();
+                        }
                     }
                     try {
-                        // wait for 100ms or if the job is finished
-                        if (paintInBackgroundJob != null && paintInBackgroundJob.join(paintInBackgroundWaitTime, null)) {
-                            for (int i = 0; i < imageDatas.size(); i++)
-                                tileCache.add(missingAreas.get(i), new Image(getDisplay(), imageDatas.get(i)));
-                            imageDatas.clear();
-                        }
+                        // wait for 100ms or if the new job is finished, so quick paints do not flicker;
+                        // repaints triggered by a running job only composite what is already finished
+                        if (newJob != null)
+                            newJob.join(paintInBackgroundWaitTime, null);
                     }
                     catch (OperationCanceledException e) {
                         // void
@@ -361,6 +512,7 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
                     catch (InterruptedException e) {
                         // void
                     }
+                    addPaintedAreas();
                     ArrayList<Tile> cachedTiles2 = new ArrayList<Tile>();
                     ArrayList<LargeRect> missingAreas2 = new ArrayList<LargeRect>();
                     tileCache.getTiles(lclip, getVirtualWidth(), getVirtualHeight(), cachedTiles2, missingAreas2);
@@ -370,6 +522,7 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
                     }
                     for (LargeRect largeRect : missingAreas2) {
                         Rectangle rect = virtualToCanvasRect(largeRect);
+                        graphics.setClip(rect.getIntersection(clip));
                         // draw something like the transparent area in Gimp
                         int size = 8;
                         int startX = rect.x / size;
@@ -384,6 +537,10 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
                                 graphics.fillRectangle(x * size, y * size, size, size);
                             }
                         }
+                        // then the result of the coarse pass, if it is already available
+                        for (Tile tile : previewTiles)
+                            graphics.drawImage(tile.image, virtualToCanvasX(tile.rect.x), virtualToCanvasY(tile.rect.y));
+                        graphics.setClip(clip);
                         debugDrawTile(graphics, largeRect, ColorFactory.RED);
                     }
                 }
@@ -420,10 +577,50 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
         }
     }
 
-    protected PaintInBackgroundJob createPaintInBackgroundJob(ArrayList<LargeRect> missingAreas, ArrayList<ImageData> imageDatas) {
+    /**
+     * Creates the job that paints the given missing areas in the background.
+     * Subclasses that turn on background painting should override it.
+     */
+    protected PaintInBackgroundJob createPaintInBackgroundJob(ArrayList<LargeRect> missingAreas) {
         return null;
     }
 
+    /**
+     * Moves the areas painted in the background into the tile cache, or into
+     * the preview tiles if they are the result of a non-final pass.
+     */
+    private void addPaintedAreas() {
+        ArrayList<PaintedArea> areas;
+        synchronized (paintedAreas) {
+            areas = new ArrayList<PaintedArea>(paintedAreas);
+            paintedAreas.clear();
+        }
+        for (PaintedArea area : areas) {
+            if (area.generation != paintGeneration)
+                continue;
+            removePreviewTile(area.rect);
+            Image image = new Image(getDisplay(), area.imageData);
+            if (!area.isFinal)
+                previewTiles.add(new Tile(area.rect, image));
+            else {
+                // a subsequent job might have painted the same area if this one finished late
+                ArrayList<Tile> existingTiles = new ArrayList<Tile>();
+                tileCache.getTiles(area.rect, getVirtualWidth(), getVirtualHeight(), existingTiles, new ArrayList<LargeRect>());
+                if (existingTiles.isEmpty())
+                    tileCache.add(area.rect, image);
+                else
+                    image.dispose();
+            }
+        }
+    }
+
+    private void removePreviewTile(LargeRect rect) {
+        for (int i = previewTiles.size() - 1; i >= 0; i--) {
+            if (previewTiles.get(i).rect.equals(rect))
+                previewTiles.remove(i).image.dispose();
+        }
+    }
+
     /**
      * Paint directly on the graphics
      */
@@ -466,11 +663,71 @@ public abstract class CachingCanvas extends LargeScrollableCanvas {
      */
     protected abstract void paintNoncachableLayer(Graphics graphics);
 
+    /**
+     * Cancels background painting, and waits until the painting threads have
+     * stopped. To be called before disposing of data they may be reading.
+     * The areas painted so far are thrown away.
+     */
+    public void stopPaintInBackground() {
+        PaintInBackgroundJob job;
+        synchronized (paintedAreas) {
+            paintGeneration++;
+            paintedAreas.clear();
+            job = paintInBackgroundJob;
+            paintInBackgroundJob = null;
+        }
+        if (job != null) {
+            job.cancel();
+            joinUninterruptibly(job);
+        }
+    }
+
+    private static void joinUninterruptibly(Job job) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                job.join();
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private static void joinUninterruptibly(JobGroup jobGroup) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                jobGroup.join(0, null);
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
     /**
      * Clears the tile cache. To be called any time the drawing changes.
      */
     public void clearCanvasCache() {
         tileCache.clear();
+        synchronized (paintedAreas) {
+            paintGeneration++;
+            paintedAreas.clear();
+            if (paintInBackgroundJob != null) {
+                paintInBackgroundJob.cancel();
+                paintInBackgroundJob = null;
+            }
+        }
+        for (Tile tile : previewTiles)
+            tile.image.dispose();
+        previewTiles.clear();
         if (debug)
             Debug.println("canvas cache cleared");
     }
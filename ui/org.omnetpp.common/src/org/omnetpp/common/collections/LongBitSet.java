@@ -0,0 +1,50 @@
+package org.omnetpp.common.collections;
+
+/**
+ * A sparse set of bits indexed by non-negative long values. Bits are stored in
+ * fixed size pages that are allocated on demand, so large but clustered indices
+ * such as event numbers take little memory. This class is not thread safe.
+ */
+public class LongBitSet {
+    private static final int PAGE_BITS = 4096;
+    private static final int PAGE_SHIFT = 12;
+    private static final int WORDS_PER_PAGE = PAGE_BITS / 64;
+
+    private LongHashMap<long[]> pages = new LongHashMap<long[]>();
+
+    public boolean get(long index) {
+        long[] page = pages.get(index >>> PAGE_SHIFT);
+        return page != null && (page[wordIndex(index)] & (1L << index)) != 0;
+    }
+
+    public void set(long index) {
+        long key = index >>> PAGE_SHIFT;
+        long[] page = pages.get(key);
+        if (page == null) {
+            page = new long[WORDS_PER_PAGE];
+            pages.put(key, page);
+        }
+        page[wordIndex(index)] |= 1L << index;
+    }
+
+    public void set(long index, boolean value) {
+        if (value)
+            set(index);
+        else
+            clear(index);
+    }
+
+    public void clear(long index) {
+        long[] page = pages.get(index >>> PAGE_SHIFT);
+        if (page != null)
+            page[wordIndex(index)] &= ~(1L << index);
+    }
+
+    public void clear() {
+        pages.clear();
+    }
+
+    private static int wordIndex(long index) {
+        return (int)(index & (PAGE_BITS - 1)) >>> 6;
+    }
+}
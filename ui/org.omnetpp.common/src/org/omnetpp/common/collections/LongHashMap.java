@@ -0,0 +1,155 @@
+package org.omnetpp.common.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A hash map with primitive long keys that avoids boxing the keys and allocating
+ * an entry object per mapping. It uses open addressing with linear probing.
+ * Null values are not allowed, get() returns null if the key is not present.
+ * This class is not thread safe.
+ */
+public class LongHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values; // null marks an empty slot
+    private int size;
+    private int mask;
+
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return values[findSlot(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V)values[findSlot(key)];
+    }
+
+    /**
+     * Associates the value with the key, and returns the previous value or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not allowed");
+        int slot = findSlot(key);
+        V oldValue = (V)values[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        if (oldValue == null && ++size > (mask + 1) / 4 * 3)
+            rehash((mask + 1) * 2);
+        return oldValue;
+    }
+
+    /**
+     * Removes the mapping of the key, and returns the removed value or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = findSlot(key);
+        V oldValue = (V)values[slot];
+        if (oldValue != null) {
+            values[slot] = null;
+            size--;
+            // shift back the following entries of the probe sequence so that lookups don't need tombstones
+            int hole = slot;
+            for (int i = (slot + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                int home = hash(keys[i]) & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    values[i] = null;
+                    hole = i;
+                }
+            }
+        }
+        return oldValue;
+    }
+
+    public void clear() {
+        if (size != 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the keys in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int j = 0;
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != null)
+                result[j++] = keys[i];
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the values in no particular order, so the map can be
+     * modified while iterating over the result.
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<V> values() {
+        ArrayList<V> result = new ArrayList<V>(size);
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != null)
+                result.add((V)values[i]);
+        return result;
+    }
+
+    private int findSlot(long key) {
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential keys such as event numbers and file offsets
+        return (int)(h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 4 * 3 < expectedSize)
+            capacity *= 2;
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
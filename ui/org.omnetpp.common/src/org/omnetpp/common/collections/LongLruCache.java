@@ -0,0 +1,222 @@
+package org.omnetpp.common.collections;
+
+import java.util.ArrayList;
+
+/**
+ * A least recently used cache with primitive long keys and a memory limit.
+ * Each value has an estimated size in bytes, and when the total size exceeds
+ * the limit, the least recently used values are evicted. Subclasses may pin
+ * values by overriding isEvictable(), and they are notified about evictions
+ * so that they can drop other references to the evicted values.
+ *
+ * The cache also counts hits, misses and evictions to help tuning the limit.
+ * This class is not thread safe.
+ */
+public class LongLruCache<V> {
+    private static class Node<V> {
+        long key;
+        V value;
+        long size;
+        Node<V> previous; // towards the most recently used
+        Node<V> next; // towards the least recently used
+    }
+
+    private LongHashMap<Node<V>> keyToNodeMap = new LongHashMap<Node<V>>();
+    private Node<V> head; // most recently used
+    private Node<V> tail; // least recently used
+
+    private long memoryLimit;
+    private long memoryUsage;
+
+    private long numHits;
+    private long numMisses;
+    private long numEvictions;
+
+    public LongLruCache(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Sets the maximum total estimated size of the cached values, and evicts
+     * values immediately if the cache is larger than that.
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+        evict(null);
+    }
+
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    public int size() {
+        return keyToNodeMap.size();
+    }
+
+    public boolean containsKey(long key) {
+        return keyToNodeMap.containsKey(key);
+    }
+
+    /**
+     * Returns the value for the key and marks it as the most recently used one,
+     * or returns null if the key is not present.
+     */
+    public V get(long key) {
+        Node<V> node = keyToNodeMap.get(key);
+        if (node == null) {
+            numMisses++;
+            return null;
+        }
+        else {
+            numHits++;
+            moveToHead(node);
+            return node.value;
+        }
+    }
+
+    /**
+     * Returns the value for the key without affecting the LRU order and the statistics.
+     */
+    public V peek(long key) {
+        Node<V> node = keyToNodeMap.get(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Inserts or replaces the value with the given estimated size, and evicts
+     * the least recently used values if necessary. The inserted value itself
+     * is never evicted by this call.
+     */
+    public void put(long key, V value, long size) {
+        Node<V> node = keyToNodeMap.get(key);
+        if (node == null) {
+            node = new Node<V>();
+            node.key = key;
+            keyToNodeMap.put(key, node);
+        }
+        else {
+            unlink(node);
+            memoryUsage -= node.size;
+        }
+        node.value = value;
+        node.size = size;
+        memoryUsage += size;
+        linkHead(node);
+        evict(node);
+    }
+
+    public V remove(long key) {
+        Node<V> node = keyToNodeMap.remove(key);
+        if (node == null)
+            return null;
+        else {
+            unlink(node);
+            memoryUsage -= node.size;
+            return node.value;
+        }
+    }
+
+    public void clear() {
+        keyToNodeMap.clear();
+        head = tail = null;
+        memoryUsage = 0;
+    }
+
+    /**
+     * Returns a snapshot of the cached values from the most recently used to the least recently used.
+     */
+    public ArrayList<V> values() {
+        ArrayList<V> result = new ArrayList<V>(keyToNodeMap.size());
+        for (Node<V> node = head; node != null; node = node.next)
+            result.add(node.value);
+        return result;
+    }
+
+    public long getNumHits() {
+        return numHits;
+    }
+
+    public long getNumMisses() {
+        return numMisses;
+    }
+
+    public long getNumEvictions() {
+        return numEvictions;
+    }
+
+    public double getHitRate() {
+        long numLookups = numHits + numMisses;
+        return numLookups == 0 ? 0 : (double)numHits / numLookups;
+    }
+
+    public void resetStatistics() {
+        numHits = numMisses = numEvictions = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entries, %d/%d bytes, hit rate %.1f%% (%d hits, %d misses), %d evictions",
+                size(), memoryUsage, memoryLimit, getHitRate() * 100, numHits, numMisses, numEvictions);
+    }
+
+    /**
+     * Pinned values are skipped when evicting. The default implementation allows evicting all values.
+     */
+    protected boolean isEvictable(long key, V value) {
+        return true;
+    }
+
+    /**
+     * Called after the value has been removed from the cache due to the memory limit.
+     */
+    protected void evicted(long key, V value) {
+    }
+
+    private void evict(Node<V> keep) {
+        Node<V> node = tail;
+        while (memoryUsage > memoryLimit && node != null) {
+            Node<V> previous = node.previous;
+            if (node != keep && isEvictable(node.key, node.value)) {
+                keyToNodeMap.remove(node.key);
+                unlink(node);
+                memoryUsage -= node.size;
+                numEvictions++;
+                evicted(node.key, node.value);
+            }
+            node = previous;
+        }
+    }
+
+    private void moveToHead(Node<V> node) {
+        if (node != head) {
+            unlink(node);
+            linkHead(node);
+        }
+    }
+
+    private void linkHead(Node<V> node) {
+        node.previous = null;
+        node.next = head;
+        if (head != null)
+            head.previous = node;
+        head = node;
+        if (tail == null)
+            tail = node;
+    }
+
+    private void unlink(Node<V> node) {
+        if (node.previous != null)
+            node.previous.next = node.next;
+        else
+            head = node.next;
+        if (node.next != null)
+            node.next.previous = node.previous;
+        else
+            tail = node.previous;
+        node.previous = node.next = null;
+    }
+}
@@ -0,0 +1,82 @@
+package org.omnetpp.common.collections;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongLruCacheTest {
+
+    @Test
+    public void testHashMapAgainstReference() {
+        Random random = new Random(0);
+        LongHashMap<Long> map = new LongHashMap<>();
+        HashMap<Long, Long> reference = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = random.nextInt(1000) * (random.nextBoolean() ? 1 : 4096L);
+            switch (random.nextInt(3)) {
+                case 0: assertEquals(reference.put(key, (long)i), map.put(key, (long)i)); break;
+                case 1: assertEquals(reference.remove(key), map.remove(key)); break;
+                default: assertEquals(reference.get(key), map.get(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LongLruCache<String> cache = new LongLruCache<>(30);
+        cache.put(1, "a", 10);
+        cache.put(2, "b", 10);
+        cache.put(3, "c", 10);
+        assertEquals("a", cache.get(1));
+        cache.put(4, "d", 10);
+        assertNull(cache.peek(2));
+        assertEquals(3, cache.size());
+        assertEquals(30, cache.getMemoryUsage());
+        assertEquals(1, cache.getNumEvictions());
+        assertEquals(1, cache.getNumHits());
+    }
+
+    @Test
+    public void testPinnedValuesAreKept() {
+        ArrayList<Long> evictedKeys = new ArrayList<>();
+        LongLruCache<String> cache = new LongLruCache<>(20) {
+            @Override
+            protected boolean isEvictable(long key, String value) {
+                return key != 1;
+            }
+
+            @Override
+            protected void evicted(long key, String value) {
+                evictedKeys.add(key);
+            }
+        };
+        for (int i = 1; i <= 5; i++)
+            cache.put(i, "x", 10);
+        assertEquals("x", cache.peek(1));
+        assertEquals("x", cache.peek(5));
+        assertEquals(3, evictedKeys.size());
+        cache.setMemoryLimit(0);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testBitSet() {
+        Random random = new Random(0);
+        LongBitSet bitSet = new LongBitSet();
+        HashMap<Long, Boolean> reference = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            long index = 1000000000L + random.nextInt(100000);
+            boolean value = random.nextBoolean();
+            bitSet.set(index, value);
+            reference.put(index, value);
+        }
+        for (var entry : reference.entrySet())
+            assertEquals(entry.getValue(), bitSet.get(entry.getKey()));
+        assertFalse(bitSet.get(0));
+    }
+}
@@ -11,21 +11,32 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.part.FileEditorInput;
 import org.omnetpp.common.CommonPlugin;
 import org.omnetpp.common.Debug;
+import org.omnetpp.common.IConstants;
 import org.omnetpp.common.util.PersistentResourcePropertyManager;
 import org.omnetpp.common.util.RecurringJob;
+import org.omnetpp.eventlog.EventLog;
+import org.omnetpp.eventlog.EventLogFilterScan;
+import org.omnetpp.eventlog.EventLogOffsetIndex;
 import org.omnetpp.eventlog.EventLogTableFacade;
+import org.omnetpp.eventlog.FileReader;
 import org.omnetpp.eventlog.FilteredEventLog;
 import org.omnetpp.eventlog.IEventLog;
 import org.omnetpp.eventlog.SequenceChartFacade;
 import org.omnetpp.eventlog.TimelineMode;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.ModuleDescriptionEntry;
 
 /**
@@ -86,6 +97,16 @@ public class EventLogInput extends FileEditorInput
      */
     protected RecurringJob eventLogWatcher;
 
+    /**
+     * Brings the persistent offset index of the event log file up to date in the background.
+     */
+    protected Job offsetIndexUpdater;
+
+    /**
+     * Evaluates the current filter for all events in the background, see EventLogFilterScan.
+     */
+    protected Job filterScanner;
+
     /**
      * True indicates a long-running operation was canceled by the user.
      */
@@ -130,8 +151,18 @@ public class EventLogInput extends FileEditorInput
             }
         };
 
+        eventLog.setEventCacheMemoryLimit(getEventCacheMemoryLimit());
         setEventLog(eventLog);
         restoreState();
+        updateOffsetIndex();
+    }
+
+    /**
+     * Returns the memory limit for parsed events from the preferences in bytes.
+     */
+    private static long getEventCacheMemoryLimit() {
+        int megabytes = CommonPlugin.getConfigurationPreferenceStore().getInt(IConstants.PREF_EVENTLOG_CACHE_SIZE);
+        return megabytes > 0 ? megabytes * 1024L * 1024L : EventLog.DEFAULT_EVENT_CACHE_MEMORY_LIMIT;
     }
 
     public void synchronize(Exception e) {
@@ -149,6 +180,40 @@ public class EventLogInput extends FileEditorInput
                 Debug.println("Synchronizing event log file content: " + getFile().getName() + " with change: " + change);
             doSynchronize(change);
             eventLogChanged(change);
+            updateOffsetIndex();
+        }
+    }
+
+    /**
+     * Schedules updating the offset index with the new content of the event log file.
+     * The index is used by the event log as soon as the update is finished.
+     */
+    private void updateOffsetIndex() {
+        IEventLog eventLog = this.eventLog instanceof FilteredEventLog ? ((FilteredEventLog)this.eventLog).getEventLog() : this.eventLog;
+        if (eventLog instanceof EventLog) {
+            if (offsetIndexUpdater == null) {
+                EventLogOffsetIndex offsetIndex = ((EventLog)eventLog).getOffsetIndex();
+                offsetIndexUpdater = new Job("Indexing " + getFile().getName()) {
+                    @Override
+                    protected IStatus run(IProgressMonitor monitor) {
+                        try {
+                            offsetIndex.update(monitor);
+                            // the index file is written behind the workspace's back
+                            IFile indexFile = ResourcesPlugin.getWorkspace().getRoot().getFileForLocation(new Path(offsetIndex.getIndexFileName()));
+                            if (indexFile != null)
+                                indexFile.refreshLocal(IResource.DEPTH_ZERO, null);
+                        }
+                        catch (RuntimeException | CoreException e) {
+                            // the index is just an optimization, the event log works without it
+                            CommonPlugin.logError("Cannot update event log index: " + offsetIndex.getIndexFileName(), e);
+                        }
+                        return Status.OK_STATUS;
+                    }
+                };
+                offsetIndexUpdater.setSystem(true);
+                offsetIndexUpdater.setPriority(Job.DECORATE);
+            }
+            offsetIndexUpdater.schedule();
         }
     }
 
@@ -177,6 +242,9 @@ public class EventLogInput extends FileEditorInput
     public void dispose() {
         if (eventLogWatcher != null)
             eventLogWatcher.stop();
+        if (offsetIndexUpdater != null)
+            offsetIndexUpdater.cancel();
+        cancelFilterScan();
         if (eventLog != null) {
             // NOTE: explicitly release memory (we might have allocated a lot)
             // we don't rely on when the garbage collector will kick in
@@ -304,6 +372,7 @@ public class EventLogInput extends FileEditorInput
 
     public void removeFilter() {
         if (eventLog instanceof FilteredEventLog) {
+            cancelFilterScan();
             setEventLog(((FilteredEventLog)eventLog).getEventLog());
             getEventLogTableFacade().setEventLog(eventLog);
             getSequenceChartFacade().setEventLog(eventLog);
@@ -314,11 +383,14 @@ public class EventLogInput extends FileEditorInput
 
     public void filter() {
         // remove old filter
-        if (eventLog instanceof FilteredEventLog)
+        if (eventLog instanceof FilteredEventLog) {
+            cancelFilterScan();
             setEventLog(((FilteredEventLog)eventLog).getEventLog());
+        }
 
         // create new filter
         FilteredEventLog filteredEventLog = new FilteredEventLog(eventLog);
+        filteredEventLog.setEventCacheMemoryLimit(getEventCacheMemoryLimit());
 
         // collection limits
         if (eventLogFilterParameters.enableCollectionLimits) {
@@ -386,10 +458,47 @@ public class EventLogInput extends FileEditorInput
         setEventLog(filteredEventLog);
         getEventLogTableFacade().setEventLog(filteredEventLog);
         getSequenceChartFacade().setEventLog(filteredEventLog);
+        scanFilteredEventLog(filteredEventLog);
         eventLogFiltered();
         storeState();
     }
 
+    /**
+     * Schedules evaluating the filter for all events on multiple threads if enabled in the preferences.
+     * Navigating in the filtered event log uses the partial results while the scan is running.
+     */
+    private void scanFilteredEventLog(FilteredEventLog filteredEventLog) {
+        if (!CommonPlugin.getConfigurationPreferenceStore().getBoolean(IConstants.PREF_EVENTLOG_PARALLEL_FILTERING))
+            return;
+        EventLogFilterScan filterScan = filteredEventLog.createFilterScan(Runtime.getRuntime().availableProcessors());
+        if (filterScan != null) {
+            filterScanner = new Job("Filtering " + getFile().getName()) {
+                @Override
+                protected IStatus run(IProgressMonitor monitor) {
+                    try {
+                        filterScan.run(monitor);
+                    }
+                    catch (RuntimeException e) {
+                        // the scan is just an optimization, the filtered event log works without it
+                        CommonPlugin.logError("Cannot filter event log in the background: " + getFile().getName(), e);
+                    }
+                    return filterScan.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+                }
+            };
+            filterScanner.setPriority(Job.LONG);
+            filterScanner.schedule();
+        }
+    }
+
+    private void cancelFilterScan() {
+        if (filterScanner != null) {
+            filterScanner.cancel();
+            filterScanner = null;
+        }
+        if (eventLog instanceof FilteredEventLog)
+            ((FilteredEventLog)eventLog).cancelFilterScan();
+    }
+
     /*************************************************************************************
      * PERSISTENT STATE
      */
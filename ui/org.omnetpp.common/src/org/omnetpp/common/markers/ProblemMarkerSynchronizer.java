@@ -144,6 +144,18 @@ public class ProblemMarkerSynchronizer {
         markerTable.get(file).add(markerData);
     }
 
+    /**
+     * Adds the files and markers of the given synchronizer to this one. The other
+     * synchronizer must synchronize the same marker type.
+     */
+    public void merge(ProblemMarkerSynchronizer other) {
+        Assert.isTrue(markerBaseType.equals(other.markerBaseType));
+        for (IResource file : other.markerTable.keySet()) {
+            register(file);
+            markerTable.get(file).addAll(other.markerTable.get(file));
+        }
+    }
+
     public String getBaseMarkerType() {
         return markerBaseType;
     }
@@ -8,7 +8,6 @@ import java.util.TreeSet;
 import org.eclipse.core.runtime.Assert;
 import org.omnetpp.common.util.BigDecimal;
 import org.omnetpp.eventlog.EventLogIndex.ReadToEventLineResult;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 import org.omnetpp.eventlog.entry.CloneMessageEntry;
 import org.omnetpp.eventlog.entry.ComponentMethodBeginEntry;
@@ -31,6 +30,7 @@ public class Event extends EventBase implements IEvent
     protected long beginOffset = -1; // file offset where the event starts
     protected long endOffset = -1; // file offset where the event ends (including the following empty line, equals to the begin of the next thunk)
     protected EventEntry eventEntry; // the eventlog entry that corresponds to the actual event ("E" line)
+    protected SimTime simTime; // the simulation time of eventEntry, computed on demand
     protected ModuleDescriptionEntry moduleDescriptionEntry;
     protected int numEventLogMessages;
     protected int numBeginSendEntries;
@@ -93,12 +93,12 @@ public class Event extends EventBase implements IEvent
         }
         // parse lines one by one
         while (true) {
-            String line = reader.getNextLine();
-            if (line == null) {
+            int lineOffset = reader.getNextLineBufferOffset();
+            if (lineOffset == -1) {
                 endOffset = reader.getFileSize();
                 break;
             }
-            EventLogEntry eventLogEntry = EventLogEntry.parseEntry(eventLog, this, index, reader.getCurrentLineStartOffset(), line, (int)reader.getCurrentLineLength());
+            EventLogEntry eventLogEntry = EventLogEntry.parseEntry(eventLog, this, index, reader.getCurrentLineStartOffset(), reader.getBuffer(), lineOffset, (int)reader.getCurrentLineLength());
             // stop at first empty line
             if (eventLogEntry == null) {
                 endOffset = reader.getCurrentLineEndOffset();
@@ -247,6 +247,13 @@ public class Event extends EventBase implements IEvent
         return eventEntry.simulationTime;
     }
 
+    @Override
+    public SimTime getSimTime() {
+        if (simTime == null)
+            simTime = SimTime.valueOf(eventEntry.simulationTime);
+        return simTime;
+    }
+
     @Override
     public int getModuleId() {
         return eventEntry.moduleId;
@@ -372,9 +379,11 @@ public class Event extends EventBase implements IEvent
         if (previousEvent == null && eventLog.getFirstEvent() != this) {
             ReadToEventLineResult result = new EventLog.ReadToEventLineResult();
             if (eventLog.readToEventLine(false, beginOffset, result)) {
-                previousEvent = eventLog.getEventForBeginOffset(result.lineBeginOffset);
-                if (previousEvent != null)
-                    linkEvents(previousEvent, this);
+                Event event = eventLog.getEventForBeginOffset(result.lineBeginOffset);
+                // an event evicted from the cache must not be linked to the cached ones
+                if (event == null || !eventLog.isCachedEvent(this))
+                    return event;
+                linkEvents(event, this);
             }
         }
         return (Event)previousEvent;
@@ -385,9 +394,11 @@ public class Event extends EventBase implements IEvent
         if (nextEvent == null && eventLog.getLastEvent() != this) {
             ReadToEventLineResult result = new EventLog.ReadToEventLineResult();
             if (eventLog.readToEventLine(true, endOffset, result)) {
-                nextEvent = eventLog.getEventForBeginOffset(result.lineBeginOffset);
-                if (nextEvent != null)
-                    Event.linkEvents(this, nextEvent);
+                Event event = eventLog.getEventForBeginOffset(result.lineBeginOffset);
+                // an event evicted from the cache must not be linked to the cached ones
+                if (event == null || !eventLog.isCachedEvent(this))
+                    return event;
+                Event.linkEvents(this, event);
             }
         }
         return (Event)nextEvent;
@@ -512,6 +523,7 @@ public class Event extends EventBase implements IEvent
         numBeginSendEntries = -1;
         numCustomEntries = -1;
         eventEntry = null;
+        simTime = null;
         moduleDescriptionEntry = null;
         cause = null;
         causes = null;
@@ -2,7 +2,6 @@ package org.omnetpp.eventlog;
 
 import java.io.OutputStream;
 
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 
 public abstract class EventBase
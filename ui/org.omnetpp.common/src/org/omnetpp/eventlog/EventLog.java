@@ -7,8 +7,11 @@ import java.util.TreeSet;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.omnetpp.common.Debug;
+import org.omnetpp.common.collections.LongBitSet;
+import org.omnetpp.common.collections.LongHashMap;
+import org.omnetpp.common.collections.LongLruCache;
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.IndexEntry;
 import org.omnetpp.eventlog.entry.MessageDescriptionEntry;
 import org.omnetpp.eventlog.entry.SimulationBeginEntry;
@@ -20,6 +23,14 @@ import org.omnetpp.eventlog.entry.SnapshotEntry;
  */
 public class EventLog extends EventLogIndex implements IEventLog
 {
+    private static final boolean debug = Debug.isChannelEnabled("eventcache");
+
+    public static final long DEFAULT_EVENT_CACHE_MEMORY_LIMIT = 256L * 1024 * 1024;
+
+    // rough estimate of the heap occupied by a parsed event relative to its size in the file
+    private static final int EVENT_MEMORY_OVERHEAD = 512;
+    private static final int EVENT_MEMORY_PER_BYTE = 4;
+
     protected long numParsedEvents = 0;
     protected long approximateNumberOfEvents = -1;
 
@@ -39,18 +50,62 @@ public class EventLog extends EventLogIndex implements IEventLog
     protected final TreeSet<String> messageClassNames = new TreeSet<String>(); // message class names seen so far (see Event::parse)
     protected final TreeSet<String> messageNames = new TreeSet<String>(); // message names seen so far (see Event::parse)
 
-    protected TreeMap<Long, Event> eventNumberToEventMap = new TreeMap<Long, Event>(); // all parsed events so far
+    protected LongLruCache<Event> eventNumberToEventCache = new EventCache(DEFAULT_EVENT_CACHE_MEMORY_LIMIT); // recently used parsed events
 
-    protected TreeMap<Long, Event> beginOffsetToEventMap = new TreeMap<Long, Event>(); // all parsed events so far
-    protected TreeMap<Long, Event> endOffsetToEventMap = new TreeMap<Long, Event>(); // all parsed events so far
+    protected LongHashMap<Event> beginOffsetToEventMap = new LongHashMap<Event>(); // same events as in the event cache
+    protected LongHashMap<Event> endOffsetToEventMap = new LongHashMap<Event>(); // same events as in the event cache
+
+    protected LongBitSet eventLogEntriesCachedFlags = new LongBitSet(); // events whose entries are already in the eventlog entry cache
 
     protected TreeMap<Long, Index> eventNumberToIndexMap = new TreeMap<Long, Index>(); // all indices are parsed at once
 
     protected TreeMap<Long, Snapshot> eventNumberToSnapshotMap = new TreeMap<Long, Snapshot>(); // snapshots are parsed lazily
 
+    /**
+     * Keeps the first and the last events, because they are referred to directly,
+     * and unlinks the evicted events from their neighbours, so that they can be
+     * garbage collected. Evicted events that are still referenced by clients remain
+     * usable, but they are not linked to the cached ones again, and the same event
+     * may be returned as a different instance later, so clients must compare events
+     * by event number.
+     */
+    protected class EventCache extends LongLruCache<Event>
+    {
+        public EventCache(long memoryLimit) {
+            super(memoryLimit);
+        }
+
+        @Override
+        protected boolean isEvictable(long eventNumber, Event event) {
+            return event != firstEvent && event != lastEvent;
+        }
+
+        @Override
+        protected void evicted(long eventNumber, Event event) {
+            beginOffsetToEventMap.remove(event.getBeginOffset());
+            endOffsetToEventMap.remove(event.getEndOffset());
+            Event.unlinkNeighbourEvents(event);
+            if (debug && getNumEvictions() % 10000 == 0)
+                Debug.println("Event cache of " + reader.getFileName() + ": " + this);
+        }
+    }
+
     public EventLog(FileReader reader) {
+        this(reader, true);
+    }
+
+    /**
+     * File locking prevents reading partially written content while the simulation is running.
+     * Shared locks on the same file may not overlap within the JVM though, so additional eventlogs
+     * that read the same file concurrently (see EventLogFilterScan) must be created without it.
+     */
+    public EventLog(FileReader reader, boolean fileLocking) {
         super(reader);
-        reader.setFileLocking(true);
+        eventLogEntryCache.setCollectEventLogEntries(false);
+        reader.setFileLocking(fileLocking);
+        SimulationBeginEntry simulationBeginEntry = getSimulationBeginEntry();
+        if (simulationBeginEntry != null)
+            SimTime.setScaleExponent(simulationBeginEntry.getSimtimePrecision());
         parseIndicesAndSnapshots();
         if (reader.getFileSize() < 10E+6)
             parseAll();
@@ -64,6 +119,22 @@ public class EventLog extends EventLogIndex implements IEventLog
         return eventLogEntryCache;
     }
 
+    public long getEventCacheMemoryLimit() {
+        return eventNumberToEventCache.getMemoryLimit();
+    }
+
+    @Override
+    public void setEventCacheMemoryLimit(long memoryLimit) {
+        eventNumberToEventCache.setMemoryLimit(memoryLimit);
+    }
+
+    /**
+     * Returns the event cache, mainly for accessing its statistics.
+     */
+    public LongLruCache<Event> getEventCache() {
+        return eventNumberToEventCache;
+    }
+
     @Override
     public void setProgressMonitor(IProgressMonitor progressMonitor)
     {
@@ -84,24 +155,31 @@ public class EventLog extends EventLogIndex implements IEventLog
         }
     }
 
+    /**
+     * Returns whether the given event is the cached instance, that is, it has not been evicted.
+     */
+    public final boolean isCachedEvent(Event event) {
+        return beginOffsetToEventMap.get(event.getBeginOffset()) == event;
+    }
+
     /**
      * Returns the event exactly starting at the given offset or null if there is no such event.
      */
     public final Event getEventForBeginOffset(long beginOffset) {
         Assert.isTrue(beginOffset >= 0);
         var it = beginOffsetToEventMap.get(beginOffset);
-        if (it != null)
+        if (it != null) {
+            eventNumberToEventCache.get(it.getEventNumber()); // mark as recently used
             return it;
+        }
         else if (reader.getFileSize() != beginOffset) {
             Event event = new Event(this);
             parseEvent(event, beginOffset);
             cacheEvent(event);
             return event;
         }
-        else {
-            beginOffsetToEventMap.put(beginOffset, null);
+        else
             return null;
-        }
     }
 
     /**
@@ -110,14 +188,14 @@ public class EventLog extends EventLogIndex implements IEventLog
     public final Event getEventForEndOffset(long endOffset) {
         Assert.isTrue(endOffset >= 0);
         var it = endOffsetToEventMap.get(endOffset);
-        if (it != null)
+        if (it != null) {
+            eventNumberToEventCache.get(it.getEventNumber()); // mark as recently used
             return it;
+        }
         else {
             long beginOffset = getBeginOffsetForEndOffset(endOffset);
-            if (beginOffset == -1) {
-                endOffsetToEventMap.put(endOffset, null);
+            if (beginOffset == -1)
                 return null;
-            }
             else
                 return getEventForBeginOffset(beginOffset);
         }
@@ -141,11 +219,11 @@ public class EventLog extends EventLogIndex implements IEventLog
                         eventNumberToCacheEntryMap.remove(lastEvent.getEventNumber());
                         endOffsetToEventMap.remove(lastEvent.getEndOffset());
                         lastEventNumber = EventNumberKind.EVENT_NOT_YET_CALCULATED;
-                        lastSimulationTime = BigDecimal.MINUS_ONE;
+                        lastSimulationTime = SimTime.MINUS_ONE;
                         lastEventOffset = -1;
                         lastEvent = null;
                     }
-                    for (Event it : eventNumberToEventMap.values())
+                    for (Event it : eventNumberToEventCache.values())
                         it.synchronize(change);
                     parseIndicesAndSnapshots();
                     break;
@@ -179,9 +257,9 @@ public class EventLog extends EventLogIndex implements IEventLog
     public SimulationBeginEntry getSimulationBeginEntry() {
         if (simulationBeginEntry == null) {
             reader.seekTo(0);
-            String line = reader.getNextLine();
-            if (line != null) {
-                EventLogEntry eventLogEntry = (EventLogEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), line, (int)reader.getCurrentLineLength());
+            int lineOffset = reader.getNextLineBufferOffset();
+            if (lineOffset != -1) {
+                EventLogEntry eventLogEntry = (EventLogEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), reader.getBuffer(), lineOffset, (int)reader.getCurrentLineLength());
                 SimulationBeginEntry simulationBeginEntry = eventLogEntry instanceof SimulationBeginEntry ? (SimulationBeginEntry)eventLogEntry : null;
                 if (simulationBeginEntry != null)
                     this.simulationBeginEntry = simulationBeginEntry;
@@ -194,9 +272,9 @@ public class EventLog extends EventLogIndex implements IEventLog
     public SimulationEndEntry getSimulationEndEntry() {
         if (simulationEndEntry == null) {
             reader.seekTo(reader.getFileSize());
-            String line = reader.getPreviousLine();
-            if (line != null) {
-                EventLogEntry eventLogEntry = (EventLogEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), line, (int)reader.getCurrentLineLength());
+            int lineOffset = reader.getPreviousLineBufferOffset();
+            if (lineOffset != -1) {
+                EventLogEntry eventLogEntry = (EventLogEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), reader.getBuffer(), lineOffset, (int)reader.getCurrentLineLength());
                 SimulationEndEntry simulationEndEntry = eventLogEntry instanceof SimulationEndEntry ? (SimulationEndEntry)eventLogEntry : null;
                 if (simulationEndEntry != null)
                     this.simulationEndEntry = simulationEndEntry;
@@ -229,7 +307,7 @@ public class EventLog extends EventLogIndex implements IEventLog
     public Event getEventForEventNumber(long eventNumber, MatchKind matchKind, boolean useCacheOnly) {
         Assert.isTrue(eventNumber >= 0);
         if (matchKind == MatchKind.EXACT) {
-            var it = eventNumberToEventMap.get(eventNumber);
+            var it = eventNumberToEventCache.get(eventNumber);
             if (it != null)
                 return it;
             else if (useCacheOnly)
@@ -237,13 +315,13 @@ public class EventLog extends EventLogIndex implements IEventLog
             else {
                 // the following two are still faster than binary searching
                 // but this may access the disk
-                it = eventNumberToEventMap.get(eventNumber - 1);
+                it = eventNumberToEventCache.peek(eventNumber - 1);
                 if (it != null) {
                     Event event = it.getNextEvent();
                     // the file might be filtered
                     return event != null && event.getEventNumber() == eventNumber ? event : null;
                 }
-                it = eventNumberToEventMap.get(eventNumber + 1);
+                it = eventNumberToEventCache.peek(eventNumber + 1);
                 if (it != null) {
                     Event event = it.getPreviousEvent();
                     // the file might be filtered
@@ -458,8 +536,12 @@ public class EventLog extends EventLogIndex implements IEventLog
 
     protected final void parseEvent(Event event, long beginOffset) {
         event.parse(reader, beginOffset);
-        cacheEntry(event.getEventNumber(), event.getSimulationTime(), event.getBeginOffset(), event.getEndOffset());
-        cacheEventLogEntries(event);
+        cacheEntry(event.getEventNumber(), event.getSimTime(), event.getBeginOffset(), event.getEndOffset());
+        // evicted events are parsed again, but their entries are already cached
+        if (!eventLogEntriesCachedFlags.get(event.getEventNumber())) {
+            cacheEventLogEntries(event);
+            eventLogEntriesCachedFlags.set(event.getEventNumber());
+        }
         numParsedEvents++;
         Assert.isTrue(event.getEventEntry() != null);
     }
@@ -468,10 +550,10 @@ public class EventLog extends EventLogIndex implements IEventLog
         long eventNumber = event.getEventNumber();
         Assert.isTrue(firstEvent == null || eventNumber >= firstEvent.getEventNumber());
         Assert.isTrue(lastEvent == null || eventNumber <= lastEvent.getEventNumber());
-        Assert.isTrue(!eventNumberToEventMap.containsKey(eventNumber));
-        eventNumberToEventMap.put(eventNumber, event);
+        Assert.isTrue(!eventNumberToEventCache.containsKey(eventNumber));
         beginOffsetToEventMap.put(event.getBeginOffset(), event);
         endOffsetToEventMap.put(event.getEndOffset(), event);
+        eventNumberToEventCache.put(eventNumber, event, EVENT_MEMORY_OVERHEAD + EVENT_MEMORY_PER_BYTE * (event.getEndOffset() - event.getBeginOffset()));
     }
 
     protected final void cacheEventLogEntries(Event event) {
@@ -502,7 +584,8 @@ public class EventLog extends EventLogIndex implements IEventLog
         eventLogEntryCache.clearCache();
         simulationBeginEntry = null;
         simulationEndEntry = null;
-        eventNumberToEventMap.clear();
+        eventNumberToEventCache.clear();
+        eventLogEntriesCachedFlags.clear();
         eventNumberToIndexMap.clear();
         eventNumberToSnapshotMap.clear();
         beginOffsetToEventMap.clear();
@@ -515,10 +598,10 @@ public class EventLog extends EventLogIndex implements IEventLog
         // file offsets must be shifted to be able to read truncated files
         TreeMap<Long, Snapshot> snapshotFileOffsetsToSnapshotMap = new TreeMap<Long, Snapshot>();
         reader.seekTo(reader.getFileSize());
-        String line = reader.getPreviousLine();
+        int lineOffset = reader.getPreviousLineBufferOffset();
         ArrayList<Index> indices = new ArrayList<Index>();
-        while (line != null) {
-            EventLogEntry eventLogEntry = (EventLogEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), line, (int)reader.getCurrentLineLength());
+        while (lineOffset != -1) {
+            EventLogEntry eventLogEntry = (EventLogEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), reader.getBuffer(), lineOffset, (int)reader.getCurrentLineLength());
             SnapshotEntry snapshotEntry = eventLogEntry instanceof SnapshotEntry ? (SnapshotEntry)eventLogEntry : null;
             IndexEntry indexEntry = eventLogEntry instanceof IndexEntry ? (IndexEntry)eventLogEntry : null;
             if (indexEntry != null) {
@@ -536,8 +619,8 @@ public class EventLog extends EventLogIndex implements IEventLog
                     long realFileOffset = indexEntry.getOffset() - indexEntry.fileOffset + indexEntry.previousSnapshotFileOffset;
                     if (realFileOffset >= 0) {
                         reader.seekTo(indexEntry.getOffset() - indexEntry.fileOffset + indexEntry.previousSnapshotFileOffset);
-                        line = reader.getNextLine();
-                        snapshotEntry = (SnapshotEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), line, (int)reader.getCurrentLineLength());
+                        lineOffset = reader.getNextLineBufferOffset();
+                        snapshotEntry = (SnapshotEntry)EventLogEntry.parseEntry(this, null, 0, reader.getCurrentLineStartOffset(), reader.getBuffer(), lineOffset, (int)reader.getCurrentLineLength());
                         Assert.isTrue(snapshotEntry != null);
                         var kt = eventNumberToSnapshotMap.get(snapshotEntry.getEventNumber());
                         if (kt == null) {
@@ -560,18 +643,18 @@ public class EventLog extends EventLogIndex implements IEventLog
                 long realFileOffset = index.getBeginOffset() - indexEntry.fileOffset + indexEntry.previousIndexFileOffset;
                 if (realFileOffset >= 0) {
                     reader.seekTo(realFileOffset);
-                    line = reader.getNextLine();
+                    lineOffset = reader.getNextLineBufferOffset();
                 }
                 else
-                    line = null;
+                    lineOffset = -1;
             }
             else if (snapshotEntry != null) {
                 Snapshot snapshot = new Snapshot(this, reader.getCurrentLineStartOffset());
                 eventNumberToSnapshotMap.put(snapshotEntry.getEventNumber(), snapshot);
-                line = reader.getPreviousLine();
+                lineOffset = reader.getPreviousLineBufferOffset();
             }
             else
-                line = reader.getPreviousLine();
+                lineOffset = reader.getPreviousLineBufferOffset();
             eventLogEntry = null;
             progress();
         }
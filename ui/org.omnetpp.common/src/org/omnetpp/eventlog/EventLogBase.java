@@ -5,7 +5,6 @@ import java.io.OutputStream;
 
 import org.eclipse.core.runtime.Assert;
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.SimulationBeginEntry;
 import org.omnetpp.eventlog.entry.SimulationEndEntry;
 
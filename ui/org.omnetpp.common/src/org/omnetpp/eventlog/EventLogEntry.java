@@ -1,11 +1,11 @@
 package org.omnetpp.eventlog;
 
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
 import org.eclipse.core.runtime.Assert;
-import org.omnetpp.common.engine.LineTokenizer;
-import org.omnetpp.common.engine.PStringVector;
 import org.omnetpp.common.engineext.IMatchableObject;
 import org.omnetpp.common.util.BigDecimal;
 
@@ -21,9 +21,6 @@ public abstract class EventLogEntry implements IMatchableObject
     protected long offset = -1;
     protected IChunk chunk = null; // back reference to event/snapshot/index
     protected int entryIndex = -1; // index within the event
-    protected static String buffer = new String(new char[128]); // non-thread safe buffer temporarily used to parse eventlog entries
-    protected static String currentLine;
-    protected static int currentLineLength;
 
     public abstract ArrayList<String> getAttributeNames();
 
@@ -87,12 +84,13 @@ public abstract class EventLogEntry implements IMatchableObject
             return event.getEventLogEntry(entryIndex + 1);
     }
 
+    /**
+     * Parses the given line using the line tokenizer of the eventlog. Returns null for empty lines.
+     * This function does not use any static state, so separate eventlogs can be parsed concurrently.
+     */
     public static EventLogEntry parseEntry(EventLog eventLog, IChunk chunk, int entryIndex, long offset, String line, int length)
     {
         try {
-            currentLine = line;
-            currentLineLength = length;
-
             if (line.length() == 0)
                 return null;
             else if (line.charAt(0) == '-') {
@@ -103,13 +101,46 @@ public abstract class EventLogEntry implements IMatchableObject
             }
             else {
                 Assert.isTrue(entryIndex >= 0);
-                LineTokenizer tokenizer = new LineTokenizer();
+                LineTokenizer tokenizer = eventLog.getLineTokenizer();
                 tokenizer.tokenize(line, length);
-                PStringVector tokensVector = tokenizer.tokensVector();
-                String[] tokens = new String[tokenizer.numTokens()];
-                for (int i = 0; i < tokenizer.numTokens(); i++)
-                    tokens[i] = tokensVector.get(i);
-                EventLogEntry eventLogEntry = EventLogEntryFactory.parseEntry(chunk, entryIndex, tokens, tokenizer.numTokens());
+                EventLogEntry eventLogEntry = EventLogEntryFactory.parseEntry(chunk, entryIndex, tokenizer);
+                if (eventLogEntry != null)
+                    eventLogEntry.offset = offset;
+                return eventLogEntry;
+            }
+        }
+        catch (RuntimeException e) {
+            String fileName = eventLog.getFileReader().getFileName();
+            if (chunk != null)
+                throw new RuntimeException("Error parsing elog file " + fileName + " at line " + entryIndex + " of event #" + chunk.getEventNumber() + " near file offset " + offset, e);
+            else
+                throw new RuntimeException("Error parsing elog file " + fileName + " near file offset " + offset, e);
+        }
+    }
+
+    /**
+     * Parses the line at the given position of the buffer (usually the mapped window of the
+     * FileReader) without creating intermediate Strings. Returns null for empty lines.
+     */
+    public static EventLogEntry parseEntry(EventLog eventLog, IChunk chunk, int entryIndex, long offset, ByteBuffer buffer, int bufferOffset, int length)
+    {
+        try {
+            if (length == 0)
+                return null;
+            else if (buffer.get(bufferOffset) == '-') {
+                byte[] bytes = new byte[length];
+                buffer.get(bufferOffset, bytes, 0, length);
+                String line = new String(bytes, StandardCharsets.UTF_8);
+                EventLogMessageEntry eventLogMessage = new EventLogMessageEntry(chunk, entryIndex);
+                eventLogMessage.parse(line, line.length());
+                eventLogMessage.offset = offset;
+                return eventLogMessage;
+            }
+            else {
+                Assert.isTrue(entryIndex >= 0);
+                LineTokenizer tokenizer = eventLog.getLineTokenizer();
+                tokenizer.tokenize(buffer, bufferOffset, length);
+                EventLogEntry eventLogEntry = EventLogEntryFactory.parseEntry(chunk, entryIndex, tokenizer);
                 if (eventLogEntry != null)
                     eventLogEntry.offset = offset;
                 return eventLogEntry;
@@ -29,6 +29,7 @@ import org.omnetpp.eventlog.entry.ModuleDisplayStringChangedEntry;
 // TODO: there's a lot of similarity in this class, factor this out into new classes or templates, or whatnot
 public class EventLogEntryCache
 {
+    protected boolean collectEventLogEntries = true; // the list below refers to all entries and thus to all events
     protected ArrayList<EventLogEntry> eventLogEntries = new ArrayList<EventLogEntry>();
 
     // modules
@@ -71,6 +72,10 @@ public class EventLogEntryCache
         return eventLogEntries;
     }
 
+    public void setCollectEventLogEntries(boolean collectEventLogEntries) {
+        this.collectEventLogEntries = collectEventLogEntries;
+    }
+
     public final void clearCache() {
         // module
         if (moduleIdToModuleDescriptionEntryMap != null)
@@ -112,7 +117,8 @@ public class EventLogEntryCache
 
     public final void cacheEventLogEntry(EventLogEntry eventLogEntry) {
         // TODO: this will always allocate all structures and that's not what we need
-        eventLogEntries.add(eventLogEntry);
+        if (collectEventLogEntries)
+            eventLogEntries.add(eventLogEntry);
         ensureCacheAllocated();
         // description entries
         if (eventLogEntry instanceof ModuleDescriptionEntry) {
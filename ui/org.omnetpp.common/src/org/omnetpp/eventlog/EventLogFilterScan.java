@@ -0,0 +1,419 @@
+package org.omnetpp.eventlog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.omnetpp.common.Debug;
+import org.omnetpp.eventlog.EventLogIndex.ReadToEventLineResult;
+import org.omnetpp.eventlog.entry.GateDescriptionEntry;
+import org.omnetpp.eventlog.entry.ModuleDescriptionEntry;
+
+/**
+ * Evaluates the module and message filters of a FilteredEventLog for all events of the
+ * eventlog file on multiple threads. The file is split into offset ranges, and each range
+ * is scanned by a task on a fork-join pool using its own EventLog instance, because the
+ * eventlog classes are not thread safe. The results are stored in a match bitmap per range
+ * indexed by event number.
+ *
+ * The filtered eventlog uses the partial results while the scan is running to skip
+ * non-matching events without parsing them. Each range is written by a single task, and
+ * the scanned part is published through a volatile field after the bits have been set,
+ * so other threads can read the results without locking.
+ *
+ * The worker eventlogs only parse the events of their own ranges, but the module filter
+ * needs all modules that exist at the time of an event. Therefore the events that create
+ * modules are parsed first using the module creation checkpoints of the offset index, and
+ * their module and gate entries are added to each worker eventlog. Without a complete
+ * offset index, filters that use the module filter cannot be scanned.
+ *
+ * The trace filter is not supported, because it follows message dependencies from the
+ * traced event sequentially. The last event of the file is not scanned either, because
+ * it may still be incomplete while the simulation is running.
+ */
+public class EventLogFilterScan
+{
+    private static final boolean debug = Debug.isChannelEnabled("eventlogfilterscan");
+
+    private static final long MINIMUM_RANGE_SIZE = 1 << 20; // in bytes
+    private static final int NUM_RANGES_PER_THREAD = 8; // smaller ranges balance the load better
+    private static final long MAXIMUM_RANGE_EVENT_NUMBERS = 1L << 32; // limits the size of the bitmap
+    private static final long WORKER_EVENT_CACHE_MEMORY_LIMIT = 16 << 20;
+    private static final int PUBLISH_INTERVAL = 1024; // in events
+
+    /**
+     * A part of the file which is scanned by a single task. Events with begin offsets in
+     * [beginOffset, endOffset) have event numbers in [beginEventNumber, endEventNumber).
+     */
+    private static class Range
+    {
+        final long beginOffset;
+        final long endOffset;
+        long beginEventNumber = -1;
+        long endEventNumber = -1;
+        long[] matchBits;
+        volatile long scannedEventNumber = -1; // events before this are known, -1 means the fields above are not yet set
+        volatile long scannedOffset;
+        volatile long numMatchingEvents;
+        volatile boolean done;
+
+        Range(long beginOffset, long endOffset) {
+            this.beginOffset = beginOffset;
+            this.endOffset = endOffset;
+            this.scannedOffset = beginOffset;
+        }
+    }
+
+    private final FilteredEventLog filteredEventLog;
+    private final String fileName;
+    private final long scanEndOffset; // the begin offset of the last event
+    private final long lastEventNumber;
+    private final int parallelism;
+    private final Range[] ranges;
+    private final long[] moduleCreationOffsets; // begin offsets of the events that create modules, null if not known
+
+    private ArrayList<EventLogEntry> moduleEntries = new ArrayList<EventLogEntry>(); // added to all worker eventlogs
+    private final Set<Thread> workerThreads = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<EventLog> idleEventLogs = new ConcurrentLinkedQueue<EventLog>();
+    private final ConcurrentLinkedQueue<EventLog> eventLogs = new ConcurrentLinkedQueue<EventLog>();
+
+    private volatile boolean canceled;
+    private volatile boolean done;
+    private volatile RuntimeException error;
+
+    /**
+     * Prepares the scan on the calling thread, which must be the one using the given eventlogs.
+     */
+    public EventLogFilterScan(FilteredEventLog filteredEventLog, EventLog eventLog, int parallelism) {
+        Assert.isTrue(parallelism > 0);
+        this.filteredEventLog = filteredEventLog;
+        this.fileName = eventLog.getFileReader().getFileName();
+        this.parallelism = parallelism;
+        Event lastEvent = eventLog.getLastEvent();
+        scanEndOffset = lastEvent == null ? 0 : lastEvent.getBeginOffset();
+        lastEventNumber = lastEvent == null ? -1 : lastEvent.getEventNumber();
+        int numRanges = (int)Math.max(1, Math.min(parallelism * NUM_RANGES_PER_THREAD, scanEndOffset / MINIMUM_RANGE_SIZE));
+        ranges = new Range[scanEndOffset == 0 ? 0 : numRanges];
+        for (int i = 0; i < ranges.length; i++)
+            ranges[i] = new Range(scanEndOffset * i / numRanges, scanEndOffset * (i + 1) / numRanges);
+        moduleCreationOffsets = getModuleCreationOffsets(eventLog.getOffsetIndex().getRecords(), scanEndOffset);
+    }
+
+    private static long[] getModuleCreationOffsets(EventLogOffsetIndex.Records records, long scanEndOffset) {
+        if (records == null || records.getIndexedSize() < scanEndOffset)
+            return null;
+        int count = 0;
+        long[] offsets = new long[16];
+        for (int i = 0; i < records.getNumRecords() && records.getBeginOffset(i) < scanEndOffset; i++) {
+            if (records.isModuleCreationCheckpoint(i)) {
+                if (count == offsets.length)
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                offsets[count++] = records.getBeginOffset(i);
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * Returns true if the modules created before the scanned ranges are known to the
+     * workers, that is, the module filter can be evaluated by the scan.
+     */
+    public boolean isModuleFilterSupported() {
+        return moduleCreationOffsets != null;
+    }
+
+    /**
+     * Runs the scan on a new fork-join pool and waits until it finishes. The scan stops
+     * when it is canceled either by calling cancel() or from the progress monitor.
+     * The results of the already scanned parts remain valid in both cases.
+     */
+    public void run(IProgressMonitor monitor) {
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            if (filteredEventLog.enableModuleFilter && moduleCreationOffsets != null)
+                collectModuleEntries();
+            for (Range range : ranges)
+                pool.execute(() -> scanRange(range));
+            pool.shutdown();
+            int totalWork = 1000;
+            int worked = 0;
+            if (monitor != null)
+                monitor.beginTask("Filtering " + fileName, totalWork);
+            while (!pool.awaitTermination(200, TimeUnit.MILLISECONDS)) {
+                if (monitor != null) {
+                    if (monitor.isCanceled())
+                        cancel();
+                    int work = (int)(getScannedFraction() * totalWork);
+                    if (work > worked) {
+                        monitor.worked(work - worked);
+                        worked = work;
+                    }
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException e) {
+            if (error == null)
+                error = e;
+            cancel();
+        }
+        finally {
+            pool.shutdownNow();
+            awaitTermination(pool);
+            // the native objects of the terminated worker threads would be leaked otherwise
+            filteredEventLog.deleteJavaMatchableObjects(workerThreads);
+            workerThreads.clear();
+            for (EventLog eventLog : eventLogs)
+                eventLog.getFileReader().ensureFileClosed();
+            eventLogs.clear();
+            idleEventLogs.clear();
+            moduleEntries = null;
+            if (monitor != null)
+                monitor.done();
+        }
+        done = !canceled && error == null;
+        if (debug)
+            Debug.println("Filtering " + fileName + (done ? " finished" : " stopped") + " in " + (System.currentTimeMillis() - startTime) + "ms, " + getNumMatchingEvents() + " matching events");
+        if (error != null)
+            throw error;
+    }
+
+    public void cancel() {
+        canceled = true;
+    }
+
+    /**
+     * Waits until the canceled tasks stop, which happens within PUBLISH_INTERVAL events.
+     */
+    private static void awaitTermination(ForkJoinPool pool) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.SECONDS))
+                    break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Parses the events that create modules, and collects their module and gate entries
+     * for the worker eventlogs.
+     */
+    private void collectModuleEntries() {
+        EventLog eventLog = acquireEventLog();
+        for (long offset : moduleCreationOffsets) {
+            if (canceled)
+                break;
+            Event event = eventLog.getEventForBeginOffset(offset);
+            for (int i = 0; i < event.getNumEventLogEntries(); i++) {
+                EventLogEntry eventLogEntry = event.getEventLogEntry(i);
+                if (eventLogEntry instanceof ModuleDescriptionEntry || eventLogEntry instanceof GateDescriptionEntry)
+                    moduleEntries.add(eventLogEntry);
+            }
+        }
+        idleEventLogs.add(eventLog);
+    }
+
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Returns true if all events (except the last one) have been scanned.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Returns 1 if the event matches the filter, 0 if it doesn't, and -1 if it's not yet known.
+     */
+    public int getMatch(long eventNumber) {
+        Range range = findRange(eventNumber);
+        if (range == null || eventNumber >= range.scannedEventNumber)
+            return -1;
+        else
+            return getMatchBit(range, eventNumber) ? 1 : 0;
+    }
+
+    /**
+     * Returns the first event number starting from the given one in the given direction
+     * which is not known to be non-matching. That is either a matching event, or the first
+     * event number for which the result is not known yet. Returns -1 when going backward
+     * and there are no more matching events.
+     */
+    public long skipNonMatchingEvents(long eventNumber, boolean forward) {
+        while (true) {
+            Range range = findRange(eventNumber);
+            if (range == null)
+                return eventNumber;
+            long scannedEventNumber = range.scannedEventNumber;
+            if (eventNumber >= scannedEventNumber)
+                return eventNumber;
+            if (forward) {
+                for (long i = eventNumber; i < scannedEventNumber; i++)
+                    if (getMatchBit(range, i))
+                        return i;
+                if (scannedEventNumber < range.endEventNumber)
+                    return scannedEventNumber;
+                eventNumber = range.endEventNumber;
+            }
+            else {
+                for (long i = eventNumber; i >= range.beginEventNumber; i--)
+                    if (getMatchBit(range, i))
+                        return i;
+                eventNumber = range.beginEventNumber - 1;
+                if (eventNumber < 0)
+                    return -1;
+            }
+        }
+    }
+
+    public long getNumMatchingEvents() {
+        long numMatchingEvents = 0;
+        for (Range range : ranges)
+            numMatchingEvents += range.numMatchingEvents;
+        return numMatchingEvents;
+    }
+
+    /**
+     * Returns the scanned part of the file between 0 and 1.
+     */
+    public double getScannedFraction() {
+        if (scanEndOffset == 0)
+            return 1;
+        long scannedSize = 0;
+        for (Range range : ranges)
+            scannedSize += range.done ? range.endOffset - range.beginOffset : range.scannedOffset - range.beginOffset;
+        return (double)scannedSize / scanEndOffset;
+    }
+
+    /**
+     * Returns the number of matching events extrapolated from the scanned part,
+     * or -1 if too little has been scanned for a meaningful estimate.
+     */
+    public long getApproximateNumberOfMatchingEvents() {
+        double scannedFraction = getScannedFraction();
+        if (done)
+            return getNumMatchingEvents();
+        else if (scannedFraction < 0.01)
+            return -1;
+        else
+            return (long)(getNumMatchingEvents() / scannedFraction);
+    }
+
+    private Range findRange(long eventNumber) {
+        // ranges are ordered by event number
+        for (Range range : ranges) {
+            if (range.scannedEventNumber == -1)
+                continue;
+            else if (eventNumber < range.beginEventNumber)
+                return null;
+            else if (eventNumber < range.endEventNumber)
+                return range;
+        }
+        return null;
+    }
+
+    private static boolean getMatchBit(Range range, long eventNumber) {
+        long index = eventNumber - range.beginEventNumber;
+        return (range.matchBits[(int)(index >>> 6)] & (1L << index)) != 0;
+    }
+
+    private void scanRange(Range range) {
+        if (canceled)
+            return;
+        EventLog eventLog = null;
+        workerThreads.add(Thread.currentThread());
+        try {
+            eventLog = acquireEventLog();
+            ReadToEventLineResult result = new ReadToEventLineResult();
+            if (!eventLog.readToEventLine(true, range.beginOffset, result) || result.lineBeginOffset >= range.endOffset)
+                return; // no events in this range
+            long beginOffset = result.lineBeginOffset;
+            long beginEventNumber = result.eventNumber;
+            long endEventNumber = lastEventNumber;
+            if (range.endOffset < scanEndOffset && eventLog.readToEventLine(true, range.endOffset, result))
+                endEventNumber = result.eventNumber;
+            if (endEventNumber - beginEventNumber > MAXIMUM_RANGE_EVENT_NUMBERS)
+                return; // leave it to the sequential filtering
+            long[] matchBits = new long[(int)((endEventNumber - beginEventNumber + 63) >>> 6)];
+            range.beginEventNumber = beginEventNumber;
+            range.endEventNumber = endEventNumber;
+            range.matchBits = matchBits;
+            range.scannedEventNumber = beginEventNumber;
+            long numMatchingEvents = 0;
+            int count = 0;
+            Event event = eventLog.getEventForBeginOffset(beginOffset);
+            while (event != null && event.getEventNumber() < endEventNumber) {
+                long eventNumber = event.getEventNumber();
+                if (filteredEventLog.matchesEvent(event)) {
+                    long index = eventNumber - beginEventNumber;
+                    matchBits[(int)(index >>> 6)] |= 1L << index;
+                    numMatchingEvents++;
+                }
+                if (++count % PUBLISH_INTERVAL == 0) {
+                    range.numMatchingEvents = numMatchingEvents;
+                    range.scannedOffset = event.getEndOffset();
+                    range.scannedEventNumber = eventNumber + 1;
+                    if (canceled)
+                        return;
+                }
+                event = event.getNextEvent();
+            }
+            range.numMatchingEvents = numMatchingEvents;
+            range.scannedEventNumber = endEventNumber;
+        }
+        catch (RuntimeException e) {
+            if (error == null)
+                error = e;
+            cancel();
+        }
+        finally {
+            if (!canceled)
+                range.done = true;
+            if (eventLog != null)
+                idleEventLogs.add(eventLog);
+        }
+    }
+
+    /**
+     * Returns an eventlog that is not used by other tasks, the same file is opened once per thread at most.
+     */
+    private EventLog acquireEventLog() {
+        EventLog eventLog = idleEventLogs.poll();
+        if (eventLog == null) {
+            FileReader reader = new FileReader(fileName);
+            reader.setCheckFileForChanges(false);
+            eventLog = new EventLog(reader, false);
+            eventLog.setEventCacheMemoryLimit(WORKER_EVENT_CACHE_MEMORY_LIMIT);
+            for (EventLogEntry eventLogEntry : moduleEntries)
+                eventLog.cacheEventLogEntry(eventLogEntry);
+            eventLogs.add(eventLog);
+        }
+        return eventLog;
+    }
+
+    @Override
+    public String toString() {
+        ArrayList<String> states = new ArrayList<String>();
+        for (Range range : ranges)
+            states.add(range.done ? "done" : range.scannedEventNumber == -1 ? "waiting" : "#" + range.scannedEventNumber);
+        return "Filter scan of " + fileName + ": " + states;
+    }
+}
@@ -1,12 +1,10 @@
 package org.omnetpp.eventlog;
 
+import java.nio.ByteBuffer;
 import java.util.TreeMap;
 
 import org.eclipse.core.runtime.Assert;
-import org.omnetpp.common.engine.LineTokenizer;
-import org.omnetpp.common.engine.PStringVector;
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 
 /**
  * Allows random access of an eventlog file, i.e. positioning on arbitrary event numbers and simulation times.
@@ -17,13 +15,14 @@ public abstract class EventLogIndex extends EventLogBase
 {
     protected FileReader reader;
     protected LineTokenizer tokenizer;
+    protected EventLogOffsetIndex offsetIndex;
 
     protected long firstEventOffset = -1;
     protected long lastEventOffset = -1;
     protected long firstEventNumber = -1;
     protected long lastEventNumber = -1;
-    protected BigDecimal firstSimulationTime = null;
-    protected BigDecimal lastSimulationTime = null;
+    protected SimTime firstSimulationTime = null;
+    protected SimTime lastSimulationTime = null;
 
     /**
      * Subsequent events in an eventlog file may not have subsequent event numbers,
@@ -35,7 +34,7 @@ public abstract class EventLogIndex extends EventLogBase
      * Subsequent events in an eventlog file may have the same simulation time,
      * therefore it is insufficient to store the file offset only in the cache.
      */
-    protected TreeMap<BigDecimal, CacheEntry> simulationTimeToCacheEntryMap = new TreeMap<BigDecimal, CacheEntry>();
+    protected TreeMap<SimTime, CacheEntry> simulationTimeToCacheEntryMap = new TreeMap<SimTime, CacheEntry>();
 
     protected static final class RefObject<T>
     {
@@ -49,10 +48,27 @@ public abstract class EventLogIndex extends EventLogBase
     public EventLogIndex(FileReader reader)
     {
         this.reader = reader;
-        this.tokenizer = new LineTokenizer((int)reader.getMaxLineSize() + 1);
+        this.tokenizer = new LineTokenizer();
+        this.offsetIndex = new EventLogOffsetIndex(reader.getFileName());
+        offsetIndex.open();
     }
 
-    public void cacheEntry(long eventNumber, BigDecimal simulationTime, long beginOffset, long endOffset) {
+    /**
+     * Returns the tokenizer used to parse the lines of this eventlog.
+     */
+    public LineTokenizer getLineTokenizer() {
+        return tokenizer;
+    }
+
+    /**
+     * Returns the persistent offset index of the eventlog file. It is used to narrow down
+     * searches when available, but updating it is up to the user of the eventlog.
+     */
+    public EventLogOffsetIndex getOffsetIndex() {
+        return offsetIndex;
+    }
+
+    public void cacheEntry(long eventNumber, SimTime simulationTime, long beginOffset, long endOffset) {
         var eventNumberCacheEntry = eventNumberToCacheEntryMap.ceilingEntry(eventNumber);
         if (eventNumberCacheEntry != null && eventNumberCacheEntry.getKey() == eventNumber)
             eventNumberCacheEntry.getValue().include(eventNumber, simulationTime, beginOffset, endOffset);
@@ -70,7 +86,7 @@ public abstract class EventLogIndex extends EventLogBase
      * The key is either an event number or a simulation time.
      */
     protected final <T extends Comparable> long searchForOffset(TreeMap<T, CacheEntry> map, T key, MatchKind matchKind) {
-        T defaultValue = getKey(key, -1L, BigDecimal.MINUS_ONE);
+        T defaultValue = getKey(key, -1L, SimTime.MINUS_ONE);
         T lowerKey = defaultValue;
         T upperKey = defaultValue;
         long foundOffset = -1;
@@ -102,7 +118,11 @@ public abstract class EventLogIndex extends EventLogBase
                 RefObject<T> tempRef_upperKey2 = new RefObject<T>(upperKey);
                 RefObject<Long> tempRef_lowerOffset2 = new RefObject<Long>(lowerOffset);
                 RefObject<Long> tempRef_upperOffset2 = new RefObject<Long>(upperOffset);
-                foundOffset = binarySearchForOffset(key, matchKind, tempRef_lowerKey2, tempRef_upperKey2, tempRef_lowerOffset2, tempRef_upperOffset2);
+                // the persistent offset index may narrow down the range or even give the exact offset
+                if (offsetIndexSearchForOffset(key, tempRef_lowerKey2, tempRef_upperKey2, tempRef_lowerOffset2, tempRef_upperOffset2))
+                    foundOffset = tempRef_lowerOffset2.argValue;
+                else
+                    foundOffset = binarySearchForOffset(key, matchKind, tempRef_lowerKey2, tempRef_upperKey2, tempRef_lowerOffset2, tempRef_upperOffset2);
                 upperOffset = tempRef_upperOffset2.argValue;
                 lowerOffset = tempRef_lowerOffset2.argValue;
                 upperKey = tempRef_upperKey2.argValue;
@@ -112,7 +132,7 @@ public abstract class EventLogIndex extends EventLogBase
             boolean exactMatchFound = lowerKey.equals(key) && upperKey.equals(key);
             // finally use linear search to find the requested offset
             if (matchKind == MatchKind.EXACT) {
-                if (foundOffset != -1 && key instanceof BigDecimal) {
+                if (foundOffset != -1 && key instanceof SimTime) {
                     // check if there are multiple events with the same simulation time
                     long firstOffset = linearSearchForOffset(key, foundOffset, false, true);
                     long lastOffset = linearSearchForOffset(key, foundOffset, true, true);
@@ -221,7 +241,7 @@ public abstract class EventLogIndex extends EventLogBase
                 upperOffset.argValue = cacheEntry.beginOffset;
             }
             else {
-                upperKey.argValue = getKey(key, getLastEventNumber(), getLastSimulationTime());
+                upperKey.argValue = getKey(key, getLastEventNumber(), getLastSimTime());
                 upperOffset.argValue = reader.getFileSize(); // this has to match last event's end offset
             }
             // lower iterator refers to the closest element before the key
@@ -237,7 +257,7 @@ public abstract class EventLogIndex extends EventLogBase
             else {
                 long firstEventNumber = getFirstEventNumber();
                 if (firstEventNumber != -1) {
-                    lowerKey.argValue = getKey(key, firstEventNumber, getFirstSimulationTime());
+                    lowerKey.argValue = getKey(key, firstEventNumber, getFirstSimTime());
                     lowerOffset.argValue = getFirstEventOffset();
                     Assert.isTrue(lowerKey.argValue != null);
                 }
@@ -275,6 +295,50 @@ public abstract class EventLogIndex extends EventLogBase
         }
     }
 
+    /**
+     * Search the persistent offset index for the closest sampled events around the given key, and
+     * narrow down the lower and upper keys and offsets accordingly. Returns true if the exact offset
+     * has been found, in which case both lower and upper refer to it.
+     */
+    protected final <T extends Comparable<T>> boolean offsetIndexSearchForOffset(T key, RefObject<T> lowerKey, RefObject<T> upperKey, RefObject<Long> lowerOffset, RefObject<Long> upperOffset) {
+        EventLogOffsetIndex.Records records = offsetIndex.getRecords();
+        if (records == null)
+            return false;
+        // the index may already cover content that has not yet been synchronized
+        long fileSize = reader.getFileSize();
+        int lower;
+        int upper;
+        if (key instanceof Long) {
+            lower = records.findLastLessOrEqual((Long)key);
+            upper = lower + 1;
+        }
+        else {
+            lower = records.findLastLess((SimTime)key);
+            upper = records.findFirstGreater((SimTime)key);
+        }
+        if (lower >= 0 && records.getBeginOffset(lower) < fileSize) {
+            T recordKey = getKey(key, records.getEventNumber(lower), records.getSimTime(lower));
+            long recordOffset = records.getBeginOffset(lower);
+            if (recordKey.equals(key)) {
+                lowerKey.argValue = upperKey.argValue = key;
+                lowerOffset.argValue = upperOffset.argValue = recordOffset;
+                return true;
+            }
+            else if (recordOffset > lowerOffset.argValue) {
+                lowerKey.argValue = recordKey;
+                lowerOffset.argValue = recordOffset;
+            }
+        }
+        if (upper < records.getNumRecords() && records.getBeginOffset(upper) < fileSize) {
+            long recordOffset = records.getBeginOffset(upper);
+            if (recordOffset < upperOffset.argValue) {
+                upperKey.argValue = getKey(key, records.getEventNumber(upper), records.getSimTime(upper));
+                upperOffset.argValue = recordOffset;
+            }
+        }
+        return false;
+    }
+
     /**
      * Binary search through the eventlog file finding the file offset for the given key with the given match kind.
      * Sets the closest lower and upper keys and offsets around the key found in the eventlog file.
@@ -282,12 +346,12 @@ public abstract class EventLogIndex extends EventLogBase
      */
     protected final <T extends Comparable<T>> long binarySearchForOffset(T key, MatchKind matchKind, RefObject<T> lowerKey, RefObject<T> upperKey, RefObject<Long> lowerOffset, RefObject<Long> upperOffset)
     {
-        Assert.isTrue(key.compareTo(getKey(key, 0L, BigDecimal.ZERO)) >= 0);
+        Assert.isTrue(key.compareTo(getKey(key, 0L, SimTime.ZERO)) >= 0);
         long foundOffset = -1;
         long middleEventBeginOffset = -1;
 //        long middleEventEndOffset = -1;
         long middleEventNumber = -1;
-        BigDecimal middleSimulationTime;
+        SimTime middleSimulationTime;
         // Binary search
         //
         // IMPORTANT NOTE: lowerOffset will always be exactly on an "E" line
@@ -347,7 +411,7 @@ public abstract class EventLogIndex extends EventLogBase
     protected final <T extends Comparable<T>> long linearSearchForOffset(T key, long beginOffset, boolean forward, boolean exactMatchRequired) {
         Assert.isTrue(beginOffset >= 0);
         long eventNumber = -1;
-        BigDecimal simulationTime;
+        SimTime simulationTime;
         long lineBeginOffset = -1;
         long lineEndOffset = -1;
         long previousOffset = beginOffset;
@@ -390,8 +454,8 @@ public abstract class EventLogIndex extends EventLogBase
         super.clearInternalState();
         firstEventNumber = EventNumberKind.EVENT_NOT_YET_CALCULATED;
         lastEventNumber = EventNumberKind.EVENT_NOT_YET_CALCULATED;
-        firstSimulationTime = BigDecimal.MINUS_ONE;
-        lastSimulationTime = BigDecimal.MINUS_ONE;
+        firstSimulationTime = SimTime.MINUS_ONE;
+        lastSimulationTime = SimTime.MINUS_ONE;
         firstEventOffset = -1;
         lastEventOffset = -1;
         eventNumberToCacheEntryMap.clear();
@@ -400,8 +464,8 @@ public abstract class EventLogIndex extends EventLogBase
 
     protected final boolean isEventBeginOffset(long offset) {
         reader.seekTo(offset);
-        String line = reader.getNextLine();
-        return line != null && line.charAt(0) == 'E';
+        int lineOffset = reader.getNextLineBufferOffset();
+        return lineOffset != -1 && reader.getBuffer().get(lineOffset) == 'E';
     }
 
     public void synchronize(int change) {
@@ -412,12 +476,13 @@ public abstract class EventLogIndex extends EventLogBase
             {
                 case FileReader.FileChange.OVERWRITTEN:
                     clearInternalState();
+                    offsetIndex.clear();
                     break;
                 case FileReader.FileChange.APPENDED:
                     eventNumberToCacheEntryMap.remove(lastEventNumber);
                     simulationTimeToCacheEntryMap.remove(lastSimulationTime);
                     lastEventNumber = EventNumberKind.EVENT_NOT_YET_CALCULATED;
-                    lastSimulationTime = BigDecimal.MINUS_ONE;
+                    lastSimulationTime = SimTime.MINUS_ONE;
                     lastEventOffset = -1;
                     break;
                 default:
@@ -452,11 +517,21 @@ public abstract class EventLogIndex extends EventLogBase
     }
 
     public final BigDecimal getFirstSimulationTime() {
+        SimTime simulationTime = getFirstSimTime();
+        return simulationTime == null ? null : simulationTime.toBigDecimal();
+    }
+
+    public final BigDecimal getLastSimulationTime() {
+        SimTime simulationTime = getLastSimTime();
+        return simulationTime == null ? null : simulationTime.toBigDecimal();
+    }
+
+    public final SimTime getFirstSimTime() {
         getFirstEventNumber();
         return firstSimulationTime;
     }
 
-    public final BigDecimal getLastSimulationTime() {
+    public final SimTime getLastSimTime() {
         getLastEventNumber();
         return lastSimulationTime;
     }
@@ -514,7 +589,11 @@ public abstract class EventLogIndex extends EventLogBase
      * Returns the begin file offset of the requested simulation time. See MatchKind for details.
      */
     public long getOffsetForSimulationTime(BigDecimal simulationTime, MatchKind matchKind) {
-        Assert.isTrue(simulationTime.greaterOrEqual(BigDecimal.ZERO));
+        return getOffsetForSimulationTime(SimTime.valueOf(simulationTime), matchKind);
+    }
+
+    public long getOffsetForSimulationTime(SimTime simulationTime, MatchKind matchKind) {
+        Assert.isTrue(simulationTime.greaterOrEqual(SimTime.ZERO));
         long offset = searchForOffset(simulationTimeToCacheEntryMap, simulationTime, matchKind);
 //        System.out.println("Found simulation time: " + simulationTime + " for match kind: " + matchKind + " at offset: " + offset);
         return offset;
@@ -526,7 +605,7 @@ public abstract class EventLogIndex extends EventLogBase
      */
     public static class ReadToEventLineResult {
         long eventNumber;
-        BigDecimal simulationTime;
+        SimTime simulationTime;
         long lineBeginOffset;
         long lineEndOffset;
     }
@@ -534,38 +613,38 @@ public abstract class EventLogIndex extends EventLogBase
     boolean readToEventLine(boolean forward, long readStartOffset, ReadToEventLineResult result) {
         Assert.isTrue(readStartOffset >= 0);
         result.eventNumber = -1;
-        result.simulationTime = BigDecimal.MINUS_ONE;
+        result.simulationTime = SimTime.MINUS_ONE;
         reader.seekTo(readStartOffset);
 //        System.out.println("Reading to first event line from offset: " + readStartOffset + " in direction: " + (forward ? "forward" : "backward"));
-        String line;
+        int lineOffset;
         // find first "E" line, return false if none found
         while (true) {
             if (forward)
-                line = reader.getNextLine();
+                lineOffset = reader.getNextLineBufferOffset();
             else
-                line = reader.getPreviousLine();
-            if (line == null)
+                lineOffset = reader.getPreviousLineBufferOffset();
+            if (lineOffset == -1)
                 return false;
-            if (line.charAt(0) == 'E' && line.charAt(1) == ' ')
+            ByteBuffer buffer = reader.getBuffer();
+            if (reader.getCurrentLineLength() > 1 && buffer.get(lineOffset) == 'E' && buffer.get(lineOffset + 1) == ' ')
                 break;
         }
         // find event number and simulation time in line ("# 12345 t 1.2345")
-        tokenizer.tokenize(line, (int)reader.getCurrentLineLength());
+        tokenizer.tokenize(reader.getBuffer(), lineOffset, (int)reader.getCurrentLineLength());
         result.lineBeginOffset = reader.getCurrentLineStartOffset();
         result.lineEndOffset = reader.getCurrentLineEndOffset();
-        int numTokens = tokenizer.numTokens();
-        PStringVector tokens = tokenizer.tokensVector();
+        int numTokens = tokenizer.getNumTokens();
         for (int i = 1; i < numTokens - 1; i += 2) {
-            String token = tokens.get(i);
-            if (token.length() != 1)
+            if (tokenizer.getTokenLength(i) != 1)
                 continue;
-            if (token.charAt(0) == '#')
-                result.eventNumber = EventLogEntry.parseEventNumber(tokens.get(i + 1));
-            else if (token.charAt(0) == 't')
-                result.simulationTime = EventLogEntry.parseSimulationTime(tokens.get(i + 1));
+            int code = tokenizer.getTokenCode(i);
+            if (code == '#')
+                result.eventNumber = tokenizer.parseLong(i + 1);
+            else if (code == 't')
+                result.simulationTime = tokenizer.parseSimTime(i + 1);
         }
         if (result.eventNumber != -1) {
-            Assert.isTrue(!result.simulationTime.equals(BigDecimal.MINUS_ONE));
+            Assert.isTrue(!result.simulationTime.equals(SimTime.MINUS_ONE));
             cacheEntry(result.eventNumber, result.simulationTime, result.lineBeginOffset, result.lineEndOffset);
             return true;
         }
@@ -573,10 +652,10 @@ public abstract class EventLogIndex extends EventLogBase
     }
 
     @SuppressWarnings("unchecked")
-    private <T> T getKey(T key, long eventNumber, BigDecimal simulationTime) {
+    private <T> T getKey(T key, long eventNumber, SimTime simulationTime) {
         if (key instanceof Long)
             return (T)(Long)eventNumber;
-        else if (key instanceof BigDecimal)
+        else if (key instanceof SimTime)
             return (T)simulationTime;
         else
             throw new RuntimeException();
@@ -590,14 +669,14 @@ public abstract class EventLogIndex extends EventLogBase
      */
     protected static class CacheEntry
     {
-        public BigDecimal simulationTime = null;
+        public SimTime simulationTime = null;
         public long beginEventNumber = -1; // begin event with simulation time
         public long endEventNumber = -1; // end event with simulation time
         public long beginOffset = -1; // begin offset of begin event
         public long endEventBeginOffset = -1; // begin offset of end event
         public long endOffset = -1; // end offset of end event
 
-        public CacheEntry(long eventNumber, BigDecimal simulationTime, long beginOffset, long endOffset) {
+        public CacheEntry(long eventNumber, SimTime simulationTime, long beginOffset, long endOffset) {
             this.simulationTime = simulationTime;
             this.beginEventNumber = eventNumber;
             this.endEventNumber = eventNumber;
@@ -606,7 +685,7 @@ public abstract class EventLogIndex extends EventLogBase
             this.endOffset = endOffset;
         }
 
-        public void include(long eventNumber, BigDecimal simulationTime, long beginOffset, long endOffset) {
+        public void include(long eventNumber, SimTime simulationTime, long beginOffset, long endOffset) {
             Assert.isTrue(this.simulationTime.equals(simulationTime));
             this.beginEventNumber = Math.min(beginEventNumber, eventNumber);
             this.endEventNumber = Math.max(endEventNumber, eventNumber);
@@ -619,7 +698,7 @@ public abstract class EventLogIndex extends EventLogBase
         public <T> T getBeginKey(T key) {
             if (key instanceof Long)
                 return (T)(Long)beginEventNumber;
-            else if (key instanceof BigDecimal)
+            else if (key instanceof SimTime)
                 return (T)simulationTime;
             else
                 return null;
@@ -629,7 +708,7 @@ public abstract class EventLogIndex extends EventLogBase
         public <T> T getEndKey(T key) {
             if (key instanceof Long)
                 return (T)(Long)endEventNumber;
-            else if (key instanceof BigDecimal)
+            else if (key instanceof SimTime)
                 return (T)simulationTime;
             else
                 return null;
@@ -0,0 +1,464 @@
+package org.omnetpp.eventlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.omnetpp.common.Debug;
+import org.omnetpp.common.util.BigDecimal;
+
+/**
+ * Persistent sidecar index of an eventlog file, similar to the .vci file of output
+ * vectors. It stores the event number, simulation time and begin file offset of every
+ * Nth event, and of every event that creates modules (module creation checkpoints).
+ * The index file is stored next to the eventlog with the .eli extension.
+ *
+ * The index is built incrementally: update() continues scanning the eventlog from where
+ * the previous update stopped, so appended content costs only the newly written bytes.
+ * If the beginning of the indexed region or its last bytes no longer match, the eventlog
+ * has been overwritten, and the index is rebuilt from scratch.
+ *
+ * The records are memory mapped, and lookups are binary searches in the mapped region.
+ * Lookups may be done from any thread, while update() is running in the background.
+ */
+public class EventLogOffsetIndex
+{
+    private static final boolean debug = false;
+
+    public static final String FILE_EXTENSION = ".eli";
+
+    public static final int DEFAULT_SAMPLING_INTERVAL = 1000;
+
+    private static final long MAGIC = 0x31584449474f4c45L; // "ELOGIDX1" in little endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKSUM_SIZE = 4096;
+
+    private static final int FLAG_MODULE_CREATION = 1;
+
+    /**
+     * An immutable view of the mapped index records in file order. Records are
+     * sorted by event number, begin offset and simulation time at the same time.
+     */
+    public static class Records
+    {
+        private final ByteBuffer buffer;
+        private final int numRecords;
+        private final long indexedSize;
+
+        private Records(ByteBuffer buffer, int numRecords, long indexedSize) {
+            this.buffer = buffer;
+            this.numRecords = numRecords;
+            this.indexedSize = indexedSize;
+        }
+
+        public int getNumRecords() {
+            return numRecords;
+        }
+
+        /**
+         * Returns the number of eventlog bytes covered by the records. All events that begin
+         * before this offset are accounted for, e.g. there are no further module creation
+         * checkpoints among them.
+         */
+        public long getIndexedSize() {
+            return indexedSize;
+        }
+
+        public long getEventNumber(int index) {
+            return buffer.getLong(index * RECORD_SIZE);
+        }
+
+        public long getBeginOffset(int index) {
+            return buffer.getLong(index * RECORD_SIZE + 8);
+        }
+
+        public BigDecimal getSimulationTime(int index) {
+            return new BigDecimal(BigInteger.valueOf(buffer.getLong(index * RECORD_SIZE + 16)), buffer.getInt(index * RECORD_SIZE + 24));
+        }
+
+        public SimTime getSimTime(int index) {
+            return SimTime.valueOf(buffer.getLong(index * RECORD_SIZE + 16), buffer.getInt(index * RECORD_SIZE + 24));
+        }
+
+        public boolean isModuleCreationCheckpoint(int index) {
+            return (buffer.getInt(index * RECORD_SIZE + 28) & FLAG_MODULE_CREATION) != 0;
+        }
+
+        /**
+         * Returns the index of the last record with an event number less than or equal to the given one, or -1.
+         */
+        public int findLastLessOrEqual(long eventNumber) {
+            int low = 0;
+            int high = numRecords - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (getEventNumber(middle) <= eventNumber)
+                    low = middle + 1;
+                else
+                    high = middle - 1;
+            }
+            return high;
+        }
+
+        /**
+         * Returns the index of the last record with a simulation time strictly less than the given one, or -1.
+         */
+        public int findLastLess(SimTime simulationTime) {
+            int low = 0;
+            int high = numRecords - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (getSimTime(middle).less(simulationTime))
+                    low = middle + 1;
+                else
+                    high = middle - 1;
+            }
+            return high;
+        }
+
+        /**
+         * Returns the index of the first record with a simulation time strictly greater than the given one, or numRecords.
+         */
+        public int findFirstGreater(SimTime simulationTime) {
+            int low = 0;
+            int high = numRecords - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (getSimTime(middle).greater(simulationTime))
+                    high = middle - 1;
+                else
+                    low = middle + 1;
+            }
+            return low;
+        }
+    }
+
+    private final String eventLogFileName;
+    private final String indexFileName;
+    private final int samplingInterval;
+
+    // the records that can be used for lookups, replaced atomically by update()
+    private volatile Records records;
+
+    // incremented by clear() to make a running update() discard its result
+    private volatile int generation;
+
+    public EventLogOffsetIndex(String eventLogFileName) {
+        this(eventLogFileName, DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    public EventLogOffsetIndex(String eventLogFileName, int samplingInterval) {
+        this.eventLogFileName = eventLogFileName;
+        this.indexFileName = getIndexFileName(eventLogFileName);
+        this.samplingInterval = samplingInterval;
+    }
+
+    public static String getIndexFileName(String eventLogFileName) {
+        if (eventLogFileName.endsWith(".elog"))
+            return eventLogFileName.substring(0, eventLogFileName.length() - 5) + FILE_EXTENSION;
+        else
+            return eventLogFileName + FILE_EXTENSION;
+    }
+
+    public String getIndexFileName() {
+        return indexFileName;
+    }
+
+    /**
+     * Returns the currently usable records, or null if the index is not (yet) available.
+     */
+    public Records getRecords() {
+        return records;
+    }
+
+    /**
+     * Forgets the mapped records, e.g. because the eventlog has been overwritten.
+     * The index file is verified again by the next update().
+     */
+    public void clear() {
+        generation++;
+        records = null;
+    }
+
+    /**
+     * Maps the existing index file if it is consistent with the beginning of the eventlog.
+     * It doesn't read the eventlog beyond what has already been indexed, call update() for that.
+     */
+    public void open() {
+        int startGeneration = generation;
+        try (FileChannel indexChannel = openIndexFile(false); FileChannel eventLogChannel = FileChannel.open(Paths.get(eventLogFileName), StandardOpenOption.READ)) {
+            if (indexChannel != null) {
+                Header header = readHeader(indexChannel, eventLogChannel);
+                if (header != null)
+                    publish(indexChannel, header, startGeneration);
+            }
+        }
+        catch (IOException e) {
+            // the index is just an optimization, it's fine to work without it
+            if (debug)
+                Debug.println("Cannot open eventlog index " + indexFileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scans the part of the eventlog that is not yet indexed, appends the new records to the
+     * index file and maps them. Rebuilds the index from scratch if the eventlog has been overwritten.
+     * The monitor may cancel the update, the already scanned part is kept in that case.
+     *
+     * Appending doesn't touch the records that are already mapped, but a rebuilt index is written
+     * into a new file that atomically replaces the old one, because other EventLog instances (e.g.
+     * the ones in EventLogFilterScan) may still have the old records mapped, and truncating a mapped
+     * file makes accessing them crash.
+     */
+    public synchronized void update(IProgressMonitor monitor) {
+        int startGeneration = generation;
+        long startTime = System.currentTimeMillis();
+        Path indexPath = Paths.get(indexFileName).toAbsolutePath();
+        Path newIndexPath = null;
+        FileChannel indexChannel = null;
+        FileReader reader = new FileReader(eventLogFileName);
+        reader.setCheckFileForChanges(false);
+        try (FileChannel eventLogChannel = FileChannel.open(Paths.get(eventLogFileName), StandardOpenOption.READ)) {
+            indexChannel = openIndexFile(true);
+            Header header = indexChannel == null ? null : readHeader(indexChannel, eventLogChannel);
+            if (header == null) {
+                // missing, incompatible or outdated index, start over in a new file
+                records = null;
+                if (indexChannel != null)
+                    indexChannel.close();
+                newIndexPath = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+                indexChannel = FileChannel.open(newIndexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                header = new Header();
+                header.samplingInterval = samplingInterval;
+            }
+            long fileSize = reader.getFileSize();
+            if (header.indexedSize < fileSize || newIndexPath != null) {
+                if (header.indexedSize < fileSize) {
+                    ByteBuffer newRecords = scan(reader, header, monitor);
+                    long position = HEADER_SIZE + header.numRecords * RECORD_SIZE;
+                    newRecords.flip();
+                    while (newRecords.hasRemaining())
+                        position += indexChannel.write(newRecords, position);
+                    header.numRecords += newRecords.limit() / RECORD_SIZE;
+                }
+                header.headChecksum = computeChecksum(eventLogChannel, 0, Math.min(CHECKSUM_SIZE, header.indexedSize));
+                header.tailChecksum = computeChecksum(eventLogChannel, Math.max(0, header.indexedSize - CHECKSUM_SIZE), header.indexedSize);
+                writeHeader(indexChannel, header);
+            }
+            if (newIndexPath != null) {
+                try {
+                    Files.move(newIndexPath, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    newIndexPath = null;
+                }
+                catch (IOException e) {
+                    // e.g. the old index file is mapped on Windows, use the new one until it can be replaced
+                    if (debug)
+                        Debug.println("Cannot replace eventlog index " + indexFileName + ": " + e.getMessage());
+                }
+            }
+            publish(indexChannel, header, startGeneration);
+            if (debug)
+                Debug.println("Updating eventlog index " + indexFileName + " took " + (System.currentTimeMillis() - startTime) + "ms, " + header.numRecords + " records cover " + header.indexedSize + " bytes");
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Cannot update eventlog index '" + indexFileName + "'", e);
+        }
+        finally {
+            reader.ensureFileClosed();
+            closeAndDelete(indexChannel, newIndexPath);
+        }
+    }
+
+    /**
+     * Closes the index file, and deletes it if it's a temporary one. The mapped records
+     * remain valid.
+     */
+    private static void closeAndDelete(FileChannel indexChannel, Path temporaryIndexPath) {
+        try {
+            if (indexChannel != null)
+                indexChannel.close();
+            if (temporaryIndexPath != null)
+                Files.deleteIfExists(temporaryIndexPath);
+        }
+        catch (IOException e) {
+            if (temporaryIndexPath != null)
+                temporaryIndexPath.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * Reads the eventlog from the end of the indexed region, and returns the new records.
+     * The last event is not indexed because it may still be incomplete, the next update
+     * continues from its begin offset.
+     */
+    private ByteBuffer scan(FileReader reader, Header header, IProgressMonitor monitor) {
+        LineTokenizer tokenizer = new LineTokenizer();
+        ByteBuffer newRecords = ByteBuffer.allocate(64 * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long fileSize = reader.getFileSize();
+        long startOffset = header.indexedSize;
+        int totalWork = (int)((fileSize - startOffset) >> 20) + 1;
+        if (monitor != null)
+            monitor.beginTask("Indexing " + new File(eventLogFileName).getName(), totalWork);
+        int worked = 0;
+        // the event being scanned, it is recorded when the next event begins
+        long eventNumber = -1;
+        long eventBeginOffset = -1;
+        SimTime simulationTime = null;
+        boolean moduleCreation = false;
+        reader.seekTo(startOffset);
+        int lineOffset;
+        while ((lineOffset = reader.getNextLineBufferOffset()) != -1) {
+            ByteBuffer buffer = reader.getBuffer();
+            int lineLength = (int)reader.getCurrentLineLength();
+            if (lineLength > 2 && buffer.get(lineOffset) == 'E' && buffer.get(lineOffset + 1) == ' ') {
+                if (eventBeginOffset != -1) {
+                    newRecords = record(newRecords, header, eventNumber, eventBeginOffset, simulationTime, moduleCreation);
+                    header.indexedSize = reader.getCurrentLineStartOffset();
+                    if (monitor != null) {
+                        if (monitor.isCanceled()) {
+                            eventBeginOffset = -1;
+                            break;
+                        }
+                        int work = (int)((header.indexedSize - startOffset) >> 20);
+                        if (work > worked) {
+                            monitor.worked(work - worked);
+                            worked = work;
+                        }
+                    }
+                }
+                tokenizer.tokenize(buffer, lineOffset, lineLength);
+                eventNumber = -1;
+                simulationTime = null;
+                for (int i = 1; i < tokenizer.getNumTokens() - 1; i += 2) {
+                    if (tokenizer.getTokenLength(i) != 1)
+                        continue;
+                    int code = tokenizer.getTokenCode(i);
+                    if (code == '#')
+                        eventNumber = tokenizer.parseLong(i + 1);
+                    else if (code == 't')
+                        simulationTime = tokenizer.parseSimTime(i + 1);
+                }
+                if (eventNumber == -1 || simulationTime == null)
+                    throw new RuntimeException("Wrong file format: No event number or simulation time in 'E' line at offset " + reader.getCurrentLineStartOffset());
+                eventBeginOffset = reader.getCurrentLineStartOffset();
+                moduleCreation = false;
+            }
+            else if (lineLength > 3 && buffer.get(lineOffset) == 'M' && buffer.get(lineOffset + 1) == 'C' && buffer.get(lineOffset + 2) == ' ')
+                moduleCreation = true;
+        }
+        if (monitor != null)
+            monitor.done();
+        return newRecords;
+    }
+
+    private ByteBuffer record(ByteBuffer newRecords, Header header, long eventNumber, long beginOffset, SimTime simulationTime, boolean moduleCreation) {
+        boolean sampled = header.numEvents % header.samplingInterval == 0;
+        header.numEvents++;
+        if (sampled || moduleCreation) {
+            if (!newRecords.hasRemaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(newRecords.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                newRecords = grown.put(newRecords.flip());
+            }
+            newRecords.putLong(eventNumber);
+            newRecords.putLong(beginOffset);
+            newRecords.putLong(simulationTime.getRaw());
+            newRecords.putInt(-simulationTime.getExponent());
+            newRecords.putInt(moduleCreation ? FLAG_MODULE_CREATION : 0);
+        }
+        return newRecords;
+    }
+
+    private void publish(FileChannel indexChannel, Header header, int startGeneration) throws IOException {
+        MappedByteBuffer buffer = indexChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, header.numRecords * RECORD_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (generation == startGeneration)
+            records = new Records(buffer, (int)header.numRecords, header.indexedSize);
+    }
+
+    /**
+     * Returns null if the index file doesn't exist.
+     */
+    private FileChannel openIndexFile(boolean writable) throws IOException {
+        if (!new File(indexFileName).exists())
+            return null;
+        else if (writable)
+            return FileChannel.open(Paths.get(indexFileName), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        else
+            return FileChannel.open(Paths.get(indexFileName), StandardOpenOption.READ);
+    }
+
+    private static class Header
+    {
+        int samplingInterval;
+        long indexedSize; // the number of eventlog bytes covered by the index
+        long numEvents; // the number of events in the covered region
+        long numRecords;
+        long headChecksum; // of the first few bytes of the covered region
+        long tailChecksum; // of the last few bytes of the covered region
+    }
+
+    /**
+     * Returns the header if the index file is valid for the current eventlog, or null otherwise.
+     */
+    private Header readHeader(FileChannel indexChannel, FileChannel eventLogChannel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (indexChannel.read(buffer, 0) != HEADER_SIZE)
+            return null;
+        buffer.flip();
+        if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION)
+            return null;
+        Header header = new Header();
+        header.samplingInterval = buffer.getInt();
+        header.indexedSize = buffer.getLong();
+        header.numEvents = buffer.getLong();
+        header.numRecords = buffer.getLong();
+        header.headChecksum = buffer.getLong();
+        header.tailChecksum = buffer.getLong();
+        if (header.samplingInterval <= 0 || indexChannel.size() < HEADER_SIZE + header.numRecords * RECORD_SIZE)
+            return null;
+        else if (eventLogChannel.size() < header.indexedSize)
+            return null;
+        else if (header.headChecksum != computeChecksum(eventLogChannel, 0, Math.min(CHECKSUM_SIZE, header.indexedSize)))
+            return null;
+        else if (header.tailChecksum != computeChecksum(eventLogChannel, Math.max(0, header.indexedSize - CHECKSUM_SIZE), header.indexedSize))
+            return null;
+        else
+            return header;
+    }
+
+    private void writeHeader(FileChannel indexChannel, Header header) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(header.samplingInterval);
+        buffer.putLong(header.indexedSize);
+        buffer.putLong(header.numEvents);
+        buffer.putLong(header.numRecords);
+        buffer.putLong(header.headChecksum);
+        buffer.putLong(header.tailChecksum);
+        buffer.position(HEADER_SIZE);
+        indexChannel.write(buffer.flip(), 0);
+    }
+
+    private static long computeChecksum(FileChannel channel, long beginOffset, long endOffset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int)(endOffset - beginOffset));
+        while (buffer.hasRemaining() && channel.read(buffer, beginOffset + buffer.position()) != -1)
+            ;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+}
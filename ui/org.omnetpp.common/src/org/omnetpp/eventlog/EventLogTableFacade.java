@@ -3,7 +3,6 @@ package org.omnetpp.eventlog;
 import org.eclipse.core.runtime.Assert;
 import org.omnetpp.common.engine.JavaMatchableObject;
 import org.omnetpp.common.engine.MatchExpression;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 import org.omnetpp.eventlog.entry.EventEntry;
 
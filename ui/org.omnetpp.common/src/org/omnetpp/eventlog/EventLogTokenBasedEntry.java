@@ -16,78 +16,82 @@ public abstract class EventLogTokenBasedEntry extends EventLogEntry
             return "\"" + text + "\"";
     }
 
-    public static String getToken(String[] tokens, int numTokens, String sign, boolean mandatory) {
-        for (int i = 1; i < numTokens; i += 2)
-            if (sign.equals(tokens[i]))
-                return tokens[i + 1];
-        if (mandatory)
-            throw new RuntimeException("Missing mandatory token " + sign + " in line: " + currentLine.substring(0, currentLineLength));
-        return null;
+    /**
+     * Returns the index of the value token for the given key, or -1 if the key is not present.
+     */
+    public static int getToken(LineTokenizer tokenizer, String sign, boolean mandatory) {
+        int index = tokenizer.findValueIndex(sign);
+        if (index == -1 && mandatory)
+            throw new RuntimeException("Missing mandatory token " + sign + " in line: " + tokenizer.getLine());
+        return index;
     }
 
-    public static boolean getBoolToken(String[] tokens, int numTokens, String sign, boolean mandatory, boolean defaultValue) {
-        int value = getIntToken(tokens, numTokens, sign, mandatory, defaultValue ? 1 : 0);
+    public static boolean getBoolToken(LineTokenizer tokenizer, String sign, boolean mandatory, boolean defaultValue) {
+        int value = getIntToken(tokenizer, sign, mandatory, defaultValue ? 1 : 0);
         if (value == 0)
             return false;
         else if (value == 1)
             return true;
         else
-            throw new RuntimeException("Invalid boolean " + value + " in line " + currentLine.substring(0, currentLineLength));
+            throw new RuntimeException("Invalid boolean " + value + " in line " + tokenizer.getLine());
     }
 
-    public static int getIntToken(String[] tokens, int numTokens, String sign, boolean mandatory, int defaultValue) {
-        String token = getToken(tokens, numTokens, sign, mandatory);
-        if (token != null)
-            return Integer.valueOf(token);
+    public static int getIntToken(LineTokenizer tokenizer, String sign, boolean mandatory, int defaultValue) {
+        int index = getToken(tokenizer, sign, mandatory);
+        if (index != -1)
+            return tokenizer.parseInt(index);
         else
             return defaultValue;
     }
 
-    public static short getShortToken(String[] tokens, int numTokens, String sign, boolean mandatory, short defaultValue) {
-        String token = getToken(tokens, numTokens, sign, mandatory);
-        if (token != null)
-            return Short.valueOf(token);
+    public static short getShortToken(LineTokenizer tokenizer, String sign, boolean mandatory, short defaultValue) {
+        int index = getToken(tokenizer, sign, mandatory);
+        if (index != -1) {
+            int value = tokenizer.parseInt(index);
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE)
+                throw new NumberFormatException("Value out of range: " + value + " in line " + tokenizer.getLine());
+            return (short)value;
+        }
         else
             return defaultValue;
     }
 
-    public static long getLongToken(String[] tokens, int numTokens, String sign, boolean mandatory, long defaultValue) {
-        String token = getToken(tokens, numTokens, sign, mandatory);
-
-        if (token != null)
-            return Long.valueOf(token);
+    public static long getLongToken(LineTokenizer tokenizer, String sign, boolean mandatory, long defaultValue) {
+        int index = getToken(tokenizer, sign, mandatory);
+        if (index != -1)
+            return tokenizer.parseLong(index);
         else
             return defaultValue;
     }
 
-    public static long getInt64Token(String[] tokens, int numTokens, String sign, boolean mandatory, long defaultValue) {
-        String token = getToken(tokens, numTokens, sign, mandatory);
-        if (token != null)
-            return Long.valueOf(token);
+    public static long getInt64Token(LineTokenizer tokenizer, String sign, boolean mandatory, long defaultValue) {
+        int index = getToken(tokenizer, sign, mandatory);
+        if (index != -1)
+            return tokenizer.parseLong(index);
         else
             return defaultValue;
     }
 
-    public static String getStringToken(String[] tokens, int numTokens, String sign, boolean mandatory, String defaultValue) {
-        String token = getToken(tokens, numTokens, sign, mandatory);
-        return token != null ? token : defaultValue;
+    public static String getStringToken(LineTokenizer tokenizer, String sign, boolean mandatory, String defaultValue) {
+        int index = getToken(tokenizer, sign, mandatory);
+        return index != -1 ? tokenizer.getString(index) : defaultValue;
     }
 
-    public static long getEventNumberToken(String[] tokens, int numTokens, String sign, boolean mandatory, long defaultValue) {
-        String token = getToken(tokens, numTokens, sign, mandatory);
-        if (token != null)
-            return Long.valueOf(token);
+    public static long getEventNumberToken(LineTokenizer tokenizer, String sign, boolean mandatory, long defaultValue) {
+        int index = getToken(tokenizer, sign, mandatory);
+        if (index != -1)
+            return tokenizer.parseLong(index);
         else
             return defaultValue;
     }
 
-    public static BigDecimal getSimtimeToken(String[] tokens, int numTokens, String sign, boolean mandatory, BigDecimal defaultValue) {
-        String token = getToken(tokens, numTokens, sign, mandatory);
-        if (token != null)
-            return new BigDecimal(token);
+    public static BigDecimal getSimtimeToken(LineTokenizer tokenizer, String sign, boolean mandatory, BigDecimal defaultValue) {
+        int index = getToken(tokenizer, sign, mandatory);
+        if (index != -1)
+            return tokenizer.parseSimtime(index);
         else
             return defaultValue;
     }
 
-    public abstract void parse(String[] tokens, int numTokens);
+    public abstract void parse(LineTokenizer tokenizer);
 }
@@ -0,0 +1,557 @@
+package org.omnetpp.eventlog;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * Reads a file line by line in both directions. This is the pure Java
+ * counterpart of the C++ FileReader, with the same line semantics: lines are
+ * returned including their CR/LF, an incomplete last line (without LF) is
+ * ignored, and starting in the middle of a line skips to the next/previous
+ * line boundary.
+ *
+ * Instead of copying file content into a buffer, the file is memory mapped in
+ * large windows, and lines can be accessed in place via getBuffer() and the
+ * buffer offsets returned by getNextLineBufferOffset() and
+ * getPreviousLineBufferOffset(). The window is remapped when reading crosses
+ * its boundary; the maximum line length is half of the window size.
+ *
+ * File changes are detected by comparing the file size, modification time and
+ * the last few bytes of the file with the values seen at the last synchronization.
+ * The check is done each time a new window gets mapped (if enabled), and may be
+ * requested explicitly via getFileChange().
+ */
+public class FileReader
+{
+    public static final class FileChange {
+        public static final int UNCHANGED = 0;
+        public static final int APPENDED = 1;
+        public static final int OVERWRITTEN = 2;
+    }
+
+    public static final class FileChangeAction {
+        public static final int IGNORE = 0;
+        public static final int SIGNAL = 1;
+        public static final int SYNCHRONIZE = 2;
+    }
+
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final int PAGE_SIZE = 4096;
+
+    private static final int SAVED_TAIL_SIZE = 4096;
+
+    // the file
+    private final String fileName;
+    private FileChannel channel;
+    private FileLock fileLock; // the shared lock while held, nested lock requests are no-ops
+    private boolean enableFileLocking = false;
+    private boolean enableCheckFileForChanges = true;
+    private int fileAppendedAction = FileChangeAction.IGNORE;
+    private int fileOverwrittenAction = FileChangeAction.SIGNAL;
+
+    // the mapped window
+    private final int windowSize;
+    private final int maxLineSize;
+    private MappedByteBuffer window; // null if nothing is mapped
+    private long windowOffset = -1; // file offset of the first byte in window
+    private int windowLength; // number of mapped bytes
+
+    // file size and content as seen at the last synchronization
+    private long lastFileSize = -1;
+    private long lastModificationTime = -1;
+    private byte[] lastSavedTail = new byte[0];
+
+    // the position where getNextLine() or getPreviousLine() starts from
+    private long currentOffset = -1;
+
+    // the line returned by getNextLine() or getPreviousLine()
+    private long currentLineStartOffset = -1;
+    private long currentLineEndOffset = -1;
+
+    // total number of lines read in so far
+    private long numReadLines;
+
+    // total number of bytes in the lines read in so far
+    private long numReadBytes;
+
+    public FileReader(String fileName) {
+        this(fileName, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a reader for the given file that maps at most windowSize bytes at once.
+     * The file doesn't get opened yet.
+     */
+    public FileReader(String fileName, int windowSize) {
+        Assert.isTrue(windowSize >= 4 * PAGE_SIZE);
+        this.fileName = fileName;
+        this.windowSize = windowSize;
+        this.maxLineSize = windowSize / 2 - PAGE_SIZE;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getMaxLineSize() {
+        return maxLineSize;
+    }
+
+    public void setCheckFileForChanges(boolean enableCheckFileForChanges) {
+        this.enableCheckFileForChanges = enableCheckFileForChanges;
+    }
+
+    public void setFileAppendedAction(int fileAppendedAction) {
+        this.fileAppendedAction = fileAppendedAction;
+    }
+
+    public void setFileOverwrittenAction(int fileOverwrittenAction) {
+        this.fileOverwrittenAction = fileOverwrittenAction;
+    }
+
+    /**
+     * Enables acquiring a shared lock on the file while its content is being mapped or compared.
+     */
+    public void setFileLocking(boolean enableFileLocking) {
+        this.enableFileLocking = enableFileLocking;
+    }
+
+    public boolean isFileOpen() {
+        return channel != null;
+    }
+
+    public void ensureFileOpen() {
+        if (channel == null) {
+            try {
+                channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+            }
+            catch (IOException e) {
+                throw new RuntimeException("Cannot open file '" + fileName + "'", e);
+            }
+            if (currentOffset == -1)
+                currentOffset = 0;
+            synchronize(FileChange.OVERWRITTEN);
+        }
+    }
+
+    /**
+     * Closes the file and releases the mapped window, so that the file may be
+     * deleted or overwritten (this matters on Windows). The reader reopens the
+     * file when it is used again.
+     */
+    public void ensureFileClosed() {
+        releaseWindow(true);
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                throw new RuntimeException("Cannot close file '" + fileName + "'", e);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Returns the size of the file as seen at the last synchronization.
+     */
+    public long getFileSize() {
+        if (lastFileSize == -1)
+            ensureFileOpen();
+        return lastFileSize;
+    }
+
+    /**
+     * Compares the current state of the file with the state seen at the last synchronization.
+     */
+    public int getFileChange() {
+        ensureFileOpen();
+        FileLock lock = lockFile();
+        try {
+            long newFileSize = channel.size();
+            long newModificationTime = getModificationTime();
+            if (newModificationTime == lastModificationTime && newFileSize == lastFileSize)
+                return FileChange.UNCHANGED;
+            else if (newFileSize < lastFileSize)
+                return FileChange.OVERWRITTEN;
+            else if (!Arrays.equals(readTail(lastFileSize, lastSavedTail.length), lastSavedTail))
+                return FileChange.OVERWRITTEN;
+            else
+                return newFileSize == lastFileSize ? FileChange.UNCHANGED : FileChange.APPENDED;
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Cannot check file '" + fileName + "' for changes", e);
+        }
+        finally {
+            unlockFile(lock);
+        }
+    }
+
+    /**
+     * Updates the known file size and content to the current state of the file,
+     * and drops the mapped window.
+     */
+    public void synchronize(int change) {
+        ensureFileOpen();
+        FileLock lock = lockFile();
+        try {
+            lastFileSize = channel.size();
+            lastModificationTime = getModificationTime();
+            lastSavedTail = readTail(lastFileSize, SAVED_TAIL_SIZE);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Cannot synchronize file '" + fileName + "'", e);
+        }
+        finally {
+            unlockFile(lock);
+        }
+        releaseWindow(false);
+        if (currentOffset > lastFileSize)
+            currentOffset = lastFileSize;
+    }
+
+    /**
+     * Moves the current position to the given file offset. Subsequent
+     * getNextLine() and getPreviousLine() calls start from there.
+     */
+    public void seekTo(long fileOffset) {
+        if (fileOffset < 0 || fileOffset > getFileSize())
+            throw new RuntimeException("Invalid file offset: " + fileOffset);
+        ensureFileOpen();
+        currentOffset = fileOffset;
+    }
+
+    /**
+     * Returns the currently mapped window of the file. The line returned by the
+     * last getNextLineBufferOffset() or getPreviousLineBufferOffset() call is
+     * available there until the next call. The buffer must not be modified.
+     */
+    public ByteBuffer getBuffer() {
+        return window;
+    }
+
+    /**
+     * Reads the next line and returns its offset in getBuffer(), or -1 if there
+     * are no more lines. The length of the line is getCurrentLineLength().
+     */
+    public int getNextLineBufferOffset() {
+        numReadLines++;
+        ensureFileOpen();
+        long start = currentOffset;
+        ensureMappedForward(start);
+        // when starting in the middle of a line
+        if (!isLineStart(start)) {
+            start = findNextLineStart(start);
+            if (start == -1)
+                return clearCurrentLine();
+            ensureMappedForward(start);
+        }
+        long end = findNextLineStart(start);
+        if (end == -1)
+            return clearCurrentLine();
+        currentOffset = end;
+        return setCurrentLine(start, end);
+    }
+
+    /**
+     * Reads the previous line and returns its offset in getBuffer(), or -1 if
+     * there are no more lines. The length of the line is getCurrentLineLength().
+     */
+    public int getPreviousLineBufferOffset() {
+        numReadLines++;
+        ensureFileOpen();
+        long end = currentOffset;
+        ensureMappedBackward(end);
+        // when starting in the middle of a line
+        if (!isLineStart(end)) {
+            end = findPreviousLineStart(end);
+            if (end == -1)
+                return clearCurrentLine();
+            ensureMappedBackward(end);
+        }
+        long start = findPreviousLineStart(end);
+        if (start == -1)
+            return clearCurrentLine();
+        currentOffset = start;
+        return setCurrentLine(start, end);
+    }
+
+    /**
+     * Reads the next line including the trailing CR/LF, or returns null if there are no more lines.
+     */
+    public String getNextLine() {
+        int offset = getNextLineBufferOffset();
+        return offset == -1 ? null : decodeCurrentLine(offset);
+    }
+
+    /**
+     * Reads the previous line including the trailing CR/LF, or returns null if there are no more lines.
+     */
+    public String getPreviousLine() {
+        int offset = getPreviousLineBufferOffset();
+        return offset == -1 ? null : decodeCurrentLine(offset);
+    }
+
+    public long getCurrentLineStartOffset() {
+        return currentLineStartOffset;
+    }
+
+    public long getCurrentLineEndOffset() {
+        return currentLineEndOffset;
+    }
+
+    public long getCurrentLineLength() {
+        return currentLineEndOffset - currentLineStartOffset;
+    }
+
+    public long getNumReadLines() {
+        return numReadLines;
+    }
+
+    /**
+     * Returns the total number of bytes in the lines returned so far. Mapping
+     * does not read the file by itself, so this is the amount of data actually
+     * touched by the reader.
+     */
+    public long getNumReadBytes() {
+        return numReadBytes;
+    }
+
+    private int setCurrentLine(long start, long end) {
+        currentLineStartOffset = start;
+        currentLineEndOffset = end;
+        numReadBytes += end - start;
+        return (int)(start - windowOffset);
+    }
+
+    private int clearCurrentLine() {
+        currentLineStartOffset = currentLineEndOffset = -1;
+        return -1;
+    }
+
+    private String decodeCurrentLine(int offset) {
+        int length = (int)getCurrentLineLength();
+        byte[] bytes = new byte[length];
+        window.get(offset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte byteAt(long fileOffset) {
+        return window.get((int)(fileOffset - windowOffset));
+    }
+
+    private long getWindowEndOffset() {
+        return windowOffset + windowLength;
+    }
+
+    private boolean isLineStart(long fileOffset) {
+        return fileOffset == 0 || byteAt(fileOffset - 1) == '\n';
+    }
+
+    /**
+     * Returns the start offset of the line following the one that contains the given
+     * offset, or -1 if there's no complete line there. The window must be mapped forward.
+     */
+    private long findNextLineStart(long start) {
+        long end = getWindowEndOffset();
+        long s = start;
+        // find next CR/LF
+        while (s < end) {
+            byte b = byteAt(s);
+            if (b == '\r' || b == '\n')
+                break;
+            s++;
+        }
+        if (s < end && byteAt(s) == '\r')
+            s++;
+        if (s < end && byteAt(s) == '\n')
+            s++;
+        if (s == end) {
+            if (s != start && byteAt(s - 1) == '\n') // line just ends at the end of the window
+                return s;
+            else if (end == lastFileSize) // reached the end of the file without LF
+                return -1;
+            else
+                throw new RuntimeException("Line too long, should be below " + maxLineSize + " in file '" + fileName + "'");
+        }
+        return s;
+    }
+
+    /**
+     * Returns the start offset of the line preceding the given offset, or -1 if there
+     * is no such line. The window must be mapped backward.
+     */
+    private long findPreviousLineStart(long start) {
+        long s = start - 1;
+        if (s >= windowOffset && byteAt(s) == '\n')
+            s--;
+        if (s >= windowOffset && byteAt(s) == '\r')
+            s--;
+        // find previous CR/LF
+        while (s >= windowOffset) {
+            byte b = byteAt(s);
+            if (b == '\r' || b == '\n')
+                break;
+            s--;
+        }
+        s++;
+        if (s == windowOffset) {
+            if (windowOffset != 0)
+                throw new RuntimeException("Line too long, should be below " + maxLineSize + " in file '" + fileName + "'");
+            else if (s == start) // searching from the beginning of the file
+                return -1;
+        }
+        return s;
+    }
+
+    /**
+     * Makes sure that the byte before the given offset and at least maxLineSize bytes
+     * after it (or up to the end of the file) are mapped.
+     */
+    private void ensureMappedForward(long fileOffset) {
+        long windowEndOffset = getWindowEndOffset();
+        long requiredEndOffset = Math.min(lastFileSize, fileOffset + maxLineSize + 2);
+        if (window == null || windowOffset > Math.max(0, fileOffset - 1) || windowEndOffset < requiredEndOffset)
+            mapWindow(Math.max(0, fileOffset - 1) & ~(PAGE_SIZE - 1));
+    }
+
+    /**
+     * Makes sure that the given offset and at least maxLineSize bytes before it
+     * (or down to the beginning of the file) are mapped.
+     */
+    private void ensureMappedBackward(long fileOffset) {
+        long requiredBeginOffset = Math.max(0, fileOffset - maxLineSize - 2);
+        if (window == null || windowOffset > requiredBeginOffset || getWindowEndOffset() < fileOffset)
+            mapWindow(Math.max(0, fileOffset - windowSize + PAGE_SIZE) & ~(PAGE_SIZE - 1));
+    }
+
+    private void mapWindow(long fileOffset) {
+        FileLock lock = lockFile();
+        try {
+            // check for changes before accessing new parts of the file
+            if (enableCheckFileForChanges)
+                processFileChange(getFileChange());
+            releaseWindow(false);
+            fileOffset = Math.min(fileOffset, lastFileSize & ~(PAGE_SIZE - 1)); // the file may have been synchronized meanwhile
+            int length = (int)Math.min(windowSize, lastFileSize - fileOffset);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, fileOffset, length);
+            windowOffset = fileOffset;
+            windowLength = length;
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Cannot map file '" + fileName + "' at offset " + fileOffset, e);
+        }
+        finally {
+            unlockFile(lock);
+        }
+    }
+
+    private void processFileChange(int change) {
+        switch (change) {
+            case FileChange.UNCHANGED:
+                break;
+            case FileChange.OVERWRITTEN:
+                processFileChange(change, fileOverwrittenAction, "overwritten");
+                break;
+            case FileChange.APPENDED:
+                processFileChange(change, fileAppendedAction, "appended");
+                break;
+            default:
+                throw new RuntimeException("Unknown file change: " + change);
+        }
+    }
+
+    private void processFileChange(int change, int action, String description) {
+        switch (action) {
+            case FileChangeAction.IGNORE:
+                break;
+            case FileChangeAction.SIGNAL:
+                throw new RuntimeException("File changed: '" + fileName + "' has been " + description);
+            case FileChangeAction.SYNCHRONIZE:
+                synchronize(change);
+                break;
+            default:
+                throw new RuntimeException("Unknown file change action: " + action);
+        }
+    }
+
+    private long getModificationTime() throws IOException {
+        Path path = Paths.get(fileName);
+        return Files.getLastModifiedTime(path).toMillis();
+    }
+
+    /**
+     * Reads at most size bytes that precede the given file offset.
+     */
+    private byte[] readTail(long fileOffset, int size) throws IOException {
+        long offset = Math.max(0, fileOffset - size);
+        ByteBuffer buffer = ByteBuffer.allocate((int)(fileOffset - offset));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) == -1)
+                break;
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private FileLock lockFile() {
+        if (!enableFileLocking || channel == null || fileLock != null)
+            return null;
+        try {
+            return fileLock = channel.lock(0, Long.MAX_VALUE, true);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Cannot lock file '" + fileName + "'", e);
+        }
+    }
+
+    private void unlockFile(FileLock lock) {
+        try {
+            if (lock != null) {
+                fileLock = null;
+                lock.release();
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Cannot unlock file '" + fileName + "'", e);
+        }
+    }
+
+    private void releaseWindow(boolean unmap) {
+        if (window != null && unmap)
+            unmap(window);
+        window = null;
+        windowOffset = -1;
+        windowLength = 0;
+    }
+
+    /**
+     * Releases the mapping immediately instead of waiting for the garbage collector.
+     * The buffer must not be accessed afterwards. Ignored if not supported by the JVM.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method method = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            method.invoke(field.get(null), buffer);
+        }
+        catch (Exception e) {
+            // the mapping is released when the buffer gets garbage collected
+        }
+    }
+}
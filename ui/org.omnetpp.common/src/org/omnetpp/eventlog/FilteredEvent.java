@@ -5,7 +5,6 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 import org.omnetpp.eventlog.entry.EndSendEntry;
 import org.omnetpp.eventlog.entry.EventEntry;
@@ -144,6 +143,11 @@ public class FilteredEvent extends EventBase implements IEvent
         return getEvent().getSimulationTime();
     }
 
+    @Override
+    public SimTime getSimTime() {
+        return getEvent().getSimTime();
+    }
+
     @Override
     public int getModuleId() {
         return getEvent().getModuleId();
@@ -1,19 +1,21 @@
 package org.omnetpp.eventlog;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.omnetpp.common.collections.LongBitSet;
+import org.omnetpp.common.collections.LongLruCache;
 import org.omnetpp.common.engine.JavaMatchableObject;
 import org.omnetpp.common.engine.MatchExpression;
 import org.omnetpp.common.engine.PatternMatcher;
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 import org.omnetpp.eventlog.entry.ModuleDescriptionEntry;
 import org.omnetpp.eventlog.entry.SimulationBeginEntry;
@@ -27,6 +29,8 @@ import org.omnetpp.eventlog.entry.SimulationEndEntry;
  */
 public class FilteredEventLog extends EventLogBase implements IEventLog
 {
+    private static final int FILTERED_EVENT_MEMORY_SIZE = 256; // rough estimate including the collected message dependencies
+
     protected IEventLog eventLog; // this will not be destructed because might be shared among multiple filtered eventlogs
     protected long approximateNumberOfEvents = -1;
     protected double approximateMatchingEventRatio;
@@ -71,17 +75,43 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
     protected int maximumConsequenceCollectionTime = 100; // in milliseconds
 
     // internal state
-    protected TreeMap<Long, FilteredEvent > eventNumberToFilteredEventMap = new TreeMap<Long, FilteredEvent >();
+    protected LongLruCache<FilteredEvent> eventNumberToFilteredEventCache = new FilteredEventCache(EventLog.DEFAULT_EVENT_CACHE_MEMORY_LIMIT / 4);
 
-    protected TreeMap<Long, Boolean> eventNumberToFilterMatchesFlagMap = new TreeMap<Long, Boolean>(); // a cache of whether the given event number matches the filter or not
-    protected TreeMap<Long, Boolean> eventNumberToTraceableEventFlagMap = new TreeMap<Long, Boolean>();
+    // a cache of whether the given event number matches the filter or not, kept even if the filtered event is evicted
+    protected LongBitSet filterMatchesKnownFlags = new LongBitSet();
+    protected LongBitSet filterMatchesFlags = new LongBitSet();
+    protected LongBitSet traceableEventKnownFlags = new LongBitSet();
+    protected LongBitSet traceableEventFlags = new LongBitSet();
     protected LinkedList<Long> unseenTracedEventCauseEventNumbers = new LinkedList<Long>(); // the remaining cause event number of the traced event that is to be visited
     protected LinkedList<Long> unseenTracedEventConsequenceEventNumbers = new LinkedList<Long>(); // the remaining consequence event number of the traced event that is to be visited
 
     protected FilteredEvent firstMatchingEvent;
     protected FilteredEvent lastMatchingEvent;
 
-    protected JavaMatchableObject javaMatchableObject = new JavaMatchableObject();
+    protected ConcurrentHashMap<Thread, JavaMatchableObject> javaMatchableObjects = new ConcurrentHashMap<Thread, JavaMatchableObject>(); // per thread, matchesEvent() is also called from EventLogFilterScan threads
+
+    protected EventLogFilterScan filterScan; // evaluates the filter in the background, null if not used
+
+    /**
+     * Keeps the first and the last matching events, and unlinks the evicted events
+     * from their neighbours, so that they can be garbage collected.
+     */
+    protected class FilteredEventCache extends LongLruCache<FilteredEvent>
+    {
+        public FilteredEventCache(long memoryLimit) {
+            super(memoryLimit);
+        }
+
+        @Override
+        protected boolean isEvictable(long eventNumber, FilteredEvent filteredEvent) {
+            return filteredEvent != firstMatchingEvent && filteredEvent != lastMatchingEvent;
+        }
+
+        @Override
+        protected void evicted(long eventNumber, FilteredEvent filteredEvent) {
+            FilteredEvent.unlinkNeighbourEvents(filteredEvent);
+        }
+    }
 
     public FilteredEventLog(IEventLog eventLog) {
         this.eventLog = eventLog;
@@ -91,6 +121,7 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
     }
 
     public void close() {
+        cancelFilterScan();
         deleteAllocatedObjects();
     }
 
@@ -182,6 +213,8 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
     }
 
     public void setTracedEventNumber(long tracedEventNumber) {
+        if (tracedEventNumber != -1)
+            cancelFilterScan();
         Assert.isTrue(this.tracedEventNumber == -1);
         this.tracedEventNumber = tracedEventNumber;
         unseenTracedEventCauseEventNumbers.add(tracedEventNumber);
@@ -258,13 +291,19 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
 
     public final boolean matchesFilter(IEvent event) {
         Assert.isTrue(event != null);
-        var it = eventNumberToFilterMatchesFlagMap.get(event.getEventNumber());
+        long eventNumber = event.getEventNumber();
         // if cached, return it
-        if (it != null)
-            return it;
+        if (filterMatchesKnownFlags.get(eventNumber))
+            return filterMatchesFlags.get(eventNumber);
+        if (filterScan != null) {
+            int match = filterScan.getMatch(eventNumber);
+            if (match != -1)
+                return match == 1;
+        }
         // System.out.println("*** Matching filter to event: %ld\n", event->getEventNumber());
         boolean matches = matchesEvent(event) && matchesDependency(event);
-        eventNumberToFilterMatchesFlagMap.put(event.getEventNumber(), matches);
+        filterMatchesKnownFlags.set(eventNumber);
+        filterMatchesFlags.set(eventNumber, matches);
         return matches;
     }
 
@@ -316,6 +355,18 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
         while (event != null) {
             eventLog.progress();
             long eventNumber = event.getEventNumber();
+            if (filterScan != null) {
+                // jump over the events already known not to match without parsing them
+                long nextEventNumber = filterScan.skipNonMatchingEvents(eventNumber, forward);
+                if (nextEventNumber != eventNumber) {
+                    if (isBeyondConsideredEvents(nextEventNumber, forward, stopEventNumber))
+                        return null;
+                    event = eventLog.getEventForEventNumber(nextEventNumber, forward ? MatchKind.FIRST_OR_NEXT : MatchKind.LAST_OR_PREVIOUS);
+                    if (event == null)
+                        return null;
+                    eventNumber = event.getEventNumber();
+                }
+            }
             if (matchesFilter(event))
                 return cacheFilteredEvent(eventNumber);
             if (forward) {
@@ -338,6 +389,54 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
         return null;
     }
 
+    private boolean isBeyondConsideredEvents(long eventNumber, boolean forward, long stopEventNumber) {
+        if (forward)
+            return (lastConsideredEventNumber != -1 && eventNumber > lastConsideredEventNumber) || (stopEventNumber != -1 && eventNumber > stopEventNumber);
+        else
+            return eventNumber < 0 || (firstConsideredEventNumber != -1 && eventNumber < firstConsideredEventNumber) || (stopEventNumber != -1 && eventNumber < stopEventNumber);
+    }
+
+    /**
+     * Creates a scan that evaluates the filter for all events on multiple threads, or returns null
+     * if the filter doesn't support it (the trace filter doesn't, and the module filter needs a complete
+     * offset index). Navigation uses the partial results of the scan as soon as they are available.
+     * Running the scan is up to the caller.
+     */
+    public EventLogFilterScan createFilterScan(int parallelism) {
+        cancelFilterScan();
+        if (tracedEventNumber != -1 || !(eventLog instanceof EventLog))
+            return null;
+        else {
+            EventLogFilterScan filterScan = new EventLogFilterScan(this, (EventLog)eventLog, parallelism);
+            if (enableModuleFilter && !filterScan.isModuleFilterSupported())
+                return null;
+            this.filterScan = filterScan;
+            return filterScan;
+        }
+    }
+
+    /**
+     * Deletes the matchable objects used by the given threads, which must have terminated.
+     */
+    void deleteJavaMatchableObjects(Collection<Thread> threads) {
+        for (Thread thread : threads) {
+            JavaMatchableObject matchableObject = javaMatchableObjects.remove(thread);
+            if (matchableObject != null)
+                matchableObject.delete();
+        }
+    }
+
+    public EventLogFilterScan getFilterScan() {
+        return filterScan;
+    }
+
+    public void cancelFilterScan() {
+        if (filterScan != null) {
+            filterScan.cancel();
+            filterScan = null;
+        }
+    }
+
     // IEventLog interface
 
     @Override
@@ -355,24 +454,35 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
         eventLog.progress();
     }
 
+    /**
+     * Filtered events are much smaller than the parsed events they refer to,
+     * so they get a quarter of the limit in addition to the underlying eventlog.
+     */
+    @Override
+    public void setEventCacheMemoryLimit(long memoryLimit) {
+        eventLog.setEventCacheMemoryLimit(memoryLimit);
+        eventNumberToFilteredEventCache.setMemoryLimit(memoryLimit / 4);
+    }
+
     @Override
     public void synchronize(int change) {
         if (change != FileReader.FileChange.UNCHANGED) {
             switch (change) {
                 case FileReader.FileChange.OVERWRITTEN:
+                    cancelFilterScan();
                     eventLog.synchronize(change);
                     deleteAllocatedObjects();
                     clearInternalState();
                     break;
                 case FileReader.FileChange.APPENDED:
                     eventLog.synchronize(change);
-                    for (var it : eventNumberToFilteredEventMap.values())
+                    for (var it : eventNumberToFilteredEventCache.values())
                         it.synchronize(change);
                     if (lastMatchingEvent != null) {
                         long eventNumber = lastMatchingEvent.getEventNumber();
-                        eventNumberToFilteredEventMap.remove(eventNumber);
-                        eventNumberToFilterMatchesFlagMap.remove(eventNumber);
-                        eventNumberToTraceableEventFlagMap.remove(eventNumber);
+                        eventNumberToFilteredEventCache.remove(eventNumber);
+                        filterMatchesKnownFlags.clear(eventNumber);
+                        traceableEventKnownFlags.clear(eventNumber);
                         if (firstMatchingEvent == lastMatchingEvent)
                             firstMatchingEvent = null;
                         lastMatchingEvent = null;
@@ -469,7 +579,7 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
 
     public FilteredEvent getEventForEventNumber(long eventNumber, MatchKind matchKind, boolean useCacheOnly) {
         Assert.isTrue(eventNumber >= 0);
-        var it = eventNumberToFilteredEventMap.get(eventNumber);
+        var it = eventNumberToFilteredEventCache.get(eventNumber);
         if (it != null)
             return it;
         IEvent event = eventLog.getEventForEventNumber(eventNumber, matchKind, useCacheOnly);
@@ -599,6 +709,11 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
 
     @Override
     public long getApproximateNumberOfEvents() {
+        if (filterScan != null) {
+            long numEvents = filterScan.getApproximateNumberOfMatchingEvents();
+            if (numEvents != -1)
+                return numEvents;
+        }
         if (approximateNumberOfEvents == -1) {
             if (tracedEventNumber != -1) {
                 // TODO: this is clearly not good and should return a much better approximation
@@ -685,12 +800,12 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
      * The event must be known to match this filter.
      */
     public FilteredEvent cacheFilteredEvent(long eventNumber) {
-        var it = eventNumberToFilteredEventMap.get(eventNumber);
+        var it = eventNumberToFilteredEventCache.get(eventNumber);
         if (it != null)
             return it;
         else {
             FilteredEvent filteredEvent = new FilteredEvent(this, eventNumber);
-            eventNumberToFilteredEventMap.put(eventNumber, filteredEvent);
+            eventNumberToFilteredEventCache.put(eventNumber, filteredEvent, FILTERED_EVENT_MEMORY_SIZE);
             return filteredEvent;
         }
     }
@@ -707,6 +822,8 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
             return false;
         // event's module
         if (enableModuleFilter) {
+            // the event may belong to another eventlog of the same file (see EventLogFilterScan)
+            EventLogEntryCache eventLogEntryCache = event.getEventLog().getEventLogEntryCache();
             ModuleDescriptionEntry eventModuleDescriptionEntry = event.getModuleDescriptionEntry();
             ModuleDescriptionEntry moduleDescriptionEntry = eventModuleDescriptionEntry;
             // match parent chain of event's module (to handle compound modules too)
@@ -721,19 +838,19 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
                         ArrayList<IMessageDependency > causes = event.getCauses();
                         for (var cause : causes) {
                             IEvent causeEvent = cause.getCauseEvent();
-                            if (causeEvent != null && !isAncestorModuleDescriptionEntry(moduleDescriptionEntry, causeEvent.getModuleDescriptionEntry()))
+                            if (causeEvent != null && !isAncestorModuleDescriptionEntry(eventLogEntryCache, moduleDescriptionEntry, causeEvent.getModuleDescriptionEntry()))
                                 break OUTER;
                         }
 
                         ArrayList<IMessageDependency > consequences = event.getConsequences();
                         for (var consequence : consequences) {
                             IEvent consequenceEvent = consequence.getConsequenceEvent();
-                            if (consequenceEvent != null && !isAncestorModuleDescriptionEntry(moduleDescriptionEntry, consequenceEvent.getModuleDescriptionEntry()))
+                            if (consequenceEvent != null && !isAncestorModuleDescriptionEntry(eventLogEntryCache, moduleDescriptionEntry, consequenceEvent.getModuleDescriptionEntry()))
                                 break OUTER;
                         }
                     }
                 }
-                moduleDescriptionEntry = getEventLogEntryCache().getModuleDescriptionEntry(moduleDescriptionEntry.parentModuleId);
+                moduleDescriptionEntry = eventLogEntryCache.getModuleDescriptionEntry(moduleDescriptionEntry.parentModuleId);
             }
             if (moduleDescriptionEntry == null)
                 return false;
@@ -777,8 +894,9 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
 
     protected final boolean matchesExpression(MatchExpression matchExpression, EventLogEntry eventLogEntry)
     {
-        javaMatchableObject.setJavaObject(eventLogEntry);
-        return matchExpression.matches(javaMatchableObject);
+        JavaMatchableObject matchableObject = javaMatchableObjects.computeIfAbsent(Thread.currentThread(), thread -> new JavaMatchableObject());
+        matchableObject.setJavaObject(eventLogEntry);
+        return matchExpression.matches(matchableObject);
     }
 
     protected final boolean matchesPatterns(ArrayList<PatternMatcher> patterns, String str) {
@@ -803,9 +921,8 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
     protected final boolean isCauseOfTracedEvent(IEvent causeEvent) {
         Assert.isTrue(causeEvent != null);
         eventLog.progress();
-        var it = eventNumberToTraceableEventFlagMap.get(causeEvent.getEventNumber());
-        if (it != null)
-            return it;
+        if (traceableEventKnownFlags.get(causeEvent.getEventNumber()))
+            return traceableEventFlags.get(causeEvent.getEventNumber());
         // System.out.println("Checking if %ld is cause of %ld\n", causeEvent->getEventNumber(), tracedEventNumber);
         long causeEventNumber = causeEvent.getEventNumber();
         while (!unseenTracedEventCauseEventNumbers.isEmpty() && unseenTracedEventCauseEventNumbers.getFirst() >= causeEventNumber) {
@@ -818,7 +935,7 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
                     IEvent newUnseenTracedEventCauseEvent = messageDependency.getCauseEvent();
                     if (newUnseenTracedEventCauseEvent != null && (traceSelfMessages || !newUnseenTracedEventCauseEvent.isSelfMessageProcessingEvent()) && (traceMessageReuses || !(messageDependency instanceof MessageReuseDependency))) {
                         long newUnseenTracedEventCauseEventNumber = newUnseenTracedEventCauseEvent.getEventNumber();
-                        eventNumberToTraceableEventFlagMap.put(newUnseenTracedEventCauseEventNumber, true);
+                        setTraceableEventFlag(newUnseenTracedEventCauseEventNumber, true);
                         unseenTracedEventCauseEventNumbers.addLast(newUnseenTracedEventCauseEventNumber);
                         if (newUnseenTracedEventCauseEventNumber == causeEventNumber)
                             return true;
@@ -828,7 +945,8 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
                 Collections.sort(unseenTracedEventCauseEventNumbers);
             }
         }
-        return eventNumberToTraceableEventFlagMap.put(causeEventNumber, false);
+        setTraceableEventFlag(causeEventNumber, false);
+        return false;
     }
 
     // LONG RUNNING OPERATION
@@ -836,9 +954,8 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
     protected final boolean isConsequenceOfTracedEvent(IEvent consequenceEvent) {
         Assert.isTrue(consequenceEvent != null);
         eventLog.progress();
-        var it = eventNumberToTraceableEventFlagMap.get(consequenceEvent.getEventNumber());
-        if (it != null)
-            return it;
+        if (traceableEventKnownFlags.get(consequenceEvent.getEventNumber()))
+            return traceableEventFlags.get(consequenceEvent.getEventNumber());
         // System.out.println("Checking if %ld is consequence of %ld\n", consequence->getEventNumber(), tracedEventNumber);
         // like isCauseOfTracedEvent(), but searching from the opposite direction
         long consequenceEventNumber = consequenceEvent.getEventNumber();
@@ -852,7 +969,7 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
                     IEvent newUnseenTracedEventConsequenceEvent = messageDependency.getConsequenceEvent();
                     if (newUnseenTracedEventConsequenceEvent != null && (traceSelfMessages || !newUnseenTracedEventConsequenceEvent.isSelfMessageProcessingEvent()) && (traceMessageReuses || !(messageDependency instanceof MessageReuseDependency))) {
                         long newUnseenTracedEventConsequenceEventNumber = newUnseenTracedEventConsequenceEvent.getEventNumber();
-                        eventNumberToTraceableEventFlagMap.put(newUnseenTracedEventConsequenceEventNumber, true);
+                        setTraceableEventFlag(newUnseenTracedEventConsequenceEventNumber, true);
                         unseenTracedEventConsequenceEventNumbers.addLast(newUnseenTracedEventConsequenceEventNumber);
                         if (newUnseenTracedEventConsequenceEventNumber == consequenceEventNumber)
                             return true;
@@ -862,7 +979,13 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
                 Collections.sort(unseenTracedEventConsequenceEventNumbers);
             }
         }
-        return eventNumberToTraceableEventFlagMap.put(consequenceEventNumber, false);
+        setTraceableEventFlag(consequenceEventNumber, false);
+        return false;
+    }
+
+    protected final void setTraceableEventFlag(long eventNumber, boolean traceable) {
+        traceableEventKnownFlags.set(eventNumber);
+        traceableEventFlags.set(eventNumber, traceable);
     }
 
     protected final void setPatternMatchers(java.util.ArrayList<PatternMatcher> patternMatchers, List<String> patterns) {
@@ -882,25 +1005,29 @@ public class FilteredEventLog extends EventLogBase implements IEventLog
         lastMatchingEvent = null;
         approximateNumberOfEvents = -1;
         approximateMatchingEventRatio = -1;
-        eventNumberToFilteredEventMap.clear();
-        eventNumberToFilterMatchesFlagMap.clear();
-        eventNumberToTraceableEventFlagMap.clear();
+        eventNumberToFilteredEventCache.clear();
+        filterMatchesKnownFlags.clear();
+        filterMatchesFlags.clear();
+        traceableEventKnownFlags.clear();
+        traceableEventFlags.clear();
         unseenTracedEventCauseEventNumbers.clear();
         unseenTracedEventConsequenceEventNumbers.clear();
     }
 
     protected final void deleteAllocatedObjects() {
-        eventNumberToFilteredEventMap.clear();
-        eventNumberToFilterMatchesFlagMap.clear();
-        eventNumberToTraceableEventFlagMap.clear();
+        eventNumberToFilteredEventCache.clear();
+        filterMatchesKnownFlags.clear();
+        filterMatchesFlags.clear();
+        traceableEventKnownFlags.clear();
+        traceableEventFlags.clear();
     }
 
-    protected final boolean isAncestorModuleDescriptionEntry(ModuleDescriptionEntry ancestor, ModuleDescriptionEntry descendant) {
+    protected final boolean isAncestorModuleDescriptionEntry(EventLogEntryCache eventLogEntryCache, ModuleDescriptionEntry ancestor, ModuleDescriptionEntry descendant) {
         while (descendant != null) {
             if (descendant == ancestor)
                 return true;
             else
-                descendant = getEventLogEntryCache().getModuleDescriptionEntry(descendant.parentModuleId);
+                descendant = eventLogEntryCache.getModuleDescriptionEntry(descendant.parentModuleId);
         }
         return false;
     }
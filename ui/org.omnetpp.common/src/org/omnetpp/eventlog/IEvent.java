@@ -20,6 +20,12 @@ public interface IEvent extends IChunk
      */
     public EventEntry getEventEntry();
 
+    /**
+     * Returns the simulation time of this event as a SimTime, which is cheaper to
+     * compare and subtract than the BigDecimal returned by getSimulationTime().
+     */
+    public SimTime getSimTime();
+
     /**
      * Returns the eventlog entry which describes the event's module.
      */
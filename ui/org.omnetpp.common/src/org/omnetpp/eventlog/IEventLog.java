@@ -5,7 +5,6 @@ import java.util.TreeSet;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.SimulationBeginEntry;
 import org.omnetpp.eventlog.entry.SimulationEndEntry;
 
@@ -189,6 +188,13 @@ public interface IEventLog
      */
     public void progress();
 
+    /**
+     * Sets the estimated amount of memory in bytes that parsed events may occupy.
+     * The least recently used events are evicted above this limit, and they are
+     * parsed again when needed.
+     */
+    public void setEventCacheMemoryLimit(long memoryLimit);
+
     /**
      * Synchronizes state when the underlying log file has been changed.
      * Either new events were appended or the whole file has been overwritten.
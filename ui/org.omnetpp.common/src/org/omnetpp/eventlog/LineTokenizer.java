@@ -0,0 +1,367 @@
+package org.omnetpp.eventlog;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.omnetpp.common.util.BigDecimal;
+
+/**
+ * Splits an eventlog line into space separated tokens without copying them.
+ * Tokens are stored as begin/end positions into a byte buffer, which may also
+ * be a memory mapped region of the eventlog file (see FileReader), and numeric
+ * tokens can be decoded directly from there without creating intermediate
+ * Strings. Quoted tokens may contain spaces and backslash escape sequences,
+ * the same way as in the C++ LineTokenizer.
+ *
+ * Instances are not thread safe, but they don't share any state either,
+ * so each thread that parses eventlog lines should use its own instance.
+ */
+public class LineTokenizer
+{
+    private static final int INITIAL_MAX_TOKENS = 32;
+
+    private byte[] ownBuffer = new byte[256]; // used when tokenizing Strings
+    private ByteBuffer ownByteBuffer = ByteBuffer.wrap(ownBuffer);
+    private byte[] stringBuffer = new byte[256]; // used when decoding tokens of direct buffers
+    private ByteBuffer buffer; // the bytes of the current line (either ownByteBuffer or an external one)
+    private int lineBegin;
+    private int lineEnd;
+
+    private int numTokens;
+    private int[] tokenBegins = new int[INITIAL_MAX_TOKENS];
+    private int[] tokenEnds = new int[INITIAL_MAX_TOKENS];
+    private boolean[] tokenEscaped = new boolean[INITIAL_MAX_TOKENS]; // quoted token with backslash sequences
+
+    private int lastValueIndex = -1; // where the previous key lookup succeeded, keys are usually looked up in line order
+
+    private long decimalUnscaledValue; // result of scanDecimal()
+    private int decimalScale;
+
+    /**
+     * Tokenizes the first length characters of the given line. The characters
+     * are encoded into an internal buffer that is reused for subsequent lines.
+     */
+    public int tokenize(String line, int length) {
+        length = Math.min(length, line.length());
+        ensureOwnBufferSize(length * 3);
+        byte[] bytes = ownBuffer;
+        int j = 0;
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c < 0x80)
+                bytes[j++] = (byte)c;
+            else if (c < 0x800) {
+                bytes[j++] = (byte)(0xC0 | (c >> 6));
+                bytes[j++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(line.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, line.charAt(++i));
+                bytes[j++] = (byte)(0xF0 | (codePoint >> 18));
+                bytes[j++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[j++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[j++] = (byte)(0x80 | (codePoint & 0x3F));
+            }
+            else {
+                bytes[j++] = (byte)(0xE0 | (c >> 12));
+                bytes[j++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[j++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        return tokenize(ownByteBuffer, 0, j);
+    }
+
+    /**
+     * Tokenizes length bytes of the given buffer starting at the given absolute offset.
+     * The buffer (including its position and limit) is not modified, and its content
+     * must not be changed as long as the tokens are in use.
+     */
+    public int tokenize(ByteBuffer bytes, int offset, int length) {
+        buffer = bytes;
+        lineBegin = offset;
+        lineEnd = offset + length;
+        while (lineEnd > lineBegin && (bytes.get(lineEnd - 1) == '\r' || bytes.get(lineEnd - 1) == '\n'))
+            lineEnd--;
+        numTokens = 0;
+        lastValueIndex = -1;
+        int i = lineBegin;
+        while (true) {
+            // skip separators before token
+            while (i < lineEnd && (bytes.get(i) == ' ' || bytes.get(i) == '\t'))
+                i++;
+            if (i == lineEnd)
+                break;
+            int begin, end;
+            boolean escaped = false;
+            if (bytes.get(i) == '"') {
+                // parse quoted string
+                begin = ++i;
+                while (i < lineEnd && bytes.get(i) != '"') {
+                    if (bytes.get(i++) == '\\') {
+                        i++;
+                        escaped = true;
+                    }
+                }
+                if (i >= lineEnd)
+                    throw new RuntimeException("Unmatched quote in line: " + getLine());
+                end = i++;
+            }
+            else {
+                // parse unquoted string
+                begin = i;
+                while (i < lineEnd && bytes.get(i) != ' ' && bytes.get(i) != '\t')
+                    i++;
+                end = i;
+            }
+            addToken(begin, end, escaped);
+        }
+        return numTokens;
+    }
+
+    public int getNumTokens() {
+        return numTokens;
+    }
+
+    /**
+     * Returns the tokenized line without the trailing CR/LF.
+     */
+    public String getLine() {
+        return buffer == null ? "" : decode(lineBegin, lineEnd);
+    }
+
+    public int getTokenLength(int index) {
+        return tokenEnds[index] - tokenBegins[index];
+    }
+
+    /**
+     * Packs the bytes of a short (at most 3 character) token into an int, and returns -1 for
+     * longer tokens. This allows dispatching on entry type codes with a single switch statement,
+     * for example: "SB" is packed into ('S' << 8) | 'B'.
+     */
+    public int getTokenCode(int index) {
+        int begin = tokenBegins[index];
+        int end = tokenEnds[index];
+        if (end - begin > 3 || tokenEscaped[index])
+            return -1;
+        int code = 0;
+        for (int i = begin; i < end; i++)
+            code = (code << 8) | (buffer.get(i) & 0xFF);
+        return code;
+    }
+
+    /**
+     * Returns whether the given token is equal to the given ASCII string.
+     */
+    public boolean tokenEquals(int index, String text) {
+        int begin = tokenBegins[index];
+        int length = tokenEnds[index] - begin;
+        if (length != text.length())
+            return false;
+        for (int i = 0; i < length; i++)
+            if (buffer.get(begin + i) != text.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Looks up the value token that follows the given key in a "code key1 value1 key2 value2 ..."
+     * line, and returns its index or -1 if not found. The search starts after the previously found
+     * value, so looking up keys in the order they appear in the line takes constant time.
+     */
+    public int findValueIndex(String key) {
+        int start = lastValueIndex == -1 ? 1 : lastValueIndex + 1;
+        for (int i = start; i < numTokens - 1; i += 2) {
+            if (tokenEquals(i, key))
+                return lastValueIndex = i + 1;
+        }
+        for (int i = 1; i < start && i < numTokens - 1; i += 2) {
+            if (tokenEquals(i, key))
+                return lastValueIndex = i + 1;
+        }
+        return -1;
+    }
+
+    public String getString(int index) {
+        int begin = tokenBegins[index];
+        int end = tokenEnds[index];
+        if (!tokenEscaped[index])
+            return decode(begin, end);
+        else
+            return unescape(begin, end);
+    }
+
+    public int parseInt(int index) {
+        long value = parseLong(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            throw new NumberFormatException("Integer out of range: " + getString(index));
+        return (int)value;
+    }
+
+    public long parseLong(int index) {
+        int i = tokenBegins[index];
+        int end = tokenEnds[index];
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+            negative = buffer.get(i++) == '-';
+        if (i == end || end - i > 18)
+            return Long.parseLong(getString(index)); // let the JDK handle empty and very long numbers
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9)
+                throw new NumberFormatException("Invalid integer: " + getString(index));
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a simulation time token such as "1.25", "-1" or "5e-3" without
+     * creating an intermediate String.
+     */
+    public BigDecimal parseSimtime(int index) {
+        if (scanDecimal(index))
+            return new BigDecimal(BigInteger.valueOf(decimalUnscaledValue), decimalScale);
+        else
+            return new BigDecimal(getString(index)); // does not fit into a long, rare
+    }
+
+    /**
+     * Parses a simulation time token the same way as parseSimtime(), but returns
+     * a SimTime, which usually doesn't need any allocation besides the result.
+     */
+    public SimTime parseSimTime(int index) {
+        if (scanDecimal(index))
+            return SimTime.valueOf(decimalUnscaledValue, decimalScale);
+        else
+            return SimTime.parse(getString(index)); // does not fit into a long, rare
+    }
+
+    /**
+     * Decodes a decimal number token into decimalUnscaledValue and decimalScale.
+     * Returns false if the number has too many digits to fit into a long.
+     */
+    private boolean scanDecimal(int index) {
+        int i = tokenBegins[index];
+        int end = tokenEnds[index];
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+            negative = buffer.get(i++) == '-';
+        long unscaled = 0;
+        int numDigits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (numDigits == 18)
+                    return false;
+                unscaled = unscaled * 10 + (b - '0');
+                if (unscaled != 0)
+                    numDigits++;
+                if (seenPoint)
+                    scale++;
+            }
+            else if (b == '.' && !seenPoint)
+                seenPoint = true;
+            else if (b == 'e' || b == 'E') {
+                i++;
+                boolean negativeExponent = false;
+                if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+                    negativeExponent = buffer.get(i++) == '-';
+                if (i == end)
+                    throw new NumberFormatException("Invalid simulation time: " + getString(index));
+                int exponent = 0;
+                for (; i < end; i++) {
+                    int digit = buffer.get(i) - '0';
+                    if (digit < 0 || digit > 9 || exponent > 100000)
+                        throw new NumberFormatException("Invalid simulation time: " + getString(index));
+                    exponent = exponent * 10 + digit;
+                }
+                scale += negativeExponent ? exponent : -exponent;
+                break;
+            }
+            else
+                throw new NumberFormatException("Invalid simulation time: " + getString(index));
+        }
+        decimalUnscaledValue = negative ? -unscaled : unscaled;
+        decimalScale = scale;
+        return true;
+    }
+
+    private void addToken(int begin, int end, boolean escaped) {
+        if (numTokens == tokenBegins.length) {
+            int size = tokenBegins.length * 2;
+            tokenBegins = Arrays.copyOf(tokenBegins, size);
+            tokenEnds = Arrays.copyOf(tokenEnds, size);
+            tokenEscaped = Arrays.copyOf(tokenEscaped, size);
+        }
+        tokenBegins[numTokens] = begin;
+        tokenEnds[numTokens] = end;
+        tokenEscaped[numTokens] = escaped;
+        numTokens++;
+    }
+
+    private void ensureOwnBufferSize(int size) {
+        if (ownBuffer.length < size) {
+            ownBuffer = new byte[Math.max(size, ownBuffer.length * 2)];
+            ownByteBuffer = ByteBuffer.wrap(ownBuffer);
+        }
+    }
+
+    private String decode(int begin, int end) {
+        int length = end - begin;
+        if (buffer.hasArray())
+            return new String(buffer.array(), buffer.arrayOffset() + begin, length, StandardCharsets.UTF_8);
+        else {
+            if (stringBuffer.length < length)
+                stringBuffer = new byte[Math.max(length, stringBuffer.length * 2)];
+            buffer.get(begin, stringBuffer, 0, length);
+            return new String(stringBuffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9')
+            return b - '0';
+        if (b >= 'A' && b <= 'F')
+            return b - 'A' + 10;
+        if (b >= 'a' && b <= 'f')
+            return b - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * Interprets backslash sequences the same way as opp_parsequotedstr() does.
+     */
+    private String unescape(int begin, int end) {
+        byte[] result = new byte[end - begin];
+        int j = 0;
+        for (int i = begin; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != '\\' || i + 1 == end)
+                result[j++] = b;
+            else {
+                b = buffer.get(++i);
+                switch (b) {
+                    case 'b': result[j++] = '\b'; break;
+                    case 'f': result[j++] = '\f'; break;
+                    case 'n': result[j++] = '\n'; break;
+                    case 'r': result[j++] = '\r'; break;
+                    case 't': result[j++] = '\t'; break;
+                    case '\n': break; // line continuation
+                    case 'x': {
+                        int value = 0;
+                        for (int k = 0; k < 2 && i + 1 < end && hexDigit(buffer.get(i + 1)) != -1; k++)
+                            value = value * 16 + hexDigit(buffer.get(++i));
+                        result[j++] = (byte)value;
+                        break;
+                    }
+                    default: result[j++] = b; // also covers '"' and '\\'
+                }
+            }
+        }
+        return new String(result, 0, j, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,168 @@
+package org.omnetpp.eventlog;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.omnetpp.common.util.BigDecimal;
+
+public class LineTokenizerTest {
+
+    @Test
+    public void testSeparators() {
+        LineTokenizer tokenizer = new LineTokenizer();
+        assertEquals(5, tokenizer.tokenize("  E # 12\tt  1.5 \r\n", 100));
+        assertTokens(tokenizer, "E", "#", "12", "t", "1.5");
+        assertEquals("  E # 12\tt  1.5 ", tokenizer.getLine());
+        assertEquals(0, tokenizer.tokenize(" \t \n", 100));
+        assertEquals(0, tokenizer.tokenize("", 0));
+    }
+
+    @Test
+    public void testQuoting() {
+        LineTokenizer tokenizer = new LineTokenizer();
+        assertEquals(5, tokenizer.tokenize("MC id 3 n \"queue 1\"", 100));
+        assertTokens(tokenizer, "MC", "id", "3", "n", "queue 1");
+        assertEquals(4, tokenizer.tokenize("a \"b\"c d", 100));
+        assertTokens(tokenizer, "a", "b", "c", "d");
+        assertEquals(2, tokenizer.tokenize("a \"\u00e1rv\u00edzt\u0171r\u0151 \u4e2d\"", 100));
+        assertTokens(tokenizer, "a", "\u00e1rv\u00edzt\u0171r\u0151 \u4e2d");
+    }
+
+    @Test
+    public void testEscapes() {
+        LineTokenizer tokenizer = new LineTokenizer();
+        tokenizer.tokenize("\"a\\\"b\" \"c\\\\d\" \"\\t\\n\\r\" \"\\x41\\x4a\\x7\" \"\\q\" plain\\n", 100);
+        assertTokens(tokenizer, "a\"b", "c\\d", "\t\n\r", "AJ\u0007", "q", "plain\\n");
+        // escaped tokens never match type codes or keys
+        tokenizer.tokenize("\"\\E\" \"E\"", 100);
+        assertEquals(-1, tokenizer.getTokenCode(0));
+        assertEquals('E', tokenizer.getTokenCode(1));
+    }
+
+    @Test
+    public void testEmptyFields() {
+        LineTokenizer tokenizer = new LineTokenizer();
+        assertEquals(5, tokenizer.tokenize("MC id 3 n \"\"", 100));
+        assertTokens(tokenizer, "MC", "id", "3", "n", "");
+        assertEquals(0, tokenizer.getTokenLength(4));
+        assertEquals(4, tokenizer.findValueIndex("n"));
+        assertEquals(3, tokenizer.tokenize("\"\" \"\" \"\"", 100));
+        assertTokens(tokenizer, "", "", "");
+        try {
+            tokenizer.parseLong(0);
+            fail();
+        }
+        catch (NumberFormatException e) {
+        }
+    }
+
+    @Test
+    public void testTruncatedLines() {
+        LineTokenizer tokenizer = new LineTokenizer();
+        // only the given length is tokenized
+        assertEquals(3, tokenizer.tokenize("E # 12 t 1.5", 6));
+        assertTokens(tokenizer, "E", "#", "12");
+        assertEquals(-1, tokenizer.findValueIndex("t"));
+        assertUnmatchedQuote(tokenizer, "MC id 3 n \"queue 1\"", 14);
+        assertUnmatchedQuote(tokenizer, "MC id 3 n \"queue", 100);
+        // the closing quote is escaped
+        assertUnmatchedQuote(tokenizer, "MC id 3 n \"queue\\\"", 100);
+        // the tokenizer is usable after an error
+        assertEquals(2, tokenizer.tokenize("a b", 100));
+        assertTokens(tokenizer, "a", "b");
+    }
+
+    @Test
+    public void testKeyLookup() {
+        LineTokenizer tokenizer = new LineTokenizer();
+        tokenizer.tokenize("E # 12 t 1.5 m 3 ce -1 msg 7", 100);
+        assertEquals('E', tokenizer.getTokenCode(0));
+        assertEquals(4, tokenizer.findValueIndex("t"));
+        assertEquals(6, tokenizer.findValueIndex("m"));
+        assertEquals(2, tokenizer.findValueIndex("#")); // before the previous match
+        assertEquals(10, tokenizer.findValueIndex("msg"));
+        assertEquals(-1, tokenizer.findValueIndex("x"));
+        assertEquals(-1, tokenizer.findValueIndex("7")); // values are not keys
+        assertEquals(12, tokenizer.parseLong(2));
+        assertEquals(-1, tokenizer.parseInt(8));
+        tokenizer.tokenize("SB v 1", 100);
+        assertEquals(('S' << 8) | 'B', tokenizer.getTokenCode(0));
+    }
+
+    @Test
+    public void testNumbers() {
+        LineTokenizer tokenizer = new LineTokenizer();
+        tokenizer.tokenize("9223372036854775807 -9223372036854775808 +5 1x 4294967296", 100);
+        assertEquals(Long.MAX_VALUE, tokenizer.parseLong(0));
+        assertEquals(Long.MIN_VALUE, tokenizer.parseLong(1));
+        assertEquals(5, tokenizer.parseLong(2));
+        try {
+            tokenizer.parseLong(3);
+            fail();
+        }
+        catch (NumberFormatException e) {
+        }
+        try {
+            tokenizer.parseInt(4);
+            fail();
+        }
+        catch (NumberFormatException e) {
+        }
+        tokenizer.tokenize("1.25 -1 5e-3 1E2 0.000000000001 123456789012345678901234.5", 100);
+        assertEquals(0, new BigDecimal("1.25").compareTo(tokenizer.parseSimtime(0)));
+        assertEquals(SimTime.parse("-1"), tokenizer.parseSimTime(1));
+        assertEquals(SimTime.parse("0.005"), tokenizer.parseSimTime(2));
+        assertEquals(SimTime.parse("100"), tokenizer.parseSimTime(3));
+        assertEquals(1, tokenizer.parseSimTime(4).getRaw());
+        assertEquals(0, new BigDecimal("123456789012345678901234.5").compareTo(tokenizer.parseSimtime(5)));
+        tokenizer.tokenize("1e 1.2.3", 100);
+        for (int i = 0; i < 2; i++) {
+            try {
+                tokenizer.parseSimTime(i);
+                fail();
+            }
+            catch (NumberFormatException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testDirectBuffer() {
+        byte[] bytes = "xx E # 12 n \"a\\\"b \u00e1\"\nE # 13\n".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        LineTokenizer tokenizer = new LineTokenizer();
+        int offset = 3;
+        int length = indexOf(bytes, (byte)'\n', offset) + 1 - offset;
+        assertEquals(5, tokenizer.tokenize(buffer, offset, length));
+        assertTokens(tokenizer, "E", "#", "12", "n", "a\"b \u00e1");
+        assertEquals(12, tokenizer.parseLong(2));
+        assertEquals(bytes.length, buffer.position()); // not modified
+    }
+
+    private static void assertTokens(LineTokenizer tokenizer, String... expected) {
+        assertEquals(expected.length, tokenizer.getNumTokens());
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], tokenizer.getString(i));
+    }
+
+    private static void assertUnmatchedQuote(LineTokenizer tokenizer, String line, int length) {
+        try {
+            tokenizer.tokenize(line, length);
+            fail();
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Unmatched quote"));
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i < bytes.length; i++)
+            if (bytes[i] == b)
+                return i;
+        return -1;
+    }
+}
@@ -8,9 +8,9 @@ import java.util.Random;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.eclipse.core.runtime.Assert;
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 import org.omnetpp.eventlog.entry.ComponentMethodBeginEntry;
 import org.omnetpp.eventlog.entry.ComponentMethodEndEntry;
@@ -20,7 +20,7 @@ public class SequenceChartFacade extends EventLogFacade
     protected boolean separateEventLogEntries; // separate entries within events
     protected int timelineCoordinateSystemVersion = -1; // a counter incremented each time the timeline coordinate system is relocated
     protected long timelineCoordinateSystemOriginEventNumber = -1; // -1 means undefined, otherwise the event number of the timeline coordinate system origin
-    protected BigDecimal timelineCoordinateSystemOriginSimulationTime = null; // simtime_nil means undefined
+    protected SimTime timelineCoordinateSystemOriginSimulationTime = null; // simtime_nil means undefined
     protected long timelineCoordinateRangeStartEventNumber = -1; // -1 means undefined, the beginning of the continuous event range which has timeline coordinates assigned
     protected long timelineCoordinateRangeEndEventNumber = -1; // -1 means undefined, the end of the continuous event range which has timeline coordinates assigned
     protected TimelineMode timelineMode = TimelineMode.NONLINEAR;
@@ -44,8 +44,8 @@ public class SequenceChartFacade extends EventLogFacade
 
     public final double calculateNonLinearFocus() {
         if (!eventLog.isEmpty()) {
-            double lastEventSimulationTime = eventLog.getLastEvent().getSimulationTime().doubleValue();
-            double firstEventSimulationTime = eventLog.getFirstEvent().getSimulationTime().doubleValue();
+            double lastEventSimulationTime = eventLog.getLastEvent().getSimTime().doubleValue();
+            double firstEventSimulationTime = eventLog.getFirstEvent().getSimTime().doubleValue();
             double totalSimulationTimeDelta = lastEventSimulationTime - firstEventSimulationTime;
             if (totalSimulationTimeDelta == 0)
                 totalSimulationTimeDelta = firstEventSimulationTime;
@@ -130,14 +130,14 @@ public class SequenceChartFacade extends EventLogFacade
     public final void undefineTimelineCoordinateSystem() {
         timelineCoordinateSystemVersion++;
         timelineCoordinateSystemOriginEventNumber = timelineCoordinateRangeStartEventNumber = timelineCoordinateRangeEndEventNumber = -1;
-        timelineCoordinateSystemOriginSimulationTime = BigDecimal.MINUS_ONE;
+        timelineCoordinateSystemOriginSimulationTime = SimTime.MINUS_ONE;
     }
 
     public final void relocateTimelineCoordinateSystem(IEvent event) {
         Assert.isTrue(event != null);
         timelineCoordinateSystemVersion++;
         timelineCoordinateSystemOriginEventNumber = timelineCoordinateRangeStartEventNumber = timelineCoordinateRangeEndEventNumber = event.getEventNumber();
-        timelineCoordinateSystemOriginSimulationTime = event.getSimulationTime();
+        timelineCoordinateSystemOriginSimulationTime = event.getSimTime();
         event.setCachedTimelineCoordinateBegin(0);
         event.setCachedTimelineCoordinateEnd(getTimelineCoordinateDelta(event));
         event.setCachedTimelineCoordinateSystemVersion(timelineCoordinateSystemVersion);
@@ -193,7 +193,7 @@ public class SequenceChartFacade extends EventLogFacade
             double timelineCoordinateBegin;
             switch (timelineMode) {
                 case SIMULATION_TIME:
-                    timelineCoordinateBegin = event.getSimulationTime().subtract(timelineCoordinateSystemOriginSimulationTime).doubleValue();
+                    timelineCoordinateBegin = event.getSimTime().subtractToDouble(timelineCoordinateSystemOriginSimulationTime);
                     break;
                 case EVENT_NUMBER:
                     timelineCoordinateBegin = event.getEventNumber() - timelineCoordinateSystemOriginEventNumber;
@@ -214,10 +214,10 @@ public class SequenceChartFacade extends EventLogFacade
                         currentEvent = forward ? currentEvent.getNextEvent() : currentEvent.getPreviousEvent();
                         Assert.isTrue(currentEvent != null);
 
-                        BigDecimal previousSimulationTime = previousEvent.getSimulationTime();
+                        SimTime previousSimulationTime = previousEvent.getSimTime();
                         double previousTimelineCoordinateBegin = previousEvent.getCachedTimelineCoordinateBegin();
-                        BigDecimal simulationTime = currentEvent.getSimulationTime();
-                        double timelineCoordinateDelta = getTimelineCoordinateDelta(simulationTime.subtract(previousSimulationTime).doubleValue()) + getTimelineCoordinateDelta(forward ? previousEvent : currentEvent);
+                        SimTime simulationTime = currentEvent.getSimTime();
+                        double timelineCoordinateDelta = getTimelineCoordinateDelta(simulationTime.subtractToDouble(previousSimulationTime)) + getTimelineCoordinateDelta(forward ? previousEvent : currentEvent);
 
                         if (forward) {
                             timelineCoordinateBegin = previousTimelineCoordinateBegin + timelineCoordinateDelta;
@@ -411,14 +411,22 @@ public class SequenceChartFacade extends EventLogFacade
     }
 
     public final BigDecimal getSimulationTimeForTimelineCoordinate(double timelineCoordinate, boolean upperLimit) {
+        return getSimTimeForTimelineCoordinate(timelineCoordinate, upperLimit).toBigDecimal();
+    }
+
+    public final SimTime getSimTimeForTimelineCoordinate(double timelineCoordinate) {
+        return getSimTimeForTimelineCoordinate(timelineCoordinate, false);
+    }
+
+    public final SimTime getSimTimeForTimelineCoordinate(double timelineCoordinate, boolean upperLimit) {
         Assert.isTrue(!Double.isNaN(timelineCoordinate));
         if (eventLog.isEmpty())
-            return BigDecimal.ZERO;
-        BigDecimal simulationTime;
+            return SimTime.ZERO;
+        SimTime simulationTime;
         switch (timelineMode) {
             case SIMULATION_TIME: {
-                BigDecimal lastEventSimulationTime = eventLog.getLastEvent().getSimulationTime();
-                simulationTime = bigDecimalMax(BigDecimal.ZERO, bigDecimalMin(lastEventSimulationTime, new BigDecimal(timelineCoordinate).add(timelineCoordinateSystemOriginSimulationTime)));
+                SimTime lastEventSimulationTime = eventLog.getLastEvent().getSimTime();
+                simulationTime = SimTime.max(SimTime.ZERO, SimTime.min(lastEventSimulationTime, SimTime.valueOf(timelineCoordinate).add(timelineCoordinateSystemOriginSimulationTime)));
                 break;
             }
             case EVENT_NUMBER:
@@ -426,9 +434,9 @@ public class SequenceChartFacade extends EventLogFacade
             case NONLINEAR: {
                 IEvent event = getLastEventNotAfterTimelineCoordinate(timelineCoordinate);
                 IEvent nextEvent;
-                BigDecimal eventSimulationTime = BigDecimal.MINUS_ONE;
-                BigDecimal nextEventSimulationTime = BigDecimal.MINUS_ONE;
-                BigDecimal simulationTimeDelta = BigDecimal.ZERO;
+                SimTime eventSimulationTime = SimTime.MINUS_ONE;
+                SimTime nextEventSimulationTime = SimTime.MINUS_ONE;
+                SimTime simulationTimeDelta = SimTime.ZERO;
                 double eventTimelineCoordinateBegin = Double.NaN;
                 double eventTimelineCoordinateEnd = Double.NaN;
                 double nextEventTimelineCoordinateBegin = Double.NaN;
@@ -436,13 +444,13 @@ public class SequenceChartFacade extends EventLogFacade
                 double timelineCoordinateDelta = Double.NaN;
 
                 RefObject<IEvent> tempRef_nextEvent = new RefObject<IEvent>(null);
-                RefObject<BigDecimal> tempRef_eventSimulationTime = new RefObject<BigDecimal>(eventSimulationTime);
+                RefObject<SimTime> tempRef_eventSimulationTime = new RefObject<SimTime>(eventSimulationTime);
                 RefObject<Double> tempRef_eventTimelineCoordinateBegin = new RefObject<Double>(eventTimelineCoordinateBegin);
                 RefObject<Double> tempRef_eventTimelineCoordinateEnd = new RefObject<Double>(eventTimelineCoordinateEnd);
                 RefObject<Double> tempRef_nextEventTimelineCoordinateBegin = new RefObject<Double>(nextEventTimelineCoordinateBegin);
                 RefObject<Double> tempRef_nextEventTimelineCoordinateEnd = new RefObject<Double>(nextEventTimelineCoordinateEnd);
-                RefObject<BigDecimal> tempRef_nextEventSimulationTime = new RefObject<BigDecimal>(nextEventSimulationTime);
-                RefObject<BigDecimal> tempRef_simulationTimeDelta = new RefObject<BigDecimal>(simulationTimeDelta);
+                RefObject<SimTime> tempRef_nextEventSimulationTime = new RefObject<SimTime>(nextEventSimulationTime);
+                RefObject<SimTime> tempRef_simulationTimeDelta = new RefObject<SimTime>(simulationTimeDelta);
                 RefObject<Double> tempRef_timelineCoordinateDelta = new RefObject<Double>(timelineCoordinateDelta);
                 extractSimulationTimesAndTimelineCoordinates(event, tempRef_nextEvent, tempRef_eventSimulationTime, tempRef_eventTimelineCoordinateBegin, tempRef_eventTimelineCoordinateEnd, tempRef_nextEventSimulationTime, tempRef_nextEventTimelineCoordinateBegin, tempRef_nextEventTimelineCoordinateEnd, tempRef_simulationTimeDelta, tempRef_timelineCoordinateDelta);
                 eventSimulationTime = tempRef_eventSimulationTime.argValue;
@@ -465,8 +473,8 @@ public class SequenceChartFacade extends EventLogFacade
                     }
                     else {
                         timelineCoordinate = Math.max(eventTimelineCoordinateEnd, Math.min(nextEventTimelineCoordinateBegin, timelineCoordinate));
-                        simulationTime = eventSimulationTime.add(new BigDecimal(simulationTimeDelta.doubleValue() * (timelineCoordinate - eventTimelineCoordinateEnd) / timelineCoordinateDelta));
-                        simulationTime = bigDecimalMax(eventSimulationTime, bigDecimalMin(nextEventSimulationTime, simulationTime));
+                        simulationTime = eventSimulationTime.add(SimTime.valueOf(simulationTimeDelta.doubleValue() * (timelineCoordinate - eventTimelineCoordinateEnd) / timelineCoordinateDelta));
+                        simulationTime = SimTime.max(eventSimulationTime, SimTime.min(nextEventSimulationTime, simulationTime));
                     }
                 }
                 else
@@ -477,25 +485,11 @@ public class SequenceChartFacade extends EventLogFacade
                 throw new RuntimeException("Unknown timeline mode");
         }
         Assert.isTrue(simulationTime != null);
-        Assert.isTrue(simulationTime.greaterOrEqual(BigDecimal.ZERO));
-        Assert.isTrue(simulationTime.lessOrEqual(eventLog.getLastEvent().getSimulationTime()));
+        Assert.isTrue(simulationTime.greaterOrEqual(SimTime.ZERO));
+        Assert.isTrue(simulationTime.lessOrEqual(eventLog.getLastEvent().getSimTime()));
         return simulationTime;
     }
 
-    private BigDecimal bigDecimalMax(BigDecimal a, BigDecimal b) {
-        if (a.greater(b))
-            return a;
-        else
-            return b;
-    }
-
-    private BigDecimal bigDecimalMin(BigDecimal a, BigDecimal b) {
-        if (a.less(b))
-            return a;
-        else
-            return b;
-    }
-
     /**
      * Simulation time must be in the range [0, lastEventSimulationTime].
      * Timeline coordinate will be in the range [0, lastEventTimelineCoordinate] if the
@@ -506,38 +500,47 @@ public class SequenceChartFacade extends EventLogFacade
     }
 
     public double getTimelineCoordinateForSimulationTime(BigDecimal simulationTime, boolean upperLimit) {
+        Assert.isTrue(simulationTime != null);
+        return getTimelineCoordinateForSimulationTime(SimTime.valueOf(simulationTime), upperLimit);
+    }
+
+    public double getTimelineCoordinateForSimulationTime(SimTime simulationTime) {
+        return getTimelineCoordinateForSimulationTime(simulationTime, false);
+    }
+
+    public double getTimelineCoordinateForSimulationTime(SimTime simulationTime, boolean upperLimit) {
         Assert.isTrue(simulationTime != null);
         if (eventLog.isEmpty())
             return 0;
-        Assert.isTrue(simulationTime.greaterOrEqual(BigDecimal.ZERO));
+        Assert.isTrue(simulationTime.greaterOrEqual(SimTime.ZERO));
      //   Assert.isTrue(simulationTime.lessOrEqual(eventLog.getLastEvent().getSimulationTime()));
         double timelineCoordinate;
         switch (timelineMode) {
             case SIMULATION_TIME:
-                timelineCoordinate = simulationTime.subtract(timelineCoordinateSystemOriginSimulationTime).doubleValue();
+                timelineCoordinate = simulationTime.subtractToDouble(timelineCoordinateSystemOriginSimulationTime);
                 break;
             case EVENT_NUMBER:
             case STEP:
             case NONLINEAR: {
                 IEvent nextEvent;
-                BigDecimal eventSimulationTime = BigDecimal.MINUS_ONE;
-                BigDecimal nextEventSimulationTime = BigDecimal.MINUS_ONE;
-                BigDecimal simulationTimeDelta = BigDecimal.ZERO;
+                SimTime eventSimulationTime = SimTime.MINUS_ONE;
+                SimTime nextEventSimulationTime = SimTime.MINUS_ONE;
+                SimTime simulationTimeDelta = SimTime.ZERO;
                 double eventTimelineCoordinateBegin = Double.NaN;
                 double eventTimelineCoordinateEnd = Double.NaN;
                 double nextEventTimelineCoordinateBegin = Double.NaN;
                 double nextEventTimelineCoordinateEnd = Double.NaN;
                 double timelineCoordinateDelta = Double.NaN;
 
-                IEvent event = eventLog.getLastEventNotAfterSimulationTime(simulationTime);
+                IEvent event = eventLog.getLastEventNotAfterSimulationTime(simulationTime.toBigDecimal());
                 RefObject<IEvent> tempRef_nextEvent = new RefObject<IEvent>(null);
-                RefObject<BigDecimal> tempRef_eventSimulationTime = new RefObject<BigDecimal>(eventSimulationTime);
+                RefObject<SimTime> tempRef_eventSimulationTime = new RefObject<SimTime>(eventSimulationTime);
                 RefObject<Double> tempRef_eventTimelineCoordinateBegin = new RefObject<Double>(eventTimelineCoordinateBegin);
                 RefObject<Double> tempRef_eventTimelineCoordinateEnd = new RefObject<Double>(eventTimelineCoordinateEnd);
                 RefObject<Double> tempRef_nextEventTimelineCoordinateBegin = new RefObject<Double>(nextEventTimelineCoordinateBegin);
                 RefObject<Double> tempRef_nextEventTimelineCoordinateEnd = new RefObject<Double>(nextEventTimelineCoordinateEnd);
-                RefObject<BigDecimal> tempRef_nextEventSimulationTime = new RefObject<BigDecimal>(nextEventSimulationTime);
-                RefObject<BigDecimal> tempRef_simulationTimeDelta = new RefObject<BigDecimal>(simulationTimeDelta);
+                RefObject<SimTime> tempRef_nextEventSimulationTime = new RefObject<SimTime>(nextEventSimulationTime);
+                RefObject<SimTime> tempRef_simulationTimeDelta = new RefObject<SimTime>(simulationTimeDelta);
                 RefObject<Double> tempRef_timelineCoordinateDelta = new RefObject<Double>(timelineCoordinateDelta);
                 extractSimulationTimesAndTimelineCoordinates(event, tempRef_nextEvent, tempRef_eventSimulationTime, tempRef_eventTimelineCoordinateBegin, tempRef_eventTimelineCoordinateEnd, tempRef_nextEventSimulationTime, tempRef_nextEventTimelineCoordinateBegin, tempRef_nextEventTimelineCoordinateEnd, tempRef_simulationTimeDelta, tempRef_timelineCoordinateDelta);
                 eventSimulationTime = tempRef_eventSimulationTime.argValue;
@@ -551,7 +554,7 @@ public class SequenceChartFacade extends EventLogFacade
                 nextEvent = tempRef_nextEvent.argValue;
 
                 if (nextEvent != null) {
-                    if (simulationTimeDelta.equals(BigDecimal.ZERO)) {
+                    if (simulationTimeDelta.isZero()) {
                         // IMPORTANT NOTE: this is just an approximation
                         if (upperLimit)
                             timelineCoordinate = nextEventTimelineCoordinateBegin;
@@ -559,8 +562,8 @@ public class SequenceChartFacade extends EventLogFacade
                             timelineCoordinate = eventTimelineCoordinateEnd;
                     }
                     else {
-                        simulationTime = bigDecimalMax(eventSimulationTime, bigDecimalMin(nextEventSimulationTime, simulationTime));
-                        timelineCoordinate = eventTimelineCoordinateEnd + timelineCoordinateDelta * simulationTime.subtract(eventSimulationTime).doubleValue() / simulationTimeDelta.doubleValue();
+                        simulationTime = SimTime.max(eventSimulationTime, SimTime.min(nextEventSimulationTime, simulationTime));
+                        timelineCoordinate = eventTimelineCoordinateEnd + timelineCoordinateDelta * simulationTime.subtractToDouble(eventSimulationTime) / simulationTimeDelta.doubleValue();
                         timelineCoordinate = Math.max(eventTimelineCoordinateEnd, Math.min(nextEventTimelineCoordinateBegin, timelineCoordinate));
                     }
                 }
@@ -577,7 +580,8 @@ public class SequenceChartFacade extends EventLogFacade
 
     public double getTimelineCoordinateForSimulationTimeAndEventInModule(BigDecimal simulationTime, int moduleId) {
         IEvent event = eventLog.getLastEventNotAfterSimulationTime(simulationTime);
-        while (event != null && event.getSimulationTime() == simulationTime) {
+        SimTime simTime = SimTime.valueOf(simulationTime);
+        while (event != null && event.getSimTime().equals(simTime)) {
             if (event.getModuleId() == moduleId)
                 return getTimelineCoordinateBegin(event);
             event = event.getNextEvent();
@@ -596,7 +600,7 @@ public class SequenceChartFacade extends EventLogFacade
                 if (eventLogEntry instanceof ComponentMethodBeginEntry)
                     componentMethodBeginEntries.add((ComponentMethodBeginEntry)eventLogEntry);
             }
-            if (event == endEvent)
+            if (event.getEventNumber() == endEvent.getEventNumber())
                 break;
         }
         return componentMethodBeginEntries;
@@ -619,7 +623,7 @@ public class SequenceChartFacade extends EventLogFacade
             ArrayList<IMessageDependency> consequences = event.getConsequences();
             for (var consequence : consequences)
                 messageDependencies.add(consequence);
-            if (event == endEvent)
+            if (event.getEventNumber() == endEvent.getEventNumber())
                 break;
         }
         return new ArrayList<IMessageDependency>(messageDependencies);
@@ -634,10 +638,18 @@ public class SequenceChartFacade extends EventLogFacade
     }
 
     public final ArrayList<Integer> getMessageDependencyCountAdjacencyMatrix(Map<Integer, Integer> moduleIdToAxisIndexMap, TreeMap<Long, IEvent> eventNumberToEventMap, int messageSendWeight, int messageReuseWeight) {
+        int[] adjacencyMatrix = getMessageDependencyCountAdjacencyArray(moduleIdToAxisIndexMap, eventNumberToEventMap, messageSendWeight, messageReuseWeight);
+        return new ArrayList<Integer>(Arrays.asList(ArrayUtils.toObject(adjacencyMatrix)));
+    }
+
+    /**
+     * Same as getMessageDependencyCountAdjacencyMatrix(), but returns the row-major
+     * matrix as a primitive array.
+     */
+    public final int[] getMessageDependencyCountAdjacencyArray(Map<Integer, Integer> moduleIdToAxisIndexMap, TreeMap<Long, IEvent> eventNumberToEventMap, int messageSendWeight, int messageReuseWeight) {
         TreeSet<Integer> axisIndexSet = new TreeSet<Integer>(moduleIdToAxisIndexMap.values());
         int numberOfAxes = axisIndexSet.size();
-        Integer[] adjacencyMatrix = new Integer[numberOfAxes * numberOfAxes];
-        Arrays.fill(adjacencyMatrix, 0);
+        int[] adjacencyMatrix = new int[numberOfAxes * numberOfAxes];
         for (var it : eventNumberToEventMap.values()) {
             IEvent event = it;
             ArrayList<IMessageDependency> causes = event.getCauses();
@@ -654,26 +666,32 @@ public class SequenceChartFacade extends EventLogFacade
                     int consequenceModuleId = consequenceEvent.getModuleId();
                     var causeModuleIdIt = moduleIdToAxisIndexMap.get(causeModuleId);
                     var consequenceModuleIdIt = moduleIdToAxisIndexMap.get(consequenceModuleId);
-                    if (causeModuleIdIt != null && consequenceModuleIdIt != null) {
-                        int index = causeModuleIdIt * numberOfAxes + consequenceModuleIdIt;
-                        adjacencyMatrix[index] = adjacencyMatrix[index] + weight;
-                    }
+                    if (causeModuleIdIt != null && consequenceModuleIdIt != null)
+                        adjacencyMatrix[causeModuleIdIt * numberOfAxes + consequenceModuleIdIt] += weight;
                 }
             }
         }
-        return new ArrayList<Integer>(Arrays.asList(adjacencyMatrix));
+        return adjacencyMatrix;
     }
 
     public ArrayList<Integer> getMessageDependencyCountAdjacencyMatrix(Map<Integer, Integer> moduleIdToAxisIndexMap, IEvent startEvent, IEvent endEvent, int messageSendWeight, int messageReuseWeight) {
+        return getMessageDependencyCountAdjacencyMatrix(moduleIdToAxisIndexMap, collectEvents(startEvent, endEvent), messageSendWeight, messageReuseWeight);
+    }
+
+    public int[] getMessageDependencyCountAdjacencyArray(Map<Integer, Integer> moduleIdToAxisIndexMap, IEvent startEvent, IEvent endEvent, int messageSendWeight, int messageReuseWeight) {
+        return getMessageDependencyCountAdjacencyArray(moduleIdToAxisIndexMap, collectEvents(startEvent, endEvent), messageSendWeight, messageReuseWeight);
+    }
+
+    private TreeMap<Long, IEvent> collectEvents(IEvent startEvent, IEvent endEvent) {
         TreeMap<Long, IEvent> eventNumberToEventMap = new TreeMap<Long, IEvent>();
         for (IEvent event = startEvent; ; event = event.getNextEvent()) {
             eventLog.progress();
             if (event != null)
                 eventNumberToEventMap.put(event.getEventNumber(), event);
-            if (event == endEvent)
+            if (event == null || (endEvent != null && event.getEventNumber() == endEvent.getEventNumber()))
                 break;
         }
-        return getMessageDependencyCountAdjacencyMatrix(moduleIdToAxisIndexMap, eventNumberToEventMap, messageSendWeight, messageReuseWeight);
+        return eventNumberToEventMap;
     }
 
     public final java.util.ArrayList<Integer> getApproximateMessageDependencyCountAdjacencyMatrix(java.util.TreeMap<Integer, Integer> moduleIdToAxisIndexMap, int numberOfSamples, int messageSendWeight) {
@@ -685,6 +703,14 @@ public class SequenceChartFacade extends EventLogFacade
     }
 
     public final ArrayList<Integer> getApproximateMessageDependencyCountAdjacencyMatrix(Map<Integer, Integer> moduleIdToAxisIndexMap, int numberOfSamples, int messageSendWeight, int messageReuseWeight) {
+        return new ArrayList<Integer>(getMessageDependencyCountAdjacencyMatrix(moduleIdToAxisIndexMap, sampleEvents(numberOfSamples), messageSendWeight, messageReuseWeight));
+    }
+
+    public final int[] getApproximateMessageDependencyCountAdjacencyArray(Map<Integer, Integer> moduleIdToAxisIndexMap, int numberOfSamples, int messageSendWeight, int messageReuseWeight) {
+        return getMessageDependencyCountAdjacencyArray(moduleIdToAxisIndexMap, sampleEvents(numberOfSamples), messageSendWeight, messageReuseWeight);
+    }
+
+    private TreeMap<Long, IEvent> sampleEvents(int numberOfSamples) {
         Random random = new Random();
         TreeMap<Long, IEvent> eventNumberToEventMap = new TreeMap<Long, IEvent>();
         for (int i = 0; i < numberOfSamples; i++) {
@@ -706,19 +732,19 @@ public class SequenceChartFacade extends EventLogFacade
                     eventNumberToEventMap.put(event.getEventNumber(), event);
             }
         }
-        return new ArrayList<Integer>(getMessageDependencyCountAdjacencyMatrix(moduleIdToAxisIndexMap, eventNumberToEventMap, messageSendWeight, messageReuseWeight));
+        return eventNumberToEventMap;
     }
 
     // TODO: extract both begin and end timeline coordinates of events
-    public void extractSimulationTimesAndTimelineCoordinates(IEvent event, RefObject<IEvent> nextEvent, RefObject<BigDecimal> eventSimulationTime, RefObject<Double> eventTimelineCoordinateBegin, RefObject<Double> eventTimelineCoordinateEnd, RefObject<BigDecimal> nextEventSimulationTime, RefObject<Double> nextEventTimelineCoordinateBegin, RefObject<Double> nextEventTimelineCoordinateEnd, RefObject<BigDecimal> simulationTimeDelta, RefObject<Double> timelineCoordinateDelta) {
+    public void extractSimulationTimesAndTimelineCoordinates(IEvent event, RefObject<IEvent> nextEvent, RefObject<SimTime> eventSimulationTime, RefObject<Double> eventTimelineCoordinateBegin, RefObject<Double> eventTimelineCoordinateEnd, RefObject<SimTime> nextEventSimulationTime, RefObject<Double> nextEventTimelineCoordinateBegin, RefObject<Double> nextEventTimelineCoordinateEnd, RefObject<SimTime> simulationTimeDelta, RefObject<Double> timelineCoordinateDelta) {
         // if before the first event
         if (event != null) {
-            eventSimulationTime.argValue = event.getSimulationTime();
+            eventSimulationTime.argValue = event.getSimTime();
             eventTimelineCoordinateBegin.argValue = getTimelineCoordinateBegin(event);
             eventTimelineCoordinateEnd.argValue = getTimelineCoordinateEnd(event);
         }
         else {
-            eventSimulationTime.argValue = BigDecimal.ZERO;
+            eventSimulationTime.argValue = SimTime.ZERO;
             IEvent firstEvent = eventLog.getFirstEvent();
             eventTimelineCoordinateBegin.argValue = getTimelineCoordinateBegin(firstEvent);
             eventTimelineCoordinateEnd.argValue = getTimelineCoordinateEnd(firstEvent);
@@ -728,7 +754,7 @@ public class SequenceChartFacade extends EventLogFacade
                 eventTimelineCoordinateEnd.argValue -= 1;
             }
             else {
-                double delta = getTimelineCoordinateDelta(firstEvent.getSimulationTime().doubleValue());
+                double delta = getTimelineCoordinateDelta(firstEvent.getSimTime().doubleValue());
                 eventTimelineCoordinateBegin.argValue -= delta;
                 eventTimelineCoordinateEnd.argValue -= delta;
             }
@@ -736,7 +762,7 @@ public class SequenceChartFacade extends EventLogFacade
         // linear approximation between two enclosing events
         nextEvent.argValue = event != null ? event.getNextEvent() : eventLog.getFirstEvent();
         if (nextEvent.argValue != null) {
-            nextEventSimulationTime.argValue = nextEvent.argValue.getSimulationTime();
+            nextEventSimulationTime.argValue = nextEvent.argValue.getSimTime();
             nextEventTimelineCoordinateBegin.argValue = getTimelineCoordinateBegin(nextEvent.argValue);
             nextEventTimelineCoordinateEnd.argValue = getTimelineCoordinateEnd(nextEvent.argValue);
 
@@ -0,0 +1,324 @@
+package org.omnetpp.eventlog;
+
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import org.omnetpp.common.util.BigDecimal;
+import org.omnetpp.common.util.TimeUtils;
+
+/**
+ * Immutable simulation time value, the Java counterpart of the C++ SimTime class.
+ * The value is stored as a scaled 64 bit integer: value = raw * 10^exponent, where
+ * the exponent is normally the global scale exponent (-12 by default, that is
+ * picoseconds, the same as the default simtime-resolution of OMNeT++). Comparing,
+ * adding and subtracting such values are plain long operations without allocation.
+ *
+ * Unlike in C++, values that cannot be represented exactly with the global scale
+ * exponent (too many fractional digits or too large) are not rejected, they keep
+ * their own exponent and operations on them fall back to BigDecimal arithmetic.
+ * Each value has a canonical representation for the current global scale exponent,
+ * and equals() and hashCode() are consistent with compareTo() in any case.
+ */
+public final class SimTime implements Comparable<SimTime>
+{
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private static volatile int scaleExponent = -12;
+
+    // constants with the global scale exponent, updated by setScaleExponent()
+    public static volatile SimTime ZERO = new SimTime(0, scaleExponent);
+    public static volatile SimTime MINUS_ONE = new SimTime(-POWERS_OF_TEN[-scaleExponent], scaleExponent);
+
+    private final long raw;
+    private final int exponent;
+
+    private SimTime(long raw, int exponent) {
+        this.raw = raw;
+        this.exponent = exponent;
+    }
+
+    /**
+     * Returns the global scale exponent used for newly created values.
+     */
+    public static int getScaleExponent() {
+        return scaleExponent;
+    }
+
+    /**
+     * Sets the global scale exponent used for newly created values, normally the simtime
+     * precision of the eventlog file being opened (see EventLog). Existing values keep their
+     * exponent, they remain correct, but operations on them are slower.
+     */
+    public static synchronized void setScaleExponent(int scaleExponent) {
+        if (scaleExponent < -18 || scaleExponent > 0)
+            throw new IllegalArgumentException("Scale exponent must be in the range [-18, 0]: " + scaleExponent);
+        if (scaleExponent != SimTime.scaleExponent) {
+            SimTime.scaleExponent = scaleExponent;
+            ZERO = new SimTime(0, scaleExponent);
+            MINUS_ONE = new SimTime(-POWERS_OF_TEN[-scaleExponent], scaleExponent);
+        }
+    }
+
+    /**
+     * Returns the value unscaledValue * 10^-scale, the same way as BigDecimal does.
+     */
+    public static SimTime valueOf(long unscaledValue, int scale) {
+        int exponent = -scale;
+        if (unscaledValue == 0)
+            return ZERO;
+        else if (exponent == scaleExponent)
+            return new SimTime(unscaledValue, exponent);
+        else if (exponent > scaleExponent) {
+            int shift = exponent - scaleExponent;
+            if (shift < POWERS_OF_TEN.length && unscaledValue != Long.MIN_VALUE && Math.abs(unscaledValue) <= Long.MAX_VALUE / POWERS_OF_TEN[shift])
+                return new SimTime(unscaledValue * POWERS_OF_TEN[shift], scaleExponent);
+            else
+                return canonicalize(java.math.BigDecimal.valueOf(unscaledValue, scale));
+        }
+        else {
+            int shift = scaleExponent - exponent;
+            if (shift < POWERS_OF_TEN.length && unscaledValue % POWERS_OF_TEN[shift] == 0)
+                return new SimTime(unscaledValue / POWERS_OF_TEN[shift], scaleExponent);
+            else
+                return canonicalize(java.math.BigDecimal.valueOf(unscaledValue, scale));
+        }
+    }
+
+    public static SimTime valueOf(java.math.BigDecimal value) {
+        if (value.unscaledValue().bitLength() < 64)
+            return valueOf(value.unscaledValue().longValue(), value.scale());
+        else
+            return canonicalize(value);
+    }
+
+    /**
+     * Returns the closest value to the given number of seconds with the global scale exponent.
+     */
+    public static SimTime valueOf(double seconds) {
+        double raw = seconds / Math.pow(10, scaleExponent);
+        if (Math.abs(raw) < Long.MAX_VALUE)
+            return new SimTime(Math.round(raw), scaleExponent);
+        else
+            return valueOf(new BigDecimal(seconds));
+    }
+
+    /**
+     * Parses a decimal number such as "1.25", "-1" or "5e-3".
+     */
+    public static SimTime parse(String text) {
+        try {
+            return valueOf(new java.math.BigDecimal(text.trim()));
+        }
+        catch (NumberFormatException e) {
+            throw new NumberFormatException("Invalid simulation time: " + text);
+        }
+    }
+
+    /**
+     * Returns the canonical representation of a value that cannot be represented with the
+     * global scale exponent: the closest exponent to the global one that keeps the value exact.
+     * Values that don't fit into 64 bits at all are rounded to 18 significant digits.
+     */
+    private static SimTime canonicalize(java.math.BigDecimal value) {
+        if (value.signum() == 0)
+            return ZERO;
+        value = value.stripTrailingZeros();
+        if (value.unscaledValue().bitLength() >= 64)
+            value = value.round(new MathContext(18, RoundingMode.HALF_EVEN)).stripTrailingZeros();
+        int exactExponent = -value.scale();
+        for (int exponent = Math.min(scaleExponent, exactExponent); exponent < exactExponent; exponent++) {
+            BigInteger raw = value.movePointLeft(exponent).toBigIntegerExact();
+            if (raw.bitLength() < 64)
+                return new SimTime(raw.longValue(), exponent);
+        }
+        return new SimTime(value.unscaledValue().longValue(), exactExponent);
+    }
+
+    public long getRaw() {
+        return raw;
+    }
+
+    public int getExponent() {
+        return exponent;
+    }
+
+    public boolean isZero() {
+        return raw == 0;
+    }
+
+    public int signum() {
+        return Long.signum(raw);
+    }
+
+    public SimTime add(SimTime other) {
+        if (exponent == scaleExponent && other.exponent == scaleExponent) {
+            long result = raw + other.raw;
+            if (((raw ^ result) & (other.raw ^ result)) >= 0)
+                return result == 0 ? ZERO : new SimTime(result, exponent);
+        }
+        return valueOf(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    public SimTime subtract(SimTime other) {
+        if (exponent == scaleExponent && other.exponent == scaleExponent) {
+            long result = raw - other.raw;
+            if (((raw ^ other.raw) & (raw ^ result)) >= 0)
+                return result == 0 ? ZERO : new SimTime(result, exponent);
+        }
+        return valueOf(toBigDecimal().subtract(other.toBigDecimal()));
+    }
+
+    /**
+     * Returns this - other in seconds, without creating an intermediate value if possible.
+     */
+    public double subtractToDouble(SimTime other) {
+        if (exponent == other.exponent) {
+            long result = raw - other.raw;
+            if (((raw ^ other.raw) & (raw ^ result)) >= 0)
+                return scale(result, exponent);
+        }
+        return toBigDecimal().subtract(other.toBigDecimal()).doubleValue();
+    }
+
+    public double doubleValue() {
+        return scale(raw, exponent);
+    }
+
+    private static double scale(long raw, int exponent) {
+        if (exponent < 0 && -exponent < POWERS_OF_TEN.length)
+            return raw / (double)POWERS_OF_TEN[-exponent]; // exact for the usual values, unlike multiplying with 1E-12
+        else
+            return raw * Math.pow(10, exponent);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return new BigDecimal(BigInteger.valueOf(raw), -exponent);
+    }
+
+    @Override
+    public int compareTo(SimTime other) {
+        if (exponent == other.exponent)
+            return Long.compare(raw, other.raw);
+        else if (Long.signum(raw) != Long.signum(other.raw))
+            return Integer.compare(Long.signum(raw), Long.signum(other.raw));
+        else
+            return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    public boolean less(SimTime other) {
+        return compareTo(other) < 0;
+    }
+
+    public boolean lessOrEqual(SimTime other) {
+        return compareTo(other) <= 0;
+    }
+
+    public boolean greater(SimTime other) {
+        return compareTo(other) > 0;
+    }
+
+    public boolean greaterOrEqual(SimTime other) {
+        return compareTo(other) >= 0;
+    }
+
+    public static SimTime min(SimTime a, SimTime b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    public static SimTime max(SimTime a, SimTime b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        else if (!(other instanceof SimTime))
+            return false;
+        else {
+            SimTime simTime = (SimTime)other;
+            if (exponent == simTime.exponent)
+                return raw == simTime.raw;
+            else
+                return compareTo(simTime) == 0; // only if the global scale exponent has been changed in between
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        long value = raw;
+        int valueExponent = exponent;
+        while (value != 0 && value % 10 == 0) {
+            value /= 10;
+            valueExponent++;
+        }
+        return value == 0 ? 0 : Long.hashCode(value) * 31 + valueExponent;
+    }
+
+    /**
+     * Returns the value in seconds as a plain decimal number without trailing zeros, e.g. "1.5".
+     */
+    @Override
+    public String toString() {
+        if (raw == 0)
+            return "0";
+        else if (exponent >= 0 || -exponent >= POWERS_OF_TEN.length)
+            return toBigDecimal().stripTrailingZeros().toPlainString();
+        else {
+            long divisor = POWERS_OF_TEN[-exponent];
+            long integerPart = Math.abs(raw / divisor);
+            long fractionalPart = Math.abs(raw % divisor);
+            StringBuilder builder = new StringBuilder(24);
+            if (raw < 0)
+                builder.append('-');
+            builder.append(integerPart);
+            if (fractionalPart != 0) {
+                String digits = Long.toString(fractionalPart);
+                builder.append('.');
+                for (int i = digits.length(); i < -exponent; i++)
+                    builder.append('0');
+                int end = digits.length();
+                while (digits.charAt(end - 1) == '0')
+                    end--;
+                builder.append(digits, 0, end);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Returns the value split into time units such as "1s 250ms", the same as
+     * TimeUtils.secondsToTimeString() does for BigDecimal values.
+     */
+    public String toTimeString() {
+        if (exponent > 0 || exponent < -18 || raw == Long.MIN_VALUE)
+            return TimeUtils.secondsToTimeString(toBigDecimal());
+        StringBuilder builder = new StringBuilder();
+        long value = raw;
+        if (value < 0) {
+            builder.append('-');
+            value = -value;
+        }
+        long divisor = POWERS_OF_TEN[-exponent];
+        long seconds = value / divisor;
+        long attoseconds = (value % divisor) * POWERS_OF_TEN[18 + exponent];
+        if (seconds > 0)
+            builder.append(seconds).append("s ");
+        String[] units = { "ms ", "us ", "ns ", "ps ", "fs ", "as " };
+        for (int i = 0; i < units.length; i++) {
+            long unitValue = attoseconds / POWERS_OF_TEN[15 - 3 * i] % 1000;
+            if (unitValue > 0)
+                builder.append(unitValue).append(units[i]);
+        }
+        if (builder.length() == 0 || (builder.length() == 1 && raw < 0))
+            builder.append("0s");
+        return builder.toString().trim();
+    }
+}
@@ -0,0 +1,118 @@
+package org.omnetpp.eventlog;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests SimTime with millisecond resolution, that is, with a non-default scale exponent.
+ */
+public class SimTimeTest {
+    private int originalScaleExponent;
+
+    @Before
+    public void setUp() {
+        originalScaleExponent = SimTime.getScaleExponent();
+        SimTime.setScaleExponent(-3);
+    }
+
+    @After
+    public void tearDown() {
+        SimTime.setScaleExponent(originalScaleExponent);
+    }
+
+    @Test
+    public void testConstants() {
+        assertEquals(-3, SimTime.ZERO.getExponent());
+        assertEquals(0, SimTime.ZERO.getRaw());
+        assertEquals(-3, SimTime.MINUS_ONE.getExponent());
+        assertEquals(-1000, SimTime.MINUS_ONE.getRaw());
+        assertSame(SimTime.ZERO, SimTime.parse("0.000"));
+        assertEquals(SimTime.parse("-1"), SimTime.MINUS_ONE);
+    }
+
+    @Test
+    public void testParsing() {
+        assertParsed("1.5", 1500, -3);
+        assertParsed("-0.001", -1, -3);
+        assertParsed("2.5e-1", 250, -3);
+        assertParsed("1E3", 1000000, -3);
+        // more fractional digits than the resolution
+        assertParsed("0.0005", 5, -4);
+        assertParsed("1.0000000001", 10000000001L, -10);
+        // does not fit into 64 bits with the scale exponent
+        assertParsed("9223372036854775.808", 922337203685477581L, -2);
+        assertEquals("1.5", SimTime.parse("1.500").toString());
+        assertEquals("0.0005", SimTime.parse("0.0005").toString());
+        assertEquals("1s 250ms", SimTime.parse("1.25").toTimeString());
+        LineTokenizer tokenizer = new LineTokenizer();
+        tokenizer.tokenize("t 0.125 t 5e-4", 100);
+        assertEquals(SimTime.parse("0.125"), tokenizer.parseSimTime(1));
+        assertEquals(125, tokenizer.parseSimTime(1).getRaw());
+        assertEquals(SimTime.parse("0.0005"), tokenizer.parseSimTime(3));
+        assertEquals(1250, SimTime.valueOf(1.25).getRaw());
+    }
+
+    @Test
+    public void testComparison() {
+        SimTime a = SimTime.parse("1.5");
+        SimTime b = SimTime.parse("1.501");
+        SimTime c = SimTime.parse("1.5005");
+        assertTrue(a.less(b));
+        assertTrue(a.less(c));
+        assertTrue(c.less(b));
+        assertTrue(b.greaterOrEqual(c));
+        assertTrue(SimTime.MINUS_ONE.less(SimTime.ZERO));
+        assertSame(a, SimTime.min(a, c));
+        assertSame(b, SimTime.max(c, b));
+        assertEquals(SimTime.parse("1.50050"), c);
+        assertEquals(SimTime.parse("1.50050").hashCode(), c.hashCode());
+        assertNotEquals(a, c);
+    }
+
+    @Test
+    public void testValuesFromAnotherScaleExponent() {
+        SimTime.setScaleExponent(-12);
+        SimTime picoseconds = SimTime.parse("1.5");
+        SimTime.setScaleExponent(-3);
+        SimTime milliseconds = SimTime.parse("1.5");
+        assertEquals(-12, picoseconds.getExponent());
+        assertEquals(-3, milliseconds.getExponent());
+        assertEquals(picoseconds, milliseconds);
+        assertEquals(picoseconds.hashCode(), milliseconds.hashCode());
+        assertEquals(0, picoseconds.compareTo(milliseconds));
+        assertEquals(SimTime.parse("3"), picoseconds.add(milliseconds));
+        assertEquals(0.0, picoseconds.subtractToDouble(milliseconds), 0.0);
+    }
+
+    @Test
+    public void testArithmetic() {
+        SimTime a = SimTime.parse("1.5");
+        SimTime b = SimTime.parse("0.25");
+        assertEquals(SimTime.parse("1.75"), a.add(b));
+        assertEquals(-3, a.add(b).getExponent());
+        assertEquals(SimTime.parse("1.25"), a.subtract(b));
+        assertSame(SimTime.ZERO, a.subtract(a));
+        assertEquals(1.25, a.subtractToDouble(b), 0.0);
+        assertEquals(0.001, SimTime.parse("0.001").doubleValue(), 0.0);
+        // mixed with a value that has more fractional digits
+        SimTime c = SimTime.parse("0.0005");
+        assertEquals(SimTime.parse("1.5005"), a.add(c));
+        assertEquals(SimTime.parse("1.4995"), a.subtract(c));
+        assertEquals(SimTime.parse("1.5"), a.add(c).subtract(c));
+        assertEquals(-3, a.add(c).subtract(c).getExponent());
+        // overflow falls back to BigDecimal arithmetic
+        SimTime max = SimTime.parse("9223372036854775.807");
+        assertEquals(Long.MAX_VALUE, max.getRaw());
+        assertTrue(max.add(SimTime.parse("0.001")).greater(max));
+        assertTrue(SimTime.MINUS_ONE.subtract(max).less(SimTime.MINUS_ONE));
+    }
+
+    private static void assertParsed(String text, long raw, int exponent) {
+        SimTime value = SimTime.parse(text);
+        assertEquals(text, raw, value.getRaw());
+        assertEquals(text, exponent, value.getExponent());
+    }
+}
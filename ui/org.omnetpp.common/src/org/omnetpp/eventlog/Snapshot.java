@@ -5,7 +5,6 @@ import java.util.ArrayList;
 
 import org.eclipse.core.runtime.Assert;
 import org.omnetpp.common.util.BigDecimal;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.ReferenceEntry;
 import org.omnetpp.eventlog.entry.ReferenceFoundEntry;
 import org.omnetpp.eventlog.entry.SnapshotEntry;
@@ -51,12 +50,12 @@ public class Snapshot implements IChunk
         reader.seekTo(beginOffset);
         int index = 0;
         while (true) {
-            String line = reader.getNextLine();
-            if (line == null) {
+            int lineOffset = reader.getNextLineBufferOffset();
+            if (lineOffset == -1) {
                 endOffset = reader.getFileSize();
                 break;
             }
-            EventLogEntry eventLogEntry = EventLogEntry.parseEntry(eventLog, null, index, reader.getCurrentLineStartOffset(), line, (int)reader.getCurrentLineLength());
+            EventLogEntry eventLogEntry = EventLogEntry.parseEntry(eventLog, null, index, reader.getCurrentLineStartOffset(), reader.getBuffer(), lineOffset, (int)reader.getCurrentLineLength());
             // stop at first empty line
             if (eventLogEntry == null) {
                 endOffset = reader.getCurrentLineEndOffset();
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.common.util.BigDecimal;
 
 public class BeginSendEntry extends MessageDescriptionEntry
@@ -30,11 +31,11 @@ public class BeginSendEntry extends MessageDescriptionEntry
     public boolean getIsUpdate() { return isUpdate; }
     public long getTransmissionId() { return transmissionId; }
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
-        sendDelay = getSimtimeToken(tokens, numTokens, "sd", false, sendDelay);
-        isUpdate = getBoolToken(tokens, numTokens, "up", false, isUpdate);
-        transmissionId = getInt64Token(tokens, numTokens, "tx", false, transmissionId);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
+        sendDelay = getSimtimeToken(tokenizer, "sd", false, sendDelay);
+        isUpdate = getBoolToken(tokenizer, "up", false, isUpdate);
+        transmissionId = getInt64Token(tokenizer, "tx", false, transmissionId);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class BubbleEntry extends EventLogTokenBasedEntry
 {
@@ -27,9 +28,9 @@ public class BubbleEntry extends EventLogTokenBasedEntry
     public int getModuleId() { return moduleId; }
     public String getText() { return text; }
 
-    public void parse(String[] tokens, int numTokens) {
-        moduleId = getIntToken(tokens, numTokens, "id", true, moduleId);
-        text = getStringToken(tokens, numTokens, "txt", true, text);
+    public void parse(LineTokenizer tokenizer) {
+        moduleId = getIntToken(tokenizer, "id", true, moduleId);
+        text = getStringToken(tokenizer, "txt", true, text);
     }
 
     public void print(OutputStream stream) {
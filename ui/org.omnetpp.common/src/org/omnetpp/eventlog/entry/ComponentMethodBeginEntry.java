@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class ComponentMethodBeginEntry extends EventLogTokenBasedEntry
 {
@@ -31,10 +32,10 @@ public class ComponentMethodBeginEntry extends EventLogTokenBasedEntry
     public int getTargetComponentId() { return targetComponentId; }
     public String getMethodName() { return methodName; }
 
-    public void parse(String[] tokens, int numTokens) {
-        sourceComponentId = getIntToken(tokens, numTokens, "sm", true, sourceComponentId);
-        targetComponentId = getIntToken(tokens, numTokens, "tm", true, targetComponentId);
-        methodName = getStringToken(tokens, numTokens, "m", true, methodName);
+    public void parse(LineTokenizer tokenizer) {
+        sourceComponentId = getIntToken(tokenizer, "sm", true, sourceComponentId);
+        targetComponentId = getIntToken(tokenizer, "tm", true, targetComponentId);
+        methodName = getStringToken(tokenizer, "m", true, methodName);
     }
 
     public void print(OutputStream stream) {
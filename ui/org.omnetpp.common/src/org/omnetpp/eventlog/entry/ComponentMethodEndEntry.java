@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class ComponentMethodEndEntry extends EventLogTokenBasedEntry
 {
@@ -19,7 +20,7 @@ public class ComponentMethodEndEntry extends EventLogTokenBasedEntry
     }
 
 
-    public void parse(String[] tokens, int numTokens) {
+    public void parse(LineTokenizer tokenizer) {
     }
 
     public void print(OutputStream stream) {
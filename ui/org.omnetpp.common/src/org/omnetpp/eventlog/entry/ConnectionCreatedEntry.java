@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 public class ConnectionCreatedEntry extends ConnectionDescriptionEntry
 {
 
@@ -16,8 +17,8 @@ public class ConnectionCreatedEntry extends ConnectionDescriptionEntry
     }
 
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
     }
 
     public void print(OutputStream stream) {
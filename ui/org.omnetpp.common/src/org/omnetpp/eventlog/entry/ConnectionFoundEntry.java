@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 public class ConnectionFoundEntry extends ConnectionDescriptionEntry
 {
     public long lastSeenEventNumber;
@@ -24,10 +25,10 @@ public class ConnectionFoundEntry extends ConnectionDescriptionEntry
     public long getLastSeenEventNumber() { return lastSeenEventNumber; }
     public int getLastSeenEntryIndex() { return lastSeenEntryIndex; }
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
-        lastSeenEventNumber = getEventNumberToken(tokens, numTokens, "#", true, lastSeenEventNumber);
-        lastSeenEntryIndex = getIntToken(tokens, numTokens, "ei", true, lastSeenEntryIndex);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
+        lastSeenEventNumber = getEventNumberToken(tokenizer, "#", true, lastSeenEventNumber);
+        lastSeenEntryIndex = getIntToken(tokenizer, "ei", true, lastSeenEntryIndex);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class ConnectionReferenceEntry extends EventLogTokenBasedEntry
 {
@@ -27,9 +28,9 @@ public class ConnectionReferenceEntry extends EventLogTokenBasedEntry
     public int getSourceModuleId() { return sourceModuleId; }
     public int getSourceGateId() { return sourceGateId; }
 
-    public void parse(String[] tokens, int numTokens) {
-        sourceModuleId = getIntToken(tokens, numTokens, "sm", true, sourceModuleId);
-        sourceGateId = getIntToken(tokens, numTokens, "sg", true, sourceGateId);
+    public void parse(LineTokenizer tokenizer) {
+        sourceModuleId = getIntToken(tokenizer, "sm", true, sourceModuleId);
+        sourceGateId = getIntToken(tokenizer, "sg", true, sourceGateId);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class CustomReferenceEntry extends EventLogTokenBasedEntry
 {
@@ -27,9 +28,9 @@ public class CustomReferenceEntry extends EventLogTokenBasedEntry
     public String getType() { return type; }
     public long getKey() { return key; }
 
-    public void parse(String[] tokens, int numTokens) {
-        type = getStringToken(tokens, numTokens, "t", true, type);
-        key = getLongToken(tokens, numTokens, "k", true, key);
+    public void parse(LineTokenizer tokenizer) {
+        type = getStringToken(tokenizer, "t", true, type);
+        key = getLongToken(tokenizer, "k", true, key);
     }
 
     public void print(OutputStream stream) {
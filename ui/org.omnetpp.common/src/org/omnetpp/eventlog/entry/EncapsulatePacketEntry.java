@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 public class EncapsulatePacketEntry extends MessageReferenceEntry
 {
     public long encapsulatedPacketId;
@@ -20,9 +21,9 @@ public class EncapsulatePacketEntry extends MessageReferenceEntry
 
     public long getEncapsulatedPacketId() { return encapsulatedPacketId; }
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
-        encapsulatedPacketId = getInt64Token(tokens, numTokens, "cid", true, encapsulatedPacketId);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
+        encapsulatedPacketId = getInt64Token(tokenizer, "cid", true, encapsulatedPacketId);
     }
 
     public void print(OutputStream stream) {
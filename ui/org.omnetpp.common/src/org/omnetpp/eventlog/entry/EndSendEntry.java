@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 public class EndSendEntry extends MessageDescriptionEntry
 {
     public boolean isDeliveredImmediately;
@@ -20,9 +21,9 @@ public class EndSendEntry extends MessageDescriptionEntry
 
     public boolean getIsDeliveredImmediately() { return isDeliveredImmediately; }
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
-        isDeliveredImmediately = getBoolToken(tokens, numTokens, "i", false, isDeliveredImmediately);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
+        isDeliveredImmediately = getBoolToken(tokenizer, "i", false, isDeliveredImmediately);
     }
 
     public void print(OutputStream stream) {
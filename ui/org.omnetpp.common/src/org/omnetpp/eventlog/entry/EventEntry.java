@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 import org.omnetpp.common.util.BigDecimal;
 
@@ -45,13 +46,13 @@ public class EventEntry extends EventLogTokenBasedEntry
     public long getMessageId() { return messageId; }
     public String getFingerprints() { return fingerprints; }
 
-    public void parse(String[] tokens, int numTokens) {
-        eventNumber = getEventNumberToken(tokens, numTokens, "#", true, eventNumber);
-        simulationTime = getSimtimeToken(tokens, numTokens, "t", true, simulationTime);
-        moduleId = getIntToken(tokens, numTokens, "m", true, moduleId);
-        causeEventNumber = getEventNumberToken(tokens, numTokens, "ce", true, causeEventNumber);
-        messageId = getInt64Token(tokens, numTokens, "msg", true, messageId);
-        fingerprints = getStringToken(tokens, numTokens, "f", false, fingerprints);
+    public void parse(LineTokenizer tokenizer) {
+        eventNumber = getEventNumberToken(tokenizer, "#", true, eventNumber);
+        simulationTime = getSimtimeToken(tokenizer, "t", true, simulationTime);
+        moduleId = getIntToken(tokenizer, "m", true, moduleId);
+        causeEventNumber = getEventNumberToken(tokenizer, "ce", true, causeEventNumber);
+        messageId = getInt64Token(tokenizer, "msg", true, messageId);
+        fingerprints = getStringToken(tokenizer, "f", false, fingerprints);
     }
 
     public void print(OutputStream stream) {
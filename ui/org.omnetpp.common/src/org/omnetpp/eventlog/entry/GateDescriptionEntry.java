@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 public class GateDescriptionEntry extends GateReferenceEntry
 {
     public String name;
@@ -28,11 +29,11 @@ public class GateDescriptionEntry extends GateReferenceEntry
     public int getIndex() { return index; }
     public boolean getIsOutput() { return isOutput; }
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
-        name = getStringToken(tokens, numTokens, "n", true, name);
-        index = getIntToken(tokens, numTokens, "i", false, index);
-        isOutput = getBoolToken(tokens, numTokens, "o", true, isOutput);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
+        name = getStringToken(tokenizer, "n", true, name);
+        index = getIntToken(tokenizer, "i", false, index);
+        isOutput = getBoolToken(tokenizer, "o", true, isOutput);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 import org.omnetpp.common.util.BigDecimal;
 
@@ -41,12 +42,12 @@ public class IndexEntry extends EventLogTokenBasedEntry
     public long getEventNumber() { return eventNumber; }
     public BigDecimal getSimulationTime() { return simulationTime; }
 
-    public void parse(String[] tokens, int numTokens) {
-        fileOffset = getInt64Token(tokens, numTokens, "f", true, fileOffset);
-        previousIndexFileOffset = getInt64Token(tokens, numTokens, "i", true, previousIndexFileOffset);
-        previousSnapshotFileOffset = getInt64Token(tokens, numTokens, "s", true, previousSnapshotFileOffset);
-        eventNumber = getEventNumberToken(tokens, numTokens, "#", true, eventNumber);
-        simulationTime = getSimtimeToken(tokens, numTokens, "t", true, simulationTime);
+    public void parse(LineTokenizer tokenizer) {
+        fileOffset = getInt64Token(tokenizer, "f", true, fileOffset);
+        previousIndexFileOffset = getInt64Token(tokenizer, "i", true, previousIndexFileOffset);
+        previousSnapshotFileOffset = getInt64Token(tokenizer, "s", true, previousSnapshotFileOffset);
+        eventNumber = getEventNumberToken(tokenizer, "#", true, eventNumber);
+        simulationTime = getSimtimeToken(tokenizer, "t", true, simulationTime);
     }
 
     public void print(OutputStream stream) {
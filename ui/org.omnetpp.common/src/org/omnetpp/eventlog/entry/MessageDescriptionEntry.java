@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.common.util.BigDecimal;
 
 public class MessageDescriptionEntry extends MessageReferenceEntry
@@ -90,26 +91,26 @@ public class MessageDescriptionEntry extends MessageReferenceEntry
     public String getDetail() { return detail; }
     public long getPreviousEventNumber() { return previousEventNumber; }
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
-        messageTreeId = getInt64Token(tokens, numTokens, "tid", true, messageTreeId);
-        messageEncapsulationId = getInt64Token(tokens, numTokens, "eid", true, messageEncapsulationId);
-        messageEncapsulationTreeId = getInt64Token(tokens, numTokens, "etid", true, messageEncapsulationTreeId);
-        messageClassName = getStringToken(tokens, numTokens, "c", true, messageClassName);
-        messageName = getStringToken(tokens, numTokens, "n", true, messageName);
-        messageKind = getShortToken(tokens, numTokens, "k", false, messageKind);
-        messagePriority = getShortToken(tokens, numTokens, "p", false, messagePriority);
-        messageLength = getInt64Token(tokens, numTokens, "l", false, messageLength);
-        hasBitError = getBoolToken(tokens, numTokens, "er", false, hasBitError);
-        ownerModuleId = getIntToken(tokens, numTokens, "m", false, ownerModuleId);
-        senderModuleId = getIntToken(tokens, numTokens, "sm", false, senderModuleId);
-        senderGateId = getIntToken(tokens, numTokens, "sg", false, senderGateId);
-        sendingTime = getSimtimeToken(tokens, numTokens, "st", false, sendingTime);
-        arrivalModuleId = getIntToken(tokens, numTokens, "am", false, arrivalModuleId);
-        arrivalGateId = getIntToken(tokens, numTokens, "ag", false, arrivalGateId);
-        arrivalTime = getSimtimeToken(tokens, numTokens, "at", false, arrivalTime);
-        detail = getStringToken(tokens, numTokens, "d", false, detail);
-        previousEventNumber = getEventNumberToken(tokens, numTokens, "pe", true, previousEventNumber);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
+        messageTreeId = getInt64Token(tokenizer, "tid", true, messageTreeId);
+        messageEncapsulationId = getInt64Token(tokenizer, "eid", true, messageEncapsulationId);
+        messageEncapsulationTreeId = getInt64Token(tokenizer, "etid", true, messageEncapsulationTreeId);
+        messageClassName = getStringToken(tokenizer, "c", true, messageClassName);
+        messageName = getStringToken(tokenizer, "n", true, messageName);
+        messageKind = getShortToken(tokenizer, "k", false, messageKind);
+        messagePriority = getShortToken(tokenizer, "p", false, messagePriority);
+        messageLength = getInt64Token(tokenizer, "l", false, messageLength);
+        hasBitError = getBoolToken(tokenizer, "er", false, hasBitError);
+        ownerModuleId = getIntToken(tokenizer, "m", false, ownerModuleId);
+        senderModuleId = getIntToken(tokenizer, "sm", false, senderModuleId);
+        senderGateId = getIntToken(tokenizer, "sg", false, senderGateId);
+        sendingTime = getSimtimeToken(tokenizer, "st", false, sendingTime);
+        arrivalModuleId = getIntToken(tokenizer, "am", false, arrivalModuleId);
+        arrivalGateId = getIntToken(tokenizer, "ag", false, arrivalGateId);
+        arrivalTime = getSimtimeToken(tokenizer, "at", false, arrivalTime);
+        detail = getStringToken(tokenizer, "d", false, detail);
+        previousEventNumber = getEventNumberToken(tokenizer, "pe", true, previousEventNumber);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class MessageReferenceEntry extends EventLogTokenBasedEntry
 {
@@ -23,8 +24,8 @@ public class MessageReferenceEntry extends EventLogTokenBasedEntry
 
     public long getMessageId() { return messageId; }
 
-    public void parse(String[] tokens, int numTokens) {
-        messageId = getInt64Token(tokens, numTokens, "id", true, messageId);
+    public void parse(LineTokenizer tokenizer) {
+        messageId = getInt64Token(tokenizer, "id", true, messageId);
     }
 
     public void print(OutputStream stream) {
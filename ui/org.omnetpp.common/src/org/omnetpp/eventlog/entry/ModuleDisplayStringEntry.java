@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 public class ModuleDisplayStringEntry extends ModuleReferenceEntry
 {
     public String displayString;
@@ -20,9 +21,9 @@ public class ModuleDisplayStringEntry extends ModuleReferenceEntry
 
     public String getDisplayString() { return displayString; }
 
-    public void parse(String[] tokens, int numTokens) {
-        super.parse(tokens, numTokens);
-        displayString = getStringToken(tokens, numTokens, "d", true, displayString);
+    public void parse(LineTokenizer tokenizer) {
+        super.parse(tokenizer);
+        displayString = getStringToken(tokenizer, "d", true, displayString);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class ModuleReferenceEntry extends EventLogTokenBasedEntry
 {
@@ -23,8 +24,8 @@ public class ModuleReferenceEntry extends EventLogTokenBasedEntry
 
     public int getModuleId() { return moduleId; }
 
-    public void parse(String[] tokens, int numTokens) {
-        moduleId = getIntToken(tokens, numTokens, "id", true, moduleId);
+    public void parse(LineTokenizer tokenizer) {
+        moduleId = getIntToken(tokenizer, "id", true, moduleId);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class ReferenceEntry extends EventLogTokenBasedEntry
 {
@@ -31,10 +32,10 @@ public class ReferenceEntry extends EventLogTokenBasedEntry
     public int getBeginEntryIndex() { return beginEntryIndex; }
     public int getEndEntryIndex() { return endEntryIndex; }
 
-    public void parse(String[] tokens, int numTokens) {
-        eventNumber = getEventNumberToken(tokens, numTokens, "#", true, eventNumber);
-        beginEntryIndex = getIntToken(tokens, numTokens, "b", true, beginEntryIndex);
-        endEntryIndex = getIntToken(tokens, numTokens, "e", true, endEntryIndex);
+    public void parse(LineTokenizer tokenizer) {
+        eventNumber = getEventNumberToken(tokenizer, "#", true, eventNumber);
+        beginEntryIndex = getIntToken(tokenizer, "b", true, beginEntryIndex);
+        endEntryIndex = getIntToken(tokenizer, "e", true, endEntryIndex);
     }
 
     public void print(OutputStream stream) {
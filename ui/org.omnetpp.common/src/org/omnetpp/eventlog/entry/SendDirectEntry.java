@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 import org.omnetpp.common.util.BigDecimal;
 
@@ -45,13 +46,13 @@ public class SendDirectEntry extends EventLogTokenBasedEntry
     public BigDecimal getTransmissionDelay() { return transmissionDelay; }
     public BigDecimal getRemainingDuration() { return remainingDuration; }
 
-    public void parse(String[] tokens, int numTokens) {
-        senderModuleId = getIntToken(tokens, numTokens, "sm", true, senderModuleId);
-        destModuleId = getIntToken(tokens, numTokens, "dm", true, destModuleId);
-        destGateId = getIntToken(tokens, numTokens, "dg", true, destGateId);
-        propagationDelay = getSimtimeToken(tokens, numTokens, "pd", false, propagationDelay);
-        transmissionDelay = getSimtimeToken(tokens, numTokens, "td", false, transmissionDelay);
-        remainingDuration = getSimtimeToken(tokens, numTokens, "rd", false, remainingDuration);
+    public void parse(LineTokenizer tokenizer) {
+        senderModuleId = getIntToken(tokenizer, "sm", true, senderModuleId);
+        destModuleId = getIntToken(tokenizer, "dm", true, destModuleId);
+        destGateId = getIntToken(tokenizer, "dg", true, destGateId);
+        propagationDelay = getSimtimeToken(tokenizer, "pd", false, propagationDelay);
+        transmissionDelay = getSimtimeToken(tokenizer, "td", false, transmissionDelay);
+        remainingDuration = getSimtimeToken(tokenizer, "rd", false, remainingDuration);
     }
 
     public void print(OutputStream stream) {
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 import org.omnetpp.common.util.BigDecimal;
 
@@ -45,13 +46,13 @@ public class SendHopEntry extends EventLogTokenBasedEntry
     public BigDecimal getRemainingDuration() { return remainingDuration; }
     public boolean getDiscard() { return discard; }
 
-    public void parse(String[] tokens, int numTokens) {
-        senderModuleId = getIntToken(tokens, numTokens, "sm", true, senderModuleId);
-        senderGateId = getIntToken(tokens, numTokens, "sg", true, senderGateId);
-        propagationDelay = getSimtimeToken(tokens, numTokens, "pd", false, propagationDelay);
-        transmissionDelay = getSimtimeToken(tokens, numTokens, "td", false, transmissionDelay);
-        remainingDuration = getSimtimeToken(tokens, numTokens, "rd", false, remainingDuration);
-        discard = getBoolToken(tokens, numTokens, "d", false, discard);
+    public void parse(LineTokenizer tokenizer) {
+        senderModuleId = getIntToken(tokenizer, "sm", true, senderModuleId);
+        senderGateId = getIntToken(tokenizer, "sg", true, senderGateId);
+        propagationDelay = getSimtimeToken(tokenizer, "pd", false, propagationDelay);
+        transmissionDelay = getSimtimeToken(tokenizer, "td", false, transmissionDelay);
+        remainingDuration = getSimtimeToken(tokenizer, "rd", false, remainingDuration);
+        discard = getBoolToken(tokenizer, "d", false, discard);
     }
 
     public void print(OutputStream stream) {
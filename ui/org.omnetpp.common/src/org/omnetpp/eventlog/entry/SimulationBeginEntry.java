@@ -5,18 +5,21 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class SimulationBeginEntry extends EventLogTokenBasedEntry
 {
     public int omnetppVersion;
     public int eventlogVersion;
     public String runId;
+    public int simtimePrecision;
 
     public SimulationBeginEntry() {
         this.chunk = null;
         omnetppVersion = -1;
         eventlogVersion = -1;
         runId = null;
+        simtimePrecision = -12;
     }
 
     public SimulationBeginEntry(IChunk chunk, int entryIndex) {
@@ -25,16 +28,19 @@ public class SimulationBeginEntry extends EventLogTokenBasedEntry
         omnetppVersion = -1;
         eventlogVersion = -1;
         runId = null;
+        simtimePrecision = -12;
     }
 
     public int getOmnetppVersion() { return omnetppVersion; }
     public int getEventlogVersion() { return eventlogVersion; }
     public String getRunId() { return runId; }
+    public int getSimtimePrecision() { return simtimePrecision; }
 
-    public void parse(String[] tokens, int numTokens) {
-        omnetppVersion = getIntToken(tokens, numTokens, "ov", true, omnetppVersion);
-        eventlogVersion = getIntToken(tokens, numTokens, "ev", true, eventlogVersion);
-        runId = getStringToken(tokens, numTokens, "rid", true, runId);
+    public void parse(LineTokenizer tokenizer) {
+        omnetppVersion = getIntToken(tokenizer, "ov", true, omnetppVersion);
+        eventlogVersion = getIntToken(tokenizer, "ev", true, eventlogVersion);
+        runId = getStringToken(tokenizer, "rid", true, runId);
+        simtimePrecision = getIntToken(tokenizer, "prec", false, simtimePrecision);
     }
 
     public void print(OutputStream stream) {
@@ -43,6 +49,8 @@ public class SimulationBeginEntry extends EventLogTokenBasedEntry
             stream.write((" ov " + String.valueOf(omnetppVersion)).getBytes());
             stream.write((" ev " + String.valueOf(eventlogVersion)).getBytes());
             stream.write((" rid " + qoute(runId)).getBytes());
+            if (simtimePrecision != -12)
+                stream.write((" prec " + String.valueOf(simtimePrecision)).getBytes());
             stream.write(("\n").getBytes());
             stream.flush();
         }
@@ -60,6 +68,7 @@ public class SimulationBeginEntry extends EventLogTokenBasedEntry
         names.add("ov");
         names.add("ev");
         names.add("rid");
+        names.add("prec");
         return names;
     }
 
@@ -73,6 +82,8 @@ public class SimulationBeginEntry extends EventLogTokenBasedEntry
             return String.valueOf(eventlogVersion);
         else if (attribute.equals("rid"))
             return runId;
+        else if (attribute.equals("prec"))
+            return String.valueOf(simtimePrecision);
         else
             return null;
 
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 
 import org.omnetpp.eventlog.IChunk;
+import org.omnetpp.eventlog.LineTokenizer;
 import org.omnetpp.eventlog.EventLogTokenBasedEntry;
 public class SimulationEndEntry extends EventLogTokenBasedEntry
 {
@@ -31,10 +32,10 @@ public class SimulationEndEntry extends EventLogTokenBasedEntry
     public int getResultCode() { return resultCode; }
     public String getMessage() { return message; }
 
-    public void parse(String[] tokens, int numTokens) {
-        isError = getBoolToken(tokens, numTokens, "e", true, isError);
-        resultCode = getIntToken(tokens, numTokens, "c", true, resultCode);
-        message = getStringToken(tokens, numTokens, "m", true, message);
+    public void parse(LineTokenizer tokenizer) {
+        isError = getBoolToken(tokenizer, "e", true, isError);
+        resultCode = getIntToken(tokenizer, "c", true, resultCode);
+        message = getStringToken(tokenizer, "m", true, message);
     }
 
     public void print(OutputStream stream) {
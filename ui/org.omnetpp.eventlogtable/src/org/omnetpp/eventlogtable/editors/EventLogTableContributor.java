@@ -71,13 +71,13 @@ import org.omnetpp.common.eventlog.IFollowSelectionSupport;
 import org.omnetpp.common.image.ImageFactory;
 import org.omnetpp.eventlog.EventLogEntry;
 import org.omnetpp.eventlog.EventLogTableFilterMode;
+import org.omnetpp.eventlog.FileReader;
 import org.omnetpp.eventlog.FilteredEventLog;
 import org.omnetpp.eventlog.IEvent;
 import org.omnetpp.eventlog.IEventLog;
 import org.omnetpp.eventlog.IMessageDependency;
 import org.omnetpp.eventlog.MatchKind;
 import org.omnetpp.eventlog.MessageReuseDependency;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.MessageDescriptionEntry;
 import org.omnetpp.eventlogtable.EventLogTablePlugin;
 import org.omnetpp.eventlogtable.widgets.EventLogTable;
@@ -40,6 +40,7 @@ import org.omnetpp.eventlog.EventLogEntry;
 import org.omnetpp.eventlog.EventLogMessageEntry;
 import org.omnetpp.eventlog.IEvent;
 import org.omnetpp.eventlog.IMessageDependency;
+import org.omnetpp.eventlog.SimTime;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 import org.omnetpp.eventlog.entry.BubbleEntry;
 import org.omnetpp.eventlog.entry.CancelEventEntry;
@@ -273,7 +274,7 @@ public class EventLogTableRowRenderer implements IVirtualTableRowRenderer<EventL
             EventLogEntry eventLogEntry = eventLogEntryReference.getEventLogEntry(eventLogInput);
             contextEvent = eventLogEntry.getEvent();
             long eventNumber = contextEvent.getEventNumber();
-            BigDecimal simulationTime = contextEvent.getSimulationTime();
+            SimTime simulationTime = contextEvent.getSimTime();
             boolean isEventLogEntry = eventLogEntry instanceof EventEntry;
             switch (index) {
                 case 0:
@@ -590,6 +591,14 @@ public class EventLogTableRowRenderer implements IVirtualTableRowRenderer<EventL
             return simulationTime.toString();
     }
 
+    private String getSimulationTimeText(SimTime simulationTime) {
+        // TODO: make this a parameter
+        if (true)
+            return simulationTime.toTimeString();
+        else
+            return simulationTime.toString();
+    }
+
     private class Builder {
         StyledString styledString = new StyledString();
         boolean isSelected;
@@ -9,6 +9,7 @@
 #%javaconst(1);
 
 %{
+#include <cstring>
 #include "common/statistics.h"
 #include "common/histogram.h"
 #include "common/stringutil.h"
@@ -72,6 +73,7 @@ USE_COMMON_ENGINE_ILOCK();
 %include "std_map.i"
 %include "std_pair.i"
 %include "std_shared_ptr.i"
+%include "various.i"
 
 %include "map_oldapi.i" // needed for SWIG >=4.0 so we still have the 3.x functions
 
@@ -183,6 +185,30 @@ namespace std {
        }
    }
 
+   // bulk copy between ByteVector and byte[], for storing memoized pickles outside the native heap
+   %apply char *BYTE { char *bytes };
+   %extend vector<int8_t> {
+       void copyToBytes(char *bytes) { // bytes must be at least size() long
+           memcpy(bytes, self->data(), self->size());
+       }
+       void assignBytes(char *bytes, int length) {
+           self->assign(bytes, bytes + length);
+       }
+   }
+
+   %typemap(javacode) vector<int8_t> %{
+       public byte[] toByteArray() {
+           byte[] array = new byte[(int)size()];
+           copyToBytes(array);
+           return array;
+       }
+       public static ByteVector fromByteArray(byte[] array) {
+           ByteVector vector = new ByteVector();
+           vector.assignBytes(array, array.length);
+           return vector;
+       }
+   %}
+
    %template(StringSet) set<string>;
    %template(StringVector) vector<string>;
    %template(StringMap) map<string,string>;
@@ -511,7 +537,9 @@ namespace omnetpp { namespace scave {
 
 namespace omnetpp { namespace scave {
 %ignore readVectorsIntoArrays;
+%ignore readVectorsIntoArraysDecimated;
 %newobject readVectorsIntoArrays2;
+%newobject readVectorsIntoArraysDecimated2;
 
 } } // namespaces
 
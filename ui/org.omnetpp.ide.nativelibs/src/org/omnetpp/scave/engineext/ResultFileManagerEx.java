@@ -73,6 +73,13 @@ public class ResultFileManagerEx extends ResultFileManager {
         super.unloadFile(fileName);
     }
 
+    @Override
+    public ResultFile adoptFile(ResultFileManager stagingManager, ResultFile file) {
+        checkNotDeleted();
+        checkWriteLock();
+        return super.adoptFile(stagingManager, file);
+    }
+
 
     /*-------------------------------------------
      *               Reader methods
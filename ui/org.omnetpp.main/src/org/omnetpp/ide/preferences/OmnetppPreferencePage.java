@@ -12,12 +12,14 @@ import java.util.List;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.DirectoryFieldEditor;
 import org.eclipse.jface.preference.FieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.FileFieldEditor;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
@@ -95,6 +97,14 @@ public class OmnetppPreferencePage
         ((GridLayout)spacer3.getLayout()).numColumns = 3; // idiotic field editors change it in their fillIntoGrid methods!!!
         // Note: at this point, horizSpan of the Combo and the Text is 1, but after an asyncExec it becomes 2!!! probably the dialog plays games
 
+        Group group4 = createGroup(parent, "Eventlog", 3, 3, GridData.FILL_HORIZONTAL);
+        Composite spacer4 = createComposite(group4, 3, 3, GridData.FILL_HORIZONTAL);
+        IntegerFieldEditor eventlogCacheSizeEditor = new IntegerFieldEditor(IConstants.PREF_EVENTLOG_CACHE_SIZE, "Memory limit for parsed events (MB):", spacer4);
+        eventlogCacheSizeEditor.setValidRange(16, 65536);
+        addAndFillIntoGrid(eventlogCacheSizeEditor, spacer4, 3);
+        addAndFillIntoGrid(new BooleanFieldEditor(IConstants.PREF_EVENTLOG_PARALLEL_FILTERING, "Filter eventlogs in the background using multiple threads", spacer4), spacer4, 3);
+        createLabel(spacer4, "Note: Changes take effect when an eventlog file is opened.", 3);
+
         //TODO disable "custom license header" when not "custom" is selected!!!!
 
 
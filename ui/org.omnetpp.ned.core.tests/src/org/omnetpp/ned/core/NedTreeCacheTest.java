@@ -0,0 +1,140 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.ned.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.omnetpp.ned.model.INedElement;
+import org.omnetpp.ned.model.NedSourceRegion;
+import org.omnetpp.ned.model.ex.NedElementFactoryEx;
+
+public class NedTreeCacheTest {
+    private static final String FILE_NAME = "/project/queueing/Queue.ned";
+
+    @Before
+    public void setUp() {
+        if (NedElementFactoryEx.getInstance() == null)
+            NedElementFactoryEx.setInstance(new NedElementFactoryEx());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        INedElement tree = createTree("Queue", "Source", "Sink");
+        assertTreesEqual(tree, read(write(tree)));
+    }
+
+    @Test
+    public void testSpecialStrings() throws IOException {
+        INedElement tree = createTree("Warteschlange\u00e4\u4e2d", "", "Queue");
+        tree.getChild(0).setSourceLocation(null, -1);
+        tree.getChild(1).setSourceRegion(null);
+        assertTreesEqual(tree, read(write(tree)));
+    }
+
+    @Test
+    public void testRepeatedStringsAreWrittenOnce() throws IOException {
+        byte[] bytes = write(createTree("Queue", "Source", "Sink"));
+        assertEquals(1, countOccurrences(bytes, FILE_NAME.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedEntry() throws IOException {
+        byte[] bytes = write(createTree("Queue", "Source", "Sink"));
+        read(Arrays.copyOf(bytes, bytes.length / 2));
+    }
+
+    @Test
+    public void testEntryNames() {
+        // "Aa" and "BB" have the same String.hashCode()
+        String digest = NedTreeCache.getDigest("/project/Aa.ned");
+        assertEquals(40, digest.length());
+        assertTrue(digest.matches("[0-9a-f]+"));
+        assertEquals(digest, NedTreeCache.getDigest("/project/Aa.ned"));
+        assertNotEquals(digest, NedTreeCache.getDigest("/project/BB.ned"));
+    }
+
+    private static INedElement createTree(String... moduleNames) {
+        NedElementFactoryEx factory = NedElementFactoryEx.getInstance();
+        INedElement nedFile = factory.createElement(null, "ned-file", null);
+        nedFile.setSourceLocation(FILE_NAME, 1);
+        int line = 3;
+        for (String moduleName : moduleNames) {
+            INedElement module = factory.createElement(null, "simple-module", nedFile);
+            module.setAttribute("name", moduleName);
+            module.setSourceLocation(FILE_NAME, line);
+            module.setSourceRegion(new NedSourceRegion(line, 0, line + 4, 1));
+            INedElement parameters = factory.createElement(null, "parameters", module);
+            parameters.setSourceLocation(FILE_NAME, line + 1);
+            INedElement param = factory.createElement(null, "param", parameters);
+            param.setAttribute("name", "capacity");
+            param.setAttribute("value", "10");
+            param.setSourceLocation(FILE_NAME, line + 2);
+            param.setSourceRegion(new NedSourceRegion(line + 2, 8, line + 2, 22));
+            line += 6;
+        }
+        return nedFile;
+    }
+
+    private static byte[] write(INedElement tree) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            NedTreeCache.writeElement(out, new HashMap<String, Integer>(), tree);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static INedElement read(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return NedTreeCache.readElement(in, new ArrayList<String>(), null, null);
+        }
+    }
+
+    private static void assertTreesEqual(INedElement expected, INedElement actual) {
+        assertEquals(expected.getTagCode(), actual.getTagCode());
+        assertEquals(expected.getNumAttributes(), actual.getNumAttributes());
+        for (int i = 0; i < expected.getNumAttributes(); i++)
+            assertEquals(expected.getAttributeName(i), expected.getAttribute(i), actual.getAttribute(i));
+        assertEquals(expected.getSourceFileName(), actual.getSourceFileName());
+        assertEquals(expected.getSourceLineNumber(), actual.getSourceLineNumber());
+        NedSourceRegion expectedRegion = expected.getSourceRegion();
+        NedSourceRegion actualRegion = actual.getSourceRegion();
+        if (expectedRegion == null)
+            assertNull(actualRegion);
+        else {
+            assertEquals(expectedRegion.getStartLine(), actualRegion.getStartLine());
+            assertEquals(expectedRegion.getStartColumn(), actualRegion.getStartColumn());
+            assertEquals(expectedRegion.getEndLine(), actualRegion.getEndLine());
+            assertEquals(expectedRegion.getEndColumn(), actualRegion.getEndColumn());
+        }
+        assertEquals(expected.getNumChildren(), actual.getNumChildren());
+        for (int i = 0; i < expected.getNumChildren(); i++) {
+            assertSame(actual, actual.getChild(i).getParent());
+            assertTreesEqual(expected.getChild(i), actual.getChild(i));
+        }
+    }
+
+    private static int countOccurrences(byte[] bytes, byte[] pattern) {
+        int count = 0;
+        for (int i = 0; i + pattern.length <= bytes.length; i++)
+            if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + pattern.length), pattern))
+                count++;
+        return count;
+    }
+}
@@ -0,0 +1,296 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.ned.core;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.junit.Before;
+import org.junit.Test;
+import org.omnetpp.ned.model.INedElement;
+import org.omnetpp.ned.model.ex.NedElementFactoryEx;
+import org.omnetpp.ned.model.ex.NedFileElementEx;
+import org.omnetpp.ned.model.interfaces.INedTypeElement;
+
+/**
+ * Checks that the incremental rehash of NedTypeResolver produces the same tables
+ * as a full rehash after adding, removing and renaming types, files and packages.
+ */
+public class NedTypeResolverTest {
+    private static final String[] PACKAGES = { null, "ned", "inet", "inet.queueing" };
+    private static final String[] TYPE_NAMES = { "Queue", "Source", "Sink", "IdealChannel" };
+
+    private TestResolver resolver;
+    private IProject base, derived, unrelated;
+
+    /**
+     * Resolver with a fake projects table, and ned.IdealChannel as the only built-in type.
+     */
+    private static class TestResolver extends NedTypeResolver {
+        TestResolver() {
+            debug = false;
+            builtInDeclarationsFile = createNedFile(this, "ned");
+            createType(builtInDeclarationsFile, "IdealChannel");
+        }
+
+        void addProject(IProject project, IProject... referencedProjects) {
+            ProjectData projectData = new ProjectData();
+            projectData.nedSourceFolders = new IContainer[0];
+            projectData.nedSourceFolderPackages = new String[0];
+            projectData.excludedPackageRoots = new String[0];
+            projectData.referencedProjects = referencedProjects;
+            projects.put(project, projectData);
+            needsFullRehash = true;
+        }
+
+        void putFile(IFile file, NedFileElementEx nedFileElement) {
+            NedFileElementEx oldNedFileElement = nedFiles.put(file, nedFileElement);
+            if (oldNedFileElement != null)
+                nedElementFiles.remove(oldNedFileElement);
+            nedElementFiles.put(nedFileElement, file);
+            fileChanged(file);
+        }
+
+        void removeFile(IFile file) {
+            nedElementFiles.remove(nedFiles.remove(file));
+            fileChanged(file);
+        }
+
+        // like NedResources.invalidate(IFile)
+        void fileChanged(IFile file) {
+            changedFiles.add(file);
+            for (NedFileElementEx nedFileElement : nedElementFiles.keySet())
+                for (INedElement child : nedFileElement)
+                    if (child instanceof INedTypeElement)
+                        ((INedTypeElement)child).getNedTypeInfo().invalidateInherited();
+        }
+
+        void rehash(boolean full) {
+            needsFullRehash = full;
+            internalRehash();
+        }
+
+        /**
+         * Returns the projects table in a form that does not depend on registration order.
+         */
+        Map<IProject, List<Object>> getTables() {
+            Map<IProject, List<Object>> result = new HashMap<IProject, List<Object>>();
+            for (Map.Entry<IProject, ProjectData> entry : projects.entrySet()) {
+                ProjectData projectData = entry.getValue();
+                Map<String, HashSet<INedTypeElement>> duplicates = new HashMap<String, HashSet<INedTypeElement>>();
+                for (Map.Entry<String, List<INedTypeElement>> duplicate : projectData.duplicates.entrySet())
+                    duplicates.put(duplicate.getKey(), new HashSet<INedTypeElement>(duplicate.getValue()));
+                Map<String, HashSet<INedTypeElement>> definitions = new HashMap<String, HashSet<INedTypeElement>>();
+                for (Map.Entry<String, List<INedTypeElement>> definition : projectData.definitions.entrySet())
+                    definitions.put(definition.getKey(), new HashSet<INedTypeElement>(definition.getValue()));
+                result.put(entry.getKey(), Arrays.asList(new HashMap<Object, Object>(projectData.components), duplicates,
+                        new HashSet<String>(projectData.reservedNames), definitions));
+            }
+            return result;
+        }
+
+        Map<IFile, Map<INedTypeElement, String>> getRegisteredTypes() {
+            return new HashMap<IFile, Map<INedTypeElement, String>>(registeredTypes);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        if (NedElementFactoryEx.getInstance() == null)
+            NedElementFactoryEx.setInstance(new NedElementFactoryEx());
+        resolver = new TestResolver();
+        base = createProject("base");
+        derived = createProject("derived");
+        unrelated = createProject("unrelated");
+        resolver.addProject(base);
+        resolver.addProject(derived, base);
+        resolver.addProject(unrelated);
+        resolver.rehash(true);
+    }
+
+    @Test
+    public void testAddAndRemoveFile() {
+        IFile file = createFile(base, "Queue.ned");
+        NedFileElementEx nedFileElement = createNedFile(resolver, "inet");
+        createType(nedFileElement, "Queue");
+        resolver.putFile(file, nedFileElement);
+        checkAgainstFullRehash();
+        assertTrue(resolver.getToplevelNedTypeQNames(derived).contains("inet.Queue"));
+        assertFalse(resolver.getToplevelNedTypeQNames(unrelated).contains("inet.Queue"));
+
+        resolver.removeFile(file);
+        checkAgainstFullRehash();
+        assertFalse(resolver.getReservedQNames(derived).contains("inet.Queue"));
+    }
+
+    @Test
+    public void testRenameInPlace() {
+        IFile file = createFile(base, "Queue.ned");
+        NedFileElementEx nedFileElement = createNedFile(resolver, "inet");
+        INedTypeElement queue = createType(nedFileElement, "Queue");
+        resolver.putFile(file, nedFileElement);
+        checkAgainstFullRehash();
+
+        queue.setName("PassiveQueue");
+        resolver.fileChanged(file);
+        checkAgainstFullRehash();
+        assertTrue(resolver.getReservedQNames(base).contains("inet.PassiveQueue"));
+        assertFalse(resolver.getReservedQNames(base).contains("inet.Queue"));
+
+        nedFileElement.setPackage("inet.queueing");
+        resolver.fileChanged(file);
+        checkAgainstFullRehash();
+        assertTrue(resolver.getReservedQNames(base).contains("inet.queueing.PassiveQueue"));
+    }
+
+    @Test
+    public void testDuplicates() {
+        IFile file1 = createFile(base, "Queue1.ned");
+        NedFileElementEx nedFileElement1 = createNedFile(resolver, "inet");
+        createType(nedFileElement1, "Queue");
+        resolver.putFile(file1, nedFileElement1);
+        IFile file2 = createFile(derived, "Queue2.ned");
+        NedFileElementEx nedFileElement2 = createNedFile(resolver, "inet");
+        INedTypeElement queue2 = createType(nedFileElement2, "Queue");
+        resolver.putFile(file2, nedFileElement2);
+        checkAgainstFullRehash();
+        assertNull(resolver.getToplevelNedType("inet.Queue", derived));
+        assertNotNull(resolver.getToplevelNedType("inet.Queue", base));
+
+        // duplicate of a built-in type
+        IFile file3 = createFile(unrelated, "IdealChannel.ned");
+        NedFileElementEx nedFileElement3 = createNedFile(resolver, "ned");
+        createType(nedFileElement3, "IdealChannel");
+        resolver.putFile(file3, nedFileElement3);
+        checkAgainstFullRehash();
+
+        // resolve the duplicates by renaming and removing
+        queue2.setName("OtherQueue");
+        resolver.fileChanged(file2);
+        checkAgainstFullRehash();
+        assertNotNull(resolver.getToplevelNedType("inet.Queue", derived));
+        resolver.removeFile(file3);
+        checkAgainstFullRehash();
+    }
+
+    @Test
+    public void testRandomChanges() {
+        Random random = new Random(0);
+        IProject[] projects = { base, derived, unrelated };
+        List<IFile> files = new ArrayList<IFile>();
+        for (int i = 0; i < 500; i++) {
+            int operation = files.isEmpty() ? 0 : random.nextInt(6);
+            IFile file = files.isEmpty() ? null : files.get(random.nextInt(files.size()));
+            NedFileElementEx nedFileElement = file == null ? null : resolver.getNedFileElement(file);
+            switch (operation) {
+                case 0: // add file
+                    file = createFile(projects[random.nextInt(projects.length)], "File" + i + ".ned");
+                    nedFileElement = createNedFile(resolver, PACKAGES[random.nextInt(PACKAGES.length)]);
+                    for (int j = random.nextInt(3); j >= 0; j--)
+                        createType(nedFileElement, TYPE_NAMES[random.nextInt(TYPE_NAMES.length)]);
+                    files.add(file);
+                    resolver.putFile(file, nedFileElement);
+                    break;
+                case 1: // remove file
+                    files.remove(file);
+                    resolver.removeFile(file);
+                    break;
+                case 2: // replace the tree of the file
+                    NedFileElementEx newNedFileElement = createNedFile(resolver, nedFileElement.getPackage());
+                    for (INedElement child : nedFileElement)
+                        if (child instanceof INedTypeElement)
+                            createType(newNedFileElement, ((INedTypeElement)child).getName());
+                    resolver.putFile(file, newNedFileElement);
+                    break;
+                case 3: // change package
+                    nedFileElement.setPackage(PACKAGES[random.nextInt(PACKAGES.length)]);
+                    resolver.fileChanged(file);
+                    break;
+                case 4: // add or rename a type
+                    List<INedTypeElement> types = getTypes(nedFileElement);
+                    String name = TYPE_NAMES[random.nextInt(TYPE_NAMES.length)];
+                    if (types.isEmpty() || random.nextBoolean())
+                        createType(nedFileElement, name);
+                    else
+                        types.get(random.nextInt(types.size())).setName(name);
+                    resolver.fileChanged(file);
+                    break;
+                case 5: // remove a type
+                    types = getTypes(nedFileElement);
+                    if (!types.isEmpty())
+                        nedFileElement.removeChild(types.get(random.nextInt(types.size())));
+                    resolver.fileChanged(file);
+                    break;
+            }
+            // several files may change before a rehash
+            if (random.nextInt(3) == 0)
+                checkAgainstFullRehash();
+        }
+        checkAgainstFullRehash();
+    }
+
+    private void checkAgainstFullRehash() {
+        resolver.rehash(false);
+        Map<IProject, List<Object>> incrementalTables = resolver.getTables();
+        Map<IFile, Map<INedTypeElement, String>> incrementalRegisteredTypes = resolver.getRegisteredTypes();
+        resolver.rehash(true);
+        assertEquals(resolver.getTables(), incrementalTables);
+        assertEquals(resolver.getRegisteredTypes(), incrementalRegisteredTypes);
+    }
+
+    private static List<INedTypeElement> getTypes(NedFileElementEx nedFileElement) {
+        List<INedTypeElement> result = new ArrayList<INedTypeElement>();
+        for (INedElement child : nedFileElement)
+            if (child instanceof INedTypeElement)
+                result.add((INedTypeElement)child);
+        return result;
+    }
+
+    private static NedFileElementEx createNedFile(NedTypeResolver resolver, String packageName) {
+        NedFileElementEx nedFileElement = (NedFileElementEx)NedElementFactoryEx.getInstance().createElement(resolver, "ned-file");
+        nedFileElement.setPackage(packageName);
+        return nedFileElement;
+    }
+
+    private static INedTypeElement createType(NedFileElementEx nedFileElement, String name) {
+        INedTypeElement typeElement = (INedTypeElement)NedElementFactoryEx.getInstance().createElement(nedFileElement.getResolver(), "simple-module", nedFileElement);
+        typeElement.setName(name);
+        return typeElement;
+    }
+
+    private static IProject createProject(String name) {
+        return (IProject)createResource(IProject.class, name, null);
+    }
+
+    private static IFile createFile(IProject project, String name) {
+        return (IFile)createResource(IFile.class, project.getName() + "/" + name, project);
+    }
+
+    private static Object createResource(Class<?> type, String name, IProject project) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName": case "toString": return name;
+                case "getProject": return project != null ? project : proxy;
+                case "hashCode": return System.identityHashCode(proxy);
+                case "equals": return proxy == args[0];
+                default: throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
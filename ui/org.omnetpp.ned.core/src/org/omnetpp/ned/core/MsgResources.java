@@ -190,6 +190,10 @@ public class MsgResources implements IMsgTypeResolver, IResourceChangeListener {
             // purge cached types
             for (IMsgTypeElement typeElement : element.getTopLevelTypeNodes())
                 msgTypes.remove(typeElement.getMsgTypeInfo().getFullyQualifiedCppClassName());
+
+            // drop the persistently cached tree of deleted files
+            if (!file.exists() && NedResourcesPlugin.getNedTreeCache() != null)
+                NedResourcesPlugin.getNedTreeCache().remove(file);
         }
     }
 
@@ -197,9 +201,22 @@ public class MsgResources implements IMsgTypeResolver, IResourceChangeListener {
         // forget types that used to be in this msg file
         forgetMsgFile(file);
 
-        // register msg file
-        String source = FileUtils.readTextFile(file.getContents(), file.getCharset());
-        MsgFileElementEx element = NedTreeUtil.parseMsgSource(source, new SysoutNedErrorStore(), file.toString());  //TODO why SysoutNedErrorStore?
+        // register msg file; use the tree stored in a previous session if the file did not change
+        MsgFileElementEx element = null;
+        NedTreeCache cache = NedResourcesPlugin.getNedTreeCache();
+        NedTreeCache.Key key = cache == null ? null : cache.createKey(file);
+        if (key != null) {
+            INedElement cachedTree = cache.load(key, null);
+            if (cachedTree instanceof MsgFileElementEx)
+                element = (MsgFileElementEx)cachedTree;
+        }
+        if (element == null) {
+            String source = key != null ? new String(key.getContent(), file.getCharset()) : FileUtils.readTextFile(file.getContents(), file.getCharset());
+            SysoutNedErrorStore errorStore = new SysoutNedErrorStore();
+            element = NedTreeUtil.parseMsgSource(source, errorStore, file.toString());  //TODO why SysoutNedErrorStore?
+            if (key != null && errorStore.getNumProblems() == 0 && cache.isUpToDate(key))
+                cache.store(key, element);
+        }
         msgFiles.put(file, element);
         msgElementFiles.put(element, file);
 
@@ -9,8 +9,14 @@ package org.omnetpp.ned.core;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -100,6 +106,9 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
     // job that performs NED validation in the background
     private Job nedValidationJob;
 
+    // files changed since the last takeFilesChangedSinceValidation() call; null means all files
+    private Set<IFile> filesChangedSinceValidation = null;
+
     // a delayed job that initiates NED validation when the user idles a little
     private DelayedJob nedValidationStarterJob = new DelayedJob(400) {
         public void run() {
@@ -178,7 +187,7 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
                 markerSync.runAsWorkspaceJob();
 
                 // force rehash now, so that validation errors appear soon
-                rehash();
+                rehash(file);
             }
 
             long dt = System.currentTimeMillis() - startTime;
@@ -235,7 +244,7 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
         ProblemMarkerSynchronizer markerSync = new ProblemMarkerSynchronizer();
         doReadNedFile(file, markerSync);
         markerSync.runAsWorkspaceJob();
-        rehash();
+        rehash(file);
     }
 
     /**
@@ -246,14 +255,43 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
         //Note: the following is a bad idea, because of undefined startup order: the editor calling us might run sooner than readAllNedFiles()
         //Assert.isTrue(isNEDFile(file), "file is outside the NED source folders, or not a NED file at all");
 
+        NedFileElementEx tree = parseNedFile(file, markerSync);
+        storeParsedNedFile(file, tree);
+    }
+
+    /**
+     * Internal: parses the given NED file from the disk, and reports syntax errors
+     * into the given marker synchronizer. Does not access the tables, so it may be
+     * called from any thread without holding the lock.
+     */
+    protected NedFileElementEx parseNedFile(IFile file, ProblemMarkerSynchronizer markerSync) {
         if (debug)
             Debug.println("reading from disk: " + file.toString());
 
-        // parse the NED file and put it into the hash table
         NedMarkerErrorStore errorStore = new NedMarkerErrorStore(markerSync, NEDSYNTAXPROBLEM_MARKERID);
         errorStore.setFile(file);
+
+        // try the tree stored in a previous session; it is only stored if the file had no syntax problems
+        NedTreeCache cache = NedResourcesPlugin.getNedTreeCache();
+        NedTreeCache.Key key = cache == null ? null : cache.createKey(file);
+        if (key != null) {
+            INedElement cachedTree = cache.load(key, this);
+            if (cachedTree instanceof NedFileElementEx)
+                return (NedFileElementEx)cachedTree;
+        }
+
         NedFileElementEx tree = NedTreeUtil.parseNedFile(file.getLocation().toOSString(), errorStore, file.getFullPath().toString(), this);
         Assert.isNotNull(tree);
+        if (key != null && errorStore.getNumProblems() == 0 && cache.isUpToDate(key))
+            cache.store(key, tree);
+        return tree;
+    }
+
+    /**
+     * Internal: puts the tree of a NED file just read from the disk into the hash table.
+     */
+    protected synchronized void storeParsedNedFile(IFile file, NedFileElementEx tree) {
+        Assert.isTrue(!hasConnectedEditor(file));
 
         // only store the file if its declared package is not excluded -- that would lead to thrashing, see bug #518
         // (this can only happen to top package.ned files that *define* their own package, for other files
@@ -277,7 +315,7 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
         if (isSourceFolderPackageNedFile(file))
             rebuildProjectsTable();
 
-        invalidate();
+        invalidate(file);
     }
 
     /**
@@ -298,7 +336,7 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
             // unregister
             nedFiles.remove(file);
             nedElementFiles.remove(nedFileElement);
-            invalidate();
+            invalidate(file);
 
             // if this was a package.ned, expected package names might have changed
             if (isSourceFolderPackageNedFile(file))
@@ -307,6 +345,10 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
             // remove all NED markers (otherwise they'll stay forever)
             sync.register(file);
 
+            // drop the persistently cached tree of deleted files
+            if (!file.exists() && NedResourcesPlugin.getNedTreeCache() != null)
+                NedResourcesPlugin.getNedTreeCache().remove(file);
+
             // fire notification.
             nedModelChanged(new NedFileRemovedEvent(file));
         }
@@ -318,9 +360,9 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
         Assert.isTrue(!connectCount.containsKey(file), "cannot replace the tree while an editor is open");
 
         NedFileElementEx oldTree = nedFiles.get(file);
-        // if the new tree has changed, we have to rehash everything
+        // if the new tree has changed, we have to rehash the types of this file
         if (oldTree == null || !NedTreeUtil.isNedTreeEqual(oldTree, tree)) {
-            invalidate();
+            invalidate(file);
             nedFiles.put(file, tree);
             nedElementFiles.put(tree, file);
             // add ourselves to the tree root as a listener
@@ -353,6 +395,8 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
     public synchronized void invalidate() {
         lastChangeSerial++;
         needsRehash = true;
+        needsFullRehash = true;
+        filesChangedSinceValidation = null;
         nedTypeLookupCache.clear();
         nedLikeTypeLookupCache.clear();
 
@@ -361,11 +405,38 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
             invalidateTypeInfo(file);
     }
 
+    /**
+     * Like invalidate(), but only the given file has changed. The next rehash will only
+     * update the types of this file, and only type infos in the projects that can see
+     * this file are invalidated.
+     */
+    public synchronized void invalidate(IFile file) {
+        lastChangeSerial++;
+        needsRehash = true;
+        changedFiles.add(file);
+        if (filesChangedSinceValidation != null)
+            filesChangedSinceValidation.add(file);
+        nedTypeLookupCache.clear();
+
+        Set<IProject> affectedProjects = getProjectsSeeing(file.getProject());
+        nedLikeTypeLookupCache.keySet().removeAll(affectedProjects);
+
+        // invalidate inherited members on the typeInfo objects that may depend on this file
+        for (Map.Entry<NedFileElementEx, IFile> entry : nedElementFiles.entrySet())
+            if (affectedProjects.contains(entry.getValue().getProject()))
+                invalidateTypeInfo(entry.getKey());
+    }
+
     protected void rehash() {
         invalidate();
         rehashIfNeeded();
     }
 
+    protected void rehash(IFile file) {
+        invalidate(file);
+        rehashIfNeeded();
+    }
+
     protected void invalidateTypeInfo(INedElement parent) {
         for (INedElement element : parent) {
             if (element instanceof INedTypeElement) {
@@ -497,33 +568,108 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
      * This should be run on startup and after rebuildProjectsTable();
      * individual file changes are handled by loadNedFile() calls from the
      * workspace listener.
+     *
+     * The files are parsed without holding the lock of this object, so editors
+     * and other readers are not blocked while loading; only the registration of
+     * the parsed trees is synchronized.
      */
-    public synchronized void readMissingNedFiles() {
+    public void readMissingNedFiles() {
+        // collect NED files that are not yet loaded
+        final List<IFile> files = new ArrayList<IFile>();
+        synchronized (this) {
+            try {
+                IWorkspaceRoot workspaceRoot = ResourcesPlugin.getWorkspace().getRoot();
+                workspaceRoot.accept(new IResourceVisitor() {
+                    public boolean visit(IResource resource) {
+                        if (!nedFiles.containsKey(resource) && isNedFile(resource))
+                            files.add((IFile)resource);
+                        return true;
+                    }
+                });
+            }
+            catch (CoreException e) {
+                NedResourcesPlugin.logError("Error during workspace refresh: ",e);
+            }
+        }
+
+        // parse them
+        ProblemMarkerSynchronizer sync = new ProblemMarkerSynchronizer();
+        List<ProblemMarkerSynchronizer> fileMarkerSyncs = new ArrayList<ProblemMarkerSynchronizer>();
+        List<NedFileElementEx> trees = parseNedFilesInParallel(files, sync, fileMarkerSyncs);
+
+        // store them
+        synchronized (this) {
+            try {
+                // disable all ned model notifications until all files have been processed
+                nedModelChangeNotificationDisabled = true;
+                debugRehashCounter = 0;
+
+                for (int i = 0; i < trees.size(); i++) {
+                    IFile file = files.get(i);
+                    NedFileElementEx tree = trees.get(i);
+                    // the file may have been loaded meanwhile, or the projects table may have changed due to a package.ned
+                    if (tree != null && !nedFiles.containsKey(file) && isNedFile(file)) {
+                        sync.merge(fileMarkerSyncs.get(i));
+                        storeParsedNedFile(file, tree);
+                    }
+                }
+                sync.runAsWorkspaceJob();
+                rehashIfNeeded();
+            }
+            finally {
+                nedModelChangeNotificationDisabled = false;
+                Assert.isTrue(debugRehashCounter <= 1, "Too many rehash operations during readMissingNedFiles()");
+                nedModelChanged(new NedModelChangeEvent(null));  // "everything changed"
+            }
+        }
+    }
+
+    /**
+     * Parses the given NED files on a thread pool, and returns the trees in the order
+     * of the list (null for files that could not be read). Each file is parsed with
+     * its own marker synchronizer, which is added to fileMarkerSyncs. If the thread is
+     * interrupted, the returned list is shorter; the remaining files will be read next time.
+     */
+    protected List<NedFileElementEx> parseNedFilesInParallel(List<IFile> files, ProblemMarkerSynchronizer markerSync, List<ProblemMarkerSynchronizer> fileMarkerSyncs) {
+        List<NedFileElementEx> trees = new ArrayList<NedFileElementEx>();
+        if (files.isEmpty())
+            return trees;
+        long startMillis = System.currentTimeMillis();
+        int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, (runnable) -> {
+            Thread thread = new Thread(runnable, "NED file parser");
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
-            // disable all ned model notifications until all files have been processed
-            nedModelChangeNotificationDisabled = true;
-            debugRehashCounter = 0;
+            List<Future<NedFileElementEx>> futures = new ArrayList<Future<NedFileElementEx>>();
+            for (IFile file : files) {
+                ProblemMarkerSynchronizer fileMarkerSync = new ProblemMarkerSynchronizer(markerSync.getBaseMarkerType());
+                fileMarkerSyncs.add(fileMarkerSync);
+                futures.add(executor.submit(() -> parseNedFile(file, fileMarkerSync)));
+            }
 
-            // read NED files that are not yet loaded
-            final ProblemMarkerSynchronizer sync = new ProblemMarkerSynchronizer();
-            IWorkspaceRoot workspaceRoot = ResourcesPlugin.getWorkspace().getRoot();
-            workspaceRoot.accept(new IResourceVisitor() {
-                public boolean visit(IResource resource) {
-                    if (!nedFiles.containsKey(resource) && isNedFile(resource))
-                        doReadNedFile((IFile)resource, sync);
-                    return true;
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    trees.add(futures.get(i).get());
                 }
-            });
-            sync.runAsWorkspaceJob();
-            rehashIfNeeded();
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                catch (ExecutionException e) {
+                    NedResourcesPlugin.logError("Error reading NED file " + files.get(i).getFullPath(), e.getCause());
+                    trees.add(null);
+                }
+            }
         }
-        catch (CoreException e) {
-            NedResourcesPlugin.logError("Error during workspace refresh: ",e);
-        } finally {
-            nedModelChangeNotificationDisabled = false;
-            Assert.isTrue(debugRehashCounter <= 1, "Too many rehash operations during readMissingNedFiles()");
-            nedModelChanged(new NedModelChangeEvent(null));  // "everything changed"
+        finally {
+            executor.shutdownNow();
         }
+
+        if (debug)
+            Debug.println("parseNedFilesInParallel(): " + files.size() + " files using " + numThreads + " threads in " + (System.currentTimeMillis() - startMillis) + "ms");
+        return trees;
     }
 
     public synchronized INedTypeResolver getImmutableCopy() {
@@ -536,6 +682,16 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
         return immutableCopy == copy;
     }
 
+    /**
+     * Internal, for NedValidationJob: returns the files that changed since the previous
+     * call, or null if all files need to be validated (e.g. after a project change).
+     */
+    protected synchronized Set<IFile> takeFilesChangedSinceValidation() {
+        Set<IFile> result = filesChangedSinceValidation;
+        filesChangedSinceValidation = new HashSet<IFile>();
+        return result;
+    }
+
     // ******************* notification helpers ************************************
 
     public void addNedModelChangeListener(INedChangeListener listener) {
@@ -562,7 +718,11 @@ public class NedResources extends NedTypeResolver implements INedResources, IRes
         if (event instanceof NedModelChangeEvent) {
             INedElement source = ((NedModelChangeEvent)event).getSource();
             Assert.isTrue(source==null || refactoringInProgress || source instanceof NedFileElementEx || hasConnectedEditor(getNedFile(source.getContainingNedFileElement())), "NED trees not opened in any editor must NOT be changed");
-            invalidate();
+            IFile file = source == null ? null : nedElementFiles.get(source.getContainingNedFileElement()); // null if not in a registered file
+            if (file != null)
+                invalidate(file);
+            else
+                invalidate();
             nedValidationStarterJob.restartTimer(); //FIXME obey begin/end notifications too!
         }
 
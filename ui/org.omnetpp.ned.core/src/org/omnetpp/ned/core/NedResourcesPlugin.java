@@ -21,6 +21,7 @@ import org.omnetpp.common.editor.EditorUtil;
 import org.omnetpp.ned.model.INedElement;
 import org.omnetpp.ned.model.interfaces.INedTypeInfo;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
 
 /**
  * Activator for the plug-in.
@@ -36,6 +37,8 @@ public class NedResourcesPlugin extends AbstractUIPlugin {
 
     private NedSourceFoldersEditingManager nedSourceFoldersEditingManager = new NedSourceFoldersEditingManager();
 
+    private NedTreeCache nedTreeCache;
+
     /**
      * The constructor.
      */
@@ -50,6 +53,8 @@ public class NedResourcesPlugin extends AbstractUIPlugin {
     public void start(BundleContext context) throws Exception {
         super.start(context);
         PLUGIN_ID = getBundle().getSymbolicName();
+        String modelVersion = FrameworkUtil.getBundle(INedElement.class).getVersion().toString();
+        nedTreeCache = new NedTreeCache(getStateLocation().append("nedtrees").toFile(), modelVersion);
     }
 
     /**
@@ -85,6 +90,14 @@ public class NedResourcesPlugin extends AbstractUIPlugin {
         return MsgResources.getInstance();
     }
 
+    /**
+     * Returns the persistent cache of parsed NED and MSG files, or null if the
+     * plugin is not active.
+     */
+    public static NedTreeCache getNedTreeCache() {
+        return plugin == null ? null : plugin.nedTreeCache;
+    }
+
     /**
      * When more than one property pages edit the ".nedfolders" file, they can
      * communicate via NedSourceFoldersEditingManager, i.e. can edit the same
@@ -0,0 +1,309 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.ned.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.resources.IFile;
+import org.omnetpp.common.Debug;
+import org.omnetpp.ned.model.INedElement;
+import org.omnetpp.ned.model.NedSourceRegion;
+import org.omnetpp.ned.model.ex.NedElementFactoryEx;
+import org.omnetpp.ned.model.interfaces.INedTypeResolver;
+
+/**
+ * Persistent cache of parsed NED and MSG file trees, so that files which did not
+ * change need not be parsed again when the IDE is restarted.
+ *
+ * Each file has its own entry in the cache directory, named after a digest of the
+ * file path, which is read on demand. An entry is only used if the file path and
+ * size match those of the file, and either the modification time or the content hash
+ * (CRC32) matches, too; otherwise the caller should parse the file, and store the new
+ * tree. The file content is only read (and hashed) if it is needed, i.e. when the
+ * file was touched without changing its size, or when a new tree is stored. The
+ * trees are stored in a compact binary format, with
+ * repeated strings (e.g. the source file name) written only once per entry. Entries
+ * written by a different version of the NED model are ignored, because tag codes
+ * and attribute indices may have changed.
+ *
+ * Entries of different files may be loaded and stored concurrently.
+ */
+public class NedTreeCache {
+    private static final boolean debug = false;
+
+    private static final int MAGIC = 0x4e454443; // "NEDC"
+    private static final int FORMAT_VERSION = 1;
+
+    private File directory;
+    private String modelVersion;
+
+    /**
+     * Identifies the content of a file at the time it was read.
+     */
+    public static class Key {
+        private IFile file;
+        private File localFile;
+        private String path;
+        private long size;
+        private long lastModified;
+        private long contentHash;
+        private byte[] content; // read on demand
+
+        /**
+         * Returns the content of the file, reading it on the first call.
+         */
+        public byte[] getContent() throws IOException {
+            if (content == null) {
+                byte[] bytes = Files.readAllBytes(localFile.toPath());
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                contentHash = crc.getValue();
+                content = bytes;
+            }
+            return content;
+        }
+
+        protected long getContentHash() throws IOException {
+            getContent();
+            return contentHash;
+        }
+    }
+
+    /**
+     * Creates a cache that stores its entries in the given directory. Entries are
+     * only valid for the given version of the NED model.
+     */
+    public NedTreeCache(File directory, String modelVersion) {
+        this.directory = directory;
+        this.modelVersion = modelVersion;
+    }
+
+    /**
+     * Returns the key that identifies the current content of the given file, based on
+     * its size and modification time. The file itself is not read. Returns null if
+     * the file does not exist in the file system.
+     */
+    public Key createKey(IFile file) {
+        if (file.getLocation() == null)
+            return null;
+        File localFile = file.getLocation().toFile();
+        if (!localFile.isFile())
+            return null;
+        Key key = new Key();
+        key.file = file;
+        key.localFile = localFile;
+        key.path = file.getFullPath().toString();
+        key.lastModified = localFile.lastModified(); // before reading, so that a concurrent change is not missed
+        key.size = localFile.length();
+        return key;
+    }
+
+    /**
+     * Returns true if the file has not been modified since the key was created.
+     */
+    public boolean isUpToDate(Key key) {
+        File localFile = key.file.getLocation() == null ? null : key.file.getLocation().toFile();
+        return localFile != null && localFile.lastModified() == key.lastModified && localFile.length() == key.size;
+    }
+
+    /**
+     * Returns the cached tree for the file content identified by the key, or null
+     * if there is no valid entry. The resolver is passed to the NED type elements
+     * created; it should be null for MSG files.
+     */
+    public INedElement load(Key key, INedTypeResolver resolver) {
+        File entryFile = getEntryFile(key.path);
+        if (!entryFile.isFile())
+            return null;
+        INedElement tree;
+        boolean touched;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entryFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(modelVersion))
+                return null;
+            if (!in.readUTF().equals(key.path) || in.readLong() != key.size)
+                return null;
+            long lastModified = in.readLong();
+            long contentHash = in.readLong();
+            touched = lastModified != key.lastModified;
+            if (touched && !hasContentHash(key, contentHash))
+                return null;
+            tree = readElement(in, new ArrayList<String>(), resolver, null);
+        }
+        catch (IOException | RuntimeException e) {
+            // corrupt or incompatible entry: drop it, the file will be parsed and stored again
+            if (debug)
+                Debug.println("NedTreeCache: cannot load " + key.path + ": " + e);
+            entryFile.delete();
+            return null;
+        }
+        if (debug)
+            Debug.println("NedTreeCache: loaded " + key.path + (touched ? " (touched)" : ""));
+        if (touched)
+            store(key, tree); // so that the file need not be hashed next time
+        return tree;
+    }
+
+    protected boolean hasContentHash(Key key, long contentHash) {
+        try {
+            return key.getContentHash() == contentHash;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stores the tree parsed from the file content identified by the key.
+     * The tree should not contain syntax errors.
+     */
+    public void store(Key key, INedElement tree) {
+        File entryFile = getEntryFile(key.path);
+        File tempFile = null;
+        try {
+            directory.mkdirs();
+            tempFile = File.createTempFile(entryFile.getName(), ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(modelVersion);
+                out.writeUTF(key.path);
+                out.writeLong(key.size);
+                out.writeLong(key.lastModified);
+                out.writeLong(key.getContentHash());
+                writeElement(out, new HashMap<String, Integer>(), tree);
+            }
+            Files.move(tempFile.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (debug)
+                Debug.println("NedTreeCache: stored " + key.path);
+        }
+        catch (IOException e) {
+            NedResourcesPlugin.logError("Cannot store parsed tree of " + key.path + " in the cache", e);
+            if (tempFile != null)
+                tempFile.delete();
+        }
+    }
+
+    /**
+     * Removes the entry of the given file, e.g. because the file was deleted.
+     */
+    public void remove(IFile file) {
+        getEntryFile(file.getFullPath().toString()).delete();
+    }
+
+    protected File getEntryFile(String path) {
+        return new File(directory, getDigest(path));
+    }
+
+    /**
+     * Returns the SHA-1 digest of the given string in hex.
+     */
+    protected static String getDigest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder();
+            for (byte b : digest)
+                result.append(String.format("%02x", b));
+            return result.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected static void writeElement(DataOutputStream out, Map<String, Integer> strings, INedElement element) throws IOException {
+        out.writeShort(element.getTagCode());
+        int numAttributes = element.getNumAttributes();
+        out.writeShort(numAttributes);
+        for (int i = 0; i < numAttributes; i++)
+            writeString(out, strings, element.getAttribute(i));
+
+        writeString(out, strings, element.getSourceFileName());
+        out.writeInt(element.getSourceLineNumber());
+        NedSourceRegion region = element.getSourceRegion();
+        out.writeBoolean(region != null);
+        if (region != null) {
+            out.writeInt(region.getStartLine());
+            out.writeInt(region.getStartColumn());
+            out.writeInt(region.getEndLine());
+            out.writeInt(region.getEndColumn());
+        }
+
+        out.writeInt(element.getNumChildren());
+        for (INedElement child : element)
+            writeElement(out, strings, child);
+    }
+
+    protected static INedElement readElement(DataInputStream in, List<String> strings, INedTypeResolver resolver, INedElement parent) throws IOException {
+        int tagCode = in.readShort();
+        INedElement element = NedElementFactoryEx.getInstance().createElement(resolver, tagCode, parent);
+        int numAttributes = in.readShort();
+        if (numAttributes != element.getNumAttributes())
+            throw new IOException("attribute count mismatch for <" + element.getTagName() + ">");
+        for (int i = 0; i < numAttributes; i++)
+            element.setAttribute(i, readString(in, strings));
+
+        String sourceFileName = readString(in, strings);
+        element.setSourceLocation(sourceFileName, in.readInt());
+        if (in.readBoolean())
+            element.setSourceRegion(new NedSourceRegion(in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+
+        int numChildren = in.readInt();
+        for (int i = 0; i < numChildren; i++)
+            readElement(in, strings, resolver, element);
+        return element;
+    }
+
+    /**
+     * Strings are written as -1 for null, as -(index+2) if the string occurred
+     * earlier in the entry, or as the length and the UTF-8 bytes otherwise.
+     */
+    protected static void writeString(DataOutputStream out, Map<String, Integer> strings, String value) throws IOException {
+        if (value == null)
+            out.writeInt(-1);
+        else if (strings.containsKey(value))
+            out.writeInt(-(strings.get(value) + 2));
+        else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            strings.put(value, strings.size());
+        }
+    }
+
+    protected static String readString(DataInputStream in, List<String> strings) throws IOException {
+        int length = in.readInt();
+        if (length == -1)
+            return null;
+        else if (length < -1)
+            return strings.get(-length - 2);
+        else {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+}
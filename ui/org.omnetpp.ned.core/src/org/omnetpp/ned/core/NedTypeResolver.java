@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,6 +53,13 @@ public class NedTypeResolver implements INedTypeResolver {
     protected Map<INedTypeLookupContext, Map<String, INedTypeInfo>> nedTypeLookupCache = new HashMap<INedTypeLookupContext, Map<String,INedTypeInfo>>();
     protected Map<IProject, Map<INedTypeInfo, Map<String, INedTypeInfo>>> nedLikeTypeLookupCache = new HashMap<IProject, Map<INedTypeInfo,Map<String,INedTypeInfo>>>();
 
+    // toplevel types of each file as registered in the projects table, with the qualified names they were registered with
+    protected final Map<IFile, Map<INedTypeElement, String>> registeredTypes = new HashMap<IFile, Map<INedTypeElement,String>>();
+
+    // files whose types need to be re-registered by the next rehash, unless a full rehash is needed
+    protected final Set<IFile> changedFiles = new HashSet<IFile>();
+    protected boolean needsFullRehash = true;
+
     // file element to contain built-in declarations (does not correspond to any physical file)
     protected NedFileElementEx builtInDeclarationsFile;
 
@@ -78,6 +86,10 @@ public class NedTypeResolver implements INedTypeResolver {
         // reserved (used) fully qualified names (contains all names including duplicates)
         final Set<String> reservedNames = new HashSet<String>();
 
+        // all toplevel types including built-in ones and duplicates, in registration order;
+        // keys are fully qualified names. The above tables are derived from this one.
+        final Map<String, List<INedTypeElement>> definitions = new HashMap<String, List<INedTypeElement>>();
+
         @Override
         public String toString() {
             return "references: " + StringUtils.join(referencedProjects, ",") +
@@ -123,73 +135,157 @@ public class NedTypeResolver implements INedTypeResolver {
         internalRehash();
     }
 
+    /**
+     * Updates the projects table. If only some files have changed since the last
+     * rehash (see changedFiles), only the types added to or removed from those
+     * files are updated, in the projects that can see them.
+     */
     protected void internalRehash() {
         long startMillis = System.currentTimeMillis();
+        boolean full = needsFullRehash;
+        int numChangedFiles = changedFiles.size();
+        int numChangedTypes = 0;
+
+        if (full)
+            fullRehash();
+        else {
+            for (IFile file : changedFiles)
+                numChangedTypes += rehashFile(file);
+        }
+        needsFullRehash = false;
+        changedFiles.clear();
+
+        if (debug) {
+            long dt = System.currentTimeMillis() - startMillis;
+            if (full)
+                Debug.println("rehash(): full, " + dt + "ms, " + nedFiles.size() + " files, " + projects.size() + " projects");
+            else
+                Debug.println("rehash(): incremental, " + dt + "ms, " + numChangedFiles + " changed files, " + numChangedTypes + " added/removed types, " + nedFiles.size() + " files, " + projects.size() + " projects");
+        }
+    }
 
+    protected void fullRehash() {
         // clear tables and re-register built-in declarations for all projects
+        registeredTypes.clear();
         for (ProjectData projectData : projects.values()) {
             projectData.components.clear();
             projectData.duplicates.clear();
             projectData.reservedNames.clear();
-            for (INedElement child : builtInDeclarationsFile) {
-                if (child instanceof INedTypeElement) {
-                    INedTypeInfo typeInfo = ((INedTypeElement)child).getNedTypeInfo();
-                    projectData.components.put(typeInfo.getFullyQualifiedName(), typeInfo);
-                }
+            projectData.definitions.clear();
+            for (INedElement child : builtInDeclarationsFile)
+                if (child instanceof INedTypeElement)
+                    addDefinition(projectData, ((INedTypeElement)child).getNedTypeInfo().getFullyQualifiedName(), (INedTypeElement)child);
+        }
+
+        // register NED types of each file in all projects that can see the file
+        for (IFile file : nedFiles.keySet()) {
+            Map<INedTypeElement, String> types = collectToplevelTypes(nedFiles.get(file));
+            registeredTypes.put(file, types);
+            for (IProject project : getProjectsSeeing(file.getProject())) {
+                ProjectData projectData = projects.get(project);
+                for (Map.Entry<INedTypeElement, String> entry : types.entrySet())
+                    addDefinition(projectData, entry.getValue(), entry.getKey());
             }
-            projectData.reservedNames.addAll(projectData.components.keySet());
         }
 
-        // register NED types in all projects
-        for (IProject project : projects.keySet()) {
-            ProjectData projectData = projects.get(project);
+        if (debug)
+            for (IProject project : projects.keySet())
+                Debug.println("types in project " + project.getName() + ": " + StringUtils.join(projects.get(project).components.keySet(), ", ", " and "));
+    }
 
-            // find NED types in each file, and register them
-            for (IFile file : nedFiles.keySet()) {
-                // file must be in this project or a referenced project
-                if (file.getProject().equals(project) || ArrayUtils.contains(projectData.referencedProjects, file.getProject())) {
-
-                    // collect toplevel types from the NED file, and process them one by one
-                    for (INedElement child : nedFiles.get(file)) {
-                        if (child instanceof INedTypeElement) {
-                            INedTypeElement typeElement = (INedTypeElement) child;
-                            Assert.isTrue(typeElement.getResolver() == this);
-                            INedTypeInfo typeInfo = typeElement.getNedTypeInfo();
-                            String qualifiedName = typeInfo.getFullyQualifiedName();
-
-                            if (projectData.reservedNames.contains(qualifiedName)) {
-                                if (!projectData.duplicates.containsKey(qualifiedName))
-                                    projectData.duplicates.put(qualifiedName, new ArrayList<INedTypeElement>());
-                                projectData.duplicates.get(qualifiedName).add(typeElement);
-                            }
-                            else {
-                                // normal case: not duplicate. Add the type info to our tables.
-                                projectData.components.put(qualifiedName, typeInfo);
-                            }
-
-                            // add to the name list even if it was duplicate
-                            projectData.reservedNames.add(qualifiedName);
-                        }
-                    }
-                }
+    /**
+     * Re-registers the types of the given file (which may have been removed) in
+     * all projects that can see it. Returns the number of added and removed types.
+     */
+    protected int rehashFile(IFile file) {
+        Map<INedTypeElement, String> oldTypes = registeredTypes.remove(file);
+        NedFileElementEx nedFileElement = nedFiles.get(file);
+        Map<INedTypeElement, String> newTypes = nedFileElement == null ? new LinkedHashMap<INedTypeElement, String>() : collectToplevelTypes(nedFileElement);
+        if (nedFileElement != null)
+            registeredTypes.put(file, newTypes);
+
+        // diff by element and name, because types may be renamed in place
+        List<INedTypeElement> removedTypes = new ArrayList<INedTypeElement>();
+        if (oldTypes != null)
+            for (Map.Entry<INedTypeElement, String> entry : oldTypes.entrySet())
+                if (!entry.getValue().equals(newTypes.get(entry.getKey())))
+                    removedTypes.add(entry.getKey());
+        List<INedTypeElement> addedTypes = new ArrayList<INedTypeElement>();
+        for (Map.Entry<INedTypeElement, String> entry : newTypes.entrySet())
+            if (oldTypes == null || !entry.getValue().equals(oldTypes.get(entry.getKey())))
+                addedTypes.add(entry.getKey());
+
+        if (!removedTypes.isEmpty() || !addedTypes.isEmpty()) {
+            for (IProject project : getProjectsSeeing(file.getProject())) {
+                ProjectData projectData = projects.get(project);
+                for (INedTypeElement typeElement : removedTypes)
+                    removeDefinition(projectData, oldTypes.get(typeElement), typeElement);
+                for (INedTypeElement typeElement : addedTypes)
+                    addDefinition(projectData, newTypes.get(typeElement), typeElement);
             }
+        }
+        return removedTypes.size() + addedTypes.size();
+    }
 
-            // now we should remove all types that were duplicates
-            for (String name : projectData.duplicates.keySet()) {
-                projectData.duplicates.get(name).add(projectData.components.get(name).getNedElement());
-                projectData.components.remove(name);
+    protected Map<INedTypeElement, String> collectToplevelTypes(NedFileElementEx nedFileElement) {
+        Map<INedTypeElement, String> result = new LinkedHashMap<INedTypeElement, String>();
+        for (INedElement child : nedFileElement) {
+            if (child instanceof INedTypeElement) {
+                INedTypeElement typeElement = (INedTypeElement) child;
+                Assert.isTrue(typeElement.getResolver() == this);
+                result.put(typeElement, typeElement.getNedTypeInfo().getFullyQualifiedName());
             }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the projects whose NED types may come from the given project:
+     * the project itself and the projects that reference it.
+     */
+    protected Set<IProject> getProjectsSeeing(IProject project) {
+        Set<IProject> result = new HashSet<IProject>();
+        for (Map.Entry<IProject, ProjectData> entry : projects.entrySet())
+            if (entry.getKey().equals(project) || ArrayUtils.contains(entry.getValue().referencedProjects, project))
+                result.add(entry.getKey());
+        return result;
+    }
 
-            if (debug)
-                Debug.println("types in project " + project.getName() + ": " + StringUtils.join(projectData.components.keySet(), ", ", " and "));
+    protected static void addDefinition(ProjectData projectData, String qualifiedName, INedTypeElement typeElement) {
+        List<INedTypeElement> list = projectData.definitions.get(qualifiedName);
+        if (list == null)
+            projectData.definitions.put(qualifiedName, list = new ArrayList<INedTypeElement>());
+        list.add(typeElement);
+        updateTables(projectData, qualifiedName);
+    }
 
-        }
+    protected static void removeDefinition(ProjectData projectData, String qualifiedName, INedTypeElement typeElement) {
+        List<INedTypeElement> list = projectData.definitions.get(qualifiedName);
+        if (list != null && list.remove(typeElement) && list.isEmpty())
+            projectData.definitions.remove(qualifiedName);
+        updateTables(projectData, qualifiedName);
+    }
 
-        if (debug) {
-            long dt = System.currentTimeMillis() - startMillis;
-            Debug.println("rehash(): " + dt + "ms, " + nedFiles.size() + " files, " + projects.size() + " projects");
+    /**
+     * Updates components, duplicates and reservedNames for the given name from definitions.
+     */
+    protected static void updateTables(ProjectData projectData, String qualifiedName) {
+        List<INedTypeElement> list = projectData.definitions.get(qualifiedName);
+        projectData.components.remove(qualifiedName);
+        projectData.duplicates.remove(qualifiedName);
+        if (list == null)
+            projectData.reservedNames.remove(qualifiedName);
+        else {
+            projectData.reservedNames.add(qualifiedName);
+            if (list.size() == 1)
+                projectData.components.put(qualifiedName, list.get(0).getNedTypeInfo());
+            else {
+                // the first registered type comes last, like other duplicates were found after it
+                List<INedTypeElement> duplicateList = new ArrayList<INedTypeElement>(list.subList(1, list.size()));
+                duplicateList.add(list.get(0));
+                projectData.duplicates.put(qualifiedName, duplicateList);
+            }
         }
-
     }
 
     /**
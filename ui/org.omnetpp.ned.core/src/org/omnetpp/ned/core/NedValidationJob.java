@@ -1,5 +1,21 @@
 package org.omnetpp.ned.core;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -9,18 +25,42 @@ import org.omnetpp.common.Debug;
 import org.omnetpp.common.markers.ProblemMarkerSynchronizer;
 import org.omnetpp.ned.model.INedElement;
 import org.omnetpp.ned.model.ex.NedFileElementEx;
+import org.omnetpp.ned.model.interfaces.INedTypeElement;
 import org.omnetpp.ned.model.interfaces.INedTypeResolver;
+import org.omnetpp.ned.model.interfaces.ISubmoduleOrConnection;
+import org.omnetpp.ned.model.pojo.ExtendsElement;
+import org.omnetpp.ned.model.pojo.InterfaceNameElement;
 
 
 /**
- * Validates all NED files for consistency (no such parameter/gate/module-type, redeclarations,
+ * Validates NED files for consistency (no such parameter/gate/module-type, redeclarations,
  * duplicate types, cycles in the inheritance chain, etc). All consistency problem markers
  * (NEDCONSISTENCYPROBLEM_MARKERID) are managed within this job.
+ *
+ * Validation is incremental: only the files that changed since the last successful run,
+ * and the files that (transitively) depend on them are validated. Dependencies are tracked
+ * by simple type names: a file depends on the files that define a type name it refers to
+ * in imports, "extends" and "like" clauses, and submodule and connection types. Files
+ * defining the same name are also validated together, so that duplicate type errors are
+ * kept up to date. When many files need to be validated, they are distributed among
+ * several threads, each working on its own immutable copy of the NED trees (type info
+ * objects and lookup caches are filled in lazily, and are not thread-safe). Markers of
+ * all validated files are updated in a single ProblemMarkerSynchronizer pass.
  */
 public class NedValidationJob extends Job {
+    private static final String WILDCARD = "*"; // stands for wildcard imports, and for changes in the set of defined types
+    private static final int MIN_FILES_PER_THREAD = 32; // fewer files do not pay off the immutable copy made for the thread
+
     private boolean validateOpenNedFilesOnly = false; //TODO such preference might be useful for netbooks
     private int retryCount = 0;
 
+    // files changed since the last successful validation; null means all files
+    private Set<IFile> pendingFiles = null;
+
+    // dependency information of the files, as of the last successful validation
+    private Map<IFile, Set<String>> definedNames = new HashMap<IFile, Set<String>>();
+    private Map<IFile, Set<String>> referencedNames = new HashMap<IFile, Set<String>>();
+
     public NedValidationJob() {
         super("Checking NED files...");
     }
@@ -53,40 +93,65 @@ public class NedValidationJob extends Job {
         long startTime = System.currentTimeMillis();
         Debug.println("NED validation job started working");
 
-        INedResources nedResources = NedResourcesPlugin.getNedResources();
+        NedResources nedResources = NedResources.getInstance();
 
-        int numWorkUnits = 3 + nedResources.getNedFiles().size();
-        monitor.beginTask(getName(), numWorkUnits);
+        // we'll analyze an immutable copy, so that NedResources doesn't need to be locked;
+        // changed files are collected until the validation succeeds
+        INedTypeResolver immutableResolver;
+        synchronized (nedResources) {
+            immutableResolver = nedResources.getImmutableCopy();
+            Set<IFile> changedFiles = nedResources.takeFilesChangedSinceValidation();
+            if (changedFiles == null)
+                pendingFiles = null;
+            else if (pendingFiles != null)
+                pendingFiles.addAll(changedFiles);
+        }
 
-        // we'll analyze an immutable copy, so that NedResources doesn't need to be locked
-        INedTypeResolver immutableResolver = nedResources.getImmutableCopy();
+        // determine which files need to be validated
+        Map<IFile, Set<String>> newDefinedNames = new HashMap<IFile, Set<String>>();
+        Map<IFile, Set<String>> newReferencedNames = new HashMap<IFile, Set<String>>();
+        Set<IFile> filesToValidate = collectFilesToValidate(immutableResolver, newDefinedNames, newReferencedNames);
+
+        int numWorkUnits = 3 + filesToValidate.size();
+        monitor.beginTask(getName(), numWorkUnits);
         monitor.worked(1);
 
         ProblemMarkerSynchronizer markerSync = new ProblemMarkerSynchronizer(INedTypeResolver.NEDCONSISTENCYPROBLEM_MARKERID);
-        NedMarkerErrorStore errorStore = new NedMarkerErrorStore(markerSync);
+        NedMarkerErrorStore errorStore = new NedMarkerErrorStore(markerSync) {
+            private boolean isFileValidated;
+
+            @Override
+            public void setFile(IFile file) {
+                // only touch the markers of the files being validated
+                isFileValidated = filesToValidate.contains(file);
+                if (isFileValidated)
+                    super.setFile(file);
+            }
+
+            @Override
+            public void add(int severity, INedElement context, int line, String message) {
+                if (isFileValidated)
+                    super.add(severity, context, line, message);
+            }
+        };
 
         // clear old consistency error markers from NED trees
-        clearConsistencyProblemSeverities(immutableResolver);
+        clearConsistencyProblemSeverities(immutableResolver, filesToValidate);
 
         // issue error message for duplicates
         immutableResolver.addErrorsForDuplicates(errorStore);
         monitor.worked(1);
 
-        // validate all files
-        for (IFile file : immutableResolver.getNedFiles()) {
-            NedFileElementEx nedFileElement = immutableResolver.getNedFileElement(file);
-            errorStore.setFile(file);
-            new NedValidator(immutableResolver, file.getProject(), errorStore).validate(nedFileElement);
-            monitor.worked(1);
-
-            if (!nedResources.isImmutableCopyUpToDate(immutableResolver)) {
-                Debug.println("NED validation job: NED trees changed meanwhile, abandoning after " + (System.currentTimeMillis()-startTime) + "ms of work");
-                return false;
-            }
-            if (monitor.isCanceled()) {
-                Debug.println("NED validation job: cancelled after " + (System.currentTimeMillis()-startTime) + "ms of work");
-                return false;
-            }
+        // validate files
+        List<IFile> files = new ArrayList<IFile>(filesToValidate);
+        int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), files.size() / MIN_FILES_PER_THREAD);
+        List<Set<INedElement>> threadAffectedElementsList = new ArrayList<Set<INedElement>>();
+        boolean completed = numThreads <= 1 ?
+                validateFiles(files, immutableResolver, errorStore, immutableResolver, nedResources, monitor, true) :
+                validateFilesInParallel(files, numThreads, immutableResolver, markerSync, threadAffectedElementsList, nedResources, monitor);
+        if (!completed) {
+            Debug.println("NED validation job: " + (monitor.isCanceled() ? "cancelled" : "NED trees changed meanwhile, abandoning") + " after " + (System.currentTimeMillis()-startTime) + "ms of work");
+            return false;
         }
 
         // lock NedResources while we copy marker severities onto NED trees in it
@@ -101,18 +166,31 @@ public class NedValidationJob extends Job {
                 nedResources.fireBeginChangeEvent();
 
                 // clear old consistency error markers from NED trees
-                clearConsistencyProblemSeverities(nedResources);
+                clearConsistencyProblemSeverities(nedResources, filesToValidate);
 
-                // put validation errors
+                // put validation errors; elements validated in parallel are copies of the immutable copy,
+                // and they also carry the severities of the duplicate type errors
                 for (INedElement element : errorStore.getAffectedElements()) {
                     INedElement original = element.getOriginal();
                     original.setConsistencyProblemMaxLocalSeverity(element.getConsistencyProblemMaxLocalSeverity());
                 }
+                for (Set<INedElement> affectedElements : threadAffectedElementsList) {
+                    for (INedElement element : affectedElements) {
+                        INedElement original = element.getOriginal().getOriginal();
+                        original.setConsistencyProblemMaxLocalSeverity(element.getConsistencyProblemMaxLocalSeverity());
+                    }
+                }
 
                 // we need to do the synchronization in a background job, to avoid deadlocks
                 markerSync.runAsWorkspaceJob();
 
-                Debug.println("NED validation job completed: spent " + (midTime-startTime) + "ms in background, " + (System.currentTimeMillis()-midTime) + "ms blocking, " + markerSync.getNumberOfMarkers() + " markers on " + markerSync.getNumberOfFiles() + " files");
+                // the validation is complete, remember dependencies for the next run
+                pendingFiles = new HashSet<IFile>();
+                definedNames = newDefinedNames;
+                referencedNames = newReferencedNames;
+
+                Debug.println("NED validation job completed: validated " + filesToValidate.size() + " of " + immutableResolver.getNedFiles().size() + " files using " + Math.max(numThreads, 1) + " threads, " +
+                        "spent " + (midTime-startTime) + "ms in background, " + (System.currentTimeMillis()-midTime) + "ms blocking, " + markerSync.getNumberOfMarkers() + " markers on " + markerSync.getNumberOfFiles() + " files");
                 monitor.worked(1);
 
                 return true;
@@ -123,8 +201,178 @@ public class NedValidationJob extends Job {
         }
     }
 
-    private void clearConsistencyProblemSeverities(INedTypeResolver resolver) {
-        for (IFile file : resolver.getNedFiles())
+    /**
+     * Computes the dependency information of the files changed since the last successful
+     * validation into the given maps, and returns the files that need to be validated:
+     * the changed files, and the files that depend on them directly or transitively.
+     */
+    protected Set<IFile> collectFilesToValidate(INedTypeResolver resolver, Map<IFile, Set<String>> newDefinedNames, Map<IFile, Set<String>> newReferencedNames) {
+        Set<IFile> nedFiles = resolver.getNedFiles();
+        boolean validateAll = pendingFiles == null;
+        if (!validateAll) {
+            newDefinedNames.putAll(definedNames);
+            newReferencedNames.putAll(referencedNames);
+        }
+
+        // update the changed files, and collect the names whose meaning may have changed
+        Set<IFile> changedFiles = new HashSet<IFile>();
+        Set<String> changedNames = new HashSet<String>();
+        for (IFile file : validateAll ? nedFiles : pendingFiles) {
+            Set<String> oldNames = newDefinedNames.remove(file);
+            newReferencedNames.remove(file);
+            if (oldNames != null)
+                changedNames.addAll(oldNames);
+            if (nedFiles.contains(file)) {
+                NedFileElementEx nedFileElement = resolver.getNedFileElement(file);
+                Set<String> names = collectDefinedNames(nedFileElement);
+                if (!names.equals(oldNames))
+                    changedNames.add(WILDCARD);
+                changedNames.addAll(names);
+                newDefinedNames.put(file, names);
+                newReferencedNames.put(file, collectReferencedNames(nedFileElement));
+                changedFiles.add(file);
+            }
+        }
+        if (validateAll)
+            return changedFiles;
+
+        // index the files by the names they define or refer to
+        Map<String, List<IFile>> filesByName = new HashMap<String, List<IFile>>();
+        for (Map<IFile, Set<String>> map : Arrays.asList(newDefinedNames, newReferencedNames))
+            for (Map.Entry<IFile, Set<String>> entry : map.entrySet())
+                for (String name : entry.getValue())
+                    filesByName.computeIfAbsent(name, k -> new ArrayList<IFile>()).add(entry.getKey());
+
+        // add dependent files; the names they define may in turn affect further files
+        Set<IFile> result = new HashSet<IFile>(changedFiles);
+        Deque<String> queue = new ArrayDeque<String>(changedNames);
+        Set<String> visitedNames = new HashSet<String>(changedNames);
+        while (!queue.isEmpty()) {
+            for (IFile file : filesByName.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (result.add(file)) {
+                    for (String name : newDefinedNames.get(file))
+                        if (visitedNames.add(name))
+                            queue.add(name);
+                }
+            }
+        }
+        return result;
+    }
+
+    protected static Set<String> collectDefinedNames(NedFileElementEx nedFileElement) {
+        Set<String> result = new HashSet<String>();
+        for (INedTypeElement typeElement : nedFileElement.getTopLevelTypeNodes())
+            result.add(typeElement.getName());
+        return result;
+    }
+
+    protected static Set<String> collectReferencedNames(NedFileElementEx nedFileElement) {
+        Set<String> result = new HashSet<String>();
+        for (String importSpec : nedFileElement.getImports())
+            addReferencedName(importSpec, result);
+        collectReferencedNames(nedFileElement, result);
+        return result;
+    }
+
+    private static void collectReferencedNames(INedElement element, Set<String> result) {
+        if (element instanceof ExtendsElement)
+            addReferencedName(((ExtendsElement)element).getName(), result);
+        else if (element instanceof InterfaceNameElement)
+            addReferencedName(((InterfaceNameElement)element).getName(), result);
+        else if (element instanceof ISubmoduleOrConnection) {
+            addReferencedName(((ISubmoduleOrConnection)element).getType(), result);
+            addReferencedName(((ISubmoduleOrConnection)element).getLikeType(), result);
+        }
+        for (INedElement child : element)
+            collectReferencedNames(child, result);
+    }
+
+    private static void addReferencedName(String typeName, Set<String> result) {
+        if (typeName == null || typeName.isEmpty())
+            return;
+        String simpleName = typeName.substring(typeName.lastIndexOf('.') + 1);
+        result.add(simpleName.contains("*") || simpleName.contains("?") ? WILDCARD : simpleName);
+    }
+
+    /**
+     * Validates the given files with the given resolver, which is the immutable copy or
+     * a copy of it. Returns false if validation was cancelled or the immutable copy became
+     * obsolete. Progress is only reported if reportWork is true.
+     */
+    protected boolean validateFiles(List<IFile> files, INedTypeResolver resolver, NedMarkerErrorStore errorStore,
+            INedTypeResolver immutableResolver, INedResources nedResources, IProgressMonitor monitor, boolean reportWork) {
+        for (IFile file : files) {
+            NedFileElementEx nedFileElement = resolver.getNedFileElement(file);
+            errorStore.setFile(file);
+            new NedValidator(resolver, file.getProject(), errorStore).validate(nedFileElement);
+            if (reportWork)
+                monitor.worked(1);
+
+            if (!nedResources.isImmutableCopyUpToDate(immutableResolver))
+                return false;
+            if (monitor.isCanceled())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Validates the given files on a thread pool. Each thread validates a share of the
+     * files on its own copy of the immutable copy, with its own marker synchronizer,
+     * which is merged into the given one. The sets of elements that got markers are
+     * added to affectedElementsList. Returns false if validation was cancelled or the immutable
+     * copy became obsolete.
+     */
+    protected boolean validateFilesInParallel(List<IFile> files, int numThreads, INedTypeResolver immutableResolver, ProblemMarkerSynchronizer markerSync,
+            List<Set<INedElement>> affectedElementsList, INedResources nedResources, IProgressMonitor monitor) {
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, (runnable) -> {
+            Thread thread = new Thread(runnable, "NED validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<ProblemMarkerSynchronizer> threadMarkerSyncs = new ArrayList<ProblemMarkerSynchronizer>();
+            List<Future<Set<INedElement>>> futures = new ArrayList<Future<Set<INedElement>>>();
+            for (int i = 0; i < numThreads; i++) {
+                List<IFile> threadFiles = new ArrayList<IFile>();
+                for (int j = i; j < files.size(); j += numThreads)
+                    threadFiles.add(files.get(j));
+                ProblemMarkerSynchronizer threadMarkerSync = new ProblemMarkerSynchronizer(markerSync.getBaseMarkerType());
+                threadMarkerSyncs.add(threadMarkerSync);
+                futures.add(executor.submit(() -> {
+                    INedTypeResolver resolver = new ImmutableNedTypeResolver((NedTypeResolver)immutableResolver);
+                    NedMarkerErrorStore errorStore = new NedMarkerErrorStore(threadMarkerSync);
+                    return validateFiles(threadFiles, resolver, errorStore, immutableResolver, nedResources, monitor, false) ? errorStore.getAffectedElements() : null;
+                }));
+            }
+
+            for (int i = 0; i < numThreads; i++) {
+                Set<INedElement> affectedElements;
+                try {
+                    affectedElements = futures.get(i).get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+                if (affectedElements == null)
+                    return false;
+                markerSync.merge(threadMarkerSyncs.get(i));
+                affectedElementsList.add(affectedElements);
+                monitor.worked((files.size() - i + numThreads - 1) / numThreads);
+            }
+            return true;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void clearConsistencyProblemSeverities(INedTypeResolver resolver, Collection<IFile> files) {
+        for (IFile file : files)
             resolver.getNedFileElement(file).clearConsistencyProblemMarkerSeverities();
     }
 
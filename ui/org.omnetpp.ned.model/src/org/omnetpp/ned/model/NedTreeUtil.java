@@ -112,9 +112,10 @@ public class NedTreeUtil {
      * The passed displayFileName will only be used to fill in the NedFileElement element
      * and source location attributes. Callers should check ErrorStore to determine
      * whether a parse error occurred. All errors produced here will be syntax errors
-     * (see NEDSYNTAXPROBLEM_MARKERID).
+     * (see NEDSYNTAXPROBLEM_MARKERID). May be called from several threads concurrently,
+     * as the native NED parser is reentrant.
      */
-    public static synchronized NedFileElementEx parseNedFile(String filesystemFilename, INedErrorStore errors, String displayFilename, INedTypeResolver resolver) {
+    public static NedFileElementEx parseNedFile(String filesystemFilename, INedErrorStore errors, String displayFilename, INedTypeResolver resolver) {
         return doParseNedSource(null, filesystemFilename, errors, displayFilename, resolver);
     }
 
@@ -126,11 +127,11 @@ public class NedTreeUtil {
      * whether a parse error occurred. All errors produced here will be syntax errors
      * (see NEDSYNTAXPROBLEM_MARKERID).
      */
-    public static synchronized NedFileElementEx parseNedText(String source, INedErrorStore errors, String displayFilename, INedTypeResolver resolver) {
+    public static NedFileElementEx parseNedText(String source, INedErrorStore errors, String displayFilename, INedTypeResolver resolver) {
         return doParseNedSource(source, null, errors, displayFilename, resolver);
     }
 
-    private static synchronized NedFileElementEx doParseNedSource(String source, String filesystemFilename, INedErrorStore errors, String displayFilename, INedTypeResolver resolver) {
+    private static NedFileElementEx doParseNedSource(String source, String filesystemFilename, INedErrorStore errors, String displayFilename, INedTypeResolver resolver) {
         Assert.isTrue(displayFilename != null);
         ASTNode swigTree = null;
         try {
@@ -8,11 +8,13 @@
 package org.omnetpp.neddoc;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -98,6 +100,7 @@ import org.omnetpp.ned.editor.text.highlight.NedDocColorizerScanner;
 import org.omnetpp.ned.editor.text.highlight.NedPrivateDocColorizerScanner;
 import org.omnetpp.ned.editor.text.highlight.NedSyntaxHighlightPartitionScanner;
 import org.omnetpp.ned.model.INedElement;
+import org.omnetpp.ned.model.NedTreeUtil;
 import org.omnetpp.ned.model.ex.ChannelElementEx;
 import org.omnetpp.ned.model.ex.ChannelInterfaceElementEx;
 import org.omnetpp.ned.model.ex.ClassElementEx;
@@ -181,6 +184,9 @@ public class DocumentationGenerator {
     // matches optionally qualified C++ type names, leading "::" is optional
     private final static Pattern msgTypePattern = Pattern.compile("(::)?" + Keywords.MSG_IDENT_REGEX + "(::" + Keywords.MSG_IDENT_REGEX + ")*");
 
+    // file name extensions of the C++ sources processed by Doxygen
+    private final static Set<String> cppExtensions = new HashSet<String>(Arrays.asList("h", "hh", "hpp", "hxx", "c", "cc", "cpp", "cxx"));
+
     // configuration flags
     protected boolean headless = false;
     protected boolean generateNedTypeFigures = true;
@@ -195,6 +201,7 @@ public class DocumentationGenerator {
     protected boolean verboseMode = false;
     protected boolean generateDoxy = true;
     protected boolean generateCppSourceListings = false;
+    protected boolean incremental = false;  // only regenerate the outputs whose inputs have changed since the previous run
     protected String excludedDirsRegexPattern;
 
     // path vars
@@ -213,7 +220,7 @@ public class DocumentationGenerator {
     protected MsgResources msgResources;
     protected IProgressMonitor monitor;
 
-    protected FileOutputStream currentOutputStream;
+    protected OutputStream currentOutputStream;
 
     protected List<IFile> files = new ArrayList<IFile>();
     protected List<ITypeElement> typeElements = new ArrayList<ITypeElement>();
@@ -235,6 +242,7 @@ public class DocumentationGenerator {
     protected TreeMap<String, ArrayList<Integer>> navigationItemIndex;
 
     protected INeddocRenderer renderer;
+    protected NeddocManifest manifest; // null if not incremental
     protected NeddocExtensions neddocExtensions;
 
     static Image createImage(String base64Data) {
@@ -328,6 +336,10 @@ public class DocumentationGenerator {
         this.generateCppSourceListings = generateCppSourceListings;
     }
 
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     public void setDocumentationRootPath(IPath documentationRootPath) {
         this.documentationRootPath = documentationRootPath;
     }
@@ -351,6 +363,7 @@ public class DocumentationGenerator {
     }
 
     public IStatus generate(IProgressMonitor monitor) {
+        boolean complete = false;
         try {
             if (verboseMode)
                 System.out.println("Generating NED documentation for '" + project.getName() + "'.");
@@ -358,7 +371,7 @@ public class DocumentationGenerator {
             DocumentationGenerator.this.monitor = monitor;
             renderer = new HtmlRenderer(documentationRootPath.append(rootRelativeNeddocPath));
 
-            ensureEmptyNeddoc();
+            prepareNeddoc();
             collectCaches();
             generateDoxy();
             collectDoxyMap();
@@ -377,6 +390,7 @@ public class DocumentationGenerator {
             if (generateMsgDefinitions)
                 generateMsgTagFile();
 
+            complete = true;
             return Status.OK_STATUS;
         }
         catch (CancellationException e) {
@@ -402,6 +416,14 @@ public class DocumentationGenerator {
             if (verboseMode)
                 System.out.println("");
             try {
+                if (manifest != null) {
+                    if (complete) {
+                        int numOrphans = manifest.removeOrphans();
+                        if (verboseMode && numOrphans > 0)
+                            System.out.println("Removed " + numOrphans + " obsolete files.");
+                    }
+                    manifest.save(complete);
+                }
                 refreshFolder(getFullDoxyPath());
                 refreshFolder(getFullNeddocPath());
             }
@@ -414,6 +436,41 @@ public class DocumentationGenerator {
         }
     }
 
+    /**
+     * Prepares the neddoc folder for generation. In incremental mode, the manifest of the
+     * previous run is loaded, and the folder is only emptied if the options have changed.
+     */
+    protected void prepareNeddoc() throws CoreException {
+        if (!incremental) {
+            manifest = null;
+            ensureEmptyNeddoc();
+            return;
+        }
+
+        manifest = new NeddocManifest(getFullNeddocPath().toFile());
+        manifest.load();
+        String optionsHash = NeddocManifest.hash(getOptionsDescription());
+        if (!manifest.isUnchanged(NeddocManifest.OPTIONS_KEY, optionsHash)) {
+            manifest.clear();
+            ensureEmptyNeddoc();
+        }
+        else
+            getFullNeddocPath().toFile().mkdirs();
+        manifest.put(NeddocManifest.OPTIONS_KEY, optionsHash);
+    }
+
+    /**
+     * Returns the options that affect all outputs; if any of them changes, an incremental
+     * run regenerates everything.
+     */
+    protected String getOptionsDescription() {
+        return Arrays.asList(NeddocPlugin.getDefault() == null ? null : NeddocPlugin.getDefault().getBundle().getVersion(),
+                generateNedTypeFigures, generatePerTypeUsageDiagrams, generatePerTypeInheritanceDiagrams,
+                generateFullUsageDiagrams, generateFullInheritanceDiagrams, generateSourceListings, generateMsgDefinitions,
+                generateFileListings, automaticHyperlinking, generateDoxy, generateCppSourceListings, excludedDirsRegexPattern,
+                rootRelativeDoxyPath, rootRelativeNeddocPath, extensionFilePath, customCssPath).toString();
+    }
+
     protected void ensureEmptyNeddoc() throws CoreException {
         IPath neddocPath = getFullNeddocPath();
         File neddocFile = neddocPath.toFile();
@@ -743,17 +800,27 @@ public class DocumentationGenerator {
                     File modifiedDoxyConfigFile = documentationRootPath.append("temp-doxy.cfg").toFile();
                     File headerTemplateFile = documentationRootPath.append("doxy-header.tmpl").toFile();
 
-                    try {
-                        String header = readTextFromResource("doxy-header.tmpl");
-                        FileUtils.writeTextFile(headerTemplateFile, header, null);
-
-                        FileUtils.writeTextFile(modifiedDoxyConfigFile, content, null);
-                        ProcessUtils.exec(doxyExecutablePath, new String[] {modifiedDoxyConfigFile.toString()}, project.getLocation().toString(), monitor);
+                    // in incremental mode, only run Doxygen if the C++ sources or the configuration have changed
+                    String inputHash = manifest == null ? null : NeddocManifest.hash(content + "\n" + getCppSourcesDescription());
+                    if (manifest != null && manifest.isUnchanged(NeddocManifest.DOXYGEN_KEY, inputHash) && getFullDoxyPath().append("doxytags.xml").toFile().exists()) {
+                        if (verboseMode)
+                            System.out.println("C++ sources unchanged, skipping Doxygen.");
                     }
-                    finally {
-                        headerTemplateFile.delete();
-                        modifiedDoxyConfigFile.delete();
+                    else {
+                        try {
+                            String header = readTextFromResource("doxy-header.tmpl");
+                            FileUtils.writeTextFile(headerTemplateFile, header, null);
+
+                            FileUtils.writeTextFile(modifiedDoxyConfigFile, content, null);
+                            ProcessUtils.exec(doxyExecutablePath, new String[] {modifiedDoxyConfigFile.toString()}, project.getLocation().toString(), monitor);
+                        }
+                        finally {
+                            headerTemplateFile.delete();
+                            modifiedDoxyConfigFile.delete();
+                        }
                     }
+                    if (manifest != null)
+                        manifest.put(NeddocManifest.DOXYGEN_KEY, inputHash);
                 }
                 else
                     throw new IllegalStateException("Doxygen configuration file not found: " + absoluteDoxyConfigFilePath);
@@ -764,6 +831,23 @@ public class DocumentationGenerator {
         }
     }
 
+    /**
+     * Returns the paths, sizes and modification times of the C++ sources in the project,
+     * to decide whether Doxygen needs to be run again.
+     */
+    protected String getCppSourcesDescription() throws CoreException {
+        final TreeMap<String, String> sources = new TreeMap<String, String>();
+        project.accept(resource -> {
+            String extension = resource.getFileExtension();
+            if (resource instanceof IFile && extension != null && cppExtensions.contains(extension.toLowerCase()) && resource.getLocation() != null) {
+                File file = resource.getLocation().toFile();
+                sources.put(resource.getProjectRelativePath().toString(), file.length() + ":" + file.lastModified());
+            }
+            return true;
+        });
+        return sources.toString();
+    }
+
     protected String readTextFromResource(final String resourcePath) throws Exception {
         InputStream stream = getClass().getResourceAsStream("templates/" + renderer.getTemplateName() + "/" + resourcePath);
         if (stream == null)
@@ -779,10 +863,10 @@ public class DocumentationGenerator {
     }
 
     protected void generatePage(String pageName, String title, Runnable content) throws Exception {
-        FileOutputStream oldCurrentOutputStream = currentOutputStream;
+        OutputStream oldCurrentOutputStream = currentOutputStream;
 
         File file = getOutputFile(renderer.appendFilenameExtension(pageName));
-        currentOutputStream = new FileOutputStream(file);
+        currentOutputStream = createOutputStream(file);
 
         String splitPage[] = readTextFromResource("page.tmpl").replace("@title@", title).split("@content@");
         if (splitPage.length != 2)
@@ -796,10 +880,32 @@ public class DocumentationGenerator {
 
         out(splitPage[1]);
 
-        currentOutputStream.close();
+        closeOutputStream(file);
         currentOutputStream = oldCurrentOutputStream;
     }
 
+    /**
+     * Creates the stream for a generated file. In incremental mode, the content is collected
+     * in memory, and closeOutputStream() only writes the file if its content has changed.
+     */
+    protected OutputStream createOutputStream(File file) throws IOException {
+        return manifest == null ? new FileOutputStream(file) : new ByteArrayOutputStream();
+    }
+
+    /**
+     * Closes currentOutputStream, which was created by createOutputStream() for the given file.
+     */
+    protected void closeOutputStream(File file) throws IOException {
+        currentOutputStream.close();
+        if (manifest != null) {
+            byte[] content = ((ByteArrayOutputStream)currentOutputStream).toByteArray();
+            String contentHash = NeddocManifest.hash(content);
+            if (!manifest.isUpToDate(file, contentHash))
+                FileUtils.writeBinaryFile(file, content);
+            manifest.put(file, contentHash);
+        }
+    }
+
     protected String processHTMLContent(String clazz, String comment) {
         Set<String> debugOptions = new HashSet<>();
         comment = processDebugOptions(comment, debugOptions);
@@ -896,10 +1002,10 @@ public class DocumentationGenerator {
     }
 
     protected void generateNavigationTree(String fileName, Runnable content) throws Exception {
-        FileOutputStream oldCurrentOutputStream = currentOutputStream;
+        OutputStream oldCurrentOutputStream = currentOutputStream;
 
         File file = getOutputFile(fileName);
-        currentOutputStream = new FileOutputStream(file);
+        currentOutputStream = createOutputStream(file);
 
         String splitNavigation[] = readTextFromResource("navtree.tmpl").split("@content@");
         if (splitNavigation.length != 2)
@@ -909,7 +1015,7 @@ public class DocumentationGenerator {
         content.run();
         out(splitNavigation[1]);
 
-        currentOutputStream.close();
+        closeOutputStream(file);
         currentOutputStream = oldCurrentOutputStream;
     }
 
@@ -1027,10 +1133,10 @@ public class DocumentationGenerator {
     }
 
     protected void generateNavTreeIndex() throws Exception {
-        FileOutputStream oldCurrentOutputStream = currentOutputStream;
+        OutputStream oldCurrentOutputStream = currentOutputStream;
 
         File file = getOutputFile("navtreeindex0.js");
-        currentOutputStream = new FileOutputStream(file);
+        currentOutputStream = createOutputStream(file);
 
         out("var NAVTREEINDEX0 = {\n");
         for (Map.Entry<String,ArrayList<Integer>> entry : navigationItemIndex.entrySet()) {
@@ -1038,7 +1144,7 @@ public class DocumentationGenerator {
         }
         out("};");
 
-        currentOutputStream.close();
+        closeOutputStream(file);
         currentOutputStream = oldCurrentOutputStream;
     }
 
@@ -1298,8 +1404,9 @@ public class DocumentationGenerator {
 
     protected void generateNedTagFile() throws Exception {
 
-        FileOutputStream oldCurrentOutputStream = currentOutputStream;
-        currentOutputStream = new FileOutputStream(getOutputFile("nedtags.xml"));
+        OutputStream oldCurrentOutputStream = currentOutputStream;
+        File file = getOutputFile("nedtags.xml");
+        currentOutputStream = createOutputStream(file);
 
         out("<?xml version='1.0' encoding='UTF-8' standalone='yes' ?>\n");
         out("<tagfile>\n");
@@ -1314,14 +1421,15 @@ public class DocumentationGenerator {
             }
         out("</tagfile>\n");
 
-        currentOutputStream.close();
+        closeOutputStream(file);
         currentOutputStream = oldCurrentOutputStream;
     }
 
     protected void generateMsgTagFile() throws Exception {
 
-        FileOutputStream oldCurrentOutputStream = currentOutputStream;
-        currentOutputStream = new FileOutputStream(getOutputFile("msgtags.xml"));
+        OutputStream oldCurrentOutputStream = currentOutputStream;
+        File file = getOutputFile("msgtags.xml");
+        currentOutputStream = createOutputStream(file);
 
         out("<?xml version='1.0' encoding='UTF-8' standalone='yes' ?>\n");
         out("<tagfile>\n");
@@ -1334,7 +1442,7 @@ public class DocumentationGenerator {
             }
         out("</tagfile>\n");
 
-        currentOutputStream.close();
+        closeOutputStream(file);
         currentOutputStream = oldCurrentOutputStream;
     }
 
@@ -1928,28 +2036,42 @@ public class DocumentationGenerator {
         if (generateNedTypeFigures) {
             ArrayList<IFile> nedFiles = new ArrayList<IFile>(nedResolver.getNedFiles(project));
 
-            final ExportDiagramFilesOperation exportOperation =
-                new ExportDiagramFilesOperation(nedFiles,
-                    new SVGDiagramExporter() {
-                        @Override
-                        public String getName() {
-                            return "NED Figure Provider";
-                        }
+            // in incremental mode, only export the figures of the files whose figures may have changed
+            Map<IFile, String> inputHashes = new LinkedHashMap<IFile, String>();
+            Set<IFile> exportedNedFiles = new LinkedHashSet<IFile>(nedFiles);
+            if (manifest != null) {
+                for (IFile file : nedFiles) {
+                    String inputHash = NeddocManifest.hash(getNedTypeFigureInputs(file));
+                    inputHashes.put(file, inputHash);
+                    if (areNedTypeFiguresUpToDate(file, inputHash))
+                        exportedNedFiles.remove(file);
+                }
+            }
 
-                        @Override
-                        public String getDescription() {
-                            return "NED Figure Provider";
-                        }
-                }, true, null) {
+            if (!exportedNedFiles.isEmpty()) {
+                final ExportDiagramFilesOperation exportOperation =
+                    new ExportDiagramFilesOperation(new ArrayList<IFile>(exportedNedFiles),
+                        new SVGDiagramExporter() {
+                            @Override
+                            public String getName() {
+                                return "NED Figure Provider";
+                            }
 
-                @Override
-                protected void refreshContainer(IContainer container, IProgressMonitor monitor) {
-                    if (monitor.isCanceled())
-                        throw new CancellationException();
-                }
-            };
-            exportOperation.setOverwriteMode(ExportDiagramFilesOperation.OverwriteMode.ALL);
-            exportOperation.run(monitor);
+                            @Override
+                            public String getDescription() {
+                                return "NED Figure Provider";
+                            }
+                    }, true, null) {
+
+                    @Override
+                    protected void refreshContainer(IContainer container, IProgressMonitor monitor) {
+                        if (monitor.isCanceled())
+                            throw new CancellationException();
+                    }
+                };
+                exportOperation.setOverwriteMode(ExportDiagramFilesOperation.OverwriteMode.ALL);
+                exportOperation.run(monitor);
+            }
 
             try {
                 // KLUDGE: move generated images under neddocPath
@@ -1963,16 +2085,23 @@ public class DocumentationGenerator {
                     List<INedTypeElement> typeElements = nedResolver.getNedFileElement(file).getTopLevelTypeNodes();
 
                     for (INedTypeElement typeElement : typeElements) {
-                        String fileName = file.getName().replaceAll(".ned", "");
-                        String imageName = NedFigureProvider.getFigureName(typeElements, typeElement, fileName);
-                        File sourceImageFile = file.getParent().getFile(new Path(imageName + ".svg")).getLocation().toFile();
+                        File destinationImageFile = getFullNeddocPath().append(getOutputFileName(typeElement, "type", ".svg")).toFile();
 
-                        if (sourceImageFile.exists()) {
-                            IPath destinationImagePath = getFullNeddocPath().append(getOutputFileName(typeElement, "type", ".svg"));
-                            sourceImageFile.renameTo(destinationImagePath.toFile());
+                        if (exportedNedFiles.contains(file)) {
+                            String fileName = file.getName().replaceAll(".ned", "");
+                            String imageName = NedFigureProvider.getFigureName(typeElements, typeElement, fileName);
+                            File sourceImageFile = file.getParent().getFile(new Path(imageName + ".svg")).getLocation().toFile();
+
+                            if (sourceImageFile.exists()) {
+                                destinationImageFile.delete();
+                                sourceImageFile.renameTo(destinationImageFile);
+                            }
+                            else
+                                throw new RuntimeException("Cannot generate image for " + typeElement.getNedTypeInfo().getFullyQualifiedName());
                         }
-                        else
-                            throw new RuntimeException("Cannot generate image for " + typeElement.getNedTypeInfo().getFullyQualifiedName());
+
+                        if (manifest != null)
+                            manifest.put(destinationImageFile, inputHashes.get(file));
                     }
 
                     monitor.worked(1);
@@ -1984,6 +2113,37 @@ public class DocumentationGenerator {
         }
     }
 
+    /**
+     * Returns the inputs the figures of the types in the given NED file are rendered from:
+     * the source of the file, and the sources of the base types and the used types (e.g.
+     * for the display strings of submodules).
+     */
+    protected String getNedTypeFigureInputs(IFile file) {
+        NedFileElementEx nedFileElement = nedResolver.getNedFileElement(file);
+        Set<INedTypeElement> dependencies = new LinkedHashSet<INedTypeElement>();
+        for (INedTypeElement typeElement : nedFileElement.getTopLevelTypeNodes()) {
+            INedTypeInfo typeInfo = typeElement.getNedTypeInfo();
+            for (INedTypeInfo baseTypeInfo : typeInfo.getInheritanceChain())
+                dependencies.add(baseTypeInfo.getNedElement());
+            for (INedTypeElement usedType : typeInfo.getUsedTypes())
+                for (INedTypeInfo baseTypeInfo : usedType.getNedTypeInfo().getInheritanceChain())
+                    dependencies.add(baseTypeInfo.getNedElement());
+        }
+
+        StringBuilder inputs = new StringBuilder(NedTreeUtil.generateSource(nedFileElement, true));
+        for (INedTypeElement dependency : dependencies)
+            if (dependency.getContainingNedFileElement() != nedFileElement)
+                inputs.append(NedTreeUtil.generateSource(dependency, true));
+        return inputs.toString();
+    }
+
+    protected boolean areNedTypeFiguresUpToDate(IFile file, String inputHash) {
+        for (INedTypeElement typeElement : nedResolver.getNedFileElement(file).getTopLevelTypeNodes())
+            if (!manifest.isUpToDate(getFullNeddocPath().append(getOutputFileName(typeElement, "type", ".svg")).toFile(), inputHash))
+                return false;
+        return true;
+    }
+
     protected void generateTypeDiagram(final INedTypeElement typeElement) throws IOException {
         if (generateNedTypeFigures && !nedResolver.isBuiltInDeclaration(typeElement.getNedTypeInfo())) {
             out(renderer.typeImageTag(getOutputFileName(typeElement, "type", ".svg")));
@@ -2404,8 +2564,14 @@ public class DocumentationGenerator {
         if (dotExecutablePath == null || !new File(dotExecutablePath).exists())
             throw new IllegalStateException("The GraphViz Dot executable path is invalid, set it using Window/Preferences...\nThe currently set path is: " + dotExecutablePath);
 
-        // dot has a width/height limit of 32768 pixels, see bug #149.
-        ProcessUtils.exec(dotExecutablePath, new String[] {"-T" + format, "-o", outputFile.toString()}, ".", dot.toString(), 10, monitor);
+        // in incremental mode, only run dot if the graph has changed
+        String inputHash = manifest == null ? null : NeddocManifest.hash(format + "\n" + dot.toString());
+        if (manifest == null || !manifest.isUpToDate(outputFile, inputHash)) {
+            // dot has a width/height limit of 32768 pixels, see bug #149.
+            ProcessUtils.exec(dotExecutablePath, new String[] {"-T" + format, "-o", outputFile.toString()}, ".", dot.toString(), 10, monitor);
+        }
+        if (manifest != null)
+            manifest.put(outputFile, inputHash);
     }
 
     protected String getParamTypeAsString(ParamElementEx param) {
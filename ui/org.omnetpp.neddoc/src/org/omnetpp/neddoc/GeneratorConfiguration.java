@@ -24,6 +24,7 @@ public class GeneratorConfiguration {
     private static final String GENERATE_EXCLUDED_DIRS = "GenerateExcludedPackages";
     private static final String GENERATE_DOXY = "GenerateDoxy";
     private static final String DOXY_SOURCE_BROWSER = "DoxySourceBrowser";
+    private static final String INCREMENTAL = "Incremental";
     private static final String OUTPUT_DIRECTORY_PATH = "OutputDirectoryPath";
     private static final String EXTENSION_FILE_PATH = "ExtensionFilePath";
 
@@ -43,6 +44,8 @@ public class GeneratorConfiguration {
     public boolean generateDoxy = true;
     public boolean cppSourceListings = false;
 
+    public boolean incremental = false;
+
     public String outputDirectoryPath;
     public String extensionFilePath;
 
@@ -61,6 +64,7 @@ public class GeneratorConfiguration {
 
         settings.put(GENERATE_DOXY, generateDoxy);
         settings.put(DOXY_SOURCE_BROWSER, cppSourceListings);
+        settings.put(INCREMENTAL, incremental);
 
         settings.put(OUTPUT_DIRECTORY_PATH, outputDirectoryPath);
     }
@@ -89,6 +93,8 @@ public class GeneratorConfiguration {
             generateDoxy = settings.getBoolean(GENERATE_DOXY);
         if (settings.get(DOXY_SOURCE_BROWSER) != null)
             cppSourceListings = settings.getBoolean(DOXY_SOURCE_BROWSER);
+        if (settings.get(INCREMENTAL) != null)
+            incremental = settings.getBoolean(INCREMENTAL);
 
         excludedDirs = settings.get(GENERATE_EXCLUDED_DIRS);
         if (StringUtils.isEmpty(excludedDirs))
@@ -79,6 +79,7 @@ public class GeneratorConfigurationDialog
 
     private Button generateDoxy;
     private Button doxySourceBrowser;
+    private Button incremental;
 
     private Text excludedDirs;
     private Text extensionFilePath;
@@ -283,6 +284,12 @@ public class GeneratorConfigurationDialog
         label = new Label(group, SWT.NONE);
         label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
         label.setText("   Note: other Doxygen options can be configured in the Doxygen configuration file");
+
+        incremental = createCheckbox(group, "Only regenerate changed pages and diagrams", configuration.incremental);
+        incremental.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+        label = new Label(group, SWT.NONE);
+        label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+        label.setText("   Note: Doxygen is only run again if C++ sources have changed");
     }
 
     private Button createCheckbox(Composite parent, String label, boolean initialSelection) {
@@ -373,6 +380,7 @@ public class GeneratorConfigurationDialog
 
         configuration.generateDoxy = generateDoxy.getSelection();
         configuration.cppSourceListings = doxySourceBrowser.getSelection();
+        configuration.incremental = incremental.getSelection();
 
         Object[] selectedElements = selectedProjects.getCheckedElements();
         configuration.projects = new IProject[selectedElements.length];
@@ -413,6 +421,7 @@ public class GeneratorConfigurationDialog
             generator.setAutomaticHyperlinking(configuration.automaticHyperlinking);
             generator.setGenerateDoxy(configuration.generateDoxy);
             generator.setGenerateCppSourceListings(configuration.cppSourceListings);
+            generator.setIncremental(configuration.incremental);
             generator.setExcludedDirs(configuration.excludedDirs);
 
             if (StringUtils.isNotBlank(configuration.extensionFilePath))
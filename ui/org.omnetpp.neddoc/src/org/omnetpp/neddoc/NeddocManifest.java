@@ -0,0 +1,149 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.neddoc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Records the inputs of the files generated by an incremental documentation
+ * generator run, so that the next run can skip the outputs that would not change.
+ *
+ * Each output file is identified by its path relative to the neddoc directory,
+ * and is mapped to a hash of the inputs it was generated from (e.g. the dot source
+ * of a diagram, or the NED sources a figure depends on). Keys starting with '@'
+ * record inputs that do not belong to a single output file (e.g. the generator
+ * options or the C++ sources processed by Doxygen). The manifest is stored in the
+ * neddoc directory itself.
+ */
+class NeddocManifest {
+    public static final String OPTIONS_KEY = "@options";
+    public static final String DOXYGEN_KEY = "@doxygen";
+
+    private static final String FILE_NAME = ".neddoc-manifest";
+
+    private File directory;
+    private Properties previousEntries = new Properties();
+    private Properties entries = new Properties();
+
+    public NeddocManifest(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the manifest written by the previous run. A missing or unreadable
+     * manifest means that all outputs need to be generated.
+     */
+    public void load() {
+        previousEntries.clear();
+        File file = new File(directory, FILE_NAME);
+        if (file.exists()) {
+            try (InputStream stream = new FileInputStream(file)) {
+                previousEntries.load(stream);
+            }
+            catch (IOException e) {
+                NeddocPlugin.logError("Cannot read neddoc manifest " + file + ", generating all files", e);
+                previousEntries.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the manifest. If the run was complete, only the entries of this run
+     * are kept; otherwise the entries of the previous run are kept for the outputs
+     * that were not generated this time.
+     */
+    public void save(boolean complete) throws IOException {
+        Properties result = new Properties();
+        if (!complete)
+            result.putAll(previousEntries);
+        result.putAll(entries);
+        directory.mkdirs();
+        try (OutputStream stream = new FileOutputStream(new File(directory, FILE_NAME))) {
+            result.store(stream, "NED documentation generator manifest -- do not edit");
+        }
+    }
+
+    /**
+     * Forgets the previous run, e.g. because the options have changed.
+     */
+    public void clear() {
+        previousEntries.clear();
+        entries.clear();
+    }
+
+    /**
+     * Returns true if the given key had the given input hash in the previous run.
+     */
+    public boolean isUnchanged(String key, String inputHash) {
+        return inputHash.equals(previousEntries.getProperty(key));
+    }
+
+    /**
+     * Returns true if the output file exists and was generated from the same inputs
+     * in the previous run.
+     */
+    public boolean isUpToDate(File outputFile, String inputHash) {
+        return outputFile.exists() && isUnchanged(getKey(outputFile), inputHash);
+    }
+
+    public void put(String key, String inputHash) {
+        entries.setProperty(key, inputHash);
+    }
+
+    /**
+     * Records that the output file was generated (or kept) from the given inputs in this run.
+     */
+    public void put(File outputFile, String inputHash) {
+        put(getKey(outputFile), inputHash);
+    }
+
+    /**
+     * Deletes the files that were generated in the previous run but not in this one,
+     * and returns their number.
+     */
+    public int removeOrphans() {
+        int count = 0;
+        for (String key : previousEntries.stringPropertyNames()) {
+            if (!key.startsWith("@") && !entries.containsKey(key)) {
+                if (new File(directory, key).delete())
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    protected String getKey(File outputFile) {
+        return directory.toPath().relativize(outputFile.toPath()).normalize().toString().replace(File.separatorChar, '/');
+    }
+
+    public static String hash(String input) {
+        return hash(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String hash(byte[] input) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(input);
+            StringBuilder result = new StringBuilder();
+            for (byte b : digest)
+                result.append(String.format("%02x", b));
+            return result.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -33,6 +33,21 @@ import org.omnetpp.scave.engineext.ResultFileFormatException;
  */
 public class IndexFileUtils extends org.omnetpp.scave.engine.IndexFileUtils {
 
+    private static volatile boolean generatePyramids = false;
+
+    /**
+     * Sets whether indexing also generates pyramid files (.vcp) for the vector
+     * files. When enabled, the index of a vector file is only considered to be
+     * up-to-date if its pyramid file is up-to-date as well.
+     */
+    public static void setGeneratePyramids(boolean enabled) {
+        generatePyramids = enabled;
+    }
+
+    public static boolean getGeneratePyramids() {
+        return generatePyramids;
+    }
+
     /**
      * Returns true, if <code>file</code> is an index file.
      * The file need not exist.
@@ -65,7 +80,8 @@ public class IndexFileUtils extends org.omnetpp.scave.engine.IndexFileUtils {
      * @return true if the index file is up-to-date
      */
     public static boolean isIndexFileUpToDate(String file) {
-        return org.omnetpp.scave.engine.IndexFileUtils.isIndexFileUpToDate(file);
+        return org.omnetpp.scave.engine.IndexFileUtils.isIndexFileUpToDate(file) &&
+                (!generatePyramids || isPyramidFileUpToDate(file));
     }
 
     /**
@@ -134,6 +150,7 @@ public class IndexFileUtils extends org.omnetpp.scave.engine.IndexFileUtils {
             vectorFile.deleteMarkers(MARKERTYPE_SCAVEPROBLEM, true, IResource.DEPTH_ZERO);
 
             VectorFileIndexer indexer = new VectorFileIndexer();
+            indexer.setGeneratePyramids(generatePyramids);
             String osFileName = vectorFile.getLocation().toFile().getAbsolutePath();
 
             Debug.println("started indexing " + vectorFile);
@@ -82,11 +82,19 @@ class PythonEntryPoint(object):
 
     def __init__(self):
         """ The execution context of the scripts submitted to execute() """
-        self.execContext = {
+        self.execContext = self._makeExecContext()
+
+    def _makeExecContext(self):
+        return {
             "print": print,
             "exit": sys.exit
         }
 
+    def reset(self):
+        plt.close("all")
+        mpl.rc_file_defaults()  # undo rcParams changes made by the previous script (keeps the backend)
+        self.execContext = self._makeExecContext()
+
     def check(self):
         return True
 
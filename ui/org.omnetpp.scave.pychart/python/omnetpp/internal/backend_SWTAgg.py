@@ -22,6 +22,7 @@ if os.name != 'nt':
     import posix_ipc
 import mmap
 import functools
+import numpy as np
 
 from matplotlib.figure import Figure
 from matplotlib.backend_bases import FigureManagerBase, FigureCanvasBase, NavigationToolbar2, MouseEvent
@@ -267,7 +268,11 @@ class FigureCanvasSWTAgg(FigureCanvasSWT, FigureCanvasAgg):
     def __init__(self, figure, num):
         self.num = num
         self.useSharedMemory = True
-        self.shmMmap = None
+        # Double-buffered ring of shared memory regions: every frame and blit
+        # goes into the slot not used by the previous one, so it can be written
+        # while the IDE is still copying out the previous one.
+        self.shmMmaps = [None, None]
+        self.shmIndex = 0
 
         super().__init__(figure)
         self._agg_draw_pending = False
@@ -275,8 +280,49 @@ class FigureCanvasSWTAgg(FigureCanvasSWT, FigureCanvasAgg):
         self.draw_idle()
 
     def __del__(self):
-        if self.shmMmap:
-            self.shmMmap.close()
+        for shmMmap in self.shmMmaps:
+            if shmMmap:
+                shmMmap.close()
+
+    def _nextSharedMemory(self, size):
+        """
+        Switches to the other slot of the shared memory ring, (re)creating its
+        region if it is smaller than size, and returns the slot index and the mmap.
+        """
+        index = 1 - self.shmIndex
+        self.shmIndex = index
+        shmMmap = self.shmMmaps[index]
+
+        if not shmMmap or shmMmap.size() < size:
+            if shmMmap:
+                shmMmap.close()
+
+            global figure_counter
+            # The & 0xFFFF operations are there to make sure that name is not longer than 31 bytes,
+            # because macOS has silly limitations regarding this. The fixed part is 8 characters,
+            # and each of the 3 numbers are limited to 5 digits, so we should be fine.
+            name = "/plot-" + str(os.getpid() & 0xFFFF) + "-" + str(self.num & 0xFFFF) + "-" + str(figure_counter & 0xFFFF)
+            figure_counter += 1
+
+            if os.name == 'nt':
+                # on Windows, the mmap module in itself provides shared memory functionality
+                shmMmap = mmap.mmap(-1, size, tagname=name)
+
+                self.widget.setSharedMemoryNameAndSize(index, name, size)
+            else:
+                shm = posix_ipc.SharedMemory(name, posix_ipc.O_CREAT, size=size)
+
+                shmMmap = mmap.mmap(shm.fd, size)
+
+                self.widget.setSharedMemoryNameAndSize(index, name, size)
+
+                # the mapping from Java will keep it alive until the async drawing occurs
+                shm.close_fd()
+                shm.unlink()
+
+            self.shmMmaps[index] = shmMmap
+
+        return index, shmMmap
 
     def getAxisLimits(self):
         limits = list()
@@ -305,7 +351,6 @@ class FigureCanvasSWTAgg(FigureCanvasSWT, FigureCanvasAgg):
             self.figure.canvas.toolbar.push_current()
 
     def blit(self, bbox=None):
-        # TODO use SHM here as well!
         if bbox is None and self.figure:
             bbox = self.figure.bbox
 
@@ -315,11 +360,24 @@ class FigureCanvasSWTAgg(FigureCanvasSWT, FigureCanvasAgg):
         w = int(r) - int(l)
         h = int(t) - int(b)
         t = int(b) + h
+        y = int(self.renderer.height - t)
 
-        reg = self.copy_from_bbox(bbox)
-        pixelBuffer = reg.to_string_argb()
+        if self.useSharedMemory:
+            # copy the region straight from the Agg buffer into shared memory,
+            # in the same RGBA format as full frames
+            pixels = np.asarray(self.buffer_rgba())
+            region = pixels[max(y, 0):y+h, max(l, 0):l+w]
+            h, w = region.shape[0], region.shape[1]
+            if w <= 0 or h <= 0:
+                return
+            index, shmMmap = self._nextSharedMemory(pixels.nbytes)
+            np.ndarray((h, w, 4), dtype=np.uint8, buffer=shmMmap)[...] = region
+            self.widget.blitShared(index, max(l, 0), max(y, 0), w, h)
+        else:
+            reg = self.copy_from_bbox(bbox)
+            pixelBuffer = reg.to_string_argb()
 
-        self.widget.blit(pixelBuffer, l, int(self.renderer.height - t), w, h)
+            self.widget.blit(pixelBuffer, l, y, w, h)
 
     def print_figure(self, *args, **kwargs):
         FigureCanvasAgg.print_figure(self, *args, **kwargs)
@@ -340,36 +398,10 @@ class FigureCanvasSWTAgg(FigureCanvasSWT, FigureCanvasAgg):
             bl = buffer.nbytes
 
         if self.useSharedMemory:
-            if not self.shmMmap or self.shmMmap.size() < bl:
-                if self.shmMmap:
-                    self.shmMmap.close()
-
-                global figure_counter
-                # The & 0xFFFF operations are there to make sure that name is not longer than 31 bytes,
-                # because macOS has silly limitations regarding this. The fixed part is 8 characters,
-                # and each of the 3 numbers are limited to 5 digits, so we should be fine.
-                name = "/plot-" + str(os.getpid() & 0xFFFF) + "-" + str(self.num & 0xFFFF) + "-" + str(figure_counter & 0xFFFF)
-                figure_counter += 1
-
-                if os.name == 'nt':
-                    # on Windows, the mmap module in itself provides shared memory functionality
-                    self.shmMmap = mmap.mmap(-1, bl, tagname=name)
-
-                    self.widget.setSharedMemoryNameAndSize(name, bl)
-                else:
-                    shm = posix_ipc.SharedMemory(name, posix_ipc.O_CREAT, size=bl)
-
-                    self.shmMmap = mmap.mmap(shm.fd, bl)
-
-                    self.widget.setSharedMemoryNameAndSize(name, bl)
-
-                    # the mapping from Java will keep it alive until the async drawing occurs
-                    shm.close_fd()
-                    shm.unlink()
-
-            self.shmMmap.seek(0)
-            self.shmMmap.write(buffer)
-            self.widget.setPixelsShared(w, h)
+            index, shmMmap = self._nextSharedMemory(bl)
+            shmMmap.seek(0)
+            shmMmap.write(buffer)
+            self.widget.setPixelsShared(index, w, h)
         else:
             self.widget.setPixels(buffer, w, h)
 
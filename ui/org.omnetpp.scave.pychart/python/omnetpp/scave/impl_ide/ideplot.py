@@ -39,6 +39,25 @@ def plot(xs, ys, key, label, drawstyle, linestyle, linewidth, color, marker, mar
     ), props)
 
 
+def plot_decimated_vectors(filter_expression, start_time, end_time, drawstyle, linestyle, linewidth, color, marker, markersize):
+    swtplot.assert_is_native_chart()
+    props = {}
+    if drawstyle:
+        props["Line.DrawStyle"] = _translate_drawstyle(drawstyle)
+    if linestyle:
+        props["Line.Style"] = _translate_linestyle(linestyle)
+    if linewidth:
+        props["Line.Width"] = str(linewidth)
+    if color:
+        props["Line.Color"] = _translate_color(color)
+    if marker:
+        props["Symbols.Type"] = _translate_marker(marker)
+    if markersize:
+        props["Symbols.Size"] = str(markersize)
+
+    return swtplot.plot_decimated_vectors(filter_expression, start_time, end_time, props)
+
+
 def bar(x, height, width, key, label, color, edgecolor):
     swtplot.assert_is_native_chart()
     props = {}
@@ -130,6 +130,24 @@ def plot_lines(df, props):
         o.unlink()
 
 
+def plot_decimated_vectors(filter_expression, start_time, end_time, props):
+    """
+    Plots the vectors matching `filter_expression` (one line from each), and
+    sets the visual properties from `props` onto the plot. The vector data is
+    not transferred to Python: the plot reads it at the resolution needed for
+    the display, so arbitrarily long vectors can be plotted. Returns the number
+    of vectors plotted.
+
+    The properties in `props` will be made specific to the lines added by this call.
+
+    This can only be called if the chart is of type `LINE`, and it cannot be
+    combined with `plot_lines()` in the same chart.
+    """
+    assert_is_native_chart()
+    return Gateway.chart_plotter.plotDecimatedVectors(filter_expression, float(start_time), float(end_time),
+                                                      MapConverter().convert(props, Gateway.gateway._gateway_client))
+
+
 def plot_bars(df, props):
     """
     Plots bars given in the DataFrame `df` (one series from each row), and sets
@@ -26,19 +26,31 @@ public interface IMatplotlibWidget {
 
     /**
      * Asks the canvas implementation to map a shared memory object with the
-     * given name and size as "pixel backing storage". Pixels for subsequent
-     * frames data should be read from this SHM object.
+     * given name and size as "pixel backing storage" in the given slot (0 or 1)
+     * of the double-buffered frame ring. Pixels for subsequent frames and blits
+     * that refer to this slot should be read from this SHM object.
      */
-    void setSharedMemoryNameAndSize(String name, long size);
+    void setSharedMemoryNameAndSize(int index, String name, long size);
 
     /**
      * Signals to the implementation that a new frame was written into the
-     * previously selected shared memory region, and that it should be presented
+     * shared memory region of the given slot, and that it should be presented
      * to the user. The actual size of the frame might be smaller than the size
      * of the SHM region, because that is recreated only if it is too small, but
      * is usually not shrunk.
+     *
+     * The writer should alternate between the two slots. When this method
+     * returns, the other slot is free to be written into.
      */
-    void setPixelsShared(int w, int h);
+    void setPixelsShared(int index, int w, int h);
+
+    /**
+     * Like blit(), but the pixels of the region (RGBA quartets, in the same
+     * format as with setPixelsShared, row by row without padding) are stored
+     * at the beginning of the shared memory region of the given slot.
+     * When this method returns, the other slot is free to be written into.
+     */
+    void blitShared(int index, int x, int y, int w, int h);
 
     /**
      * This is used for updating the canvas partially.
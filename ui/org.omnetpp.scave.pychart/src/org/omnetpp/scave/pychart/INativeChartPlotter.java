@@ -23,6 +23,13 @@ public interface INativeChartPlotter {
     void plotVectors(byte[] pickledData, Map<String, String> props);
     void plotHistograms(byte[] pickledData, Map<String, String> props);
 
+    /**
+     * Plots the vectors matching the filter expression without transferring their
+     * data to Python; the plot reads them at the resolution needed for the display.
+     * Returns the number of vectors plotted.
+     */
+    int plotDecimatedVectors(String filterExpression, double simTimeStart, double simTimeEnd, Map<String, String> props);
+
     boolean isEmpty();
 
     void setProperty(String key, String value);
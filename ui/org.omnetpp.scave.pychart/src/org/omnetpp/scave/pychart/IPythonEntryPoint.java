@@ -71,6 +71,13 @@ public interface IPythonEntryPoint {
      */
     void setGlobalObjectPickle(String name, byte[] pickle);
 
+    /**
+     * Discards the state left behind by previously executed scripts (global
+     * variables, figures, Matplotlib settings), so that the process can be
+     * reused for running another chart script.
+     */
+    void reset();
+
     /**
      * Executes any Python code given in command, using exec()
      */
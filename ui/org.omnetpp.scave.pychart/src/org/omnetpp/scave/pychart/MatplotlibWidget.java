@@ -54,10 +54,22 @@ import org.omnetpp.scave.engine.ScaveEngine;
  *   This is needed because this class is used directly from Python, so there is no
  *   intermediate layer to switch to the Display thread. TODO: Add an adapter to do this.
  *
- * - The pixels of the image are transferred in a
- *   shared memory buffer for improved performance. This shared memory region
- *   is reused across frames, and only recreated when it becomes too small -
- *   when the user sized the control bigger.
+ * - The pixels of the image are transferred in a double-buffered ring of two
+ *   shared memory regions for improved performance. The regions are reused
+ *   across frames, and only recreated when they become too small - when the
+ *   user sized the control bigger. Python writes a full frame or a blitted
+ *   region into one of the regions, then sends a small "frame ready"
+ *   notification (setPixelsShared or blitShared) naming the region, and uses
+ *   the other region next time.
+ *
+ * - The notifications only record the pending update; the pixels are copied
+ *   out of the shared memory on the Display thread, by a single asyncExec
+ *   scheduled for all the updates that arrive until it runs. So while the
+ *   Display thread is busy, the frames are coalesced: a new full frame
+ *   supersedes all pending updates, and blits are applied in order on top of
+ *   the latest frame. A notification only blocks if the region that Python
+ *   will write next still holds a pending blit, i.e. for at most one update
+ *   of the Display thread.
  *
  * - The mouse move and resize events are categorized into so-called
  *   "event streams". The point of these is to cancel the delivery of all
@@ -68,8 +80,7 @@ import org.omnetpp.scave.engine.ScaveEngine;
  *   portion of the canvas image, which can potentially increase performance
  *   when only a small part of it changes, for example with some animations,
  *   custom cursor lines, interactively showing-hiding annotations, etc..
- *   At the moment, these "subimage" pixels are transferred as byte[] objects
- *   straight through the Py4J connection, without using shared memory.
+ *   These "subimage" pixels also go through the shared memory ring.
  *
  * - It seems that SWT has to internally convert our pixels into a different
  *   format - at least when using Cairo. (Maybe even twice: when we submit them,
@@ -80,10 +91,44 @@ import org.omnetpp.scave.engine.ScaveEngine;
  */
 public class MatplotlibWidget extends Canvas implements IMatplotlibWidget {
 
-    /** This is backed by the shared memory used to receive the image to show.
-     * Contains raw RGBA pixels - in "some" channel ordering.
+    /**
+     * The two slots of the ring of shared memory buffers used to receive the
+     * frames and blitted regions to show. Contain raw RGBA pixels - in "some"
+     * channel ordering.
      */
-    private ByteBuffer buf;
+    private final ByteBuffer[] sharedBuffers = new ByteBuffer[2];
+
+    /**
+     * An update (full frame or blitted region) written into a shared buffer,
+     * and not yet copied into imageData.
+     */
+    private static class PendingUpdate {
+        final int index; // of the shared buffer
+        final int x, y, w, h;
+
+        PendingUpdate(int index, int x, int y, int w, int h) {
+            this.index = index;
+            this.x = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+        }
+    }
+
+    /**
+     * Guards sharedBuffers, pendingFrame, pendingBlits and updateScheduled,
+     * and also imageData while pixels are copied into it.
+     */
+    private final Object frameLock = new Object();
+
+    /** The latest full frame that has not been copied into imageData yet, or null. */
+    private PendingUpdate pendingFrame;
+
+    /** The regions blitted since pendingFrame (or since the last copy), in order. */
+    private ArrayList<PendingUpdate> pendingBlits = new ArrayList<>();
+
+    /** Whether applyPendingUpdates() has been scheduled on the Display thread. */
+    private boolean updateScheduled = false;
 
     /**
      * The last received image, plus the since blitted regions applied to it.
@@ -349,62 +394,164 @@ public class MatplotlibWidget extends Canvas implements IMatplotlibWidget {
     }
 
     @Override
-    public void setSharedMemoryNameAndSize(String name, long size) {
-        if (buf != null)
-            ScaveEngine.unmapSharedMemory(buf);
-        buf = ScaveEngine.mapSharedMemory(name, size);
+    public void setSharedMemoryNameAndSize(int index, String name, long size) {
+        synchronized (frameLock) {
+            // the slot being replaced is never pending, see waitForBuffer()
+            if (sharedBuffers[index] != null)
+                ScaveEngine.unmapSharedMemory(sharedBuffers[index]);
+            sharedBuffers[index] = ScaveEngine.mapSharedMemory(name, size);
+        }
     }
 
     @Override
-    public void setPixelsShared(int w, int h) {
+    public void setPixelsShared(int index, int w, int h) {
         if (isRefreshing)
             setMessage(null);
         isRefreshing = false;
 
-        if (buf == null || buf.capacity() == 0)
-            return; // avoids InvalidArgumentException
+        synchronized (frameLock) {
+            // the new frame replaces everything that is still pending
+            pendingFrame = new PendingUpdate(index, 0, 0, w, h);
+            pendingBlits.clear();
+            scheduleUpdate();
+        }
+    }
 
-        // copy the data synchronously
-        Display.getDefault().syncExec(() -> {
-            if (imageData == null || w != imageData.width || h != imageData.height) {
-                PaletteData palette = new PaletteData(0xFF000000, 0xFF0000, 0xFF00);
-                imageData = new ImageData(w, h, 32, palette);
+    @Override
+    public void blitShared(int index, int x, int y, int w, int h) {
+        if (isRefreshing)
+            setMessage(null);
+        isRefreshing = false;
+
+        synchronized (frameLock) {
+            pendingBlits.add(new PendingUpdate(index, x, y, w, h));
+            scheduleUpdate();
+            waitForBuffer(1 - index);
+        }
+    }
+
+    /**
+     * Blocks until the given shared buffer holds no pending update, so Python
+     * can write into it. Must be called with frameLock held.
+     */
+    private void waitForBuffer(int index) {
+        while (isBufferPending(index) && !isDisposed()) {
+            try {
+                frameLock.wait(100); // the timeout is only to notice disposal
             }
-            // Have to up-cast buf because Java 9 added a covariant
-            // override of rewind to ByteBuffer, so we weren't always
-            // compatible (got NoSuchMethodException).
-            // see: https://github.com/eclipse/jetty.project/issues/3244
-            ((Buffer)buf).rewind();
-            buf.get(imageData.data);
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 
-        });
+    private boolean isBufferPending(int index) {
+        if (pendingFrame != null && pendingFrame.index == index)
+            return true;
+        for (PendingUpdate blit : pendingBlits)
+            if (blit.index == index)
+                return true;
+        return false;
+    }
 
-        // then update the image itself and redraw asynchronously, because this part takes longer
-        Display.getDefault().asyncExec(() -> {
+    /**
+     * Schedules applyPendingUpdates() unless it is already scheduled, so
+     * updates arriving while the Display thread is busy are coalesced.
+     * Must be called with frameLock held.
+     */
+    private void scheduleUpdate() {
+        if (!updateScheduled) {
+            updateScheduled = true;
+            Display.getDefault().asyncExec(this::applyPendingUpdates);
+        }
+    }
+
+    /**
+     * Copies the pending frame and blitted regions from the shared buffers
+     * into imageData, then shows the result. Runs on the Display thread.
+     */
+    private void applyPendingUpdates() {
+        boolean changed = false;
+        synchronized (frameLock) {
+            updateScheduled = false;
             if (!isDisposed()) {
-                if (image != null)
-                    image.dispose();
+                if (pendingFrame != null)
+                    changed |= copyFrame(pendingFrame);
+                for (PendingUpdate blit : pendingBlits)
+                    changed |= copyRegion(blit);
+            }
+            pendingFrame = null;
+            pendingBlits.clear();
+            frameLock.notifyAll();
+        }
 
-                // this is actually the slowest part... consider using BufferedImage or
-                // something like that?
-                image = new Image(getDisplay(), imageData);
+        if (changed && !isDisposed()) {
+            if (image != null)
+                image.dispose();
 
-                redraw();
-                update();
-            }
+            // this is actually the slowest part... consider using BufferedImage or
+            // something like that?
+            image = new Image(getDisplay(), imageData);
 
-        });
+            redraw();
+            update();
+        }
+    }
+
+    private boolean copyFrame(PendingUpdate frame) {
+        ByteBuffer buf = sharedBuffers[frame.index];
+        if (buf == null || buf.capacity() < (long)frame.w * frame.h * 4)
+            return false; // avoids InvalidArgumentException
+
+        if (imageData == null || frame.w != imageData.width || frame.h != imageData.height) {
+            PaletteData palette = new PaletteData(0xFF000000, 0xFF0000, 0xFF00);
+            imageData = new ImageData(frame.w, frame.h, 32, palette);
+        }
+        // Have to up-cast buf because Java 9 added a covariant
+        // override of rewind to ByteBuffer, so we weren't always
+        // compatible (got NoSuchMethodException).
+        // see: https://github.com/eclipse/jetty.project/issues/3244
+        ((Buffer)buf).rewind();
+        buf.get(imageData.data, 0, imageData.bytesPerLine * frame.h);
+        return true;
+    }
+
+    private boolean copyRegion(PendingUpdate blit) {
+        ByteBuffer buf = sharedBuffers[blit.index];
+        if (imageData == null || buf == null || buf.capacity() < (long)blit.w * blit.h * 4)
+            return false;
+
+        // clip to the image, it may have a different size while a resize is in-flight
+        int x0 = Math.max(blit.x, 0), x1 = Math.min(blit.x + blit.w, imageData.width);
+        int y0 = Math.max(blit.y, 0), y1 = Math.min(blit.y + blit.h, imageData.height);
+        if (x0 >= x1 || y0 >= y1)
+            return false;
+
+        for (int y = y0; y < y1; y++) {
+            ((Buffer)buf).position(((y - blit.y) * blit.w + (x0 - blit.x)) * 4);
+            buf.get(imageData.data, y * imageData.bytesPerLine + x0 * 4, (x1 - x0) * 4);
+        }
+        return true;
     }
 
     protected void onDispose() {
-        if (buf != null)
-            ScaveEngine.unmapSharedMemory(buf);
+        synchronized (frameLock) {
+            for (int i = 0; i < sharedBuffers.length; i++) {
+                if (sharedBuffers[i] != null)
+                    ScaveEngine.unmapSharedMemory(sharedBuffers[i]);
+                sharedBuffers[i] = null;
+            }
+            pendingFrame = null;
+            pendingBlits.clear();
+            frameLock.notifyAll();
+        }
         if (image != null)
             image.dispose();
     }
 
     /**
-     * This is not used by default at the moment.
+     * This is not used by default, only when shared memory is disabled in Python.
      */
     @Override
     public void setPixels(byte[] pixels, int w, int h) {
@@ -446,6 +593,9 @@ public class MatplotlibWidget extends Canvas implements IMatplotlibWidget {
         update();
     }
 
+    /**
+     * This is not used by default, only when shared memory is disabled in Python.
+     */
     @Override
     public void blit(byte[] pixels, int x, int y, int w, int h) {
         if (isRefreshing)
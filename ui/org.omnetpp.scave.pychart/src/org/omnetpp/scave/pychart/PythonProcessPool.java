@@ -12,60 +12,297 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.URISyntaxException;
 import java.security.SecureRandom;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.omnetpp.common.Debug;
 
 import py4j.ClientServer;
 
 /**
- * This class keeps a (configurable) number of PythonProcess instances in a pool,
- * ready to use. Each of them is a running python3 interpreter process, with a
- * Py4J connection to it. This was added to reduce the latency of repeated chart
- * script executions.
+ * This class keeps a number of PythonProcess instances in a pool, ready to use.
+ * Each of them is a running python3 interpreter process, with a Py4J connection
+ * to it. This was added to reduce the latency of repeated chart script executions.
+ *
+ * Processes are started on background threads, and they are only put into the
+ * pool after the Py4J connection has been established. The number of processes
+ * kept ready adapts to the demand: it is the number of processes requested in
+ * the last DEMAND_WINDOW_MILLIS, but at least minSize and at most maxSize.
+ * getProcess() blocks (with a timeout) until a process becomes available.
+ * Idle processes are checked periodically, and the ones that have exited or
+ * don't respond are evicted. If processes cannot be started, getProcess() fails
+ * immediately until starting them is attempted again after SPAWN_RETRY_MILLIS.
+ *
+ * In recycling mode (see setRecycleProcesses()), processes are given back to
+ * the pool after use, so the same warm processes can run several scripts.
+ *
+ * The get...() methods and toString() report metrics for tuning the pool.
  */
 public class PythonProcessPool {
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+    private static final long DEMAND_WINDOW_MILLIS = 30000;
+    private static final long HEALTH_CHECK_INTERVAL_MILLIS = 10000;
+    private static final int MAX_CONSECUTIVE_SPAWN_FAILURES = 3;
+    private static final long SPAWN_RETRY_MILLIS = 30000;
+    private static final int MAX_CONCURRENT_SPAWNS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private final int minSize;
+    private int maxSize;
     private boolean shouldSetOmnetppMplBackend = true;
-    private ArrayList<PythonProcess> availableProcesses = new ArrayList<PythonProcess>();
-    private String errorMessage = null;
-    private boolean threadExit = false;
+    private boolean recycleProcesses = false;
+
+    // the fields below are guarded by "this"
+    private ArrayDeque<PythonProcess> availableProcesses = new ArrayDeque<PythonProcess>(); // the oldest first
+    private int numLentProcesses = 0; // only counted in recycling mode
+    private int numSpawningProcesses = 0;
+    private int numCheckedProcesses = 0; // taken out of availableProcesses for a health check
+    private ArrayDeque<Long> requestTimes = new ArrayDeque<Long>(); // of the getProcess() calls in the last DEMAND_WINDOW_MILLIS
+    private String errorMessage = null; // set if processes cannot be started; cleared when retrying
+    private long errorTime = 0;
+    private int numConsecutiveSpawnFailures = 0;
+    private boolean disposed = false;
+    private long lastHealthCheckTime = System.currentTimeMillis();
+
+    // metrics
+    private long numRequests = 0;
+    private long numServed = 0;
+    private long numSpawned = 0;
+    private long numSpawnFailures = 0;
+    private long numEvicted = 0;
+    private long numTrimmed = 0;
+    private long numRecycled = 0;
+    private long numDiscarded = 0;
+    private long totalSpawnMillis = 0;
+    private long maxSpawnMillis = 0;
+    private long totalWaitMillis = 0;
+    private long maxWaitMillis = 0;
+
     private Thread launcherThread;
+    private ExecutorService spawnExecutor;
 
     public PythonProcessPool() {
         this(1);
     }
 
     public PythonProcessPool(int N) {
+        this.minSize = N;
+        this.maxSize = Math.max(N, Runtime.getRuntime().availableProcessors());
+
+        spawnExecutor = Executors.newCachedThreadPool((runnable) -> {
+            Thread thread = new Thread(runnable, "Python process launcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        launcherThread = new Thread(() -> manageProcesses(), "Python process pool manager");
+        launcherThread.setDaemon(true);
+        launcherThread.start();
+    }
+
+    public void setShouldSetOmnetppMplBackend(boolean value) {
+        this.shouldSetOmnetppMplBackend = value;
+    }
+
+    /**
+     * In recycling mode, processes obtained from getProcess() must be given back
+     * with recycleProcess() or discardProcess(), and they count towards the size
+     * of the pool even while they are in use. So the pool contains exactly N
+     * processes in total (it does not adapt to the demand), and new ones are only
+     * started to replace discarded ones.
+     */
+    public synchronized void setRecycleProcesses(boolean value) {
+        this.recycleProcesses = value;
+        notifyAll();
+    }
+
+    public synchronized boolean isRecycleProcesses() {
+        return recycleProcesses;
+    }
+
+    /**
+     * Sets the maximum number of processes kept ready when the demand is high.
+     * The default is the number of CPUs.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(minSize, maxSize);
+        notifyAll();
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * The number of processes the pool currently tries to keep, see the class comment.
+     */
+    public synchronized int getTargetSize() {
+        if (recycleProcesses)
+            return minSize;
+        return Math.min(maxSize, Math.max(minSize, requestTimes.size()));
+    }
+
+    private synchronized int getNumProcesses() {
+        return availableProcesses.size() + numSpawningProcesses + numCheckedProcesses + (recycleProcesses ? numLentProcesses : 0);
+    }
 
-        launcherThread = new Thread(() -> {
-            while (!threadExit) {
-                if (availableProcesses.size() < N) {
+    private void manageProcesses() {
+        while (true) {
+            boolean checkHealth = false;
+            synchronized (this) {
+                if (disposed)
+                    return;
+                long now = System.currentTimeMillis();
+                while (!requestTimes.isEmpty() && requestTimes.peekFirst() < now - DEMAND_WINDOW_MILLIS)
+                    requestTimes.removeFirst();
+
+                for (PythonProcess process : new ArrayList<PythonProcess>(availableProcesses))
+                    if (!process.isAlive())
+                        evict(process, "exited");
+
+                clearErrorIfRetryIsDue(now);
+
+                int targetSize = getTargetSize();
+                while (!availableProcesses.isEmpty() && getNumProcesses() > targetSize) {
+                    availableProcesses.removeFirst().kill();
+                    numTrimmed++;
+                }
+
+                if (errorMessage == null) {
+                    while (getNumProcesses() < targetSize && numSpawningProcesses < MAX_CONCURRENT_SPAWNS) {
+                        numSpawningProcesses++;
+                        spawnExecutor.execute(() -> spawnProcess());
+                    }
+                }
+
+                if (now - lastHealthCheckTime >= HEALTH_CHECK_INTERVAL_MILLIS) {
+                    lastHealthCheckTime = now;
+                    checkHealth = true;
+                }
+                else {
                     try {
-                        availableProcesses.add(createProcess());
+                        wait(HEALTH_CHECK_INTERVAL_MILLIS);
                     }
-                    catch (IOException e) {
-                        errorMessage = e.getMessage();
-                        threadExit = true;
+                    catch (InterruptedException e) {
+                        return;
                     }
-                    if (PythonProcess.debug)
-                        Debug.println("We have " + availableProcesses.size() + " processes.");
                 }
-                try {
-                    Thread.sleep(1000);
-                }
-                catch (InterruptedException e) {
-                    // need to create a process right away - most likely
+            }
+            if (checkHealth)
+                checkIdleProcesses();
+        }
+    }
+
+    private void spawnProcess() {
+        long startTime = System.currentTimeMillis();
+        PythonProcess process = null;
+        String error = null;
+        boolean fatal = false;
+        try {
+            process = createProcess();
+            process.getEntryPoint(); // wait until it's ready to use
+        }
+        catch (IOException e) {
+            error = e.getMessage(); // most likely, python3 cannot be started at all
+            fatal = true;
+        }
+        catch (RuntimeException e) {
+            error = e.getMessage();
+            if (process != null)
+                process.kill();
+        }
+        long spawnMillis = System.currentTimeMillis() - startTime;
+
+        synchronized (this) {
+            numSpawningProcesses--;
+            if (error == null) {
+                numSpawned++;
+                numConsecutiveSpawnFailures = 0;
+                errorMessage = null;
+                totalSpawnMillis += spawnMillis;
+                maxSpawnMillis = Math.max(maxSpawnMillis, spawnMillis);
+                if (disposed)
+                    process.kill();
+                else
+                    availableProcesses.addLast(process);
+                if (PythonProcess.debug)
+                    Debug.println("Python process started in " + spawnMillis + "ms. " + this);
+            }
+            else {
+                numSpawnFailures++;
+                if (fatal || ++numConsecutiveSpawnFailures >= MAX_CONSECUTIVE_SPAWN_FAILURES) {
+                    errorMessage = error;
+                    errorTime = System.currentTimeMillis();
                 }
+                if (PythonProcess.debug)
+                    Debug.println("Could not start Python process: " + error);
             }
-        });
+            notifyAll();
+        }
+    }
 
-        launcherThread.setDaemon(true);
-        launcherThread.start();
+    /**
+     * After a spawn failure, allows starting processes again once SPAWN_RETRY_MILLIS
+     * has elapsed. The consecutive failure count is kept, so a single failed retry
+     * sets the error again.
+     */
+    private void clearErrorIfRetryIsDue(long now) {
+        if (errorMessage != null && now - errorTime >= SPAWN_RETRY_MILLIS) {
+            if (PythonProcess.debug)
+                Debug.println("Retrying to start Python processes after: " + errorMessage);
+            errorMessage = null;
+            numConsecutiveSpawnFailures = Math.min(numConsecutiveSpawnFailures, MAX_CONSECUTIVE_SPAWN_FAILURES - 1);
+            notifyAll();
+        }
     }
 
-    public void setShouldSetOmnetppMplBackend(boolean value) {
-        this.shouldSetOmnetppMplBackend = value;
+    /**
+     * Checks whether the idle processes still respond. The processes are taken out of
+     * the pool one at a time while being checked, so they are not handed out meanwhile.
+     */
+    private void checkIdleProcesses() {
+        ArrayList<PythonProcess> processes;
+        synchronized (this) {
+            processes = new ArrayList<PythonProcess>(availableProcesses);
+        }
+        for (PythonProcess process : processes) {
+            synchronized (this) {
+                if (disposed || !availableProcesses.remove(process))
+                    continue; // taken meanwhile
+                numCheckedProcesses++;
+            }
+            boolean ok;
+            try {
+                ok = process.isAlive() && process.getEntryPoint().check(); // times out if the process hangs
+            }
+            catch (RuntimeException e) {
+                ok = false;
+            }
+            synchronized (this) {
+                numCheckedProcesses--;
+                if (disposed)
+                    process.kill();
+                else if (ok)
+                    availableProcesses.addFirst(process);
+                else
+                    evict(process, "not responding");
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void evict(PythonProcess process, String reason) {
+        availableProcesses.remove(process);
+        process.kill();
+        numEvicted++;
+        if (PythonProcess.debug)
+            Debug.println("Evicted Python process (" + reason + "): " + process);
     }
 
     private PythonProcess createProcess() throws IOException {
@@ -150,27 +387,163 @@ public class PythonProcessPool {
     }
 
     public void dispose() {
-        threadExit = true;
-        launcherThread.interrupt();
-        for (PythonProcess pr : availableProcesses)
-            pr.kill();
-        availableProcesses.clear();
+        synchronized (this) {
+            if (PythonProcess.debug)
+                Debug.println("Disposing: " + this);
+            disposed = true;
+            for (PythonProcess pr : availableProcesses)
+                pr.kill();
+            availableProcesses.clear();
+            notifyAll();
+        }
+        spawnExecutor.shutdown();
     }
 
-    public PythonProcess getProcess() {
+    /**
+     * Gives back a process obtained from getProcess() in recycling mode, for running
+     * further scripts. It is the caller's responsibility to leave it in a reusable
+     * state; processes that have exited are discarded.
+     */
+    public synchronized void recycleProcess(PythonProcess process) {
+        if (disposed || !process.isAlive()) {
+            discardProcess(process);
+            return;
+        }
+        numLentProcesses--;
+        numRecycled++;
+        availableProcesses.addLast(process);
+        notifyAll();
+    }
 
-        while (availableProcesses.isEmpty()) {
-            launcherThread.interrupt();
-            // TODO: make sure to wait for a process to become available
+    /**
+     * Kills a process obtained from getProcess() in recycling mode, and lets the pool
+     * start a new one in its place.
+     */
+    public synchronized void discardProcess(PythonProcess process) {
+        process.kill();
+        numLentProcesses--;
+        numDiscarded++;
+        notifyAll();
+    }
+
+    public PythonProcess getProcess() {
+        return getProcess(DEFAULT_TIMEOUT_MILLIS);
+    }
 
+    /**
+     * Returns a process from the pool, waiting at most timeoutMillis for one to
+     * become available. Throws RuntimeException on timeout, or if processes cannot
+     * be started.
+     */
+    public synchronized PythonProcess getProcess(long timeoutMillis) {
+        long startTime = System.currentTimeMillis();
+        numRequests++;
+        requestTimes.addLast(startTime);
+        notifyAll(); // the demand changed, the launcher may start more processes
+
+        while (true) {
+            if (disposed)
+                throw new IllegalStateException("Python process pool already disposed");
+            PythonProcess pr = availableProcesses.pollFirst();
+            if (pr != null) {
+                if (!pr.isAlive()) {
+                    evict(pr, "exited");
+                    continue;
+                }
+                if (recycleProcesses)
+                    numLentProcesses++;
+                long waitMillis = System.currentTimeMillis() - startTime;
+                numServed++;
+                totalWaitMillis += waitMillis;
+                maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+                notifyAll(); // to replenish the supply of processes
+                return pr;
+            }
+            clearErrorIfRetryIsDue(System.currentTimeMillis());
             if (errorMessage != null)
                 throw new RuntimeException(errorMessage);
+            long remainingMillis = startTime + timeoutMillis - System.currentTimeMillis();
+            if (remainingMillis <= 0)
+                throw new RuntimeException("Timed out waiting for a Python process to start (" + this + ")");
+            try {
+                wait(remainingMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a Python process", e);
+            }
         }
+    }
 
-        PythonProcess pr = availableProcesses.remove(0);
-        // waking up the launcher to replenish the supply of processes
-        launcherThread.interrupt();
+    public synchronized int getNumAvailableProcesses() {
+        return availableProcesses.size();
+    }
+
+    public synchronized int getNumSpawningProcesses() {
+        return numSpawningProcesses;
+    }
+
+    public synchronized int getNumLentProcesses() {
+        return numLentProcesses;
+    }
+
+    public synchronized long getNumRequests() {
+        return numRequests;
+    }
+
+    public synchronized long getNumSpawned() {
+        return numSpawned;
+    }
+
+    public synchronized long getNumSpawnFailures() {
+        return numSpawnFailures;
+    }
+
+    public synchronized long getNumEvicted() {
+        return numEvicted;
+    }
+
+    public synchronized long getNumTrimmed() {
+        return numTrimmed;
+    }
+
+    public synchronized long getNumRecycled() {
+        return numRecycled;
+    }
+
+    public synchronized long getNumDiscarded() {
+        return numDiscarded;
+    }
+
+    /**
+     * Average time from starting a process until it is ready to use.
+     */
+    public synchronized long getAverageSpawnMillis() {
+        return numSpawned == 0 ? 0 : totalSpawnMillis / numSpawned;
+    }
+
+    public synchronized long getMaxSpawnMillis() {
+        return maxSpawnMillis;
+    }
+
+    /**
+     * Average time getProcess() callers had to wait for a process.
+     */
+    public synchronized long getAverageWaitMillis() {
+        return numServed == 0 ? 0 : totalWaitMillis / numServed;
+    }
+
+    public synchronized long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
 
-        return pr;
+    @Override
+    public synchronized String toString() {
+        return "PythonProcessPool: " + availableProcesses.size() + " available, " + numSpawningProcesses + " starting, " +
+                (recycleProcesses ? numLentProcesses + " in use, " : "") + "target " + getTargetSize() + " (" + minSize + ".." + maxSize + "), " +
+                numRequests + " requests, " + numSpawned + " started, " + numSpawnFailures + " failed to start, " +
+                numEvicted + " evicted, " + numTrimmed + " trimmed, " + numRecycled + " recycled, " + numDiscarded + " discarded, " +
+                "start time avg " + getAverageSpawnMillis() + "ms max " + maxSpawnMillis + "ms, " +
+                "wait time avg " + getAverageWaitMillis() + "ms max " + maxWaitMillis + "ms";
     }
 }
@@ -1,5 +1,5 @@
 import math
-from omnetpp.scave import results, chart, utils
+from omnetpp.scave import results, chart, utils, ideplot
 
 # get chart properties
 props = chart.get_properties()
@@ -10,22 +10,34 @@ filter_expression = props["filter"]
 start_time = float(props["vector_start_time"] or -math.inf)
 end_time = float(props["vector_end_time"] or math.inf)
 
-# query vector data into a data frame
-try:
-    df = results.get_vectors(filter_expression, include_attrs=True, include_runattrs=True, include_itervars=True, start_time=start_time, end_time=end_time)
-except results.ResultQueryError as e:
-    raise chart.ChartScriptError("Error while querying results: " + str(e))
+# vector operations need the whole data, so they turn off decimation
+if chart.is_native_chart() and props.get("vector_decimation") == "true" and not (props["vector_operations"] or "").strip():
+    # let the plot load only as much of the vector data as needed for the display
+    if ideplot.plot_decimated_vectors(filter_expression, start_time=start_time, end_time=end_time) == 0:
+        raise chart.ChartScriptError("The result filter returned no data.")
+    if props.get("title"):
+        utils.set_plot_title(props["title"])
 
-if df.empty:
-    raise chart.ChartScriptError("The result filter returned no data.")
+    utils.postconfigure_plot(props)
 
-# apply vector operations
-df = utils.perform_vector_ops(df, props["vector_operations"])
+    utils.export_image_if_needed(props)
+else:
+    # query vector data into a data frame
+    try:
+        df = results.get_vectors(filter_expression, include_attrs=True, include_runattrs=True, include_itervars=True, start_time=start_time, end_time=end_time)
+    except results.ResultQueryError as e:
+        raise chart.ChartScriptError("Error while querying results: " + str(e))
 
-# plot
-utils.plot_vectors(df, props)
+    if df.empty:
+        raise chart.ChartScriptError("The result filter returned no data.")
 
-utils.postconfigure_plot(props)
+    # apply vector operations
+    df = utils.perform_vector_ops(df, props["vector_operations"])
 
-utils.export_image_if_needed(props)
-utils.export_data_if_needed(df, props)
+    # plot
+    utils.plot_vectors(df, props)
+
+    utils.postconfigure_plot(props)
+
+    utils.export_image_if_needed(props)
+    utils.export_data_if_needed(df, props)
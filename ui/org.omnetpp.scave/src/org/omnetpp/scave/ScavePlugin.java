@@ -18,6 +18,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
 import org.eclipse.swt.graphics.Image;
@@ -25,6 +26,8 @@ import org.eclipse.ui.ISharedImages;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.omnetpp.common.Debug;
+import org.omnetpp.scave.common.IndexFileUtils;
+import org.omnetpp.scave.preferences.ScavePreferenceConstants;
 import org.omnetpp.scave.pychart.PythonProcessPool;
 import org.osgi.framework.BundleContext;
 import org.python.pydev.ast.interpreter_managers.InterpreterInfo;
@@ -60,6 +63,14 @@ public class ScavePlugin extends AbstractUIPlugin {
         PLUGIN_ID = getBundle().getSymbolicName();
 
         ensurePyDevInterpreterConfigured();
+
+        // the indexer in the builder plugin cannot access our preferences, so we pass the setting to it
+        IPreferenceStore store = getPreferenceStore();
+        IndexFileUtils.setGeneratePyramids(store.getBoolean(ScavePreferenceConstants.GENERATE_VECTOR_PYRAMIDS));
+        store.addPropertyChangeListener(event -> {
+            if (event.getProperty().equals(ScavePreferenceConstants.GENERATE_VECTOR_PYRAMIDS))
+                IndexFileUtils.setGeneratePyramids(store.getBoolean(ScavePreferenceConstants.GENERATE_VECTOR_PYRAMIDS));
+        });
     }
 
     // source: https://stackoverflow.com/a/32827512/635587
@@ -18,6 +18,7 @@ import org.omnetpp.scave.charttemplates.ChartTemplateRegistry;
 import org.omnetpp.scave.editors.IDListSelection;
 import org.omnetpp.scave.editors.ScaveEditor;
 import org.omnetpp.scave.engine.IDList;
+import org.omnetpp.scave.engine.ResultFileManager;
 import org.omnetpp.scave.model.Chart;
 import org.omnetpp.scave.model.ChartTemplate;
 import org.omnetpp.scave.model2.ResultSelectionFilterGenerator;
@@ -28,6 +29,9 @@ import org.omnetpp.scave.model2.ScaveModelUtil;
  * choosing the template to use, then opens it.
  */
 public class PlotAction extends AbstractScaveAction {
+    // above this many values, vectors are plotted with only the displayed data loaded (see DecimatedVectorDataset)
+    private static final long DECIMATION_MIN_VALUES = 1000000;
+
     public PlotAction() {
         setText("Plot");
         setToolTipText("Plot");
@@ -53,10 +57,24 @@ public class PlotAction extends AbstractScaveAction {
         editor.getFilterCache().putFilterResult(type, filter, includeFields, idList);
         chart.setPropertyValue("filter", filter);
         chart.setPropertyValue("include_fields", "" + includeFields);
+        if (chart.getProperty("vector_decimation") != null && getTotalVectorLength(idListSelection.getResultFileManager(), idList) > DECIMATION_MIN_VALUES)
+            chart.setPropertyValue("vector_decimation", "true");
         chart.setTemporary(true);
         editor.openPage(chart);
     }
 
+    private static long getTotalVectorLength(ResultFileManager manager, IDList idList) {
+        return ResultFileManager.callWithReadLock(manager, () -> {
+            long total = 0;
+            for (int i = 0; i < idList.size(); i++) {
+                long id = idList.get(i);
+                if (ResultFileManager.getTypeOf(id) == ResultFileManager.VECTOR)
+                    total += Math.max(0, manager.getVector(id).getStatistics().getCount());
+            }
+            return total;
+        });
+    }
+
     ChartTemplate getTemplateForResults(ScaveEditor editor, ISelection selection) {
         if (!(selection instanceof IDListSelection) || selection.isEmpty())
             return null;
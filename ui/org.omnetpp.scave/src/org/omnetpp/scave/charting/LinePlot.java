@@ -39,6 +39,10 @@ import java.util.Map;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.geometry.Insets;
 import org.eclipse.draw2d.geometry.Rectangle;
@@ -50,6 +54,7 @@ import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.omnetpp.common.Debug;
 import org.omnetpp.common.canvas.ICoordsMapping;
 import org.omnetpp.common.canvas.RectangularArea;
@@ -59,6 +64,7 @@ import org.omnetpp.common.util.GraphicsUtils;
 import org.omnetpp.common.util.StringUtils;
 import org.omnetpp.scave.ScavePlugin;
 import org.omnetpp.scave.charting.dataset.DatasetUtils;
+import org.omnetpp.scave.charting.dataset.DecimatedVectorDataset;
 import org.omnetpp.scave.charting.dataset.IDataset;
 import org.omnetpp.scave.charting.dataset.IXYDataset;
 import org.omnetpp.scave.charting.plotter.ChartSymbolFactory;
@@ -71,6 +77,7 @@ import org.omnetpp.scave.charting.properties.PlotProperty.DrawStyle;
 import org.omnetpp.scave.charting.properties.PlotProperty.LineStyle;
 import org.omnetpp.scave.charting.properties.PlotProperty.ShowGrid;
 import org.omnetpp.scave.charting.properties.PlotProperty.SymbolType;
+import org.omnetpp.scave.engine.InterruptedFlag;
 import org.omnetpp.scave.preferences.ScavePreferenceConstants;
 import org.omnetpp.scave.python.XYDataset;
 
@@ -106,6 +113,7 @@ public class LinePlot extends PlotBase {
     });
 
     private IXYDataset dataset = null;
+    private Job loadLevelJob; // loads the missing level of detail of a DecimatedVectorDataset
     private List<LineProperties> lineProperties;
 
     private LinearAxis xAxis = new LinearAxis(false, false, true);
@@ -200,6 +208,22 @@ public class LinePlot extends PlotBase {
             int size = getEffectiveSymbolSize();
             return ChartSymbolFactory.createChartSymbol(type, size);
         }
+
+        /**
+         * Returns a copy in which all properties are set to their effective values,
+         * so it is not affected by later changes of these properties or the defaults.
+         */
+        public LineProperties getEffectiveCopy() {
+            LineProperties copy = new LineProperties(lineId, series);
+            copy.displayLine = getEffectiveDisplayLine();
+            copy.symbolType = getEffectiveSymbolType();
+            copy.symbolSize = getEffectiveSymbolSize();
+            copy.drawStyle = getEffectiveDrawStyle();
+            copy.lineColor = lineColor == null ? defaultLineColor : lineColor;
+            copy.lineStyle = getEffectiveLineStyle();
+            copy.lineWidth = getEffectiveLineWidth();
+            return copy;
+        }
     }
 
     // This is just a handle to one point of one series, so we can reference it.
@@ -234,6 +258,8 @@ public class LinePlot extends PlotBase {
             }
         });
 
+        addDisposeListener(e -> cancelLoadLevelJob());
+
         resetProperties();
     }
 
@@ -334,9 +360,17 @@ public class LinePlot extends PlotBase {
         if (dataset != null && !(dataset instanceof IXYDataset))
             throw new IllegalArgumentException("must be an IXYDataset");
 
+        cancelLoadLevelJob();
+
+        // The painting jobs may still be reading the data of the old dataset (which is
+        // in shared memory in the case of XYDataset), so they must be stopped first.
+        stopPaintInBackground();
+
         // We have to do this here because NativeChartPlotter can't do it in its reset().
-        if (this.dataset != null)
+        if (this.dataset instanceof XYDataset)
             ((XYDataset)this.dataset).dispose();
+        else if (this.dataset instanceof DecimatedVectorDataset)
+            ((DecimatedVectorDataset)this.dataset).dispose();
 
         this.dataset = (IXYDataset)dataset;
         this.selection = null;
@@ -638,8 +672,88 @@ public class LinePlot extends PlotBase {
             return null;
     }
 
+    @Override
+    protected void paint(Graphics graphics) {
+        // select the level of detail before any tile is painted, so all tiles show the same data
+        if (dataset instanceof DecimatedVectorDataset && innerPlotArea != null && !getClientArea().isEmpty()) {
+            DecimatedVectorDataset decimatedDataset = (DecimatedVectorDataset)dataset;
+            double left = inverseTransformX(fromCanvasX(innerPlotArea.x));
+            double right = inverseTransformX(fromCanvasX(innerPlotArea.x + innerPlotArea.width));
+            if (decimatedDataset.setVisibleRange(left, right, innerPlotArea.width))
+                clearCanvasCache();
+            if (decimatedDataset.isLevelMissing())
+                scheduleLoadLevelJob(decimatedDataset); // meanwhile, the current level is drawn
+        }
+        super.paint(graphics);
+    }
+
+    /**
+     * Loads the level of detail missing from the dataset in the background,
+     * and repaints the plot when done. If a job is already running, nothing
+     * is done: the repaint after it finishes will request the level that is
+     * missing at that time.
+     */
+    private void scheduleLoadLevelJob(DecimatedVectorDataset decimatedDataset) {
+        if (loadLevelJob != null && loadLevelJob.getState() != Job.NONE)
+            return;
+        InterruptedFlag interruptedFlag = new InterruptedFlag();
+        loadLevelJob = new Job("Loading vector data") {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                try {
+                    if (!decimatedDataset.loadMissingLevel(interruptedFlag))
+                        return Status.OK_STATUS;
+                }
+                catch (RuntimeException e) {
+                    if (interruptedFlag.getFlag())
+                        return Status.CANCEL_STATUS;
+                    return new Status(IStatus.ERROR, ScavePlugin.PLUGIN_ID, "Could not load vector data", e);
+                }
+                Display.getDefault().asyncExec(() -> {
+                    if (!isDisposed() && dataset == decimatedDataset && !interruptedFlag.getFlag())
+                        redraw(); // selects the loaded level
+                });
+                return Status.OK_STATUS;
+            }
+
+            @Override
+            protected void canceling() {
+                interruptedFlag.setFlag(true);
+            }
+        };
+        loadLevelJob.setSystem(true);
+        loadLevelJob.schedule();
+    }
+
+    private void cancelLoadLevelJob() {
+        if (loadLevelJob != null) {
+            loadLevelJob.cancel();
+            loadLevelJob = null;
+        }
+    }
+
+    @Override
+    protected boolean hasCoarsePass() {
+        return true;
+    }
+
     @Override
     protected void doPaintCachableLayer(Graphics graphics, ICoordsMapping coordsMapping) {
+        doPaintCachableLayer(graphics, coordsMapping, lines.createSnapshot(), false);
+    }
+
+    @Override
+    protected boolean canPaintInBackground() {
+        return true;
+    }
+
+    @Override
+    protected ICachableLayerPainter createCachableLayerPainter() {
+        Lines.Snapshot snapshot = lines.createSnapshot();
+        return (graphics, coordsMapping, coarse) -> doPaintCachableLayer(graphics, coordsMapping, snapshot, coarse);
+    }
+
+    private void doPaintCachableLayer(Graphics graphics, ICoordsMapping coordsMapping, Lines.Snapshot snapshot, boolean coarse) {
         graphics.fillRectangle(GraphicsUtils.getClip(graphics));
         xAxis.drawGrid(graphics, coordsMapping);
         yAxis.drawGrid(graphics, coordsMapping);
@@ -648,9 +762,9 @@ public class LinePlot extends PlotBase {
         int totalTimeLimitMillis = store.getInt(ScavePreferenceConstants.TOTAL_DRAW_TIME_LIMIT_MILLIS);
         int perLineTimeLimitMillis = store.getInt(ScavePreferenceConstants.PER_LINE_DRAW_TIME_LIMIT_MILLIS);
 
-        boolean completed = lines.draw(graphics, coordsMapping, totalTimeLimitMillis, perLineTimeLimitMillis);
+        boolean completed = lines.draw(graphics, coordsMapping, snapshot, totalTimeLimitMillis, perLineTimeLimitMillis, coarse);
 
-        if (!completed) {
+        if (!completed && !coarse) {
             Rectangle clip = GraphicsUtils.getClip(graphics);
             graphics.setForegroundColor(ColorFactory.BLACK);
             graphics.drawText("Drawing operation timed out, lines is incomplete! Change zoom level to refresh.", clip.x+2, clip.y+2);
@@ -17,7 +17,9 @@ import org.omnetpp.common.Debug;
 import org.omnetpp.common.canvas.ICoordsMapping;
 import org.omnetpp.common.canvas.RectangularArea;
 import org.omnetpp.scave.charting.LinePlot.LineProperties;
+import org.omnetpp.scave.charting.dataset.DecimatedVectorDataset;
 import org.omnetpp.scave.charting.dataset.IXYDataset;
+import org.omnetpp.scave.charting.dataset.SubsampledXYDataset;
 import org.omnetpp.scave.charting.plotter.ILinePlotter;
 import org.omnetpp.scave.charting.plotter.IPlotSymbol;
 
@@ -28,9 +30,32 @@ class Lines implements ILinePlot {
 
     private static final boolean debug = false;
 
+    // in coarse mode, at most this many points per pixel column are drawn
+    private static final int COARSE_POINTS_PER_PIXEL = 4;
+
     private LinePlot parent;
     private Rectangle rect = new Rectangle(0,0,1,1);
 
+    /**
+     * The state of the plot needed for drawing the lines. It is captured in
+     * the UI thread, so drawing in the background is not affected by later
+     * changes of the plot (enabling/disabling lines, setting line properties,
+     * switching the level of detail of the dataset).
+     */
+    static class Snapshot {
+        final IXYDataset dataset;
+        final int[] enabledSeries;
+        final LineProperties[] lineProperties; // indexed by series
+        final boolean antialias;
+
+        private Snapshot(IXYDataset dataset, int[] enabledSeries, LineProperties[] lineProperties, boolean antialias) {
+            this.dataset = dataset;
+            this.enabledSeries = enabledSeries;
+            this.lineProperties = lineProperties;
+            this.antialias = antialias;
+        }
+    }
+
     public Lines(LinePlot parent) {
         this.parent = parent;
     }
@@ -179,15 +204,34 @@ class Lines implements ILinePlot {
         return area;
     }
 
+    /**
+     * Captures the state needed by draw(). Must be called in the UI thread.
+     */
+    protected Snapshot createSnapshot() {
+        IXYDataset dataset = getDataset();
+        if (dataset == null)
+            return new Snapshot(null, new int[0], new LineProperties[0], parent.antialias);
+        if (dataset instanceof DecimatedVectorDataset)
+            dataset = ((DecimatedVectorDataset)dataset).getSnapshot();
+        int[] enabledSeries = parent.legend.getEnabledItemIndices().stream().mapToInt(Integer::intValue).toArray();
+        LineProperties[] lineProperties = new LineProperties[dataset.getSeriesCount()];
+        for (int series : enabledSeries)
+            lineProperties[series] = parent.getLineProperties(series).getEffectiveCopy();
+        return new Snapshot(dataset, enabledSeries, lineProperties, parent.antialias);
+    }
+
     public boolean drawSingle(Graphics graphics, ICoordsMapping coordsMapping, int series, long startTime, int totalTimeLimitMillis, int perLineTimeLimitMillis) {
-        LineProperties props = parent.getLineProperties(series);
+        return drawSingle(this, graphics, coordsMapping, parent.getLineProperties(series), parent.antialias, series, startTime, totalTimeLimitMillis, perLineTimeLimitMillis);
+    }
+
+    private boolean drawSingle(ILinePlot plot, Graphics graphics, ICoordsMapping coordsMapping, LineProperties props, boolean antialias, int series, long startTime, int totalTimeLimitMillis, int perLineTimeLimitMillis) {
         if (props.getEffectiveDisplayLine()) {
 
             ILinePlotter plotter = props.getLinePlotter();
             IPlotSymbol symbol = props.getSymbolPlotter();
             Color color = props.getEffectiveLineColor();
             parent.resetDrawingStylesAndColors(graphics);
-            graphics.setAntialias(parent.antialias ? SWT.ON : SWT.OFF);
+            graphics.setAntialias(antialias ? SWT.ON : SWT.OFF);
             graphics.setForegroundColor(color);
             graphics.setBackgroundColor(color);
             graphics.setLineStyle(props.getEffectiveLineStyle().getDraw2DConstant());
@@ -196,10 +240,10 @@ class Lines implements ILinePlot {
             int remainingTime = totalTimeLimitMillis - (int)(System.currentTimeMillis() - startTime);
             int lineTimeout = Math.min(Math.max(100, remainingTime), perLineTimeLimitMillis); // give it at least 100ms, even if time is over
 
-            boolean lineOK = plotter.plot(this, series, graphics, coordsMapping, symbol, lineTimeout);
+            boolean lineOK = plotter.plot(plot, series, graphics, coordsMapping, symbol, lineTimeout);
 
-            // if drawing is taking too long, display busy cursor
-            if (System.currentTimeMillis() - startTime > 1000) {
+            // if drawing is taking too long, display busy cursor (unless painting in the background)
+            if (System.currentTimeMillis() - startTime > 1000 && Display.getCurrent() != null) {
                 Cursor cursor = Display.getCurrent().getSystemCursor(SWT.CURSOR_WAIT);
                 parent.getShell().setCursor(cursor);
                 parent.setCursor(null); // crosshair cursor would override shell's busy cursor
@@ -210,19 +254,72 @@ class Lines implements ILinePlot {
         return true;
     }
 
-    protected boolean draw(Graphics graphics, ICoordsMapping coordsMapping, int totalTimeLimitMillis, int perLineTimeLimitMillis) {
-        if (getDataset() != null) {
+    /**
+     * Draws the enabled lines of the snapshot. If coarse is true, long lines are
+     * subsampled so that only a few points are drawn per pixel column; this is
+     * used for a quick preview when painting in the background.
+     */
+    protected boolean draw(Graphics graphics, ICoordsMapping coordsMapping, Snapshot snapshot, int totalTimeLimitMillis, int perLineTimeLimitMillis, boolean coarse) {
+        if (snapshot.dataset != null) {
             long startTime = System.currentTimeMillis();
             boolean ok = true;
+            IXYDataset dataset = coarse ? createSubsampledDataset(snapshot.dataset, coordsMapping) : snapshot.dataset;
+            ILinePlot plot = createPlot(dataset);
 
-            for (int series : parent.legend.getEnabledItemIndices()) {
-                boolean lineOk = drawSingle(graphics, coordsMapping, series, startTime, totalTimeLimitMillis, perLineTimeLimitMillis);
+            for (int series : snapshot.enabledSeries) {
+                boolean lineOk = drawSingle(plot, graphics, coordsMapping, snapshot.lineProperties[series], snapshot.antialias, series, startTime, totalTimeLimitMillis, perLineTimeLimitMillis);
                 ok = ok && lineOk; // do not merge with the previous line, shortcutting would prevent successive lines from being drawn...
             }
-            parent.getShell().setCursor(null);
+            if (Display.getCurrent() != null)
+                parent.getShell().setCursor(null);
             if (debug) Debug.println("plotting: "+(System.currentTimeMillis()-startTime)+" ms");
             return ok;
         }
         return true;
     }
+
+    /**
+     * Returns a view of the dataset which contains at most COARSE_POINTS_PER_PIXEL
+     * points per pixel column of each series.
+     */
+    private IXYDataset createSubsampledDataset(IXYDataset dataset, ICoordsMapping coordsMapping) {
+        int[] strides = new int[dataset.getSeriesCount()];
+        for (int series = 0; series < strides.length; series++) {
+            long widthPixels = coordsMapping.toCanvasX(transformX(dataset.getMaxX(series))) - coordsMapping.toCanvasX(transformX(dataset.getMinX(series)));
+            long maxPoints = Math.max(1, widthPixels) * COARSE_POINTS_PER_PIXEL;
+            strides[series] = (int)Math.max(1, dataset.getItemCount(series) / maxPoints);
+        }
+        return new SubsampledXYDataset(dataset, strides);
+    }
+
+    /**
+     * Returns a view of this plot with the given dataset.
+     */
+    private ILinePlot createPlot(IXYDataset dataset) {
+        return new ILinePlot() {
+            public IXYDataset getDataset() {
+                return dataset;
+            }
+
+            public Rectangle getPlotRectangle() {
+                return Lines.this.getPlotRectangle();
+            }
+
+            public double transformX(double x) {
+                return Lines.this.transformX(x);
+            }
+
+            public double transformY(double y) {
+                return Lines.this.transformY(y);
+            }
+
+            public double inverseTransformX(double x) {
+                return Lines.this.inverseTransformX(x);
+            }
+
+            public double inverseTransformY(double y) {
+                return Lines.this.inverseTransformY(y);
+            }
+        };
+    }
 }
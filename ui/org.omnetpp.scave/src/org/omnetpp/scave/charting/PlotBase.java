@@ -23,8 +23,11 @@ import static org.omnetpp.scave.charting.properties.PlotProperty.PROP_PLOT_TITLE
 import static org.omnetpp.scave.charting.properties.PlotProperty.PROP_Y_AXIS_MAX;
 import static org.omnetpp.scave.charting.properties.PlotProperty.PROP_Y_AXIS_MIN;
 
+import java.util.ArrayList;
+
 import org.apache.commons.lang3.ObjectUtils;
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.SWTGraphics;
@@ -43,6 +46,7 @@ import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.widgets.Composite;
 import org.omnetpp.common.Debug;
 import org.omnetpp.common.canvas.ICoordsMapping;
+import org.omnetpp.common.canvas.LargeRect;
 import org.omnetpp.common.canvas.RectangularArea;
 import org.omnetpp.common.canvas.ZoomableCachingCanvas;
 import org.omnetpp.common.canvas.ZoomableCanvasMouseSupport;
@@ -55,6 +59,7 @@ import org.omnetpp.scave.charting.dataset.IDataset;
 import org.omnetpp.scave.charting.properties.PlotProperty;
 import org.omnetpp.scave.charting.properties.PlotProperty.LegendAnchor;
 import org.omnetpp.scave.charting.properties.PlotProperty.LegendPosition;
+import org.omnetpp.scave.preferences.ScavePreferenceConstants;
 
 /**
  * Base class for all native plot widgets.
@@ -127,6 +132,8 @@ public abstract class PlotBase extends ZoomableCachingCanvas implements IPlotVie
 
         mouseSupport = new ZoomableCanvasMouseSupport(this); // add mouse handling; may be made optional
 
+        setPaintInBackground(canPaintInBackground() && ScavePlugin.getDefault().getPreferenceStore().getBoolean(ScavePreferenceConstants.PAINT_PLOTS_IN_BACKGROUND));
+
         addControlListener(new ControlAdapter() {
             @Override
             public void controlResized(ControlEvent e) {
@@ -267,7 +274,73 @@ public abstract class PlotBase extends ZoomableCachingCanvas implements IPlotVie
         coordsMapping = null;
     }
 
+    @Override
+    protected PaintInBackgroundJob createPaintInBackgroundJob(ArrayList<LargeRect> missingAreas) {
+        if (getClientArea().isEmpty())
+            return null;
+
+        // capture everything that needs the UI thread
+        final ICoordsMapping mapping = getOptimizedCoordinateMapper();
+        final int numPasses = hasCoarsePass() ? 2 : 1;
+
+        final ICachableLayerPainter painter = createCachableLayerPainter();
+
+        PaintInBackgroundJob job = new PaintInBackgroundJob("Painting plot", missingAreas) {
+            @Override
+            protected int getNumPasses() {
+                return numPasses;
+            }
+
+            @Override
+            protected void paintCachableLayer(Graphics graphics, int pass, IProgressMonitor monitor) {
+                resetDrawingStylesAndColors(graphics);
+                painter.paint(graphics, mapping, pass < numPasses - 1);
+            }
+        };
+        job.setSystem(true);
+        return job;
+    }
+
     abstract protected void doPaintCachableLayer(Graphics graphics, ICoordsMapping coordsMapping);
+
+    /**
+     * Paints the cachable layer when painting in the background, see
+     * createCachableLayerPainter().
+     */
+    protected interface ICachableLayerPainter {
+        /**
+         * Paints the cachable layer, possibly in a quick, approximate way if coarse is true.
+         */
+        void paint(Graphics graphics, ICoordsMapping coordsMapping, boolean coarse);
+    }
+
+    /**
+     * Whether the plot can be painted in background jobs, i.e. whether it implements
+     * createCachableLayerPainter(). Called from the constructor. Plots that return
+     * false are always painted in the UI thread.
+     */
+    protected boolean canPaintInBackground() {
+        return false;
+    }
+
+    /**
+     * Returns the painter of the cachable layer for a background painting job.
+     * It is called in the UI thread when the job is created, but the painter is
+     * called from background threads, so it must not access widget state; the
+     * state it needs should be captured here. Only called if canPaintInBackground()
+     * returns true.
+     */
+    protected ICachableLayerPainter createCachableLayerPainter() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be painted in the background");
+    }
+
+    /**
+     * Whether background painting should start with a coarse pass,
+     * see ICachableLayerPainter.
+     */
+    protected boolean hasCoarsePass() {
+        return false;
+    }
     abstract protected void doPaintNoncachableLayer(Graphics graphics, ICoordsMapping coordsMapping);
 
     /**
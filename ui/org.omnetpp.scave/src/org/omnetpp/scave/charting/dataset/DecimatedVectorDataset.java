@@ -0,0 +1,366 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.scave.charting.dataset;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.omnetpp.common.Debug;
+import org.omnetpp.common.util.StringUtils;
+import org.omnetpp.scave.engine.IDList;
+import org.omnetpp.scave.engine.InterruptedFlag;
+import org.omnetpp.scave.engine.ResultFileManager;
+import org.omnetpp.scave.engine.ResultItem;
+import org.omnetpp.scave.engine.XYArray;
+import org.omnetpp.scave.engine.XYArrayVector;
+
+/**
+ * XY dataset of output vectors which only holds the data needed to draw the
+ * lines at the current zoom level, so it can be used for vectors which are
+ * too long to be loaded into memory as a whole.
+ *
+ * The data is read by the native library with min/max decimation (the first,
+ * minimum, maximum and last values are kept from each bucket). Initially, the
+ * whole vectors are read in BASE_LEVEL_BUCKETS buckets; this level also provides
+ * the exact x and y ranges of the data. When the plot is zoomed in so that a
+ * pixel column becomes narrower than a bucket, a finer level is needed for the
+ * visible part (plus one screen width on both sides, for panning). Bucket widths
+ * are powers of two, and bucket boundaries are aligned to them, so the same level
+ * can be reused for nearby views. The most recently used levels are cached.
+ *
+ * setVisibleRange() only selects among the loaded levels, so it can be called
+ * from the UI thread; a missing level is recorded, and it is read from the files
+ * by loadMissingLevel(), which is meant to be called from a background job.
+ */
+public class DecimatedVectorDataset implements IXYDataset {
+    private static final boolean debug = Debug.isChannelEnabled("vectordataloader");
+
+    public static final int BASE_LEVEL_BUCKETS = 2048;
+    public static final int DEFAULT_MAX_CACHED_LEVELS = 8;
+
+    private static class Level {
+        final int exponent; // bucket width is 2^exponent
+        final double start, end;
+        final double[][] xs, ys; // indexed by series, item
+
+        Level(int exponent, double start, double end, double[][] xs, double[][] ys) {
+            this.exponent = exponent;
+            this.start = start;
+            this.end = end;
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        boolean covers(int exponent, double left, double right) {
+            return this.exponent == exponent && start <= left && right <= end;
+        }
+    }
+
+    private ResultFileManager manager;
+    private IDList idlist;
+    private double simTimeStart, simTimeEnd;
+    private String[] keys;
+    private String[] titles;
+    private int maxCachedLevels;
+
+    private Level baseLevel;
+    private volatile Level currentLevel;
+    private LinkedList<Level> cachedLevels = new LinkedList<>(); // most recently used first; guarded by this
+    private Level missingLevel; // the level needed by the last setVisibleRange() call, without data; guarded by this
+
+    private double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+    private double[] minYs, maxYs;
+
+    /**
+     * Creates the dataset, and reads the base level of the vectors between the
+     * given simulation times (infinite values stand for the start/end of the
+     * vectors). Reading can be interrupted via the given flag.
+     */
+    public DecimatedVectorDataset(ResultFileManager manager, IDList idlist, double simTimeStart, double simTimeEnd, InterruptedFlag interruptedFlag) {
+        this(manager, idlist, simTimeStart, simTimeEnd, DEFAULT_MAX_CACHED_LEVELS, interruptedFlag);
+    }
+
+    public DecimatedVectorDataset(ResultFileManager manager, IDList idlist, double simTimeStart, double simTimeEnd, int maxCachedLevels, InterruptedFlag interruptedFlag) {
+        this.manager = manager;
+        this.idlist = idlist;
+        this.simTimeStart = simTimeStart;
+        this.simTimeEnd = simTimeEnd;
+        this.maxCachedLevels = maxCachedLevels;
+
+        int n = idlist.size();
+        keys = new String[n];
+        titles = new String[n];
+        ResultFileManager.runWithReadLock(manager, () -> {
+            for (int i = 0; i < n; i++) {
+                long id = idlist.get(i);
+                ResultItem item = manager.getItem(id);
+                keys[i] = Long.toString(id);
+                titles[i] = item.getModuleName() + " " + item.getName();
+            }
+        });
+
+        baseLevel = currentLevel = loadLevel(Integer.MAX_VALUE, simTimeStart, simTimeEnd, BASE_LEVEL_BUCKETS, interruptedFlag);
+
+        // decimation keeps the extreme values, so the ranges are exact
+        minYs = new double[n];
+        maxYs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] xs = baseLevel.xs[i], ys = baseLevel.ys[i];
+            if (xs.length > 0) {
+                minX = Math.min(minX, xs[0]);
+                maxX = Math.max(maxX, xs[xs.length-1]);
+            }
+            minYs[i] = Double.POSITIVE_INFINITY;
+            maxYs[i] = Double.NEGATIVE_INFINITY;
+            for (double y : ys) {
+                if (y < minYs[i])
+                    minYs[i] = y;
+                if (y > maxYs[i])
+                    maxYs[i] = y; // note: NaNs are skipped by the comparisons
+            }
+        }
+    }
+
+    private DecimatedVectorDataset(DecimatedVectorDataset other) {
+        manager = other.manager;
+        idlist = other.idlist;
+        simTimeStart = other.simTimeStart;
+        simTimeEnd = other.simTimeEnd;
+        keys = other.keys;
+        titles = other.titles;
+        maxCachedLevels = 0;
+        baseLevel = other.baseLevel;
+        currentLevel = other.currentLevel;
+        minX = other.minX;
+        maxX = other.maxX;
+        minYs = other.minYs;
+        maxYs = other.maxYs;
+    }
+
+    /**
+     * Returns a dataset with the data of the currently selected level, which is
+     * not affected by later setVisibleRange() calls. The data is shared, not copied.
+     */
+    public DecimatedVectorDataset getSnapshot() {
+        return new DecimatedVectorDataset(this);
+    }
+
+    private Level loadLevel(int exponent, double start, double end, int numBuckets, InterruptedFlag interruptedFlag) {
+        long startTime = System.currentTimeMillis();
+        XYArrayVector data = ResultFileManager.callWithReadLock(manager, () ->
+                VectorDataLoader.getDecimatedDataOfVectors(manager, idlist, start, end, numBuckets, interruptedFlag));
+        try {
+            int n = (int)data.size();
+            double[][] xs = new double[n][];
+            double[][] ys = new double[n][];
+            for (int i = 0; i < n; i++) {
+                XYArray array = data.get(i);
+                int length = array.length();
+                xs[i] = new double[length];
+                ys[i] = new double[length];
+                for (int j = 0; j < length; j++) {
+                    xs[i][j] = array.getX(j);
+                    ys[i][j] = array.getY(j);
+                }
+            }
+            if (debug)
+                Debug.println("DecimatedVectorDataset: loaded " + numBuckets + " buckets of width 2^" + exponent + " in " + (System.currentTimeMillis() - startTime) + "ms");
+            return new Level(exponent, start, end, xs, ys);
+        }
+        finally {
+            data.delete();
+        }
+    }
+
+    /**
+     * Selects the level of detail for the given x range displayed on the given
+     * number of pixel columns, if it is already loaded. Returns true if the data
+     * of the dataset has changed. If the level is not loaded, the current level
+     * is kept, and isLevelMissing() returns true until loadMissingLevel() is called.
+     * It does no I/O, so it may be called from the UI thread.
+     */
+    public synchronized boolean setVisibleRange(double left, double right, int widthPixels) {
+        if (widthPixels <= 0 || !(right > left) || Double.isInfinite(right - left))
+            return false;
+
+        // the largest power of two bucket width that is not wider than a pixel column
+        int exponent = Math.getExponent((right - left) / widthPixels);
+        double bucketWidth = Math.scalb(1.0, exponent);
+
+        // there is no data outside the interval given in the constructor
+        left = Math.max(left, simTimeStart);
+        right = Math.min(right, simTimeEnd);
+
+        Level level = null;
+        missingLevel = null;
+        if ((maxX - minX) / BASE_LEVEL_BUCKETS <= bucketWidth || !(right > left))
+            level = baseLevel;
+        else {
+            for (Iterator<Level> it = cachedLevels.iterator(); it.hasNext(); ) {
+                Level cachedLevel = it.next();
+                if (cachedLevel.covers(exponent, left, right)) {
+                    it.remove();
+                    level = cachedLevel;
+                    break;
+                }
+            }
+            if (level == null) {
+                double span = right - left;
+                double start = Math.floor(Math.min(left, Math.max(left - span, Math.max(minX, simTimeStart))) / bucketWidth) * bucketWidth;
+                double end = Math.ceil(Math.max(right, Math.min(right + span, Math.min(maxX, simTimeEnd))) / bucketWidth) * bucketWidth;
+                missingLevel = new Level(exponent, Math.max(start, simTimeStart), Math.min(end, simTimeEnd), null, null);
+                return false;
+            }
+            addCachedLevel(level);
+        }
+
+        boolean changed = level != currentLevel;
+        currentLevel = level;
+        return changed;
+    }
+
+    private void addCachedLevel(Level level) {
+        cachedLevels.addFirst(level);
+        while (cachedLevels.size() > maxCachedLevels)
+            cachedLevels.removeLast();
+    }
+
+    /**
+     * Returns true if the last setVisibleRange() call needed a level that is not loaded.
+     */
+    public synchronized boolean isLevelMissing() {
+        return missingLevel != null;
+    }
+
+    /**
+     * Reads the level needed by the last setVisibleRange() call from the files,
+     * and puts it into the cache, so the next setVisibleRange() call can select it.
+     * Reading takes the read lock of the result file manager, and can be
+     * interrupted via the given flag. Returns false if no level was missing.
+     */
+    public boolean loadMissingLevel(InterruptedFlag interruptedFlag) {
+        Level missing;
+        synchronized (this) {
+            missing = missingLevel;
+        }
+        if (missing == null)
+            return false;
+        double bucketWidth = Math.scalb(1.0, missing.exponent);
+        Level level = loadLevel(missing.exponent, missing.start, missing.end, Math.max(1, (int)Math.ceil((missing.end - missing.start) / bucketWidth)), interruptedFlag);
+        synchronized (this) {
+            if (missingLevel == missing)
+                missingLevel = null;
+            addCachedLevel(level);
+        }
+        return true;
+    }
+
+    public synchronized void dispose() {
+        cachedLevels.clear();
+        missingLevel = null;
+        currentLevel = baseLevel;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return keys.length;
+    }
+
+    @Override
+    public String getSeriesKey(int series) {
+        return keys[series];
+    }
+
+    @Override
+    public String getSeriesTitle(int series) {
+        return titles[series];
+    }
+
+    @Override
+    public Type getSeriesType(int series) {
+        return Type.Double;
+    }
+
+    @Override
+    public InterpolationMode getSeriesInterpolationMode(int series) {
+        return InterpolationMode.Linear;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return currentLevel.xs[series].length;
+    }
+
+    @Override
+    public double getX(int series, int item) {
+        return currentLevel.xs[series][item];
+    }
+
+    @Override
+    public String getXAsString(int series, int item) {
+        return StringUtils.formatNumber(getX(series, item));
+    }
+
+    @Override
+    public double getMinX() {
+        return minX;
+    }
+
+    @Override
+    public double getMaxX() {
+        return maxX;
+    }
+
+    @Override
+    public double getMinX(int series) {
+        double[] xs = baseLevel.xs[series];
+        return xs.length == 0 ? Double.POSITIVE_INFINITY : xs[0];
+    }
+
+    @Override
+    public double getMaxX(int series) {
+        double[] xs = baseLevel.xs[series];
+        return xs.length == 0 ? Double.NEGATIVE_INFINITY : xs[xs.length-1];
+    }
+
+    @Override
+    public double getY(int series, int item) {
+        return currentLevel.ys[series][item];
+    }
+
+    @Override
+    public String getYAsString(int series, int item) {
+        return StringUtils.formatNumber(getY(series, item));
+    }
+
+    @Override
+    public double getMinY() {
+        double min = Double.POSITIVE_INFINITY;
+        for (double y : minYs)
+            min = Double.min(min, y);
+        return min;
+    }
+
+    @Override
+    public double getMaxY() {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double y : maxYs)
+            max = Double.max(max, y);
+        return max;
+    }
+
+    @Override
+    public double getMinY(int series) {
+        return minYs[series];
+    }
+
+    @Override
+    public double getMaxY(int series) {
+        return maxYs[series];
+    }
+}
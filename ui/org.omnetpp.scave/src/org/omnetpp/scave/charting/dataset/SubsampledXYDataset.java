@@ -0,0 +1,122 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.scave.charting.dataset;
+
+/**
+ * A view of an XY dataset that only contains every n-th item of each series,
+ * where n (the stride) is given per series. Used for quickly painting a
+ * preview of large datasets. The ranges are those of the underlying dataset.
+ */
+public class SubsampledXYDataset implements IXYDataset {
+    private IXYDataset dataset;
+    private int[] strides;
+
+    public SubsampledXYDataset(IXYDataset dataset, int[] strides) {
+        this.dataset = dataset;
+        this.strides = strides;
+    }
+
+    public IXYDataset getDataset() {
+        return dataset;
+    }
+
+    public int getStride(int series) {
+        return strides[series];
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return dataset.getSeriesCount();
+    }
+
+    @Override
+    public String getSeriesKey(int series) {
+        return dataset.getSeriesKey(series);
+    }
+
+    @Override
+    public String getSeriesTitle(int series) {
+        return dataset.getSeriesTitle(series);
+    }
+
+    @Override
+    public Type getSeriesType(int series) {
+        return dataset.getSeriesType(series);
+    }
+
+    @Override
+    public InterpolationMode getSeriesInterpolationMode(int series) {
+        return dataset.getSeriesInterpolationMode(series);
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        int stride = strides[series];
+        return (dataset.getItemCount(series) + stride - 1) / stride;
+    }
+
+    @Override
+    public double getX(int series, int item) {
+        return dataset.getX(series, item * strides[series]);
+    }
+
+    @Override
+    public String getXAsString(int series, int item) {
+        return dataset.getXAsString(series, item * strides[series]);
+    }
+
+    @Override
+    public double getMinX() {
+        return dataset.getMinX();
+    }
+
+    @Override
+    public double getMaxX() {
+        return dataset.getMaxX();
+    }
+
+    @Override
+    public double getMinX(int series) {
+        return dataset.getMinX(series);
+    }
+
+    @Override
+    public double getMaxX(int series) {
+        return dataset.getMaxX(series);
+    }
+
+    @Override
+    public double getY(int series, int item) {
+        return dataset.getY(series, item * strides[series]);
+    }
+
+    @Override
+    public String getYAsString(int series, int item) {
+        return dataset.getYAsString(series, item * strides[series]);
+    }
+
+    @Override
+    public double getMinY() {
+        return dataset.getMinY();
+    }
+
+    @Override
+    public double getMaxY() {
+        return dataset.getMaxY();
+    }
+
+    @Override
+    public double getMinY(int series) {
+        return dataset.getMinY(series);
+    }
+
+    @Override
+    public double getMaxY(int series) {
+        return dataset.getMaxY(series);
+    }
+}
@@ -44,4 +44,23 @@ public class VectorDataLoader {
 
         return out;
     }
+
+    /**
+     * Reads the vectors reduced to the given number of buckets over the given
+     * simulation time interval, see readVectorsIntoArraysDecimated() in the
+     * native library. Only the first, minimum, maximum and last values of
+     * each bucket are returned, so the result is small regardless of the length
+     * of the vectors.
+     */
+    public static XYArrayVector getDecimatedDataOfVectors(ResultFileManager manager, IDList idlist, double simTimeStart, double simTimeEnd, int numBuckets, InterruptedFlag interruptedFlag) {
+        if (debug)
+            Debug.println("getting data of vectors in " + numBuckets + " buckets between " + simTimeStart + " and " + simTimeEnd);
+
+        XYArrayVector out = ScaveEngine.readVectorsIntoArraysDecimated2(manager, idlist, simTimeStart, simTimeEnd, numBuckets, interruptedFlag);
+
+        if (debug)
+            Debug.println("decimated vector data loaded");
+
+        return out;
+    }
 }
@@ -1,25 +1,54 @@
 package org.omnetpp.scave.editors;
 
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.omnetpp.common.util.MatchExpressionSyntax.Lexer;
+import org.omnetpp.common.util.MatchExpressionSyntax.Token;
+import org.omnetpp.common.util.MatchExpressionSyntax.TokenType;
+import org.omnetpp.scave.engine.FileRun;
+import org.omnetpp.scave.engine.FileRunList;
 import org.omnetpp.scave.engine.IDList;
+import org.omnetpp.scave.engine.IDListBuffer;
 import org.omnetpp.scave.engine.ResultFileManager;
 import org.omnetpp.scave.model2.ScaveModelUtil;
 
 /**
  * Result filtering cache for methods of ResultProvider.
  *
+ * The cache is bounded both in the number of entries and in the total number
+ * of IDs, and the least recently used entries are evicted first. Empty results
+ * are cached as well.
+ *
+ * When result files are only added to the ResultFileManager, the cached
+ * entries are kept, and they are updated on the next lookup by filtering
+ * just the items of the new file runs. (IDs are ordered by file run, so
+ * appending gives the same result as filtering all items again.) When
+ * anything is unloaded, the cache is cleared.
+ *
+ * If the expression being looked up is a refinement of a cached one, i.e.
+ * it has the form "<cached> AND <extra>", the result is computed by filtering
+ * the cached result instead of all items.
+ *
  * @author andras
  */
 public class FilterCache {
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+    public static final long DEFAULT_MAX_TOTAL_IDS = 20_000_000; // 8 bytes each
+
     private ResultFileManager manager;
     private int currentSerial;
+    private int currentUnloadSerial;
+    private int numFileRuns; // length of the file run list at currentSerial, unloaded ones included
+    private int maxEntries;
+    private long maxTotalIDs;
+    private long totalIDs = 0;
 
     private static class Key {
         private int resultTypes;
         private String filterExpression; // may include isfield and type filters, based on UI state
-        private boolean includeFields;   // is false if resultTypes doesn't include SCALAR 
+        private boolean includeFields;   // is false if resultTypes doesn't include SCALAR
 
         /** includeFields is ignored if resultTypes doesn't include SCALAR. */
         public Key(int resultTypes, String filterExpression, boolean includeFields) {
@@ -49,40 +78,172 @@ public class FilterCache {
         }
     }
 
-    private Map<Key,IDList> filterCache = new HashMap<>();
+    private static class Entry {
+        IDList result;
+        int numFileRuns; // file runs whose items have been filtered into result
+
+        Entry(IDList result, int numFileRuns) {
+            this.result = result;
+            this.numFileRuns = numFileRuns;
+        }
+
+        long getSize() {
+            return Math.max(1, result.size()); // so that empty results also count
+        }
+    }
+
+    private Map<Key,Entry> filterCache = new LinkedHashMap<>(16, 0.75f, true); // in access order, for LRU
 
     public FilterCache(ResultFileManager manager) {
+        this(manager, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_TOTAL_IDS);
+    }
+
+    public FilterCache(ResultFileManager manager, int maxEntries, long maxTotalIDs) {
         this.manager = manager;
+        this.maxEntries = maxEntries;
+        this.maxTotalIDs = maxTotalIDs;
         this.currentSerial = manager.getSerial();
+        this.currentUnloadSerial = manager.getUnloadSerial();
+        this.numFileRuns = (int)manager.getFileRuns().size();
     }
 
     private void checkSerial() {
         if (currentSerial != manager.getSerial()) {
-            filterCache.clear();
+            if (currentUnloadSerial != manager.getUnloadSerial())
+                clear(); // otherwise entries are updated lazily
             currentSerial = manager.getSerial();
+            currentUnloadSerial = manager.getUnloadSerial();
+            numFileRuns = (int)manager.getFileRuns().size();
         }
     }
 
-    public IDList getFilterResult(int resultTypes, String filterExpression, boolean includeFields) {
+    public synchronized IDList getFilterResult(int resultTypes, String filterExpression, boolean includeFields) {
         checkSerial();
-        return filterCache.get(new Key(resultTypes, filterExpression, includeFields));
+        Key key = new Key(resultTypes, filterExpression, includeFields);
+        Entry entry = filterCache.get(key);
+        if (entry != null)
+            return getUpToDateResult(key, entry);
+        Entry baseEntry = findRefinementBase(key);
+        if (baseEntry != null) {
+            IDList result = manager.filterIDList(baseEntry.result, filterExpression);
+            put(key, new Entry(result, baseEntry.numFileRuns));
+            return result;
+        }
+        return null;
     }
 
     public IDList getFilterResult(int resultTypes, String filterExpression) {
         return getFilterResult(resultTypes, filterExpression, false);
     }
 
-    public void putFilterResult(int resultTypes, String filterExpression, boolean includeFields, IDList result) {
+    public synchronized void putFilterResult(int resultTypes, String filterExpression, boolean includeFields, IDList result) {
         checkSerial();
-        filterCache.put(new Key(resultTypes, filterExpression, includeFields), result);
+        put(new Key(resultTypes, filterExpression, includeFields), new Entry(result, numFileRuns));
     }
 
     public void putFilterResult(int resultTypes, String filterExpression, IDList result) {
         putFilterResult(resultTypes, filterExpression, false, result);
     }
 
-    public void clear() {
+    public synchronized void clear() {
         filterCache.clear();
+        totalIDs = 0;
     }
 
+    private void put(Key key, Entry entry) {
+        Entry oldEntry = filterCache.put(key, entry);
+        if (oldEntry != null)
+            totalIDs -= oldEntry.getSize();
+        totalIDs += entry.getSize();
+        Iterator<Entry> it = filterCache.values().iterator();
+        while ((filterCache.size() > maxEntries || totalIDs > maxTotalIDs) && filterCache.size() > 1) {
+            Entry eldest = it.next();
+            it.remove();
+            totalIDs -= eldest.getSize();
+        }
+    }
+
+    /**
+     * Extends the result with the matching items of the file runs added since it was computed.
+     */
+    private IDList getUpToDateResult(Key key, Entry entry) {
+        // at this point, the cached entries are up to date up to entry.numFileRuns
+        if (entry.numFileRuns < numFileRuns) {
+            FileRunList fileRuns = manager.getFileRuns();
+            FileRunList addedFileRuns = new FileRunList();
+            for (int i = entry.numFileRuns; i < numFileRuns; i++) {
+                FileRun fileRun = fileRuns.get(i);
+                if (fileRun != null)
+                    addedFileRuns.add(fileRun);
+            }
+            IDList addedItems = manager.getItems(addedFileRuns, key.resultTypes, key.includeFields);
+            IDList addedResult = manager.filterIDList(addedItems, key.filterExpression);
+            if (!addedResult.isEmpty()) {
+                IDListBuffer buffer = new IDListBuffer();
+                buffer.append(entry.result);
+                buffer.append(addedResult);
+                totalIDs -= entry.getSize();
+                entry.result = buffer.toIDList();
+                totalIDs += entry.getSize();
+            }
+            entry.numFileRuns = numFileRuns;
+        }
+        return entry.result;
+    }
+
+    /**
+     * Returns the cached entry with the smallest result among those whose expression
+     * the given key's expression is a refinement of, or null if there is none.
+     */
+    private Entry findRefinementBase(Key key) {
+        Key baseKey = null;
+        Entry baseEntry = null;
+        for (Map.Entry<Key,Entry> e : filterCache.entrySet()) {
+            Key k = e.getKey();
+            if (k.resultTypes == key.resultTypes && k.includeFields == key.includeFields &&
+                    (baseEntry == null || e.getValue().result.size() < baseEntry.result.size()) &&
+                    isRefinementOf(key.filterExpression, k.filterExpression)) {
+                baseKey = k;
+                baseEntry = e.getValue();
+            }
+        }
+        if (baseEntry != null)
+            getUpToDateResult(baseKey, baseEntry);
+        return baseEntry;
+    }
+
+    /**
+     * Returns true if the expression is of the form "<baseExpression> AND <extra>", so that
+     * its matches are a subset of those of baseExpression. Since AND binds stronger than OR,
+     * this only holds if there is no OR on the top level in the expression.
+     */
+    public static boolean isRefinementOf(String expression, String baseExpression) {
+        int baseLength = baseExpression.length();
+        if (!expression.startsWith(baseExpression) || expression.length() == baseLength || baseExpression.isBlank())
+            return false;
+        Lexer lexer = new Lexer(expression);
+        int depth = 0;
+        boolean seenAndAfterBase = false;
+        boolean previousIsOperand = false;
+        while (true) {
+            Token token = lexer.getNextToken();
+            TokenType type = token.getType();
+            if (type == TokenType.END)
+                return seenAndAfterBase && depth == 0;
+            if (!seenAndAfterBase && token.getEndPos() > baseLength) {
+                // the first token after the base expression must be an AND on the top level
+                if (token.getStartPos() < baseLength || type != TokenType.AND || depth != 0)
+                    return false;
+                seenAndAfterBase = true;
+            }
+            boolean isOperandStart = type == TokenType.STRING_LITERAL || type == TokenType.OP || type == TokenType.NOT;
+            if (depth == 0 && (type == TokenType.OR || (isOperandStart && previousIsOperand)))
+                return false; // explicit or implicit OR on the top level
+            if (type == TokenType.OP)
+                depth++;
+            else if (type == TokenType.CP && --depth < 0)
+                return false;
+            previousIsOperand = type == TokenType.STRING_LITERAL || type == TokenType.CP; // false after "=~", so the pattern is not a new operand
+        }
+    }
 }
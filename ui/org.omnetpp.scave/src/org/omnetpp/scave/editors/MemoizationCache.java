@@ -1,25 +1,60 @@
 package org.omnetpp.scave.editors;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Assert;
+import org.omnetpp.common.Debug;
 import org.omnetpp.common.util.StringUtils;
+import org.omnetpp.scave.ScavePlugin;
 import org.omnetpp.scave.engine.ByteVector;
 import org.omnetpp.scave.engine.ResultFileManager;
 
 /**
  * Memoization cache for methods of ResultProvider.
  *
+ * Replies are kept in memory up to the given limit in bytes, and the least
+ * recently used ones are evicted first. Optionally, evicted replies are spilled
+ * into files in a temporary directory (up to a separate limit), and they are
+ * loaded back from there instead of pickling the results again. All entries
+ * are discarded when the serial of the ResultFileManager changes.
+ *
+ * The cache is thread-safe, because ResultsProviders of several Python
+ * processes may use it concurrently. Spill files are written and read back
+ * without holding the lock, so that a slow disk does not block the others.
+ *
  * @author andras
  */
 public class MemoizationCache {
+    private static final boolean debug = Debug.isChannelEnabled("memoizationcache");
+
     private ResultFileManager rfm;
     private int currentSerial = 0;
     private long memoryLimit;
     private long memoryUsed = 0;
+    private long spillLimit; // 0 means spilling to disk is disabled
+    private long spillUsed = 0;
+    private File spillDirectory; // created on demand
+    private int spillFileCounter = 0;
+    private int generation = 0; // incremented by clear(), to detect it while spill files are written or read without the lock
+
+    private long numHits = 0;
+    private long numMisses = 0;
+    private long numEvictions = 0;
+    private long numSpillHits = 0;
 
     public static class Key {
         private String method;
@@ -55,34 +90,102 @@ public class MemoizationCache {
         }
     }
 
-    private Map<Key,List<ByteVector>> cache = new LinkedHashMap<>(); // for FIFO order
+    private static class Entry {
+        final List<ByteVector> reply;
+        final long size;
+
+        Entry(List<ByteVector> reply, long size) {
+            this.reply = reply;
+            this.size = size;
+        }
+    }
+
+    private static class SpillFile {
+        final File file;
+        final long size;
+
+        SpillFile(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    private Map<Key,Entry> cache = new LinkedHashMap<>(16, 0.75f, true); // in access order, for LRU
+    private Map<Key,SpillFile> spilled = new LinkedHashMap<>(16, 0.75f, true); // ditto
 
     public MemoizationCache(ResultFileManager rfm) {
         this(rfm, Long.MAX_VALUE);
     }
 
     public MemoizationCache(ResultFileManager rfm, long memoryLimit) {
+        this(rfm, memoryLimit, 0);
+    }
+
+    /**
+     * The limits are in bytes. Evicted replies are spilled to disk if spillLimit is positive.
+     */
+    public MemoizationCache(ResultFileManager rfm, long memoryLimit, long spillLimit) {
         this.rfm = rfm;
         this.currentSerial = rfm.getSerial();
         this.memoryLimit = memoryLimit;
+        this.spillLimit = spillLimit;
     }
 
     private void checkSerial() {
         if (currentSerial != rfm.getSerial()) {
-            cache.clear();
-            memoryUsed = 0;
+            clear();
             currentSerial = rfm.getSerial();
         }
     }
 
-    public boolean contains(Key key) {
+    public synchronized boolean contains(Key key) {
         checkSerial();
-        return cache.containsKey(key);
+        return cache.containsKey(key) || spilled.containsKey(key);
     }
 
     public List<ByteVector> get(Key key) {
-        checkSerial();
-        return cache.get(key);
+        SpillFile spillFile;
+        int generation;
+        synchronized (this) {
+            checkSerial();
+            Entry entry = cache.get(key); // also makes it the most recently used one
+            if (entry != null) {
+                numHits++;
+                return entry.reply;
+            }
+            spillFile = spilled.remove(key);
+            if (spillFile == null) {
+                numMisses++;
+                return null;
+            }
+            spillUsed -= spillFile.size;
+            generation = this.generation;
+        }
+
+        // read the file without holding the lock, so that other Python processes are not blocked meanwhile
+        try {
+            List<ByteVector> reply = readSpillFile(spillFile.file);
+            List<Map.Entry<Key,Entry>> victims = null;
+            synchronized (this) {
+                numSpillHits++;
+                checkSerial();
+                if (generation == this.generation) // i.e. not cleared meanwhile
+                    victims = insert(key, reply);
+            }
+            if (victims != null)
+                spill(victims, generation);
+            return reply;
+        }
+        catch (IOException e) {
+            ScavePlugin.logError("Cannot read memoized reply from " + spillFile.file, e);
+            synchronized (this) {
+                numMisses++;
+            }
+            return null;
+        }
+        finally {
+            deleteUnlockedSpillFile(spillFile.file);
+        }
     }
 
     public boolean isCacheable(Key key, long replySize) {
@@ -90,37 +193,189 @@ public class MemoizationCache {
     }
 
     public void put(Key key, ByteVector reply) {
-        // note: using this API, memory consumption can temporarily exceed memoryLimit
-        checkSerial();
-        Assert.isTrue(reply.size() <= memoryLimit);
-        memoryUsed += reply.size();
-        cache.put(key, List.of(reply));
-        while (memoryUsed > memoryLimit)
-            discardFirst();
+        put(key, List.of(reply));
     }
 
     public void put(Key key, List<ByteVector> reply) {
+        List<Map.Entry<Key,Entry>> victims;
+        int generation;
+        synchronized (this) {
+            checkSerial();
+            victims = insert(key, reply);
+            generation = this.generation;
+        }
+        spill(victims, generation);
+    }
+
+    /**
+     * Adds the reply to the in-memory cache, and evicts the least recently used
+     * entries to stay within the memory limit. Returns the evicted entries that
+     * should be spilled to disk; that is left to the caller, to be done without
+     * holding the lock.
+     */
+    private synchronized List<Map.Entry<Key,Entry>> insert(Key key, List<ByteVector> reply) {
         // note: using this API, memory consumption can temporarily exceed memoryLimit
-        checkSerial();
         long totalSize = 0;
         for (ByteVector v : reply)
             totalSize += v.size();
-        memoryUsed += totalSize;
         Assert.isTrue(totalSize <= memoryLimit);
-        cache.put(key, reply);
-        while (memoryUsed > memoryLimit)
-            discardFirst();
+        Entry oldEntry = cache.put(key, new Entry(reply, totalSize));
+        if (oldEntry != null)
+            memoryUsed -= oldEntry.size;
+        memoryUsed += totalSize;
+        SpillFile oldSpillFile = spilled.remove(key);
+        if (oldSpillFile != null)
+            discardSpillFile(oldSpillFile);
+        List<Map.Entry<Key,Entry>> victims = new ArrayList<>();
+        while (memoryUsed > memoryLimit) {
+            Iterator<Map.Entry<Key,Entry>> it = cache.entrySet().iterator();
+            Map.Entry<Key,Entry> eldest = it.next();
+            it.remove();
+            memoryUsed -= eldest.getValue().size;
+            numEvictions++;
+            if (spillLimit > 0 && eldest.getValue().size <= spillLimit)
+                victims.add(Map.entry(eldest.getKey(), eldest.getValue()));
+        }
+        return victims;
+    }
+
+    /**
+     * Writes the given evicted entries into spill files. Must be called without
+     * holding the lock; it is only taken to allocate and register the files.
+     * The generation is that of the cache at the time of the eviction.
+     */
+    private void spill(List<Map.Entry<Key,Entry>> victims, int generation) {
+        for (Map.Entry<Key,Entry> victim : victims) {
+            Key key = victim.getKey();
+            Entry entry = victim.getValue();
+            File file = null;
+            try {
+                synchronized (this) {
+                    if (spillLimit == 0 || generation != this.generation)
+                        return;
+                    if (spillDirectory == null)
+                        spillDirectory = Files.createTempDirectory("omnetpp-memoization").toFile();
+                    file = new File(spillDirectory, generation + "-" + (spillFileCounter++) + ".pickles");
+                }
+                writeSpillFile(file, entry.reply);
+                synchronized (this) {
+                    // the entry may have been put into the cache again, or everything discarded while we were writing
+                    if (generation != this.generation || cache.containsKey(key)) {
+                        deleteUnlockedSpillFile(file);
+                        continue;
+                    }
+                    SpillFile oldSpillFile = spilled.put(key, new SpillFile(file, entry.size));
+                    if (oldSpillFile != null)
+                        discardSpillFile(oldSpillFile);
+                    spillUsed += entry.size;
+                    while (spillUsed > spillLimit) {
+                        Iterator<SpillFile> it = spilled.values().iterator();
+                        SpillFile eldest = it.next();
+                        it.remove();
+                        discardSpillFile(eldest);
+                    }
+                }
+                if (debug)
+                    Debug.println("MemoizationCache: spilled " + key + " (" + entry.size + " bytes) to " + file);
+            }
+            catch (IOException e) {
+                if (file != null)
+                    deleteUnlockedSpillFile(file);
+                synchronized (this) {
+                    if (generation != this.generation)
+                        return; // the spill directory was probably removed by clear()
+                    spillLimit = 0;
+                }
+                ScavePlugin.logError("Cannot spill memoized reply to disk, disabling it", e);
+                return;
+            }
+        }
+    }
+
+    private void discardSpillFile(SpillFile spillFile) {
+        spillUsed -= spillFile.size;
+        spillFile.file.delete();
+    }
+
+    /**
+     * Deletes a spill file that was read or written without holding the lock,
+     * and also its directory if clear() could not remove it because of the file.
+     */
+    private void deleteUnlockedSpillFile(File file) {
+        file.delete();
+        synchronized (this) {
+            File directory = file.getParentFile();
+            if (!directory.equals(spillDirectory))
+                directory.delete(); // only succeeds if empty
+        }
     }
 
-    private void discardFirst() {
-        Map.Entry<Key,List<ByteVector>> entry = cache.entrySet().iterator().next();
-        memoryUsed -= entry.getValue().size();
-        cache.remove(entry.getKey());
+    private static void writeSpillFile(File file, List<ByteVector> reply) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(reply.size());
+            for (ByteVector v : reply) {
+                byte[] bytes = v.toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
     }
 
-    public void clear() {
+    private static List<ByteVector> readSpillFile(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int count = in.readInt();
+            List<ByteVector> reply = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                reply.add(ByteVector.fromByteArray(bytes));
+            }
+            return reply;
+        }
+    }
+
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public synchronized long getSpillUsed() {
+        return spillUsed;
+    }
+
+    public synchronized long getNumHits() {
+        return numHits;
+    }
+
+    public synchronized long getNumMisses() {
+        return numMisses;
+    }
+
+    public synchronized long getNumEvictions() {
+        return numEvictions;
+    }
+
+    public synchronized long getNumSpillHits() {
+        return numSpillHits;
+    }
+
+    public synchronized void clear() {
+        generation++;
         cache.clear();
         memoryUsed = 0;
+        for (SpillFile spillFile : spilled.values())
+            spillFile.file.delete();
+        spilled.clear();
+        spillUsed = 0;
+        if (spillDirectory != null) {
+            spillDirectory.delete();
+            spillDirectory = null;
+        }
     }
 
+    @Override
+    public synchronized String toString() {
+        return "MemoizationCache: " + cache.size() + " entries, " + memoryUsed + " bytes in memory, " +
+                spilled.size() + " entries, " + spillUsed + " bytes on disk, " +
+                numHits + " hits, " + numSpillHits + " hits from disk, " + numMisses + " misses, " + numEvictions + " evictions";
+    }
 }
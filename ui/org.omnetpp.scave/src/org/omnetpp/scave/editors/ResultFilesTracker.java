@@ -14,6 +14,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.core.resources.IContainer;
@@ -53,6 +58,7 @@ import org.omnetpp.scave.model.InputFile;
 import org.omnetpp.scave.model.Inputs;
 import org.omnetpp.scave.model.ModelChangeEvent;
 import org.omnetpp.scave.model2.ScaveModelUtil;
+import org.omnetpp.scave.preferences.ScavePreferenceConstants;
 
 /**
  * This class is responsible for loading/unloading result files
@@ -66,6 +72,8 @@ public class ResultFilesTracker implements IModelChangeListener {
 
     private static final boolean debug = true;
 
+    private static final int LOAD_FLAGS = ResultFileManagerEx.RELOAD_IF_CHANGED | ResultFileManagerEx.ALLOW_INDEXING | ResultFileManagerEx.SKIP_IF_LOCKED;
+
     private ResultFileManager manager; // backreference to the manager it operates on, the manager is owned by the editor
     private Inputs inputs; // backreference to the Inputs element we watch
     private IContainer anfFolder; // the project or folder to resolve relative paths as a base
@@ -117,10 +125,8 @@ public class ResultFilesTracker implements IModelChangeListener {
         DisplayUtils.runNowOrSyncInUIThread(() -> {
             List<String> filesThatFailedToLoad = new ArrayList<>();
             TimeTriggeredProgressMonitorDialog2.runWithDialog("Loading result files", (monitor)-> {
-                ResultFileManager.runWithWriteLock(manager, () -> {
-                    InterruptedFlag interruptedFlag = TimeTriggeredProgressMonitorDialog2.getActiveInstance().getInterruptedFlag();
-                    doSynchronize(reload, monitor, interruptedFlag, filesThatFailedToLoad);
-                });
+                InterruptedFlag interruptedFlag = TimeTriggeredProgressMonitorDialog2.getActiveInstance().getInterruptedFlag();
+                doSynchronize(reload, monitor, interruptedFlag, filesThatFailedToLoad);
             });
 
             if (!filesThatFailedToLoad.isEmpty()) {
@@ -136,11 +142,13 @@ public class ResultFilesTracker implements IModelChangeListener {
         });
     }
 
+    /**
+     * Note: the write lock of the manager is only held while the manager is being
+     * modified, so that result files can be parsed on several threads in the meantime.
+     */
     protected void doSynchronize(boolean reload, IProgressMonitor monitor, InterruptedFlag interruptedFlag, List<String> filesThatFailedToLoad) {
-        manager.checkWriteLock(); // must run with write lock
-
         if (reload)
-            manager.clear();
+            ResultFileManager.runWithWriteLock(manager, () -> manager.clear());
 
         SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
 
@@ -159,65 +167,204 @@ public class ResultFilesTracker implements IModelChangeListener {
 
             subMonitor.setWorkRemaining(numFiles);
 
-            int progressBatchSize = 1+numFiles/1000; // if there are many files, report them in batches (performance)
-            int filesUnreported = 0;
-            int loadFlags = ResultFileManagerEx.RELOAD_IF_CHANGED | ResultFileManagerEx.ALLOW_INDEXING | ResultFileManagerEx.SKIP_IF_LOCKED;
-            outer: for (String inputName : files.keySet()) {
+            int numThreads = getNumLoadingThreads();
+            if (numThreads > 1 && numFiles > 1)
+                loadFilesInParallel(files, numFiles, numThreads, subMonitor, interruptedFlag, filesThatFailedToLoad);
+            else
+                ResultFileManager.runWithWriteLock(manager, () -> loadFiles(files, numFiles, subMonitor, interruptedFlag, filesThatFailedToLoad));
+        });
+
+        ResultFileManager.runWithWriteLock(manager, () -> {
+            Debug.time("Unloading extra files", debug, 1, () -> {
+                subMonitor.setTaskName("Unloading extra files");
+                subMonitor.setWorkRemaining(10);
+                // collect set of file names from 'files'
+                Set<String> fileSet = new HashSet<>();
+                for (Map<String,String> pathToLocation : files.values())
+                    fileSet.addAll(pathToLocation.keySet());
+
+                // determine list of files to be unloaded
+                ResultFileList loadFiles = manager.getFiles();
+                List<ResultFile> filesToBeUnloaded = new ArrayList<>();
+                for (int i = 0; i < loadFiles.size(); i++)
+                    if (!fileSet.contains(loadFiles.get(i).getFilePath()))
+                        filesToBeUnloaded.add(loadFiles.get(i));
+
+                // unload
+                if (!filesToBeUnloaded.isEmpty())
+                    for (ResultFile file : filesToBeUnloaded)
+                        manager.unloadFile(file);
+            });
+
+            // notify listeners (maybe if there was actually any change?)
+            notifyListeners(new ResultFileManagerChangeEvent(manager));
+        });
+
+        monitor.done();
+    }
+
+    protected int getNumLoadingThreads() {
+        int numThreads = ScavePlugin.getDefault().getPreferenceStore().getInt(ScavePreferenceConstants.RESULT_FILE_LOADING_THREADS);
+        return numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Loads the files one by one, directly into the manager. Must run with write lock.
+     */
+    protected void loadFiles(Map<String, Map<String, String>> files, int numFiles, SubMonitor subMonitor, InterruptedFlag interruptedFlag, List<String> filesThatFailedToLoad) {
+        manager.checkWriteLock();
+
+        int progressBatchSize = 1+numFiles/1000; // if there are many files, report them in batches (performance)
+        int filesUnreported = 0;
+        outer: for (String inputName : files.keySet()) {
+            for (Entry<String,String> entry : files.get(inputName).entrySet()) {
+                String filePath = entry.getKey();
+                String fileLocation = entry.getValue();
+                try {
+                    ResultFile file = manager.loadFile(filePath, fileLocation, LOAD_FLAGS, interruptedFlag);
+                    if (file != null)
+                        manager.setFileInput(file, inputName);
+                }
+                catch (Exception e) {
+                    fileFailedToLoad(filePath, fileLocation, e, filesThatFailedToLoad);
+                }
+
+                if (interruptedFlag.getFlag())
+                    break outer;
+
+                if (++filesUnreported == progressBatchSize) {
+                    subMonitor.worked(filesUnreported);
+                    filesUnreported = 0;
+                }
+            }
+        }
+        subMonitor.worked(filesUnreported);
+    }
+
+    /**
+     * Parses the files on a pool of worker threads, each into its own staging
+     * ResultFileManager, and moves them into the manager one by one, in the same
+     * order as loadFiles() would load them (so that IDs are assigned the same way).
+     * The write lock is only taken for moving the files, which is quick.
+     */
+    protected void loadFilesInParallel(Map<String, Map<String, String>> files, int numFiles, int numThreads, SubMonitor subMonitor, InterruptedFlag interruptedFlag, List<String> filesThatFailedToLoad) {
+        // files that are loaded and unchanged only need their input updated
+        List<StagedFile> stagedFiles = new ArrayList<>();
+        ResultFileManager.runWithWriteLock(manager, () -> {
+            for (String inputName : files.keySet()) {
                 for (Entry<String,String> entry : files.get(inputName).entrySet()) {
                     String filePath = entry.getKey();
                     String fileLocation = entry.getValue();
-                    try {
-                        ResultFile file = manager.loadFile(filePath, fileLocation, loadFlags, interruptedFlag);
-                        if (file != null)
-                            manager.setFileInput(file, inputName);
-                    }
-                    catch (Exception e) {
-                        filesThatFailedToLoad.add(filePath);
-                        ScavePlugin.logError("Could not load result file: " + fileLocation, e);
-                        IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(filePath);
-                        if (resource instanceof IFile) // better be
-                            ScaveMarkers.setMarker((IFile)resource, ScaveMarkers.MARKERTYPE_SCAVEPROBLEM, IMarker.SEVERITY_ERROR, "Could not load result file. Reason: "+e.getMessage(), -1);
-                    }
-
-                    if (interruptedFlag.getFlag())
-                        break outer;
-
-                    if (++filesUnreported == progressBatchSize) {
-                        subMonitor.worked(filesUnreported);
-                        filesUnreported = 0;
-                    }
+                    if (manager.isFileUpToDate(filePath, fileLocation))
+                        manager.setFileInput(manager.getFile(filePath), inputName);
+                    else
+                        stagedFiles.add(new StagedFile(inputName, filePath, fileLocation));
                 }
             }
-            subMonitor.worked(filesUnreported);
         });
+        subMonitor.worked(numFiles - stagedFiles.size());
 
-        Debug.time("Unloading extra files", debug, 1, () -> {
-            subMonitor.setTaskName("Unloading extra files");
-            subMonitor.setWorkRemaining(10);
-            // collect set of file names from 'files'
-            Set<String> fileSet = new HashSet<>();
-            for (Map<String,String> pathToLocation : files.values())
-                fileSet.addAll(pathToLocation.keySet());
-
-            // determine list of files to be unloaded
-            ResultFileList loadFiles = ResultFileManagerEx.callWithReadLock(manager, () -> manager.getFiles());
-            List<ResultFile> filesToBeUnloaded = new ArrayList<>();
-            for (int i = 0; i < loadFiles.size(); i++)
-                if (!fileSet.contains(loadFiles.get(i).getFilePath()))
-                    filesToBeUnloaded.add(loadFiles.get(i));
-
-            // unload
-            if (!filesToBeUnloaded.isEmpty())
-                for (ResultFile file : filesToBeUnloaded)
-                    manager.unloadFile(file);
-        });
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(1, stagedFiles.size())));
+        boolean terminated = false;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (StagedFile stagedFile : stagedFiles)
+                futures.add(executor.submit(() -> stagedFile.load(interruptedFlag)));
 
-        // notify listeners (maybe if there was actually any change?)
-        notifyListeners(new ResultFileManagerChangeEvent(manager));
+            int progressBatchSize = 1+numFiles/1000; // if there are many files, report them in batches (performance)
+            int filesUnreported = 0;
+            for (int i = 0; i < stagedFiles.size(); i++) {
+                StagedFile stagedFile = stagedFiles.get(i);
+                try {
+                    futures.get(i).get();
+                }
+                catch (InterruptedException e) {
+                    interruptedFlag.setFlag(true); // also stops the workers
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException e) {
+                    stagedFile.error = e;
+                }
 
-        monitor.done();
+                if (interruptedFlag.getFlag())
+                    break;
+
+                if (stagedFile.error != null)
+                    fileFailedToLoad(stagedFile.filePath, stagedFile.fileLocation, stagedFile.error, filesThatFailedToLoad);
+                else if (stagedFile.file != null) {
+                    ResultFileManager.runWithWriteLock(manager, () -> {
+                        ResultFile file = manager.adoptFile(stagedFile.stagingManager, stagedFile.file);
+                        manager.setFileInput(file, stagedFile.inputName);
+                    });
+                }
+                stagedFile.dispose();
+
+                if (++filesUnreported == progressBatchSize) {
+                    subMonitor.worked(filesUnreported);
+                    filesUnreported = 0;
+                }
+            }
+            subMonitor.worked(filesUnreported);
+        }
+        finally {
+            executor.shutdownNow();
+            try {
+                terminated = executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (terminated) // otherwise a worker may still be using its staging manager
+                for (StagedFile stagedFile : stagedFiles)
+                    stagedFile.dispose();
+        }
     }
 
+    /**
+     * A result file being loaded into a staging ResultFileManager on a worker thread.
+     */
+    private static class StagedFile {
+        final String inputName;
+        final String filePath;
+        final String fileLocation;
+        ResultFileManager stagingManager;
+        ResultFile file; // null if not loaded, e.g. because it is locked
+        Exception error;
+
+        StagedFile(String inputName, String filePath, String fileLocation) {
+            this.inputName = inputName;
+            this.filePath = filePath;
+            this.fileLocation = fileLocation;
+        }
+
+        void load(InterruptedFlag interruptedFlag) {
+            if (interruptedFlag.getFlag())
+                return;
+            stagingManager = new ResultFileManager();
+            try {
+                file = stagingManager.loadFile(filePath, fileLocation, LOAD_FLAGS, interruptedFlag);
+            }
+            catch (Exception e) {
+                error = e;
+            }
+        }
+
+        void dispose() {
+            if (stagingManager != null) {
+                stagingManager.delete();
+                stagingManager = null;
+                file = null;
+            }
+        }
+    }
+
+    protected void fileFailedToLoad(String filePath, String fileLocation, Exception e, List<String> filesThatFailedToLoad) {
+        filesThatFailedToLoad.add(filePath);
+        ScavePlugin.logError("Could not load result file: " + fileLocation, e);
+        IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(filePath);
+        if (resource instanceof IFile) // better be
+            ScaveMarkers.setMarker((IFile)resource, ScaveMarkers.MARKERTYPE_SCAVEPROBLEM, IMarker.SEVERITY_ERROR, "Could not load result file. Reason: "+e.getMessage(), -1);
+    }
 
     protected Map<String, String> collectResultFiles(String input, IContainer anfFolder) {
         Map<String,String> filesToLoad = new LinkedHashMap<>();  // workspacePath -> filesystemPath
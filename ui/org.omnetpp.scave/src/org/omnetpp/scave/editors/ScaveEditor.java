@@ -132,6 +132,7 @@ import org.omnetpp.scave.model.commands.CommandStack;
 import org.omnetpp.scave.model.commands.SetChartContentsCommand;
 import org.omnetpp.scave.model2.ResultItemRef;
 import org.omnetpp.scave.model2.ScaveModelUtil;
+import org.omnetpp.scave.preferences.ScavePreferenceConstants;
 import org.omnetpp.scave.pychart.PythonProcessPool;
 import org.omnetpp.scave.python.ChartViewerBase;
 import org.omnetpp.scave.python.NativeChartViewer;
@@ -480,7 +481,10 @@ public class ScaveEditor extends MultiPageEditorPartExt
 
         IFile inputFile = ((IFileEditorInput) getEditorInput()).getFile();
         tracker = new ResultFilesTracker(manager, analysis.getInputs(), inputFile.getParent());
-        memoizationCache = new MemoizationCache(manager);
+        IPreferenceStore preferences = ScavePlugin.getDefault().getPreferenceStore();
+        long memoizationMemoryLimit = preferences.getInt(ScavePreferenceConstants.MEMOIZATION_CACHE_MEMORY_LIMIT_MB) * (1L << 20);
+        long memoizationDiskLimit = preferences.getInt(ScavePreferenceConstants.MEMOIZATION_CACHE_DISK_LIMIT_MB) * (1L << 20);
+        memoizationCache = new MemoizationCache(manager, memoizationMemoryLimit, memoizationDiskLimit);
         filterCache = new FilterCache(manager);
         analysis.addListener(this);
         analysis.addListener(tracker);
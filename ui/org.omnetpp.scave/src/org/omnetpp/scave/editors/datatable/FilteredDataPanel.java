@@ -27,6 +27,7 @@ import org.omnetpp.common.Debug;
 import org.omnetpp.common.ui.FilterCombo;
 import org.omnetpp.common.ui.FocusManager;
 import org.omnetpp.common.ui.IHasFocusManager;
+import org.omnetpp.scave.editors.FilterCache;
 import org.omnetpp.scave.engine.IDList;
 import org.omnetpp.scave.engine.ResultFileManager;
 import org.omnetpp.scave.engineext.ResultFileManagerEx;
@@ -236,7 +237,12 @@ public class FilteredDataPanel extends Composite implements IHasFocusManager {
         else if (filterString != null) {
             if (filterCache.containsKey(filterString))
                 return filterCache.get(filterString);
-            IDList filtered = Debug.timed("ResultFileManager.filterIDList", 1, () -> manager.filterIDList(idlist, filterString, itemLimit));
+            IDList input = idlist;
+            for (Map.Entry<String,IDList> entry : filterCache.entrySet()) // filter a cached complete result if the filter narrows it down further
+                if (entry.getValue().size() < itemLimit && entry.getValue().size() < input.size() && FilterCache.isRefinementOf(filterString, entry.getKey()))
+                    input = entry.getValue();
+            IDList finalInput = input;
+            IDList filtered = Debug.timed("ResultFileManager.filterIDList", 1, () -> manager.filterIDList(finalInput, filterString, itemLimit));
             filterCache.put(filterString, filtered);
             if (filterCache.size() > 10)
                 filterCache.remove(filterCache.keySet().iterator().next()); // drop first element
@@ -69,6 +69,7 @@ public class ChartExport {
         final FilterCache filterCache;
         final boolean stopOnError;
         final int numConcurrentProcesses;
+        PythonProcessPool processPool; // shared by the charts of a batch export, null otherwise
     }
 
     protected static class ChartExportJob extends Job {
@@ -85,9 +86,18 @@ public class ChartExport {
         protected IStatus run(final IProgressMonitor monitor) {
             try {
                 ResultFileManager.runWithReadLock(context.manager, () -> {
-                    PythonProcessPool processPool = new PythonProcessPool(1);
-                    processPool.setShouldSetOmnetppMplBackend(false);
-                    runChartScript(chart, processPool, context, monitor);
+                    if (context.processPool != null)
+                        runChartScript(chart, context.processPool, context, monitor);
+                    else {
+                        PythonProcessPool processPool = new PythonProcessPool(1);
+                        processPool.setShouldSetOmnetppMplBackend(false);
+                        try {
+                            runChartScript(chart, processPool, context, monitor);
+                        }
+                        finally {
+                            processPool.dispose();
+                        }
+                    }
                 });
                 return Status.OK_STATUS;
             }
@@ -112,6 +122,19 @@ public class ChartExport {
 
         @Override
         protected IStatus run(IProgressMonitor monitor) {
+            // the charts are run on the same warm Python processes one after the other
+            context.processPool = new PythonProcessPool(context.numConcurrentProcesses);
+            context.processPool.setShouldSetOmnetppMplBackend(false);
+            context.processPool.setRecycleProcesses(true);
+            try {
+                return runCharts(monitor);
+            }
+            finally {
+                context.processPool.dispose();
+            }
+        }
+
+        private IStatus runCharts(IProgressMonitor monitor) {
             JobGroup jobGroup = new JobGroup("Exporting charts", context.numConcurrentProcesses, charts.size()) {
                 @Override
                 protected boolean shouldCancel(IStatus lastCompletedJobResult, int numberOfFailedJobs, int numberOfCanceledJobs) {
@@ -132,11 +155,28 @@ public class ChartExport {
             catch (OperationCanceledException | InterruptedException e) {
                 Debug.println("Cancelling group");
                 jobGroup.cancel();
+                // cancel() does not wait for the running jobs, but the process pool is disposed when we return
+                joinUninterruptibly(jobGroup);
                 return Status.CANCEL_STATUS;
             }
             return Status.OK_STATUS;
         }
 
+        private static void joinUninterruptibly(JobGroup jobGroup) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    jobGroup.join(0, null);
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
     };
 
     protected static void startExportJob(Chart chart, Context context) {
@@ -244,6 +284,7 @@ public class ChartExport {
         final Thread waitingThread = Thread.currentThread();
 
         final boolean[] executionDone = new boolean[] { false };
+        final boolean[] executionFailed = new boolean[] { false };
         Runnable runAfterDone = () -> {
             executionDone[0] = true;
             waitingThread.interrupt();
@@ -255,11 +296,14 @@ public class ChartExport {
             } catch (IOException e1) {
                 ScavePlugin.logError(e);
             }
+            executionFailed[0] = true;
             executionDone[0] = true;
             waitingThread.interrupt();
         };
 
         proc.pythonCallerThread.asyncExec(() -> {
+            // The process may have run another chart script before
+            proc.getEntryPoint().reset();
             // Ensure the chart script can load source files and Python modules from the anf file's directory
             proc.getEntryPoint().execute("import os; os.chdir(r\"\"\"" + context.chartsDir.getAbsolutePath() + "\"\"\"); del os;");
             proc.getEntryPoint().execute("import site; site.addsitedir(r\"\"\"" + context.chartsDir.getAbsolutePath() + "\"\"\"); del site;");
@@ -276,8 +320,17 @@ public class ChartExport {
             }
         }
 
-        proc.kill();
-        processPool.dispose();
+        proc.outputMonitoringThread.removeOutputListener(outputListener);
+        proc.errorMonitoringThread.removeOutputListener(outputListener);
+
+        if (processPool.isRecycleProcesses()) {
+            if (executionDone[0] && !executionFailed[0])
+                processPool.recycleProcess(proc);
+            else
+                processPool.discardProcess(proc); // failed or canceled script, don't trust its state
+        }
+        else
+            proc.kill();
     }
 
 }
@@ -15,66 +15,118 @@ import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.SubProgressMonitor;
-import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
 import org.eclipse.core.runtime.jobs.MultiRule;
+import org.omnetpp.common.Debug;
+import org.omnetpp.scave.ScavePlugin;
 import org.omnetpp.scave.common.IndexFileUtils;
+import org.omnetpp.scave.preferences.ScavePreferenceConstants;
 
 /**
  * This job generates index files for vector files in the workspace.
  *
+ * Each file is indexed by its own job that only locks the vector file
+ * and its index file, so other workspace jobs are only blocked on the files
+ * being indexed. The per-file jobs run in a job group with a limited number
+ * of them running concurrently. This job waits for the group, reports the
+ * number of indexed files as progress, and cancels the group when canceled.
+ *
  * @author tomi
  */
-public class VectorFileIndexerJob extends WorkspaceJob {
+public class VectorFileIndexerJob extends Job {
 
     private List<IFile> filesToBeIndexed;
+    private int numConcurrentJobs;
+
+    /**
+     * Indexes a single file.
+     */
+    protected static class FileIndexerJob extends WorkspaceJob {
+        private IFile file;
+
+        public FileIndexerJob(IFile file) {
+            super("Indexing " + file.getName());
+            this.file = file;
+            setRule(MultiRule.combine(file, IndexFileUtils.getIndexFileFor(file)));
+        }
+
+        @Override
+        public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+            if (monitor.isCanceled())
+                return Status.CANCEL_STATUS;
+            if (file.exists() && IndexFileUtils.isExistingVectorFile(file) && !IndexFileUtils.isIndexFileUpToDate(file)) {
+                IndexFileUtils.performIndexing(file, monitor);
+                if (monitor.isCanceled())
+                    return Status.CANCEL_STATUS;
+            }
+            return Status.OK_STATUS;
+        }
+    }
 
     public VectorFileIndexerJob(String name, IFile[] filesToBeIndexed) {
+        this(name, filesToBeIndexed, getDefaultNumConcurrentJobs());
+    }
+
+    public VectorFileIndexerJob(String name, IFile[] filesToBeIndexed, int numConcurrentJobs) {
         super(name);
 
-        ArrayList<ISchedulingRule> rule = new ArrayList<ISchedulingRule>();
         this.filesToBeIndexed = new ArrayList<IFile>();
         for (IFile file : filesToBeIndexed)
-            if (IndexFileUtils.isExistingVectorFile(file)) {
+            if (IndexFileUtils.isExistingVectorFile(file))
                 this.filesToBeIndexed.add(file);
-                rule.add(file);
-                rule.add(IndexFileUtils.getIndexFileFor(file));
-            }
+        this.numConcurrentJobs = Math.max(1, numConcurrentJobs);
 
-        setRule(MultiRule.combine(rule.toArray(new ISchedulingRule[rule.size()])));
         setPriority(Job.LONG);
     }
 
+    /**
+     * Returns the number of files to be indexed concurrently according to the
+     * preferences, where 0 means the number of processors.
+     */
+    public static int getDefaultNumConcurrentJobs() {
+        int numThreads = ScavePlugin.getDefault().getPreferenceStore().getInt(ScavePreferenceConstants.VECTOR_INDEXING_THREADS);
+        return numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+    }
+
     /**
      * Generate indeces for files in the queue.
      */
     @Override
-    public IStatus runInWorkspace(IProgressMonitor monitor)
-            throws CoreException {
-
-        if (!filesToBeIndexed.isEmpty()) {
-            try {
-                monitor.beginTask(getName(), filesToBeIndexed.size());
-
-                for (IFile file : filesToBeIndexed) {
-                    if (monitor.isCanceled())
-                        return Status.CANCEL_STATUS;
-
-                    monitor.subTask("Indexing "+file.getName());
-                    if (file.exists() && IndexFileUtils.isExistingVectorFile(file) && !IndexFileUtils.isIndexFileUpToDate(file)) {
-                        IProgressMonitor subMonitor = new SubProgressMonitor(monitor, 1);
-                        IndexFileUtils.performIndexing(file, subMonitor);
-                        if (subMonitor.isCanceled())
-                            return Status.CANCEL_STATUS;
-                    }
-                }
-            }
-            finally {
-                monitor.done();
+    public IStatus run(IProgressMonitor monitor) {
+        if (filesToBeIndexed.isEmpty())
+            return Status.OK_STATUS;
+
+        JobGroup jobGroup = new JobGroup(getName(), numConcurrentJobs, filesToBeIndexed.size()) {
+            @Override
+            protected boolean shouldCancel(IStatus lastCompletedJobResult, int numberOfFailedJobs, int numberOfCanceledJobs) {
+                return numberOfCanceledJobs > 0;
             }
+        };
+
+        long startTime = System.currentTimeMillis();
+        for (IFile file : filesToBeIndexed) {
+            Job job = new FileIndexerJob(file);
+            job.setJobGroup(jobGroup);
+            job.setPriority(Job.LONG);
+            job.setSystem(true); // progress is reported by this job
+            job.schedule();
+        }
+
+        try {
+            monitor.setTaskName("Indexing " + filesToBeIndexed.size() + " vector files");
+            jobGroup.join(0, monitor); // reports the completed jobs as progress
+        }
+        catch (OperationCanceledException | InterruptedException e) {
+            jobGroup.cancel();
+            return Status.CANCEL_STATUS;
+        }
+        finally {
+            monitor.done();
         }
+        Debug.println("indexed " + filesToBeIndexed.size() + " vector files using " + numConcurrentJobs + " jobs in " + (System.currentTimeMillis() - startTime) + "ms");
         return Status.OK_STATUS;
     }
 }
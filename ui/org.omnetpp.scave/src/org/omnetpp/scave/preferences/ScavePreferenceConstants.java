@@ -9,4 +9,16 @@ public class ScavePreferenceConstants {
 
     public final static String PER_LINE_DRAW_TIME_LIMIT_MILLIS = "perLineDrawTimeLimitMillis";
 
+    public final static String MEMOIZATION_CACHE_MEMORY_LIMIT_MB = "memoizationCacheMemoryLimitMB";
+
+    public final static String MEMOIZATION_CACHE_DISK_LIMIT_MB = "memoizationCacheDiskLimitMB";
+
+    public final static String RESULT_FILE_LOADING_THREADS = "resultFileLoadingThreads";
+
+    public final static String GENERATE_VECTOR_PYRAMIDS = "generateVectorPyramids";
+
+    public final static String VECTOR_INDEXING_THREADS = "vectorIndexingThreads";
+
+    public final static String PAINT_PLOTS_IN_BACKGROUND = "paintPlotsInBackground";
+
 }
@@ -22,5 +22,11 @@ public class ScavePreferenceInitializer extends AbstractPreferenceInitializer {
         IPreferenceStore store = ScavePlugin.getDefault().getPreferenceStore();
         store.setDefault(ScavePreferenceConstants.TOTAL_DRAW_TIME_LIMIT_MILLIS, 10000);
         store.setDefault(ScavePreferenceConstants.PER_LINE_DRAW_TIME_LIMIT_MILLIS, 2000);
+        store.setDefault(ScavePreferenceConstants.MEMOIZATION_CACHE_MEMORY_LIMIT_MB, 1024);
+        store.setDefault(ScavePreferenceConstants.MEMOIZATION_CACHE_DISK_LIMIT_MB, 0);
+        store.setDefault(ScavePreferenceConstants.RESULT_FILE_LOADING_THREADS, 0);
+        store.setDefault(ScavePreferenceConstants.GENERATE_VECTOR_PYRAMIDS, false);
+        store.setDefault(ScavePreferenceConstants.VECTOR_INDEXING_THREADS, 0);
+        store.setDefault(ScavePreferenceConstants.PAINT_PLOTS_IN_BACKGROUND, true);
     }
 }
@@ -1,5 +1,6 @@
 package org.omnetpp.scave.preferences;
 
+import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.ui.IWorkbench;
@@ -31,6 +32,26 @@ public class ScavePreferencePage extends FieldEditorPreferencePage implements IW
         IntegerFieldEditor perLineLimitEditor = new IntegerFieldEditor(ScavePreferenceConstants.PER_LINE_DRAW_TIME_LIMIT_MILLIS, "Per-line drawing time limit (ms):", getFieldEditorParent());
         perLineLimitEditor.setValidRange(1, 99999);
         addField(perLineLimitEditor);
+
+        IntegerFieldEditor memoizationMemoryLimitEditor = new IntegerFieldEditor(ScavePreferenceConstants.MEMOIZATION_CACHE_MEMORY_LIMIT_MB, "Result query cache size in memory (MB):", getFieldEditorParent());
+        memoizationMemoryLimitEditor.setValidRange(1, 999999);
+        addField(memoizationMemoryLimitEditor);
+
+        IntegerFieldEditor memoizationDiskLimitEditor = new IntegerFieldEditor(ScavePreferenceConstants.MEMOIZATION_CACHE_DISK_LIMIT_MB, "Result query cache size on disk (MB, 0=disabled):", getFieldEditorParent());
+        memoizationDiskLimitEditor.setValidRange(0, 9999999);
+        addField(memoizationDiskLimitEditor);
+
+        IntegerFieldEditor loadingThreadsEditor = new IntegerFieldEditor(ScavePreferenceConstants.RESULT_FILE_LOADING_THREADS, "Threads for loading result files (0=auto, 1=sequential):", getFieldEditorParent());
+        loadingThreadsEditor.setValidRange(0, 256);
+        addField(loadingThreadsEditor);
+
+        IntegerFieldEditor indexingThreadsEditor = new IntegerFieldEditor(ScavePreferenceConstants.VECTOR_INDEXING_THREADS, "Vector files indexed concurrently (0=auto):", getFieldEditorParent());
+        indexingThreadsEditor.setValidRange(0, 256);
+        addField(indexingThreadsEditor);
+
+        addField(new BooleanFieldEditor(ScavePreferenceConstants.GENERATE_VECTOR_PYRAMIDS, "Generate overview summaries (.vcp files) when indexing vector files", getFieldEditorParent()));
+
+        addField(new BooleanFieldEditor(ScavePreferenceConstants.PAINT_PLOTS_IN_BACKGROUND, "Paint native line plots in background threads", getFieldEditorParent()));
     }
 
     /* (non-Javadoc)
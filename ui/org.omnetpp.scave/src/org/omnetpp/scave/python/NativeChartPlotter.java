@@ -15,7 +15,13 @@ import java.util.Set;
 
 import org.eclipse.swt.widgets.Display;
 import org.omnetpp.scave.charting.PlotBase;
+import org.omnetpp.scave.charting.dataset.DecimatedVectorDataset;
+import org.omnetpp.scave.charting.dataset.IXYDataset;
 import org.omnetpp.scave.charting.properties.PlotProperty;
+import org.omnetpp.scave.editors.FilterCache;
+import org.omnetpp.scave.engine.IDList;
+import org.omnetpp.scave.engine.InterruptedFlag;
+import org.omnetpp.scave.engine.ResultFileManager;
 import org.omnetpp.scave.pychart.INativeChartPlotter;
 
 /**
@@ -34,11 +40,27 @@ class NativeChartPlotter implements INativeChartPlotter {
     private GroupsSeriesDataset scalarDataset = new GroupsSeriesDataset();
     private XYDataset xyDataset = new XYDataset();
     private HistogramDataset histogramDataset = new HistogramDataset();
+    private DecimatedVectorDataset decimatedVectorDataset = null; // instead of xyDataset, if requested by the script
+
+    /** For plotDecimatedVectors(). */
+    private ResultFileManager manager;
+    private FilterCache filterCache;
+    private InterruptedFlag interrupted = new InterruptedFlag();
 
     private Map<String, String> pendingPropertyChanges = new HashMap<>();
 
-    public NativeChartPlotter(PlotBase plot) {
+    public NativeChartPlotter(PlotBase plot, ResultFileManager manager, FilterCache filterCache) {
         this.plot = plot;
+        this.manager = manager;
+        this.filterCache = filterCache;
+    }
+
+    /**
+     * Sets the flag that interrupts reading the vectors in plotDecimatedVectors(),
+     * i.e. that of the Python process running the chart script.
+     */
+    public void setInterruptedFlag(InterruptedFlag interrupted) {
+        this.interrupted = interrupted;
     }
 
     @Override
@@ -53,6 +75,8 @@ class NativeChartPlotter implements INativeChartPlotter {
 
     @Override
     public void plotVectors(byte[] pickledData, Map<String, String> props) {
+        if (decimatedVectorDataset != null)
+            throw new IllegalStateException("Lines cannot be added to a plot of decimated vectors");
         List<String> lineKeys = xyDataset.addVectors(pickledData);
 
         for (String lineKey : lineKeys)
@@ -60,6 +84,24 @@ class NativeChartPlotter implements INativeChartPlotter {
                 pendingPropertyChanges.put(propKey + "/" + lineKey, props.get(propKey));
     }
 
+    @Override
+    public int plotDecimatedVectors(String filterExpression, double simTimeStart, double simTimeEnd, Map<String, String> props) {
+        if (decimatedVectorDataset != null || xyDataset.getSeriesCount() > 0)
+            throw new IllegalStateException("Decimated vectors cannot be added to a plot that already has lines");
+
+        IDList idList = filterCache.getFilterResult(ResultFileManager.VECTOR, filterExpression);
+        if (idList == null) {
+            idList = manager.filterIDList(manager.getAllVectors(), filterExpression, -1, interrupted);
+            filterCache.putFilterResult(ResultFileManager.VECTOR, filterExpression, idList); // the next refresh of the chart will need it again
+        }
+        decimatedVectorDataset = new DecimatedVectorDataset(manager, idList, simTimeStart, simTimeEnd, interrupted);
+
+        for (int series = 0; series < decimatedVectorDataset.getSeriesCount(); series++)
+            for (String propKey : props.keySet())
+                pendingPropertyChanges.put(propKey + "/" + decimatedVectorDataset.getSeriesKey(series), props.get(propKey));
+        return idList.size();
+    }
+
     @Override
     public void plotHistograms(byte[] pickledData, Map<String, String> props) {
         List<String> histKeys = histogramDataset.addValues(pickledData);
@@ -77,6 +119,14 @@ class NativeChartPlotter implements INativeChartPlotter {
         return xyDataset;
     }
 
+    /**
+     * Returns the dataset for line plots: the decimated vectors if the script
+     * plotted them, and the XY dataset otherwise.
+     */
+    public IXYDataset getLineDataset() {
+        return decimatedVectorDataset != null ? decimatedVectorDataset : xyDataset;
+    }
+
     public HistogramDataset getHistogramDataset() {
         return histogramDataset;
     }
@@ -86,7 +136,8 @@ class NativeChartPlotter implements INativeChartPlotter {
         return scalarDataset.getSeriesCount() == 0
                 && scalarDataset.getGroupCount() == 0
                 && xyDataset.getSeriesCount() == 0
-                && histogramDataset.getSeriesCount() == 0;
+                && histogramDataset.getSeriesCount() == 0
+                && decimatedVectorDataset == null;
     }
 
     protected void doSetProperty(String key, String value) {
@@ -158,6 +209,7 @@ class NativeChartPlotter implements INativeChartPlotter {
         scalarDataset = new GroupsSeriesDataset();
         xyDataset = new XYDataset();
         histogramDataset = new HistogramDataset();
+        decimatedVectorDataset = null;
 
         for (PlotProperty p : plot.getProperties())
             setProperty(p.getName(), p.getDefaultValueAsString());
@@ -166,6 +218,8 @@ class NativeChartPlotter implements INativeChartPlotter {
     public void dispose() {
         if (xyDataset != null)
             xyDataset.dispose();
+        if (decimatedVectorDataset != null)
+            decimatedVectorDataset.dispose();
     }
 
     @Override
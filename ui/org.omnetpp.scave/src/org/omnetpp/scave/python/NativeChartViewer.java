@@ -61,7 +61,7 @@ public class NativeChartViewer extends ChartViewerBase {
             throw new RuntimeException("invalid chart type");
         }
 
-        chartPlotter = new NativeChartPlotter(plot);
+        chartPlotter = new NativeChartPlotter(plot, rfm, filterCache);
     }
 
     public void runPythonScript(String script, File workingDir, List<String> additionalPythonPath, Runnable runAfterDone, ExceptionHandler runAfterError) {
@@ -95,6 +95,7 @@ public class NativeChartViewer extends ChartViewerBase {
         try {
             acquireNewProcess();
             proc.getEntryPoint().setNativeChartPlotter(chartPlotter);
+            chartPlotter.setInterruptedFlag(proc.getInterruptedFlag());
             proc.getEntryPoint().setWarningAnnotator(warningAnnotator);
         }
         catch (RuntimeException e) {
@@ -136,7 +137,7 @@ public class NativeChartViewer extends ChartViewerBase {
                 switch (chart.getType()) {
                     case BAR: plot.setDataset(chartPlotter.getScalarDataset()); break;
                     case HISTOGRAM: plot.setDataset(chartPlotter.getHistogramDataset()); break;
-                    case LINE: plot.setDataset(chartPlotter.getXyDataset()); break;
+                    case LINE: plot.setDataset(chartPlotter.getLineDataset()); break;
                     case MATPLOTLIB: // fallthrough
                     default: throw new RuntimeException("Wrong chart type.");
                 }
@@ -257,6 +258,9 @@ public class NativeChartViewer extends ChartViewerBase {
     public void dispose() {
         super.dispose();
 
+        // the datasets may still be read by the background painting jobs of the plot
+        if (plot != null)
+            plot.stopPaintInBackground();
         chartPlotter.dispose();
         if (plot != null)
             plot.dispose();
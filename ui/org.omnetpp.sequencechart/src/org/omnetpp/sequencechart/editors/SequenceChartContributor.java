@@ -129,13 +129,13 @@ import org.omnetpp.common.image.ImageFactory;
 import org.omnetpp.common.util.BigDecimal;
 import org.omnetpp.common.util.TimeUtils;
 import org.omnetpp.common.util.UIUtils;
+import org.omnetpp.eventlog.FileReader;
 import org.omnetpp.eventlog.FilteredEventLog;
 import org.omnetpp.eventlog.IEvent;
 import org.omnetpp.eventlog.IEventLog;
 import org.omnetpp.eventlog.IMessageDependency;
 import org.omnetpp.eventlog.SequenceChartFacade;
 import org.omnetpp.eventlog.TimelineMode;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.ComponentMethodBeginEntry;
 import org.omnetpp.eventlog.entry.MessageDescriptionEntry;
 import org.omnetpp.ned.core.NedResources;
@@ -989,6 +989,7 @@ public class SequenceChartContributor extends EditorActionBarContributor impleme
                         addSubMenuItem(menu, "Module Id", SequenceChart.AxisOrderingMode.MODULE_ID);
                         addSubMenuItem(menu, "Module Path", SequenceChart.AxisOrderingMode.MODULE_FULL_PATH);
                         addSubMenuItem(menu, "Minimize Crossings", SequenceChart.AxisOrderingMode.MINIMIZE_CROSSINGS);
+                        addSubMenuItem(menu, "Minimize Crossings (Fast)", SequenceChart.AxisOrderingMode.MINIMIZE_CROSSINGS_FAST);
                         addSubMenuItem(menu, "Manual...", SequenceChart.AxisOrderingMode.MANUAL);
                     }
 
@@ -7,6 +7,7 @@
 
 package org.omnetpp.sequencechart.widgets;
 
+import java.io.File;
 import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
@@ -27,6 +28,7 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
@@ -98,6 +100,7 @@ import org.omnetpp.common.util.PersistentResourcePropertyManager;
 import org.omnetpp.common.util.TimeUtils;
 import org.omnetpp.common.virtualtable.IVirtualContentWidget;
 import org.omnetpp.eventlog.EventLogEntry;
+import org.omnetpp.eventlog.FileReader;
 import org.omnetpp.eventlog.FilteredEventLog;
 import org.omnetpp.eventlog.FilteredMessageDependency;
 import org.omnetpp.eventlog.IEvent;
@@ -105,8 +108,8 @@ import org.omnetpp.eventlog.IEventLog;
 import org.omnetpp.eventlog.IMessageDependency;
 import org.omnetpp.eventlog.MessageReuseDependency;
 import org.omnetpp.eventlog.SequenceChartFacade;
+import org.omnetpp.eventlog.SimTime;
 import org.omnetpp.eventlog.TimelineMode;
-import org.omnetpp.eventlog.engine.FileReader;
 import org.omnetpp.eventlog.entry.BeginSendEntry;
 import org.omnetpp.eventlog.entry.ComponentMethodBeginEntry;
 import org.omnetpp.eventlog.entry.ComponentMethodEndEntry;
@@ -130,6 +133,7 @@ import org.omnetpp.sequencechart.SequenceChartPlugin;
 import org.omnetpp.sequencechart.editors.SequenceChartContributor;
 import org.omnetpp.sequencechart.widgets.axisorder.AxisOrderByModuleId;
 import org.omnetpp.sequencechart.widgets.axisorder.AxisOrderByModuleName;
+import org.omnetpp.sequencechart.widgets.axisorder.FastAxisOrderByMinimizingCost;
 import org.omnetpp.sequencechart.widgets.axisorder.FlatAxisOrderByMinimizingCost;
 import org.omnetpp.sequencechart.widgets.axisorder.ManualAxisOrder;
 import org.omnetpp.sequencechart.widgets.axisrenderer.AxisLineRenderer;
@@ -156,6 +160,7 @@ public class SequenceChart
      */
 
     private static final String STATE_PROPERTY = "SequenceChartState";
+    private static final String LAYOUT_CACHE_PROPERTY = "SequenceChartLayoutCache";
     private static final Cursor DRAG_CURSOR = new Cursor(null, SWT.CURSOR_SIZEALL);
     private static final int ANTIALIAS_TURN_ON_AT_MSEC = 100;
     private static final int ANTIALIAS_TURN_OFF_AT_MSEC = 300;
@@ -238,6 +243,7 @@ public class SequenceChart
 
     private AxisOrderingMode axisOrderingMode = AxisOrderingMode.MODULE_FULL_PATH; // specifies the ordering mode of axes
     private ManualAxisOrder manualAxisOrder = new ManualAxisOrder(); // remembers manual ordering
+    private SequenceChartLayoutCache layoutCache = new SequenceChartLayoutCache(); // persistent cache of visible axis modules and axis orderings
 
     private boolean invalidAxisModulePositions = true; // requests recalculation
     private int[] axisModulePositions; // specifies y order of the axis modules (in the same order as axisModules); this is a permutation of the 0 .. axisModule.size() - 1 numbers
@@ -294,6 +300,7 @@ public class SequenceChart
         MODULE_ID,
         MODULE_FULL_PATH,
         MINIMIZE_CROSSINGS,
+        MINIMIZE_CROSSINGS_FAST,
         MANUAL
     }
 
@@ -1184,12 +1191,12 @@ public class SequenceChart
                     endEvent = nextEvent;
 
                 for (IEvent e = startEvent;; e = e.getNextEvent()) {
-                    if (e == event) {
+                    if (e.getEventNumber() == event.getEventNumber()) {
                         found = true;
                         break;
                     }
 
-                    if (e == endEvent)
+                    if (e.getEventNumber() == endEvent.getEventNumber())
                         break;
                 }
             }
@@ -1523,6 +1530,7 @@ public class SequenceChart
     }
 
     private void setup() {
+        restoreLayoutCache(eventLogInput.getFile());
         if (!restoreState(eventLogInput.getFile())) {
             sequenceChartFacade.setSeparateEventLogEntries(showComponentMethodCalls);
             if (hasVisibleEvents()) {
@@ -1560,12 +1568,55 @@ public class SequenceChart
                 SequenceChartSettings sequenceChartSettings = getSequenceChartSettings();
                 manager.setProperty(resource, STATE_PROPERTY, sequenceChartSettings);
             }
+
+            File file = getLocalFile(resource);
+            if (file == null || eventLog.isEmpty() || !layoutCache.hasLayouts())
+                manager.removeProperty(resource, LAYOUT_CACHE_PROPERTY);
+            else {
+                layoutCache.setFile(file, eventLog.getLastEvent().getEventNumber());
+                layoutCache.nonLinearFocus = sequenceChartFacade.getNonLinearFocus();
+                layoutCache.nonLinearMinimumTimelineCoordinateDelta = sequenceChartFacade.getNonLinearMinimumTimelineCoordinateDelta();
+                manager.setProperty(resource, LAYOUT_CACHE_PROPERTY, layoutCache);
+            }
         }
         catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Restore the persistent layout cache for the given resource if it is still valid
+     * for the file content, and the timeline coordinate system parameters it was calculated with.
+     */
+    private void restoreLayoutCache(IResource resource) {
+        PersistentResourcePropertyManager manager = new PersistentResourcePropertyManager(SequenceChartPlugin.PLUGIN_ID, getClass().getClassLoader());
+        layoutCache = new SequenceChartLayoutCache();
+        try {
+            File file = getLocalFile(resource);
+            if (file != null && manager.hasProperty(resource, LAYOUT_CACHE_PROPERTY)) {
+                SequenceChartLayoutCache restoredLayoutCache = (SequenceChartLayoutCache)manager.getProperty(resource, LAYOUT_CACHE_PROPERTY);
+                if (restoredLayoutCache.isValidFor(file) && !eventLog.isEmpty() && restoredLayoutCache.lastEventNumber == eventLog.getLastEvent().getEventNumber()) {
+                    layoutCache = restoredLayoutCache;
+                    if (layoutCache.nonLinearFocus > 0) {
+                        sequenceChartFacade.setNonLinearFocus(layoutCache.nonLinearFocus);
+                        sequenceChartFacade.setNonLinearMinimumTimelineCoordinateDelta(layoutCache.nonLinearMinimumTimelineCoordinateDelta);
+                    }
+                }
+                else
+                    manager.removeProperty(resource, LAYOUT_CACHE_PROPERTY);
+            }
+        }
+        catch (Exception e) {
+            manager.removeProperty(resource, LAYOUT_CACHE_PROPERTY);
+            SequenceChartPlugin.logError(e);
+        }
+    }
+
+    private static File getLocalFile(IResource resource) {
+        IPath location = resource.getLocation();
+        return location == null ? null : location.toFile();
+    }
+
     /**
      * Restore persistent sequence chart settings for the given resource.
      * NOTE: the state of the filter menu Show all/filtered is intentionally not saved
@@ -1828,6 +1879,11 @@ public class SequenceChart
         Display.getCurrent().asyncExec(new Runnable() {
             public void run() {
                 try {
+                    File file = getLocalFile(eventLogInput.getFile());
+                    if (file != null && !eventLog.isEmpty())
+                        layoutCache.fileAppended(file, eventLog.getLastEvent().getEventNumber());
+                    else
+                        layoutCache.clear();
                     eventLogChanged();
                 }
                 catch (RuntimeException e) {
@@ -2123,7 +2179,9 @@ public class SequenceChart
 
     private void validateVisibleAxisModules() {
         if (invalidVisibleAxisModules) {
-            ArrayList<ModuleTreeItem> newVisibleAxisModules = calculateVisibleAxisModules();
+            ArrayList<ModuleTreeItem> newVisibleAxisModules = getCachedVisibleAxisModules();
+            if (newVisibleAxisModules == null)
+                newVisibleAxisModules = calculateVisibleAxisModules();
             if (!newVisibleAxisModules.equals(visibleAxisModules)) {
                 visibleAxisModules = newVisibleAxisModules;
                 invalidateAxes();
@@ -2168,7 +2226,7 @@ public class SequenceChart
             for (IEvent event = startEvent;; event = event.getNextEvent()) {
                 if (!isInitializationEvent(event))
                     axisModuleIds.add(event.getModuleId());
-                if (event == endEvent)
+                if (event.getEventNumber() == endEvent.getEventNumber())
                     break;
             }
         }
@@ -2270,6 +2328,95 @@ public class SequenceChart
         return result;
     }
 
+    /*************************************************************************************
+     * LAYOUT CACHE
+     */
+
+    /**
+     * Returns the key identifying the current viewport and all settings that affect
+     * the visible axis modules and their ordering, or null if the layout must not be cached.
+     */
+    private String getLayoutKey() {
+        if (eventLog instanceof FilteredEventLog || sequenceChartFacade.getTimelineCoordinateSystemOriginEventNumber() == -1)
+            return null;
+        ArrayList<ModuleTreeItem> openAxisModules = getOpenAxisModules();
+        String[] openAxisModuleFullPaths = new String[openAxisModules.size()];
+        for (int i = 0; i < openAxisModuleFullPaths.length; i++)
+            openAxisModuleFullPaths[i] = openAxisModules.get(i).getModuleFullPath();
+        ArrayList<ModuleTreeItem> manualAxisModuleOrder = manualAxisOrder.getAxisOrder();
+        String[] manualAxisModuleFullPaths = new String[manualAxisModuleOrder.size()];
+        for (int i = 0; i < manualAxisModuleFullPaths.length; i++)
+            manualAxisModuleFullPaths[i] = manualAxisModuleOrder.get(i) == null ? null : manualAxisModuleOrder.get(i).getModuleFullPath();
+        return sequenceChartFacade.getTimelineMode() + " " + sequenceChartFacade.getTimelineCoordinateSystemOriginEventNumber() + " " +
+            fixPointViewportCoordinate + " " + getPixelPerTimelineUnit() + " " + getViewportWidth() + " " +
+            axisOrderingMode + " " + showEmptyAxes + " " + showInitializationEvent + " " + showComponentMethodCalls + " " +
+            Arrays.hashCode(openAxisModuleFullPaths) + " " + Arrays.hashCode(manualAxisModuleFullPaths);
+    }
+
+    private SequenceChartLayoutCache.Layout getCachedLayout() {
+        if (!layoutCache.hasLayouts())
+            return null;
+        String key = getLayoutKey();
+        return key == null ? null : layoutCache.getLayout(key);
+    }
+
+    /**
+     * Returns the visible axis modules from the layout cache, or null if they are not cached.
+     */
+    private ArrayList<ModuleTreeItem> getCachedVisibleAxisModules() {
+        SequenceChartLayoutCache.Layout layout = getCachedLayout();
+        if (layout == null)
+            return null;
+        Set<ModuleTreeItem> openAxisModules = new HashSet<ModuleTreeItem>(getOpenAxisModules());
+        ArrayList<ModuleTreeItem> result = new ArrayList<ModuleTreeItem>();
+        for (String moduleFullPath : layout.visibleAxisModuleFullPaths) {
+            ModuleTreeItem moduleTreeItem = eventLogInput.getModuleTreeRoot().findDescendantModule(moduleFullPath);
+            if (moduleTreeItem == null || !openAxisModules.contains(moduleTreeItem))
+                return null;
+            result.add(moduleTreeItem);
+        }
+        if (debug)
+            Debug.println("Using cached visible axis modules: " + result.size());
+        return result;
+    }
+
+    /**
+     * Returns the axis module positions calculated by minimizing crossings from the
+     * layout cache, or null if they are not cached for the current visible axis modules.
+     */
+    private int[] getCachedAxisModulePositions() {
+        if (axisOrderingMode != AxisOrderingMode.MINIMIZE_CROSSINGS && axisOrderingMode != AxisOrderingMode.MINIMIZE_CROSSINGS_FAST)
+            return null;
+        SequenceChartLayoutCache.Layout layout = getCachedLayout();
+        if (layout == null || layout.axisModulePositions == null || layout.axisModulePositions.length != visibleAxisModules.size())
+            return null;
+        for (int i = 0; i < visibleAxisModules.size(); i++)
+            if (!visibleAxisModules.get(i).getModuleFullPath().equals(layout.visibleAxisModuleFullPaths[i]))
+                return null;
+        if (debug)
+            Debug.println("Using cached axis module positions");
+        return layout.axisModulePositions.clone();
+    }
+
+    /**
+     * Stores the current visible axis modules and the given axis module positions in the layout cache.
+     */
+    private void putCachedLayout(int[] axisModulePositions) {
+        String key = getLayoutKey();
+        if (key == null)
+            return;
+        SequenceChartLayoutCache.Layout layout = new SequenceChartLayoutCache.Layout();
+        layout.key = key;
+        IEvent lastEvent = getFirstLastEventForMessageDependencies()[1];
+        layout.lastEventNumber = lastEvent != null ? lastEvent.getEventNumber() : Long.MAX_VALUE;
+        layout.visibleAxisModuleFullPaths = new String[visibleAxisModules.size()];
+        for (int i = 0; i < visibleAxisModules.size(); i++)
+            layout.visibleAxisModuleFullPaths[i] = visibleAxisModules.get(i).getModuleFullPath();
+        if (axisOrderingMode == AxisOrderingMode.MINIMIZE_CROSSINGS || axisOrderingMode == AxisOrderingMode.MINIMIZE_CROSSINGS_FAST)
+            layout.axisModulePositions = axisModulePositions.clone();
+        layoutCache.putLayout(layout);
+    }
+
     /*************************************************************************************
      * AXES
      */
@@ -2649,7 +2796,11 @@ public class SequenceChart
         validateVisibleAxisModules();
         validateAxisSpacing();
         if (invalidAxisModulePositions) {
-            int[] newAxisModulePositions = calculateAxisModulePositions();
+            int[] newAxisModulePositions = getCachedAxisModulePositions();
+            if (newAxisModulePositions == null) {
+                newAxisModulePositions = calculateAxisModulePositions();
+                putCachedLayout(newAxisModulePositions);
+            }
             if (!newAxisModulePositions.equals(axisModulePositions)) {
                 axisModulePositions = newAxisModulePositions;
                 invalidateAxes();
@@ -2685,12 +2836,16 @@ public class SequenceChart
                         result[0] = new AxisOrderByModuleName().calculateOrdering(axisModulesArray);
                         break;
                     case MINIMIZE_CROSSINGS:
+                    case MINIMIZE_CROSSINGS_FAST:
                         int extraClipping = getExtraClippingForEvents();
                         IEvent[] eventRange = getFirstLastEventForViewportRange(Rectangle.SINGLETON.x - extraClipping, Rectangle.SINGLETON.right() + extraClipping);
                         IEvent startEvent = eventRange[0];
                         IEvent endEvent = eventRange[1];
                         axisModulesArray = manualAxisOrder.getCurrentAxisModuleOrder(axisModulesArray).toArray(new ModuleTreeItem[0]);
-                        result[0] = new FlatAxisOrderByMinimizingCost(eventLogInput, startEvent, endEvent).calculateOrdering(axisModulesArray, getModuleIdToAxisModuleIndexMap());
+                        if (axisOrderingMode == AxisOrderingMode.MINIMIZE_CROSSINGS_FAST)
+                            result[0] = new FastAxisOrderByMinimizingCost(eventLogInput, startEvent, endEvent).calculateOrdering(axisModulesArray, getModuleIdToAxisModuleIndexMap());
+                        else
+                            result[0] = new FlatAxisOrderByMinimizingCost(eventLogInput, startEvent, endEvent).calculateOrdering(axisModulesArray, getModuleIdToAxisModuleIndexMap());
                         break;
                     default:
                         throw new RuntimeException("Unknown axis ordering mode");
@@ -3479,8 +3634,8 @@ public class SequenceChart
                 if (previousEvent != null) {
                     x = getEventXViewportCoordinateEnd(event);
                     long previousX = getEventXViewportCoordinateBegin(previousEvent);
-                    BigDecimal simulationTime = event.getSimulationTime();
-                    BigDecimal previousSimulationTime = previousEvent.getSimulationTime();
+                    SimTime simulationTime = event.getSimTime();
+                    SimTime previousSimulationTime = previousEvent.getSimTime();
 
                     if (simulationTime.equals(previousSimulationTime) && x != previousX)
                         drawZeroSimulationTimeRegion(graphics, r, clip, previousX, x - previousX);
@@ -3488,7 +3643,7 @@ public class SequenceChart
 
                 previousEvent = event;
 
-                if (event == endEvent)
+                if (event.getEventNumber() == endEvent.getEventNumber())
                     break;
             }
 
@@ -3824,7 +3979,7 @@ public class SequenceChart
                     }
                 }
 
-                if (event == endEvent)
+                if (event.getEventNumber() == endEvent.getEventNumber())
                     break;
             }
         }
@@ -5095,7 +5250,7 @@ public class SequenceChart
                                             result.add(event);
                                     }
 
-                                    if (event == endEvent)
+                                    if (event.getEventNumber() == endEvent.getEventNumber())
                                         break;
                                 }
                             }
@@ -0,0 +1,101 @@
+package org.omnetpp.sequencechart.widgets;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Used to persistently store derived layout results of the sequence chart for an
+ * eventlog file, so that they need not be recalculated when the file is reopened.
+ *
+ * The cache is only valid for the file content it was calculated from, which is
+ * identified by the file size and modification time. Each layout entry is identified
+ * by a key that describes the viewport and the settings the layout depends on,
+ * including the timeline mode.
+ * When the file is appended, the entries that did not reach the end of the file
+ * remain valid.
+ */
+class SequenceChartLayoutCache implements Serializable {
+
+    /**
+     * The axes of the chart for a given viewport and settings.
+     */
+    public static class Layout implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // identifies the viewport and the settings
+        public String key;
+
+        // the last event that was considered while calculating the layout
+        public long lastEventNumber;
+
+        public String[] visibleAxisModuleFullPaths;
+        public int[] axisModulePositions; // null if it was not calculated by minimizing crossings
+    }
+
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_LAYOUTS = 32;
+
+    // identifies the file content
+    public long fileSize = -1;
+    public long fileLastModified = -1;
+    public long lastEventNumber = -1;
+
+    // non-linear timeline coordinate system parameters
+    public double nonLinearFocus = -1;
+    public double nonLinearMinimumTimelineCoordinateDelta;
+
+    private ArrayList<Layout> layouts = new ArrayList<Layout>(); // most recently used first
+
+    public boolean isValidFor(File file) {
+        return file.length() == fileSize && file.lastModified() == fileLastModified;
+    }
+
+    public void setFile(File file, long lastEventNumber) {
+        this.fileSize = file.length();
+        this.fileLastModified = file.lastModified();
+        this.lastEventNumber = lastEventNumber;
+    }
+
+    /**
+     * Returns the layout with the given key or null if there is no such layout.
+     */
+    public Layout getLayout(String key) {
+        for (Iterator<Layout> it = layouts.iterator(); it.hasNext(); ) {
+            Layout layout = it.next();
+            if (layout.key.equals(key)) {
+                it.remove();
+                layouts.add(0, layout);
+                return layout;
+            }
+        }
+        return null;
+    }
+
+    public boolean hasLayouts() {
+        return !layouts.isEmpty();
+    }
+
+    public void putLayout(Layout layout) {
+        layouts.removeIf(l -> l.key.equals(layout.key));
+        layouts.add(0, layout);
+        while (layouts.size() > MAX_LAYOUTS)
+            layouts.remove(layouts.size() - 1);
+    }
+
+    /**
+     * Keeps the layouts that are not affected by appending events after the
+     * current last event, and updates the file identification.
+     */
+    public void fileAppended(File file, long newLastEventNumber) {
+        layouts.removeIf(l -> l.lastEventNumber >= lastEventNumber);
+        setFile(file, newLastEventNumber);
+    }
+
+    public void clear() {
+        fileSize = fileLastModified = lastEventNumber = -1;
+        nonLinearFocus = -1;
+        layouts.clear();
+    }
+}
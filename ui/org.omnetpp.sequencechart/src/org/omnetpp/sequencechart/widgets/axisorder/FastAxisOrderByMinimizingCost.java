@@ -0,0 +1,252 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2020 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.sequencechart.widgets.axisorder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.omnetpp.common.Debug;
+import org.omnetpp.common.eventlog.EventLogInput;
+import org.omnetpp.common.eventlog.ModuleTreeItem;
+import org.omnetpp.eventlog.IEvent;
+import org.omnetpp.eventlog.SequenceChartFacade;
+
+/**
+ * This class implements a fast heuristic for the cost minimized by FlatAxisOrderByMinimizingCost,
+ * i.e. the sum of squared axis distances of message dependencies in a statistical sample from the
+ * eventlog. It is intended for models with thousands of axes, where the bubble sort would not even
+ * finish a single pass within the time limit.
+ *
+ * The initial ordering is spectral: axes are sorted by their component in the Fiedler vector of the
+ * Laplacian of the weighted dependency graph, which is computed by power iteration. This ordering is
+ * then refined by swapping pairs of axes within a window. The cost change of a swap is computed
+ * incrementally from the neighbors of the two axes; candidate swaps are evaluated in parallel, and
+ * applied sequentially if they still decrease the cost. The window grows when there are no more
+ * improving swaps. The dependency graph is stored in a compact sparse form.
+ */
+public class FastAxisOrderByMinimizingCost {
+    private static final boolean debug = false;
+
+    private EventLogInput eventLogInput;
+    private IEvent startEvent;
+    private IEvent endEvent;
+
+    private static final int TIME_LIMIT = 1000; // in milliseconds
+    private static final int MAX_POWER_ITERATIONS = 500;
+    private static final int INITIAL_SWAP_WINDOW = 8;
+    private static final int MAX_SWAP_WINDOW = 512;
+    private static final int MIN_PARALLEL_AXES = 256; // below this, parallel evaluation does not pay off
+
+    // symmetric weight matrix in compressed sparse row format, without the diagonal
+    private int numberOfAxes;
+    private int[] rowStart;
+    private int[] columns;
+    private int[] weights;
+
+    public FastAxisOrderByMinimizingCost(EventLogInput eventLogInput, IEvent startEvent, IEvent endEvent) {
+        this.eventLogInput = eventLogInput;
+        this.startEvent = startEvent;
+        this.endEvent = endEvent;
+    }
+
+    public int[] calculateOrdering(ModuleTreeItem[] axisModules, Map<Integer, Integer> moduleIdToAxisModuleIndexMap) {
+        long begin = System.currentTimeMillis();
+        long deadline = begin + TIME_LIMIT;
+        int eventCount = 1000;
+        SequenceChartFacade sequenceChartFacade = eventLogInput.getSequenceChartFacade();
+        boolean isSmallEventRange = endEvent != null && startEvent != null ? endEvent.getEventNumber() - startEvent.getEventNumber() < eventCount : true;
+        int[] adjacencyMatrix = isSmallEventRange ?
+                sequenceChartFacade.getMessageDependencyCountAdjacencyArray(moduleIdToAxisModuleIndexMap, startEvent, endEvent, 1, 0) :
+                sequenceChartFacade.getApproximateMessageDependencyCountAdjacencyArray(moduleIdToAxisModuleIndexMap, eventCount, 1, 0);
+        buildWeightMatrix(adjacencyMatrix, axisModules.length);
+
+        int[] order = calculateSpectralOrder(deadline); // axis indices by position
+        long initialCost = debug ? calculateCost(getPositions(order)) : 0;
+        refineOrder(order, deadline);
+
+        if (debug)
+            Debug.println("FastAxisOrderByMinimizingCost: " + numberOfAxes + " axes, cost " + initialCost + " -> " + calculateCost(getPositions(order)) + " in " + (System.currentTimeMillis() - begin) + "ms");
+        return getPositions(order);
+    }
+
+    private void buildWeightMatrix(int[] adjacencyMatrix, int numberOfAxes) {
+        int matrixSize = (int)Math.round(Math.sqrt(adjacencyMatrix.length));
+        int n = Math.min(numberOfAxes, matrixSize);
+        this.numberOfAxes = numberOfAxes;
+        rowStart = new int[numberOfAxes + 1];
+        int count = 0;
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                if (i != j && adjacencyMatrix[i * matrixSize + j] + adjacencyMatrix[j * matrixSize + i] != 0)
+                    count++;
+        columns = new int[count];
+        weights = new int[count];
+        int k = 0;
+        for (int i = 0; i < numberOfAxes; i++) {
+            rowStart[i] = k;
+            if (i < n) {
+                for (int j = 0; j < n; j++) {
+                    int weight = i == j ? 0 : adjacencyMatrix[i * matrixSize + j] + adjacencyMatrix[j * matrixSize + i];
+                    if (weight != 0) {
+                        columns[k] = j;
+                        weights[k] = weight;
+                        k++;
+                    }
+                }
+            }
+        }
+        rowStart[numberOfAxes] = k;
+    }
+
+    /**
+     * Approximates the Fiedler vector (the eigenvector of the second smallest eigenvalue
+     * of the graph Laplacian L) by power iteration on cI - L, keeping the iterate orthogonal
+     * to the constant vector, and returns the axes sorted by their components. The iteration
+     * starts from the current order, so axes without dependencies roughly keep their place.
+     */
+    private int[] calculateSpectralOrder(long deadline) {
+        int n = numberOfAxes;
+        double[] degrees = new double[n];
+        double maxDegree = 0;
+        for (int i = 0; i < n; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+                degrees[i] += weights[k];
+            maxDegree = Math.max(maxDegree, degrees[i]);
+        }
+        double shift = 2 * maxDegree + 1; // upper bound of the largest eigenvalue of L
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = i - (n - 1) / 2.0;
+        normalize(x);
+        double[] y = new double[n];
+        for (int iteration = 0; iteration < MAX_POWER_ITERATIONS && maxDegree > 0 && System.currentTimeMillis() < deadline; iteration++) {
+            final double[] xx = x, yy = y;
+            forEachAxis(i -> {
+                double sum = (shift - degrees[i]) * xx[i];
+                for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+                    sum += weights[k] * xx[columns[k]];
+                yy[i] = sum;
+            });
+            double mean = Arrays.stream(y).sum() / n;
+            for (int i = 0; i < n; i++)
+                y[i] -= mean;
+            if (!normalize(y))
+                break;
+            x = y;
+            y = xx;
+        }
+
+        final double[] fiedler = x;
+        return IntStream.range(0, n).boxed()
+                .sorted((i, j) -> fiedler[i] != fiedler[j] ? Double.compare(fiedler[i], fiedler[j]) : Integer.compare(i, j))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Improves the order in place by swapping pairs of axes that are at most a window apart.
+     */
+    private void refineOrder(int[] order, long deadline) {
+        int n = numberOfAxes;
+        int[] positions = getPositions(order);
+        int[] bestPartners = new int[n];
+        int window = INITIAL_SWAP_WINDOW;
+
+        while (System.currentTimeMillis() < deadline) {
+            // evaluate the best swap partner for each position; only reads order and positions
+            final int w = window;
+            forEachAxis(p -> {
+                long bestDelta = 0;
+                int bestPartner = -1;
+                for (int q = p + 1; q <= p + w && q < n; q++) {
+                    long delta = calculateSwapDelta(order[p], order[q], positions);
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestPartner = q;
+                    }
+                }
+                bestPartners[p] = bestPartner;
+            });
+
+            // apply the candidates, re-checking them because earlier swaps may have changed their cost
+            boolean improved = false;
+            for (int p = 0; p < n; p++) {
+                int q = bestPartners[p];
+                if (q >= 0 && calculateSwapDelta(order[p], order[q], positions) < 0) {
+                    int a = order[p], b = order[q];
+                    order[p] = b;
+                    order[q] = a;
+                    positions[a] = q;
+                    positions[b] = p;
+                    improved = true;
+                }
+            }
+
+            if (!improved) {
+                if (window >= Math.min(n, MAX_SWAP_WINDOW))
+                    break;
+                window *= 2;
+            }
+        }
+    }
+
+    /**
+     * Returns the change of the cost if axes a and b swapped positions. Only the dependencies
+     * of a and b are affected; the distance between a and b themselves does not change.
+     */
+    private long calculateSwapDelta(int a, int b, int[] positions) {
+        long pa = positions[a], pb = positions[b];
+        long delta = 0;
+        for (int k = rowStart[a]; k < rowStart[a + 1]; k++) {
+            int c = columns[k];
+            if (c != b)
+                delta += weights[k] * (pb - pa) * (pb + pa - 2 * positions[c]);
+        }
+        for (int k = rowStart[b]; k < rowStart[b + 1]; k++) {
+            int c = columns[k];
+            if (c != a)
+                delta += weights[k] * (pa - pb) * (pa + pb - 2 * positions[c]);
+        }
+        return delta;
+    }
+
+    private long calculateCost(int[] positions) {
+        long cost = 0;
+        for (int i = 0; i < numberOfAxes; i++)
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                long d = positions[i] - positions[columns[k]];
+                cost += weights[k] * d * d;
+            }
+        return cost / 2;
+    }
+
+    private void forEachAxis(IntConsumer action) {
+        IntStream range = IntStream.range(0, numberOfAxes);
+        if (numberOfAxes >= MIN_PARALLEL_AXES)
+            range = range.parallel();
+        range.forEach(action);
+    }
+
+    private static boolean normalize(double[] x) {
+        double norm = Math.sqrt(Arrays.stream(x).map(v -> v * v).sum());
+        if (norm == 0 || Double.isNaN(norm))
+            return false;
+        for (int i = 0; i < x.length; i++)
+            x[i] /= norm;
+        return true;
+    }
+
+    private static int[] getPositions(int[] order) {
+        int[] positions = new int[order.length];
+        for (int p = 0; p < order.length; p++)
+            positions[order[p]] = p;
+        return positions;
+    }
+}
@@ -0,0 +1,147 @@
+/*--------------------------------------------------------------*
+  Copyright (C) 2006-2015 OpenSim Ltd.
+
+  This file is distributed WITHOUT ANY WARRANTY. See the file
+  'License' for details on this and other legal matters.
+*--------------------------------------------------------------*/
+
+package org.omnetpp.test.unit.eventlog;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.omnetpp.eventlog.FileReader;
+
+/**
+ * Compares the memory mapped Java FileReader with the native one on forward
+ * scan, backward scan and random seek. Both readers must return the same lines.
+ *
+ * The eventlog file can be specified with the org.omnetpp.test.unit.eventlog
+ * system property, otherwise a synthetic one is generated.
+ */
+public class FileReaderBenchmark extends TestCase {
+    private static final int NUM_EVENTS = 200000;
+    private static final int NUM_SEEKS = 100000;
+
+    private String fileName;
+    private File generatedFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        fileName = System.getProperty("org.omnetpp.test.unit.eventlog");
+        if (fileName == null) {
+            generatedFile = File.createTempFile("filereader", ".elog");
+            generateEventLog(generatedFile);
+            fileName = generatedFile.getPath();
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (generatedFile != null)
+            generatedFile.delete();
+    }
+
+    @Test
+    public void testForwardScan() {
+        FileReader javaReader = new FileReader(fileName);
+        org.omnetpp.eventlog.engine.FileReader nativeReader = new org.omnetpp.eventlog.engine.FileReader(fileName);
+        long javaTime = System.nanoTime();
+        long javaChecksum = 0;
+        javaReader.seekTo(0);
+        while (javaReader.getNextLineBufferOffset() != -1)
+            javaChecksum += javaReader.getCurrentLineStartOffset();
+        javaTime = System.nanoTime() - javaTime;
+        long nativeTime = System.nanoTime();
+        long nativeChecksum = 0;
+        nativeReader.seekTo(0);
+        while (nativeReader.getNextLine() != null)
+            nativeChecksum += nativeReader.getCurrentLineStartOffset();
+        nativeTime = System.nanoTime() - nativeTime;
+        assertEquals(nativeChecksum, javaChecksum);
+        report("forward scan", javaTime, nativeTime);
+        javaReader.ensureFileClosed();
+        nativeReader.delete();
+    }
+
+    @Test
+    public void testBackwardScan() {
+        FileReader javaReader = new FileReader(fileName);
+        org.omnetpp.eventlog.engine.FileReader nativeReader = new org.omnetpp.eventlog.engine.FileReader(fileName);
+        long javaTime = System.nanoTime();
+        long javaChecksum = 0;
+        javaReader.seekTo(javaReader.getFileSize());
+        while (javaReader.getPreviousLineBufferOffset() != -1)
+            javaChecksum += javaReader.getCurrentLineStartOffset();
+        javaTime = System.nanoTime() - javaTime;
+        long nativeTime = System.nanoTime();
+        long nativeChecksum = 0;
+        nativeReader.seekTo(nativeReader.getFileSize());
+        while (nativeReader.getPreviousLine() != null)
+            nativeChecksum += nativeReader.getCurrentLineStartOffset();
+        nativeTime = System.nanoTime() - nativeTime;
+        assertEquals(nativeChecksum, javaChecksum);
+        report("backward scan", javaTime, nativeTime);
+        javaReader.ensureFileClosed();
+        nativeReader.delete();
+    }
+
+    @Test
+    public void testRandomSeek() {
+        FileReader javaReader = new FileReader(fileName);
+        org.omnetpp.eventlog.engine.FileReader nativeReader = new org.omnetpp.eventlog.engine.FileReader(fileName);
+        long fileSize = javaReader.getFileSize();
+        long[] offsets = new long[NUM_SEEKS];
+        Random random = new Random(0);
+        for (int i = 0; i < offsets.length; i++)
+            offsets[i] = (long)(random.nextDouble() * fileSize);
+        long javaTime = System.nanoTime();
+        long javaChecksum = 0;
+        for (long offset : offsets) {
+            javaReader.seekTo(offset);
+            if (javaReader.getNextLineBufferOffset() != -1)
+                javaChecksum += javaReader.getCurrentLineStartOffset();
+            if (javaReader.getPreviousLineBufferOffset() != -1)
+                javaChecksum += javaReader.getCurrentLineStartOffset();
+        }
+        javaTime = System.nanoTime() - javaTime;
+        long nativeTime = System.nanoTime();
+        long nativeChecksum = 0;
+        for (long offset : offsets) {
+            nativeReader.seekTo(offset);
+            if (nativeReader.getNextLine() != null)
+                nativeChecksum += nativeReader.getCurrentLineStartOffset();
+            if (nativeReader.getPreviousLine() != null)
+                nativeChecksum += nativeReader.getCurrentLineStartOffset();
+        }
+        nativeTime = System.nanoTime() - nativeTime;
+        assertEquals(nativeChecksum, javaChecksum);
+        report("random seek", javaTime, nativeTime);
+        javaReader.ensureFileClosed();
+        nativeReader.delete();
+    }
+
+    private void report(String name, long javaTime, long nativeTime) {
+        System.out.println(String.format("FileReader %s: java %.1f ms, native %.1f ms, file %s", name, javaTime / 1E+6, nativeTime / 1E+6, fileName));
+    }
+
+    private static void generateEventLog(File file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("SB v 1537 rid Net-0-20240101-00:00:00-1234 b 1000\n\n");
+            for (int i = 0; i < NUM_EVENTS; i++) {
+                writer.write("E # " + i + " t " + (i * 0.001) + " m 2 ce " + (i - 1) + " msg " + i + "\n");
+                writer.write("- processing message " + i + "\n");
+                writer.write("BS id " + (i + 1) + " tid " + (i + 1) + " eid " + (i + 1) + " etid " + (i + 1) + " c omnetpp::cMessage n \"msg " + i + "\" pe " + i + "\n");
+                writer.write("SH sm 2 sg 0\n");
+                writer.write("ES t " + ((i + 1) * 0.001) + "\n");
+                writer.write("\n");
+            }
+        }
+    }
+}